@@ -1,25 +1,27 @@
 package pl.mwasyluk.ouroom_server.controllers;
 
-import java.util.Collection;
-import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.RequiredArgsConstructor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
-import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.domain.user.AuthProvider;
+import pl.mwasyluk.ouroom_server.domain.user.UserAuthority;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
-import pl.mwasyluk.ouroom_server.dto.user.UserDetailsView;
-import pl.mwasyluk.ouroom_server.repos.ChatRepository;
-import pl.mwasyluk.ouroom_server.repos.UserRepository;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatsPageForm;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
+import pl.mwasyluk.ouroom_server.dto.user.UsersPageForm;
+import pl.mwasyluk.ouroom_server.services.admin.AdminService;
 import pl.mwasyluk.ouroom_server.services.user.UserService;
 
 import static pl.mwasyluk.ouroom_server.services.PrincipalValidator.validateAdminPrincipal;
@@ -31,26 +33,58 @@ import static pl.mwasyluk.ouroom_server.services.PrincipalValidator.validateAdmi
 @RequestMapping("${server.api.prefix}/admin")
 public class AdminController {
     private final UserService userService;
-    private final ChatRepository chatRepository;
-    private final UserRepository userRepository;
+    private final AdminService adminService;
 
-    @Operation(summary = "Get all existing user details or particular by ID")
+    private static UsersPageForm usersPageForm(String after, Integer limit, Boolean enabled, AuthProvider provider,
+                                               UserAuthority authority) {
+        UsersPageForm form = new UsersPageForm();
+        form.setAfter(after);
+        form.setLimit(limit);
+        form.setEnabled(enabled);
+        form.setProvider(provider);
+        form.setAuthority(authority);
+        return form;
+    }
+
+    @Operation(summary = "Get a page of user details or particular by ID",
+               description = "Returns the users ordered by their IDs, optionally filtered by the account state, "
+                             + "the provider and the authority. The 'after' cursor continues the listing.")
     @GetMapping("/users")
     public ResponseEntity<?> getAllUserDetails(
-            @RequestParam(required = false) UUID userId
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) AuthProvider provider,
+            @RequestParam(required = false) UserAuthority authority
     ) {
         validateAdminPrincipal();
 
         if (userId == null) {
-            return getAllUserDetails();
+            return ResponseEntity.ok(
+                    adminService.readUsersPage(usersPageForm(after, limit, enabled, provider, authority)));
         } else {
             return getUserDetailsByUserId(userId);
         }
     }
 
-    private ResponseEntity<?> getAllUserDetails() {
-        List<User> all = userRepository.findAll();
-        return ResponseEntity.ok(all.stream().map(UserDetailsView::new).collect(Collectors.toList()));
+    @Operation(summary = "Export all user details",
+               description = "Streams the users matching the filters as newline-delimited JSON, ordered by their "
+                             + "IDs.")
+    @GetMapping(value = "/users/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUserDetails(
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) AuthProvider provider,
+            @RequestParam(required = false) UserAuthority authority
+    ) {
+        validateAdminPrincipal();
+
+        StreamingResponseBody body =
+                adminService.exportUsers(usersPageForm(null, null, enabled, provider, authority));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     private ResponseEntity<?> getUserDetailsByUserId(UUID userId) {
@@ -68,13 +102,31 @@ public class AdminController {
         return ResponseEntity.ok().build();
     }
 
-    @Operation(summary = "Get all existing chat presentables")
+    @Operation(summary = "Get a page of existing chat presentables",
+               description = "Returns the chats ordered by their IDs. The 'after' cursor continues the listing.")
     @GetMapping("/chats")
-    public ResponseEntity<Collection<ChatPresentableView>> readAll() {
+    public ResponseEntity<PageView<ChatPresentableView>> readAll(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit
+    ) {
+        validateAdminPrincipal();
+
+        ChatsPageForm form = new ChatsPageForm();
+        form.setAfter(after);
+        form.setLimit(limit);
+
+        return ResponseEntity.ok(adminService.readChatsPage(form));
+    }
+
+    @Operation(summary = "Export all existing chat presentables",
+               description = "Streams the chats as newline-delimited JSON, ordered by their IDs.")
+    @GetMapping(value = "/chats/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAll() {
         validateAdminPrincipal();
 
-        return ResponseEntity.ok(chatRepository.findAll().stream()
-                .map(ChatPresentableView::new)
-                .collect(Collectors.toList()));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"chats.ndjson\"")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(adminService.exportChats());
     }
 }
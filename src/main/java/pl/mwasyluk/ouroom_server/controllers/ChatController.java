@@ -19,7 +19,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import pl.mwasyluk.ouroom_server.dto.chat.ChatDetailsView;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatForm;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxPageForm;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxView;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
 import pl.mwasyluk.ouroom_server.services.chat.ChatService;
 
 @Tag(name = "Chat API")
@@ -36,6 +39,22 @@ public class ChatController {
         return ResponseEntity.ok(chatService.readAllWithPrincipal());
     }
 
+    @Operation(summary = "Get a page of the inbox of principal",
+               description = "Returns the chats of principal from the most recently active one, together with "
+                             + "the preview of their newest sendables and the amounts of unread ones. The 'before' "
+                             + "cursor continues the listing.")
+    @GetMapping("/inbox")
+    public ResponseEntity<PageView<ChatInboxView>> readInbox(
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit
+    ) {
+        ChatInboxPageForm form = new ChatInboxPageForm();
+        form.setBefore(before);
+        form.setLimit(limit);
+
+        return ResponseEntity.ok(chatService.readInboxOfPrincipal(form));
+    }
+
     @Operation(summary = "Get chat details by ID")
     @GetMapping("/details")
     public ResponseEntity<ChatDetailsView> readDetails(
@@ -57,19 +76,23 @@ public class ChatController {
         return ResponseEntity.ok(chatService.create(form));
     }
 
-    @Operation(summary = "Update chat presentable by ID")
+    @Operation(summary = "Update chat presentable by ID",
+               description = "Given the version of the read chat, the update fails with CONFLICT if the chat has "
+                             + "changed since then.")
     @PatchMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ChatPresentableView> update(
             @RequestParam UUID chatId,
             @RequestParam(required = false) String name,
             @RequestParam(required = false) boolean clearImage,
-            @RequestParam(required = false) MultipartFile file
+            @RequestParam(required = false) MultipartFile file,
+            @RequestParam(required = false) Long version
     ) {
         ChatForm form = new ChatForm();
         form.setChatId(chatId);
         form.setName(name);
         form.setClearImage(clearImage);
         form.setFile(file);
+        form.setVersion(version);
 
         return ResponseEntity.ok(chatService.update(form));
     }
@@ -54,15 +54,21 @@ public class MemberController {
         return ResponseEntity.ok(memberService.createAll(form));
     }
 
-    @Operation(summary = "Update all members in membership")
+    @Operation(summary = "Update all members in membership",
+               description = "Given the versions of the read members, at the positions of their IDs in "
+                             + "memberIdList, the update fails with CONFLICT if any of them has changed since then.")
     @PatchMapping
     public ResponseEntity<Collection<MemberPresentableView>> updateAll(
             @RequestParam UUID membershipId,
-            @RequestBody Map<UUID, EnumSet<MemberPrivilege>> members
+            @RequestBody Map<UUID, EnumSet<MemberPrivilege>> members,
+            @RequestParam(required = false) List<UUID> memberIdList,
+            @RequestParam(required = false) List<Long> versionList
     ) {
         MembersForm form = new MembersForm();
         form.setMembershipId(membershipId);
         form.setMembers(members);
+        form.setVersionedMemberIds(memberIdList);
+        form.setVersions(versionList);
 
         return ResponseEntity.ok(memberService.updateAll(form));
     }
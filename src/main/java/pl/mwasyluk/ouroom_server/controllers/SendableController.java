@@ -1,27 +1,33 @@
 package pl.mwasyluk.ouroom_server.controllers;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.RequiredArgsConstructor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
-import pl.mwasyluk.ouroom_server.domain.media.Media;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableState;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableChangesView;
 import pl.mwasyluk.ouroom_server.dto.sendable.SendableForm;
 import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
-import pl.mwasyluk.ouroom_server.services.media.MediaService;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesPageForm;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesRemovalForm;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesRemovedView;
 import pl.mwasyluk.ouroom_server.services.sendable.SendableService;
 
 @Tag(name = "Sendable API")
@@ -31,18 +37,77 @@ import pl.mwasyluk.ouroom_server.services.sendable.SendableService;
 @RequestMapping(value = "${server.api.prefix}/sendables")
 public class SendableController {
     private final SendableService sendableService;
-    private final MediaService mediaService;
 
-    @Operation(summary = "Get all sendables by container ID")
+    @Operation(summary = "Get a page of sendables by container ID",
+               description = "Returns the newest sendables unless a cursor is given. The 'before' cursor pages "
+                             + "towards older sendables and the 'after' cursor towards newer ones. The cursors "
+                             + "are sequence numbers, so a gap between the received sendables is filled by a page "
+                             + "after the sequence number preceding it.")
     @GetMapping
-    public ResponseEntity<Collection<SendableView>> readAllByContainerId(
+    public ResponseEntity<PageView<SendableView>> readPageByContainerId(
+            @RequestParam UUID containerId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit
+    ) {
+        SendablesPageForm form = new SendablesPageForm();
+        form.setContainerId(containerId);
+        form.setBefore(before);
+        form.setAfter(after);
+        form.setLimit(limit);
+
+        return ResponseEntity.ok(sendableService.readPageFromContainer(form));
+    }
+
+    @Operation(summary = "Get changes of sendables by container ID",
+               description = "Returns the sendables created, changed and removed since the given revision. "
+                             + "Without a revision returns only the latest one to synchronize from.")
+    @GetMapping("/changes")
+    public ResponseEntity<SendableChangesView> readChangesByContainerId(
+            @RequestParam UUID containerId,
+            @RequestParam(required = false) Long since
+    ) {
+        return ResponseEntity.ok(sendableService.readChangesFromContainer(containerId, since));
+    }
+
+    @Operation(summary = "Search sendables by container ID",
+               description = "Returns the newest sendables with every word of the query matching a beginning "
+                             + "of any word of their messages.")
+    @GetMapping("/search")
+    public ResponseEntity<List<SendableView>> searchByContainerId(
+            @RequestParam UUID containerId,
+            @RequestParam String q
+    ) {
+        return ResponseEntity.ok(sendableService.searchInContainer(containerId, q));
+    }
+
+    @Operation(summary = "Get pinned sendables by container ID",
+               description = "Returns the pinned sendables from the most recently pinned one.")
+    @GetMapping("/pinned")
+    public ResponseEntity<List<SendableView>> readPinnedByContainerId(
+            @RequestParam UUID containerId
+    ) {
+        return ResponseEntity.ok(sendableService.readPinnedFromContainer(containerId));
+    }
+
+    @Operation(summary = "Export all sendables by container ID",
+               description = "Streams the whole history of the container as newline-delimited JSON, "
+                             + "from the oldest sendable.")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportByContainerId(
             @RequestParam UUID containerId
     ) {
-        return ResponseEntity.ok(sendableService.readAllFromContainer(containerId));
+        StreamingResponseBody body = sendableService.exportFromContainer(containerId);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + containerId + ".ndjson\"")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @Operation(summary = "Create new sendable",
-               description = "Persists sent files and appends their URLs to sendable's content.")
+               description = "Persists sent files concurrently and attaches them to the sendable by their IDs. "
+                             + "The files are persisted only once the ADD_MESSAGES privilege has been verified. "
+                             + "The message may be left empty only if any file is sent.")
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<SendableView> create(
             @RequestParam UUID containerId,
@@ -51,30 +116,35 @@ public class SendableController {
     ) {
         SendableForm form = new SendableForm();
         form.setContainerId(containerId);
+        form.setMessage(message);
+
+        return ResponseEntity.ok(sendableService.create(form, file == null ? List.of() : file));
+    }
 
-        String finalMessage = message == null || message.isBlank() ? "" : message + "\n";
-        if (file != null && file.size() > 0) {
-            StringBuilder textBuilder = new StringBuilder(finalMessage);
-            for (MultipartFile f : file) {
-                Media targetMedia = mediaService.create(f);
-                textBuilder.append(targetMedia.getInternalUrl()).append("\n");
-            }
-            finalMessage = textBuilder.toString();
-        }
-        form.setMessage(finalMessage);
-
-        return ResponseEntity.ok(sendableService.create(form));
+    @Operation(summary = "Create new sendables in a batch",
+               description = "Every sendable requires a client-generated idempotency key. A resent key does not "
+                             + "create a new sendable, but returns the one created before. The returned "
+                             + "sendables follow the order of the batch.")
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<SendableView>> createAll(
+            @RequestBody List<SendableForm> sendables
+    ) {
+        return ResponseEntity.ok(sendableService.createAll(sendables));
     }
 
-    @Operation(summary = "Update sendable by ID")
+    @Operation(summary = "Update sendable by ID",
+               description = "Requires the version of the read sendable, the update fails with CONFLICT if the "
+                             + "sendable has changed since then.")
     @PatchMapping
     public ResponseEntity<SendableView> update(
             @RequestParam UUID sendableId,
-            @RequestParam String message
+            @RequestParam String message,
+            @RequestParam Long version
     ) {
         SendableForm form = new SendableForm();
         form.setSendableId(sendableId);
         form.setMessage(message);
+        form.setVersion(version);
 
         return ResponseEntity.ok(sendableService.update(form));
     }
@@ -87,4 +157,49 @@ public class SendableController {
         sendableService.delete(sendableId);
         return ResponseEntity.ok().build();
     }
+
+    @Operation(summary = "Delete sendables of a container by criteria",
+               description = "Deletes the sendables of the container matching all the given criteria: the creator, "
+                             + "the range of creation times and the list of IDs. Requires the DELETE_MESSAGES "
+                             + "privilege. Archived sendables are not affected. A single request removes a limited "
+                             + "amount of sendables, it has to be repeated as long as the response reports more.")
+    @PostMapping(value = "/bulk-delete", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SendablesRemovedView> deleteAll(
+            @RequestBody SendablesRemovalForm removalForm
+    ) {
+        return ResponseEntity.ok(sendableService.deleteAll(removalForm));
+    }
+
+    @Operation(summary = "Pin sendable by ID")
+    @PostMapping("/pin")
+    public ResponseEntity<?> pin(
+            @RequestParam UUID sendableId
+    ) {
+        sendableService.pin(sendableId);
+        return ResponseEntity.ok().build();
+    }
+
+    @Operation(summary = "Unpin sendable by ID",
+               description = "Removes the pin of the sendable from the container, even if the sendable has been "
+                             + "archived or removed. Requires the PIN_MESSAGES privilege.")
+    @DeleteMapping("/pin")
+    public ResponseEntity<?> unpin(
+            @RequestParam UUID containerId,
+            @RequestParam UUID sendableId
+    ) {
+        sendableService.unpin(containerId, sendableId);
+        return ResponseEntity.ok().build();
+    }
+
+    @Operation(summary = "Mark sendables as read or delivered",
+               description = "Marks the sendable and all older sendables of its container. "
+                             + "Marking as read marks as delivered as well.")
+    @PostMapping("/read")
+    public ResponseEntity<?> markUpTo(
+            @RequestParam UUID sendableId,
+            @RequestParam(defaultValue = "READ") SendableState state
+    ) {
+        sendableService.markUpTo(sendableId, state);
+        return ResponseEntity.ok().build();
+    }
 }
@@ -0,0 +1,33 @@
+package pl.mwasyluk.ouroom_server.controllers;
+
+import java.security.Principal;
+
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+import lombok.RequiredArgsConstructor;
+
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.chat.TypingForm;
+import pl.mwasyluk.ouroom_server.services.chat.TypingIndicators;
+
+/**
+ Receives typing events sent by the connected clients to {@code /app/typing}. The events are not acknowledged,
+ the invalid ones are dropped.
+ */
+@RequiredArgsConstructor
+
+@Controller
+public class TypingController {
+    private final TypingIndicators typingIndicators;
+
+    @MessageMapping("/typing")
+    public void publishTyping(@Payload TypingForm form, Principal principal) {
+        if (form.getChatId() == null || !(principal instanceof Authentication authentication)
+            || !(authentication.getPrincipal() instanceof User user)) {
+            return;
+        }
+        typingIndicators.publish(user.getId(), form.getChatId(), form.isTyping());
+    }
+}
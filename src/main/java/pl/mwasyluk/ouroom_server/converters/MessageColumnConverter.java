@@ -0,0 +1,99 @@
+package pl.mwasyluk.ouroom_server.converters;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import pl.mwasyluk.ouroom_server.exceptions.ConversionException;
+
+/**
+ Compresses messages of at least {@value #COMPRESSION_THRESHOLD} characters into a deflated, base64 encoded string
+ preceded by the {@code COMPRESSED_CODE} marker. A message is stored compressed only if that makes it shorter.
+ <br> Shorter messages are stored as they are, unless they start with one of the markers themselves, which are
+ then escaped by the {@code ESCAPED_CODE} marker.
+ */
+@Converter
+public class MessageColumnConverter implements AttributeConverter<String, String> {
+    public static final int COMPRESSION_THRESHOLD = 1024;
+    private static final char COMPRESSED_CODE = '\u0001';
+    private static final char ESCAPED_CODE = '\u0002';
+
+    private static boolean startsWithCode(String value) {
+        return !value.isEmpty() && (value.charAt(0) == COMPRESSED_CODE || value.charAt(0) == ESCAPED_CODE);
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream os = new ByteArrayOutputStream(bytes.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                os.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return os.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            ByteArrayOutputStream os = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ConversionException("Persisted message is truncated.");
+                }
+                os.write(buffer, 0, inflated);
+            }
+            return os.toByteArray();
+        } catch (DataFormatException e) {
+            throw new ConversionException("Persisted message could not be decompressed.");
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public String convertToDatabaseColumn(String message) {
+        if (message == null) {
+            return null;
+        }
+        if (message.length() >= COMPRESSION_THRESHOLD) {
+            byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            String compressed = COMPRESSED_CODE + Base64.getEncoder().encodeToString(deflate(bytes));
+            // the compressed value is ASCII only, so its length is also its size in bytes
+            if (compressed.length() < bytes.length) {
+                return compressed;
+            }
+        }
+        return startsWithCode(message) ? ESCAPED_CODE + message : message;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String value) {
+        if (value == null || !startsWithCode(value)) {
+            return value;
+        }
+        if (value.charAt(0) == ESCAPED_CODE) {
+            return value.substring(1);
+        }
+        try {
+            byte[] deflated = Base64.getDecoder().decode(value.substring(1));
+            return new String(inflate(deflated), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ConversionException("Persisted message could not be decoded.");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package pl.mwasyluk.ouroom_server.converters;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import pl.mwasyluk.ouroom_server.exceptions.ConversionException;
+
+/**
+ Stores a list of UUIDs as their concatenated 16-byte binary forms, keeping the order of the list.
+ */
+@Converter
+public class UuidListConverter implements AttributeConverter<List<UUID>, byte[]> {
+    public static final int UUID_LENGTH = 16;
+
+    @Override
+    public byte[] convertToDatabaseColumn(List<UUID> uuids) {
+        if (uuids == null || uuids.isEmpty()) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(uuids.size() * UUID_LENGTH);
+        for (UUID uuid : uuids) {
+            buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public List<UUID> convertToEntityAttribute(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new ArrayList<>();
+        }
+        if (bytes.length % UUID_LENGTH != 0) {
+            throw new ConversionException("Persisted UUID list is truncated.");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        List<UUID> uuids = new ArrayList<>(bytes.length / UUID_LENGTH);
+        while (buffer.hasRemaining()) {
+            uuids.add(new UUID(buffer.getLong(), buffer.getLong()));
+        }
+        return uuids;
+    }
+}
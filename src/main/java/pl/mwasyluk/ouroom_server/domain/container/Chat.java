@@ -1,5 +1,6 @@
 package pl.mwasyluk.ouroom_server.domain.container;
 
+import java.time.ZonedDateTime;
 import java.util.*;
 
 import lombok.AccessLevel;
@@ -9,12 +10,19 @@ import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 
+import pl.mwasyluk.ouroom_server.converters.UuidListConverter;
 import pl.mwasyluk.ouroom_server.domain.member.ChatMember;
 import pl.mwasyluk.ouroom_server.domain.member.Member;
 import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
@@ -29,6 +37,7 @@ import pl.mwasyluk.ouroom_server.domain.user.User;
  {@link MemberPrivilege} set.
  <br> It is different with {@link Sendable}s, the Chat receives ready-made instances, assign them to the Chat instance
  and stores.
+ <br> A deleted Chat loses its members at once and is kept only until its Sendables are purged (see ChatPurger).
  <br><B>Every chat instance has an owner user</B>. This user cannot be removed from the
  chat instance and its privileges are locked against modifications.
  */
@@ -37,11 +46,14 @@ import pl.mwasyluk.ouroom_server.domain.user.User;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 
 @Entity
+@Table(indexes = @Index(name = "chats_deleted_at_index", columnList = "deleted_at"))
 public class Chat extends BaseConversation {
     public static final EnumSet<MemberPrivilege> ADMIN_PRIVILEGES
             = EnumSet.copyOf(Arrays.asList(MemberPrivilege.values()));
     public static final EnumSet<MemberPrivilege> DEFAULT_PRIVILEGES
             = EnumSet.of(MemberPrivilege.ADD_MESSAGES);
+    public static final int PREVIEW_LENGTH = 100;
+    public static final int MAX_PINNED = 50;
 
     /**
      @param id
@@ -63,6 +75,13 @@ public class Chat extends BaseConversation {
     @ManyToOne(optional = false)
     protected User owner;
 
+    // Guards the entity updates only. The atomic queries of the columns below neither check nor increment it.
+    @Getter
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     @NonNull
     @ToString.Exclude
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true,
@@ -77,12 +96,57 @@ public class Chat extends BaseConversation {
                targetEntity = ChatSendable.class, mappedBy = "container")
     protected Collection<Sendable> sendables = new ArrayList<>();
 
+    // Counters kept along the collections, so reading them does not load or count the collections. The services
+    // update them with atomic queries instead (see ChatInbox).
+    // The columns updated by the atomic queries are not updatable by the entity, so saving a Chat read before any
+    // of these queries does not overwrite their results.
+    @Getter
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private int membersAmount;
+
+    @Getter
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private int sendablesAmount;
+
+    // The newest Sendable previewed in the inbox, see ChatInbox
+    @Getter
+    @Column(updatable = false)
+    private UUID lastSendableId;
+
+    @Getter
+    @Column(updatable = false)
+    private ZonedDateTime lastSendableAt;
+
+    @Getter
+    @Column(length = PREVIEW_LENGTH + 1, updatable = false)
+    private String lastSendablePreview;
+
+    // The most recently pinned Sendable first, 16 bytes per ID. Updated and cached by PinnedSendables.
+    @Getter
+    @Convert(converter = UuidListConverter.class)
+    @Column(length = MAX_PINNED * UuidListConverter.UUID_LENGTH, updatable = false)
+    private List<UUID> pinnedSendableIds = new ArrayList<>();
+
+    // Highest sequence number held by the Sendables of the chat, raised by ChatInbox after every insert
+    @Getter
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long lastSequence;
+
+    // Set by ChatPurger.markDeleted
+    @Getter
+    @Column(updatable = false)
+    private ZonedDateTime deletedAt;
+
     public Chat(@NonNull User owner) {
         this.owner = owner;
 
         ChatMember ownerMember = memberFactory.create(owner, ADMIN_PRIVILEGES);
         ownerMember.setLocked(true);
         members.add(ownerMember);
+        membersAmount = 1;
     }
 
     public Chat(@NonNull User owner, Map<User, Set<MemberPrivilege>> memberUserPrivilegesMap) {
@@ -91,9 +155,14 @@ public class Chat extends BaseConversation {
             Map<User, Set<MemberPrivilege>> targetMap = new HashMap<>(memberUserPrivilegesMap);
             targetMap.remove(owner);
             targetMap.forEach((user, privs) -> members.add(memberFactory.create(user, privs)));
+            membersAmount = members.size();
         }
     }
 
+    public boolean isDeleted() {
+        return deletedAt != null;
+    }
+
     private boolean hasAdminPrivileges(@NonNull Member member) {
         return member.hasPrivileges(ADMIN_PRIVILEGES);
     }
@@ -121,7 +190,11 @@ public class Chat extends BaseConversation {
             return false;
         }
 
-        return members.add(memberFactory.create(user, privileges));
+        if (!members.add(memberFactory.create(user, privileges))) {
+            return false;
+        }
+        membersAmount++;
+        return true;
     }
 
     @Override
@@ -129,7 +202,11 @@ public class Chat extends BaseConversation {
         if (userId.equals(owner.getId())) {
             return false;
         }
-        return members.removeIf(m -> m.getUser().getId().equals(userId) && m.destroy());
+        if (!members.removeIf(m -> m.getUser().getId().equals(userId) && m.destroy())) {
+            return false;
+        }
+        membersAmount--;
+        return true;
     }
 
     @Override
@@ -146,11 +223,16 @@ public class Chat extends BaseConversation {
     public boolean addSendable(@NonNull Sendable sendable) {
         sendables.add(sendable);
         sendable.setContainer(this);
+        sendablesAmount++;
         return true;
     }
 
     @Override
     public boolean removeSendableById(@NonNull UUID sendableId) {
-        return sendables.removeIf(s -> s.getId().equals(sendableId) && s.setContainer(null));
+        if (!sendables.removeIf(s -> s.getId().equals(sendableId) && s.setContainer(null))) {
+            return false;
+        }
+        sendablesAmount--;
+        return true;
     }
 }
@@ -21,7 +21,7 @@ public class Image extends Media {
 
     @Override
     protected void validate() {
-        String contentType = getDataSource().getContentType();
+        String contentType = getContentType();
         if (contentType == null || !MediaUtil.isImageType(contentType)) {
             throw new InitializationException(
                     "Cannot instantiate Image object with " + contentType + " media type.");
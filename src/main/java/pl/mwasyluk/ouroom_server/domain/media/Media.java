@@ -11,10 +11,15 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.PrimaryKeyJoinColumn;
 import jakarta.persistence.Transient;
 
 import pl.mwasyluk.ouroom_server.controllers.MediaController;
@@ -24,6 +29,11 @@ import pl.mwasyluk.ouroom_server.exceptions.InitializationException;
 import pl.mwasyluk.ouroom_server.exceptions.UnexpectedStateException;
 import pl.mwasyluk.ouroom_server.utils.MediaUtil;
 
+/**
+ Metadata of an uploaded media. Its payload is kept in a {@link MediaContent} of the same ID, loaded lazily on the
+ first access to the source, so the entities referring to an image (e.g. chats and user profiles) do not read its
+ bytes when they are listed.
+ */
 @Data
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -58,27 +68,43 @@ public abstract class Media extends Identifiable {
         }
     }
 
+    // not constrained at the database level, so the column can be added to a table with existing rows
     @Setter(AccessLevel.PRIVATE)
-    private DataSource dataSource;
+    private String contentType;
+
+    @ToString.Exclude
+    @OneToOne(fetch = FetchType.LAZY, optional = false, cascade = CascadeType.ALL, orphanRemoval = true)
+    @PrimaryKeyJoinColumn
+    @Setter(AccessLevel.PRIVATE)
+    private MediaContent content;
 
     protected Media(@NonNull DataSource dataSource) {
-        this.dataSource = dataSource;
+        this.contentType = dataSource.getContentType();
+        this.content = new MediaContent(getId(), dataSource);
         validate();
     }
 
     abstract protected void validate();
 
     public @NonNull MediaType getType() {
-        return MediaType.parseMediaType(dataSource.getContentType());
+        return MediaType.parseMediaType(contentType);
+    }
+
+    public @NonNull DataSource getDataSource() {
+        return content.getDataSource();
     }
 
     public @NonNull DataSource getSource() {
-        return dataSource;
+        return getDataSource();
     }
 
-    public @NonNull String getInternalUrl() {
+    public static @NonNull String internalUrlOf(@NonNull UUID mediaId) {
         return MvcUriComponentsBuilder
-                .fromMethod(MediaController.class, internalUrlMethod, getId())
+                .fromMethod(MediaController.class, internalUrlMethod, mediaId)
                 .toUriString();
     }
+
+    public @NonNull String getInternalUrl() {
+        return internalUrlOf(getId());
+    }
 }
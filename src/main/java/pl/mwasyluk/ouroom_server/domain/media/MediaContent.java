@@ -0,0 +1,45 @@
+package pl.mwasyluk.ouroom_server.domain.media;
+
+import java.util.UUID;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.ToString;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import pl.mwasyluk.ouroom_server.domain.media.source.DataSource;
+
+/**
+ Payload of a Media, stored apart from its metadata under the same ID, so it is read only when the content itself
+ is served.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+public class MediaContent {
+    // the length is large enough for any uploaded file, so the column is not limited to the default 255 bytes
+    public static final int MAX_CONTENT_LENGTH = 16 * 1024 * 1024;
+
+    @EqualsAndHashCode.Include
+    @Id
+    @Setter(AccessLevel.PRIVATE)
+    private UUID id;
+
+    @ToString.Exclude
+    @Column(nullable = false, updatable = false, length = MAX_CONTENT_LENGTH)
+    @Setter(AccessLevel.PRIVATE)
+    private DataSource dataSource;
+
+    protected MediaContent(@NonNull UUID id, @NonNull DataSource dataSource) {
+        this.id = id;
+        this.dataSource = dataSource;
+    }
+}
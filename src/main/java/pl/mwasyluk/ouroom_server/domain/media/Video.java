@@ -21,7 +21,7 @@ public class Video extends Media {
 
     @Override
     protected void validate() {
-        String contentType = getDataSource().getContentType();
+        String contentType = getContentType();
         if (contentType == null || !MediaUtil.isVideoType(contentType)) {
             throw new InitializationException(
                     "Cannot instantiate Video object with " + contentType + " media type.");
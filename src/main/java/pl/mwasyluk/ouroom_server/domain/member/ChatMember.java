@@ -1,5 +1,7 @@
 package pl.mwasyluk.ouroom_server.domain.member;
 
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.EnumSet;
 import java.util.Set;
 
@@ -10,10 +12,14 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import jakarta.persistence.Column;
 import jakarta.persistence.Convert;
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import pl.mwasyluk.ouroom_server.converters.MemberPrivilegeSetConverter;
 import pl.mwasyluk.ouroom_server.domain.container.Chat;
@@ -25,12 +31,18 @@ import pl.mwasyluk.ouroom_server.domain.user.User;
  Chat member is an entity that connects chat with its member users and their privileges.
  <br> Member privilege set can be empty (the user can only read messages) or contain any of available
  {@link MemberPrivilege}. A member with all available privileges is considered a chat admin.
+ <br> The read and delivered watermarks are the creation times of the newest Sendables the member has read and
+ received. All older Sendables of the chat are considered read or received as well.
+ <br> The inbox of the member is ordered by the time the member joined the chat or the creation time of the newest
+ Sendable of the chat, whichever is later. Neither it nor the unread amount is stored, so a new Sendable does not
+ update any member row.
  */
 @Data
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 
 @Entity
+@Table(indexes = @Index(name = "chat_members_user_index", columnList = "user_id, membership_id"))
 public class ChatMember implements Member {
     @Setter(AccessLevel.PRIVATE)
     @Getter(AccessLevel.PRIVATE)
@@ -45,6 +57,33 @@ public class ChatMember implements Member {
 
     private boolean locked;
 
+    // Guards the entity updates only. The watermarks below are updated by atomic queries, which neither check nor
+    // increment it, and are not updatable by the entity, so saving a stale member does not overwrite them.
+    @Setter(AccessLevel.NONE)
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    @Setter(AccessLevel.PROTECTED)
+    @Column(updatable = false)
+    private ZonedDateTime readUpTo;
+
+    // Sequence number of the newest Sendable read by the member, the unread amount is counted from it
+    @Setter(AccessLevel.PROTECTED)
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long readSequence;
+
+    @Setter(AccessLevel.PROTECTED)
+    @Column(updatable = false)
+    private ZonedDateTime deliveredUpTo;
+
+    @Setter(AccessLevel.PROTECTED)
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(nullable = false, updatable = false)
+    private ZonedDateTime joinedAt = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
     public ChatMember(@NonNull User user, @NonNull Membership membership, Set<MemberPrivilege> privileges) {
         this.memberId = new ChatMemberId(user, (Chat) membership);
         setPrivileges(privileges);
@@ -18,4 +18,6 @@ public interface Member {
     @NonNull Set<MemberPrivilege> getPrivileges();
     boolean setPrivileges(Set<MemberPrivilege> privileges);
     boolean hasPrivileges(@NonNull Set<MemberPrivilege> privileges);
+
+    long getVersion();
 }
@@ -1,6 +1,7 @@
 package pl.mwasyluk.ouroom_server.domain.sendable;
 
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 
 import lombok.AccessLevel;
 import lombok.Data;
@@ -9,11 +10,13 @@ import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import lombok.Setter;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.MappedSuperclass;
 
+import pl.mwasyluk.ouroom_server.converters.MessageColumnConverter;
 import pl.mwasyluk.ouroom_server.domain.Identifiable;
 import pl.mwasyluk.ouroom_server.domain.user.User;
 
@@ -41,15 +44,22 @@ public abstract class BaseSendable extends Identifiable implements Sendable {
     @NonNull
     @Setter(AccessLevel.PROTECTED)
     @Column(columnDefinition = "text")
+    @Convert(converter = MessageColumnConverter.class)
     protected String message;
 
     @Setter(AccessLevel.PROTECTED)
     protected boolean edited;
 
     protected BaseSendable(@NonNull User creator, String message) {
+        this(creator);
         initMessage(message);
+    }
+
+    // leaves the message to be initialized by the subclass
+    protected BaseSendable(@NonNull User creator) {
         this.creator = creator;
-        this.createdAt = ZonedDateTime.now();
+        // truncated to the database precision so keyset cursors of fresh and loaded sendables are equal
+        this.createdAt = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
         this.state = SendableState.SENT;
     }
 
@@ -1,15 +1,26 @@
 package pl.mwasyluk.ouroom_server.domain.sendable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
 import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
+import pl.mwasyluk.ouroom_server.converters.UuidListConverter;
 import pl.mwasyluk.ouroom_server.domain.container.Chat;
 import pl.mwasyluk.ouroom_server.domain.container.SendablesContainer;
 import pl.mwasyluk.ouroom_server.domain.user.User;
@@ -20,15 +31,72 @@ import pl.mwasyluk.ouroom_server.exceptions.InitializationException;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 
 @Entity
-@Table(indexes = {@Index(name = "containers_index", columnList = "container_id")})
+@Table(indexes = {
+        @Index(name = "containers_created_at_index", columnList = "container_id, created_at, id"),
+        @Index(name = "containers_sequence_unique_index", columnList = "container_id, sequence", unique = true),
+        // resends of a key to the same container are rejected by the database, however they race
+        @Index(name = "containers_idempotency_key_index", columnList = "container_id, creator_id, idempotency_key",
+               unique = true)
+})
 public class ChatSendable extends BaseSendable {
+    public static final int MAX_ATTACHMENTS = 10;
+
     @ManyToOne(targetEntity = Chat.class)
     protected SendablesContainer container;
 
+    @Setter(AccessLevel.NONE)
+    @Column(name = "idempotency_key", updatable = false)
+    private UUID idempotencyKey;
+
+    // IDs of the attached Media, in the order they were sent
+    @Setter(AccessLevel.NONE)
+    @Convert(converter = UuidListConverter.class)
+    @Column(updatable = false, length = MAX_ATTACHMENTS * UuidListConverter.UUID_LENGTH)
+    private List<UUID> attachmentIds = new ArrayList<>();
+
+    // Dense number of the Sendable within its container, starting from 1. Assigned by SendableSequences in the
+    // transaction of the insert.
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long sequence;
+
+    @Setter(AccessLevel.NONE)
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     public ChatSendable(@NonNull User creator, String message) {
         super(creator, message);
     }
 
+    public ChatSendable(@NonNull User creator, String message, UUID idempotencyKey) {
+        this(creator, message, idempotencyKey, List.of());
+    }
+
+    /**
+     The message may be empty only if the Sendable has at least one attachment.
+     */
+    public ChatSendable(@NonNull User creator, String message, UUID idempotencyKey,
+                        @NonNull List<UUID> attachmentIds) {
+        super(creator);
+        if (attachmentIds.size() > MAX_ATTACHMENTS) {
+            throw new InitializationException(
+                    "Cannot initialize ChatSendable with more than " + MAX_ATTACHMENTS + " attachments.");
+        }
+        if (attachmentIds.isEmpty()) {
+            initMessage(message);
+        } else {
+            this.message = message == null ? "" : message.trim();
+        }
+        this.idempotencyKey = idempotencyKey;
+        this.attachmentIds = new ArrayList<>(attachmentIds);
+    }
+
+    public List<UUID> getAttachmentIds() {
+        return Collections.unmodifiableList(attachmentIds);
+    }
+
     @Override
     protected void initMessage(String message) {
         if (message == null || message.isBlank()) {
@@ -1,6 +1,7 @@
 package pl.mwasyluk.ouroom_server.domain.sendable;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import lombok.NonNull;
@@ -15,6 +16,9 @@ public interface Sendable {
     @NonNull SendableState getState();
     @NonNull String getMessage();
     boolean isEdited();
+    @NonNull List<UUID> getAttachmentIds();
+    long getVersion();
+    long getSequence();
 
     boolean updateState(SendableState newState);
     boolean updateMessage(String newMessage);
@@ -0,0 +1,66 @@
+package pl.mwasyluk.ouroom_server.domain.sendable;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import org.hibernate.annotations.ColumnDefault;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ Idempotency key of an archived Sendable, so a resend of the key is recognized after the Sendable has left the hot
+ table. The sequence number locates the Sendable within the archive segments of its container.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+@Table(indexes = {
+        @Index(name = "archive_keys_idempotency_key_index",
+               columnList = "container_id, creator_id, idempotency_key", unique = true)
+})
+public class SendableArchiveKey {
+    @NonNull
+    @Id
+    @EqualsAndHashCode.Include
+    private UUID sendableId;
+
+    @NonNull
+    @Column(name = "container_id", nullable = false, updatable = false)
+    private UUID containerId;
+
+    @NonNull
+    @Column(name = "creator_id", nullable = false, updatable = false)
+    private UUID creatorId;
+
+    @NonNull
+    @Column(name = "idempotency_key", nullable = false, updatable = false)
+    private UUID idempotencyKey;
+
+    @NonNull
+    @Column(nullable = false, updatable = false)
+    private ZonedDateTime createdAt;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long sequence;
+
+    public SendableArchiveKey(@NonNull UUID sendableId, @NonNull UUID containerId, @NonNull UUID creatorId,
+                              @NonNull UUID idempotencyKey, @NonNull ZonedDateTime createdAt, long sequence) {
+        this.sendableId = sendableId;
+        this.containerId = containerId;
+        this.creatorId = creatorId;
+        this.idempotencyKey = idempotencyKey;
+        this.createdAt = createdAt;
+        this.sequence = sequence;
+    }
+}
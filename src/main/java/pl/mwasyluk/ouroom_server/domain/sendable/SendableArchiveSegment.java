@@ -0,0 +1,87 @@
+package pl.mwasyluk.ouroom_server.domain.sendable;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import org.hibernate.annotations.ColumnDefault;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import pl.mwasyluk.ouroom_server.domain.Identifiable;
+
+/**
+ Immutable, compressed segment of archived Sendables of a single container.
+ <br> The content holds the Sendables in the order of their sequence numbers. The numbers of the first and the last
+ of them bound the segment, so the segments a page does not need are skipped without decompressing them. The keys of
+ the first and the last of them are kept along.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+@Table(indexes = {
+        @Index(name = "archive_segments_first_sequence_index", columnList = "container_id, first_sequence"),
+        @Index(name = "archive_segments_last_sequence_index", columnList = "container_id, last_sequence")
+})
+public class SendableArchiveSegment extends Identifiable {
+    public static final int MAX_CONTENT_LENGTH = 16 * 1024 * 1024;
+
+    @NonNull
+    @Column(name = "container_id", nullable = false, updatable = false)
+    private UUID containerId;
+
+    @NonNull
+    @Column(nullable = false, updatable = false)
+    private ZonedDateTime firstCreatedAt;
+
+    @NonNull
+    @Column(nullable = false, updatable = false)
+    private UUID firstSendableId;
+
+    @NonNull
+    @Column(nullable = false, updatable = false)
+    private ZonedDateTime lastCreatedAt;
+
+    @NonNull
+    @Column(nullable = false, updatable = false)
+    private UUID lastSendableId;
+
+    // the segments archived before the sequence numbers were introduced hold 0, see SendableSequencesMigration
+    @ColumnDefault("0")
+    @Column(name = "first_sequence", nullable = false, updatable = false)
+    private long firstSequence;
+
+    @ColumnDefault("0")
+    @Column(name = "last_sequence", nullable = false, updatable = false)
+    private long lastSequence;
+
+    @Column(updatable = false)
+    private int amount;
+
+    @NonNull
+    @Column(nullable = false, updatable = false, length = MAX_CONTENT_LENGTH)
+    private byte[] content;
+
+    public SendableArchiveSegment(@NonNull UUID containerId,
+                                  @NonNull ZonedDateTime firstCreatedAt, @NonNull UUID firstSendableId,
+                                  @NonNull ZonedDateTime lastCreatedAt, @NonNull UUID lastSendableId,
+                                  long firstSequence, long lastSequence, int amount, byte @NonNull [] content) {
+        this.containerId = containerId;
+        this.firstCreatedAt = firstCreatedAt;
+        this.firstSendableId = firstSendableId;
+        this.lastCreatedAt = lastCreatedAt;
+        this.lastSendableId = lastSendableId;
+        this.firstSequence = firstSequence;
+        this.lastSequence = lastSequence;
+        this.amount = amount;
+        this.content = content;
+    }
+}
@@ -0,0 +1,61 @@
+package pl.mwasyluk.ouroom_server.domain.sendable;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.Setter;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ Entry of the per-container change log of Sendables. Removals are kept as tombstones, so clients are able to
+ synchronize their local state from any revision they have seen.
+ */
+@Data
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+@Table(indexes = {@Index(name = "changes_container_revision_index", columnList = "container_id, revision")})
+public class SendableChange {
+    // sequence instead of identity keeps the change inserts batchable
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sendable_change_revision")
+    @SequenceGenerator(name = "sendable_change_revision", allocationSize = 50)
+    @Setter(AccessLevel.PROTECTED)
+    private Long revision;
+
+    @NonNull
+    @Column(name = "container_id", nullable = false)
+    private UUID containerId;
+
+    @NonNull
+    @Column(nullable = false)
+    private UUID sendableId;
+
+    @NonNull
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private SendableChangeType type;
+
+    @NonNull
+    private ZonedDateTime changedAt;
+
+    public SendableChange(@NonNull UUID containerId, @NonNull UUID sendableId, @NonNull SendableChangeType type) {
+        this.containerId = containerId;
+        this.sendableId = sendableId;
+        this.type = type;
+        this.changedAt = ZonedDateTime.now();
+    }
+}
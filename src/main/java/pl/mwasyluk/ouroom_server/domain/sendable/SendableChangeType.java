@@ -0,0 +1,5 @@
+package pl.mwasyluk.ouroom_server.domain.sendable;
+
+public enum SendableChangeType {
+    NEW, CHANGED, REMOVED
+}
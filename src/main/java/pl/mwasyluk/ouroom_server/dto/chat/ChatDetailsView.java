@@ -9,15 +9,19 @@ public record ChatDetailsView(
         String name,
         UUID imageId,
         int membersAmount,
-        int sendablesAmount
+        int sendablesAmount,
+        long unreadAmount,
+        long version
 ) {
-    public ChatDetailsView(Chat chat) {
+    public ChatDetailsView(Chat chat, long unreadAmount) {
         this(
                 chat.getId(),
                 chat.getName(),
                 chat.getImage() == null ? null : chat.getImage().getId(),
-                chat.getAllMembers().size(),
-                chat.getAllSendables().size()
+                chat.getMembersAmount(),
+                chat.getSendablesAmount(),
+                unreadAmount,
+                chat.getVersion()
         );
     }
 }
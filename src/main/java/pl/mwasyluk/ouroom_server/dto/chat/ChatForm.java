@@ -11,6 +11,7 @@ public class ChatForm {
     private String name;
     private boolean clearImage;
     private MultipartFile file;
+    private Long version;
 
     public String getName() {
         return name == null || name.isBlank() ? null : name.trim();
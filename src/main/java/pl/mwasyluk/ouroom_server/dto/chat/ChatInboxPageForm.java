@@ -0,0 +1,20 @@
+package pl.mwasyluk.ouroom_server.dto.chat;
+
+import lombok.Data;
+
+@Data
+public class ChatInboxPageForm {
+    public static final int DEFAULT_LIMIT = 30;
+    public static final int MAX_LIMIT = 100;
+
+    private String before;
+    private Integer limit;
+
+    public String getBefore() {
+        return before == null || before.isBlank() ? null : before.trim();
+    }
+
+    public int getLimit() {
+        return limit == null ? DEFAULT_LIMIT : limit;
+    }
+}
@@ -0,0 +1,33 @@
+package pl.mwasyluk.ouroom_server.dto.chat;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import pl.mwasyluk.ouroom_server.domain.media.Media;
+
+/**
+ Row of the inbox of a user.
+
+ @param lastSendablePreview
+ beginning of the message of the newest Sendable of the chat or {@code null} if the chat has none;
+ @param lastActivityAt
+ time the inbox is ordered by, either the creation time of the newest Sendable or the time the user joined the chat.
+ */
+public record ChatInboxView(
+        ChatPresentableView chat,
+        String lastSendablePreview,
+        ZonedDateTime lastSendableAt,
+        long unreadAmount,
+        ZonedDateTime lastActivityAt
+) {
+    // used by the repository projections
+    public ChatInboxView(UUID chatId, String name, UUID imageId, long version, String lastSendablePreview,
+                         ZonedDateTime lastSendableAt, long unreadAmount, ZonedDateTime lastActivityAt) {
+        this(new ChatPresentableView(chatId, name, imageId, imageId == null ? null : Media.internalUrlOf(imageId),
+                        version),
+                lastSendablePreview,
+                lastSendableAt,
+                unreadAmount,
+                lastActivityAt);
+    }
+}
@@ -0,0 +1,12 @@
+package pl.mwasyluk.ouroom_server.dto.chat;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ @param pinnedSendableIds pinned Sendable IDs of the chat, the most recently pinned first
+ */
+public record ChatPinsView(
+        List<UUID> pinnedSendableIds
+) {
+}
@@ -3,17 +3,25 @@ package pl.mwasyluk.ouroom_server.dto.chat;
 import java.util.UUID;
 
 import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.media.Media;
 
 public record ChatPresentableView(
         UUID id,
         String name,
         UUID imageId,
-        String imageUrl
+        String imageUrl,
+        long version
 ) {
     public ChatPresentableView(Chat chat) {
         this(chat.getId(),
                 chat.getName(),
                 chat.getImage() == null ? null : chat.getImage().getId(),
-                chat.getImageUrl());
+                chat.getImageUrl(),
+                chat.getVersion());
+    }
+
+    // used by the repository projections
+    public ChatPresentableView(UUID id, String name, UUID imageId, long version) {
+        this(id, name, imageId, imageId == null ? null : Media.internalUrlOf(imageId), version);
     }
 }
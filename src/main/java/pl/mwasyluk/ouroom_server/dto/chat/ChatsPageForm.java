@@ -0,0 +1,20 @@
+package pl.mwasyluk.ouroom_server.dto.chat;
+
+import lombok.Data;
+
+@Data
+public class ChatsPageForm {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private String after;
+    private Integer limit;
+
+    public String getAfter() {
+        return after == null || after.isBlank() ? null : after.trim();
+    }
+
+    public int getLimit() {
+        return limit == null ? DEFAULT_LIMIT : limit;
+    }
+}
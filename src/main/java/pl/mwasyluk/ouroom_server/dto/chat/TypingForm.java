@@ -0,0 +1,11 @@
+package pl.mwasyluk.ouroom_server.dto.chat;
+
+import java.util.UUID;
+
+import lombok.Data;
+
+@Data
+public class TypingForm {
+    private UUID chatId;
+    private boolean typing;
+}
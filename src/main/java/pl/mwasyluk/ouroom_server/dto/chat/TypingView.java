@@ -0,0 +1,10 @@
+package pl.mwasyluk.ouroom_server.dto.chat;
+
+import java.util.UUID;
+
+public record TypingView(
+        UUID chatId,
+        UUID userId,
+        boolean typing
+) {
+}
@@ -1,7 +1,9 @@
 package pl.mwasyluk.ouroom_server.dto.member;
 
 import java.util.Collection;
+import java.util.UUID;
 
+import pl.mwasyluk.ouroom_server.domain.media.Media;
 import pl.mwasyluk.ouroom_server.domain.member.Member;
 import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
 import pl.mwasyluk.ouroom_server.dto.user.UserPresentableView;
@@ -9,12 +11,26 @@ import pl.mwasyluk.ouroom_server.dto.user.UserPresentableView;
 public record MemberPresentableView(
         UserPresentableView user,
         boolean locked,
-        Collection<MemberPrivilege> privileges
+        Collection<MemberPrivilege> privileges,
+        long version
 ) {
 
     public MemberPresentableView(Member member) {
         this(new UserPresentableView(member.getUser()),
                 member.isLocked(),
-                member.getPrivileges());
+                member.getPrivileges(),
+                member.getVersion());
+    }
+
+    // used by the repository projections, a user without a profile has neither a name nor an image
+    public MemberPresentableView(UUID userId, String firstname, String lastname, UUID imageId, boolean locked,
+                                 Collection<MemberPrivilege> privileges, long version) {
+        this(new UserPresentableView(userId,
+                        firstname == null ? null : firstname + " " + lastname,
+                        imageId,
+                        imageId == null ? null : Media.internalUrlOf(imageId)),
+                locked,
+                privileges,
+                version);
     }
 }
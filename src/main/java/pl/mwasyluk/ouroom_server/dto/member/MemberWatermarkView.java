@@ -0,0 +1,18 @@
+package pl.mwasyluk.ouroom_server.dto.member;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ @param readUpTo      creation time of the newest Sendable read by the member; in notifications {@code null} when
+                      the watermark has not moved
+ @param deliveredUpTo creation time of the newest Sendable received by the member; in notifications {@code null}
+                      when the watermark has not moved
+ */
+public record MemberWatermarkView(
+        UUID containerId,
+        UUID userId,
+        ZonedDateTime readUpTo,
+        ZonedDateTime deliveredUpTo
+) {
+}
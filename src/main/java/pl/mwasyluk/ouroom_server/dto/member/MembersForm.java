@@ -1,6 +1,7 @@
 package pl.mwasyluk.ouroom_server.dto.member;
 
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -12,4 +13,7 @@ import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
 public class MembersForm {
     private UUID membershipId;
     private Map<UUID, EnumSet<MemberPrivilege>> members;
+    // versions of the read members, at the positions of their IDs
+    private List<UUID> versionedMemberIds;
+    private List<Long> versions;
 }
@@ -28,6 +28,6 @@ public record NotificationView(
     }
 
     public enum Action {
-        NEW, CHANGED, REMOVED
+        NEW, CHANGED, REMOVED, MARKED, PINNED, UNPINNED
     }
 }
@@ -0,0 +1,40 @@
+package pl.mwasyluk.ouroom_server.dto.page;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import lombok.NonNull;
+
+import pl.mwasyluk.ouroom_server.exceptions.ConversionException;
+
+/**
+ Position of a row in a listing ordered by a timestamp and an ID, where the ID breaks the timestamp ties.
+ <br> Clients receive the cursor as an opaque URL-safe string and send it back to continue the listing.
+ */
+public record KeysetCursor(
+        @NonNull ZonedDateTime timestamp,
+        @NonNull UUID id
+) {
+    private static final String SEPARATOR = "_";
+
+    public static @NonNull KeysetCursor decode(@NonNull String value) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR);
+            Instant instant = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new KeysetCursor(ZonedDateTime.ofInstant(instant, ZoneOffset.UTC), UUID.fromString(parts[2]));
+        } catch (RuntimeException e) {
+            throw new ConversionException("The given value '" + value + "' is not a valid cursor.");
+        }
+    }
+
+    public @NonNull String encode() {
+        Instant instant = timestamp.toInstant();
+        String value = instant.getEpochSecond() + SEPARATOR + instant.getNano() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
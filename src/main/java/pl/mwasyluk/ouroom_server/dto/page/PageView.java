@@ -0,0 +1,15 @@
+package pl.mwasyluk.ouroom_server.dto.page;
+
+import java.util.List;
+
+/**
+ @param content
+ rows of the page in the listing order;
+ @param nextCursor
+ cursor that continues the listing in the same direction or {@code null} if there is nothing more to read.
+ */
+public record PageView<T>(
+        List<T> content,
+        String nextCursor
+) {
+}
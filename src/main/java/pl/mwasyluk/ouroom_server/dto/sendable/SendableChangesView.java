@@ -0,0 +1,18 @@
+package pl.mwasyluk.ouroom_server.dto.sendable;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ @param upserted views of the Sendables created or changed since the requested revision
+ @param removed  IDs of the Sendables removed since the requested revision
+ @param revision revision to request the following changes since
+ @param hasMore  whether more changes are available after the returned revision
+ */
+public record SendableChangesView(
+        List<SendableView> upserted,
+        List<UUID> removed,
+        long revision,
+        boolean hasMore
+) {
+}
@@ -1,5 +1,6 @@
 package pl.mwasyluk.ouroom_server.dto.sendable;
 
+import java.util.List;
 import java.util.UUID;
 
 import lombok.Data;
@@ -9,8 +10,15 @@ public class SendableForm {
     private UUID sendableId;
     private UUID containerId;
     private String message;
+    private UUID idempotencyKey;
+    private List<UUID> attachmentIds;
+    private Long version;
 
     public String getMessage() {
         return message == null || message.isBlank() ? null : message.trim();
     }
+
+    public List<UUID> getAttachmentIds() {
+        return attachmentIds == null ? List.of() : attachmentIds;
+    }
 }
@@ -0,0 +1,13 @@
+package pl.mwasyluk.ouroom_server.dto.sendable;
+
+import java.util.UUID;
+
+/**
+ @param containerId ID of the container the Sendable has been unpinned in
+ @param sendableId  ID of the unpinned Sendable, which may have been archived or removed already
+ */
+public record SendablePinView(
+        UUID containerId,
+        UUID sendableId
+) {
+}
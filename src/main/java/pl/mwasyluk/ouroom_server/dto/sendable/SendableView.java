@@ -1,9 +1,11 @@
 package pl.mwasyluk.ouroom_server.dto.sendable;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import pl.mwasyluk.ouroom_server.domain.sendable.Sendable;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableState;
 
 public record SendableView(
         UUID id,
@@ -12,9 +14,17 @@ public record SendableView(
         ZonedDateTime createdAt,
         String state,
         String message,
-        boolean edited
+        boolean edited,
+        List<UUID> attachmentIds,
+        long version,
+        long sequence
 ) {
 
+    public SendableView {
+        // views archived before the attachments (or the sequence numbers) were introduced do not have them
+        attachmentIds = attachmentIds == null ? List.of() : List.copyOf(attachmentIds);
+    }
+
     public SendableView(Sendable sendable) {
         this(sendable.getId(),
                 sendable.getContainer().getId(),
@@ -22,6 +32,31 @@ public record SendableView(
                 sendable.getCreatedAt(),
                 sendable.getState().name(),
                 sendable.getMessage(),
-                sendable.isEdited());
+                sendable.isEdited(),
+                sendable.getAttachmentIds(),
+                sendable.getVersion(),
+                sendable.getSequence());
+    }
+
+    public SendableView(UUID id, UUID containerId, UUID creatorId, ZonedDateTime createdAt, String state,
+                        String message, boolean edited) {
+        this(id, containerId, creatorId, createdAt, state, message, edited, List.of(), 0, 0);
+    }
+
+    // used by the repository projections
+    public SendableView(UUID id, UUID containerId, UUID creatorId, ZonedDateTime createdAt, SendableState state,
+                        String message, boolean edited, List<UUID> attachmentIds, long version, long sequence) {
+        this(id, containerId, creatorId, createdAt, state.name(), message, edited, attachmentIds, version,
+                sequence);
+    }
+
+    public SendableView withState(String state) {
+        return new SendableView(id, containerId, creatorId, createdAt, state, message, edited, attachmentIds,
+                version, sequence);
+    }
+
+    public SendableView withSequence(long sequence) {
+        return new SendableView(id, containerId, creatorId, createdAt, state, message, edited, attachmentIds,
+                version, sequence);
     }
 }
@@ -0,0 +1,29 @@
+package pl.mwasyluk.ouroom_server.dto.sendable;
+
+import java.util.UUID;
+
+import lombok.Data;
+
+@Data
+public class SendablesPageForm {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private UUID containerId;
+    // sequence numbers, so a page after the number of a notified Sendable also fills a gap before it
+    private String before;
+    private String after;
+    private Integer limit;
+
+    public String getBefore() {
+        return before == null || before.isBlank() ? null : before.trim();
+    }
+
+    public String getAfter() {
+        return after == null || after.isBlank() ? null : after.trim();
+    }
+
+    public int getLimit() {
+        return limit == null ? DEFAULT_LIMIT : limit;
+    }
+}
@@ -0,0 +1,28 @@
+package pl.mwasyluk.ouroom_server.dto.sendable;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.Data;
+
+/**
+ Criteria of Sendables of a container to remove at once. The given criteria are combined, so only the Sendables
+ matching all of them are removed.
+ */
+@Data
+public class SendablesRemovalForm {
+    public static final int MAX_IDS = 500;
+
+    private UUID containerId;
+    private UUID creatorId;
+    // inclusive
+    private ZonedDateTime from;
+    // exclusive
+    private ZonedDateTime to;
+    private List<UUID> sendableIds;
+
+    public List<UUID> getSendableIds() {
+        return sendableIds == null || sendableIds.isEmpty() ? null : sendableIds;
+    }
+}
@@ -0,0 +1,20 @@
+package pl.mwasyluk.ouroom_server.dto.sendable;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ @param containerId ID of the container the Sendables have been removed from
+ @param removed     IDs of the removed Sendables
+ @param more        whether the limit of a single removal has been reached, so more Sendables may still match the
+                    criteria and the removal has to be repeated
+ */
+public record SendablesRemovedView(
+        UUID containerId,
+        List<UUID> removed,
+        boolean more
+) {
+    public SendablesRemovedView(UUID containerId, List<UUID> removed) {
+        this(containerId, removed, false);
+    }
+}
@@ -6,6 +6,8 @@ import java.util.UUID;
 import lombok.NonNull;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import pl.mwasyluk.ouroom_server.domain.media.Media;
+import pl.mwasyluk.ouroom_server.domain.user.AuthProvider;
 import pl.mwasyluk.ouroom_server.domain.user.User;
 import pl.mwasyluk.ouroom_server.domain.user.UserAuthority;
 
@@ -20,6 +22,19 @@ public record UserDetailsView(
                 new UserPresentableView(user));
     }
 
+    // used by the repository projections, a user without a profile has neither a name nor an image
+    public UserDetailsView(UUID userId, String email, Collection<UserAuthority> authorities, AuthProvider provider,
+                           boolean nonExpired, boolean nonLocked, boolean credentialsNonExpired, boolean enabled,
+                           String firstname, String lastname, UUID imageId) {
+        this(userId,
+                new AccountDetailsView(email, authorities, provider.toString(), nonExpired, nonLocked,
+                        credentialsNonExpired, enabled),
+                new UserPresentableView(userId,
+                        firstname == null ? null : firstname + " " + lastname,
+                        imageId,
+                        imageId == null ? null : Media.internalUrlOf(imageId)));
+    }
+
     record AccountDetailsView(
             String email,
             Collection<UserAuthority> authorities,
@@ -0,0 +1,27 @@
+package pl.mwasyluk.ouroom_server.dto.user;
+
+import lombok.Data;
+
+import pl.mwasyluk.ouroom_server.domain.user.AuthProvider;
+import pl.mwasyluk.ouroom_server.domain.user.UserAuthority;
+
+@Data
+public class UsersPageForm {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private String after;
+    private Integer limit;
+    // filters, a null one matches every user
+    private Boolean enabled;
+    private AuthProvider provider;
+    private UserAuthority authority;
+
+    public String getAfter() {
+        return after == null || after.isBlank() ? null : after.trim();
+    }
+
+    public int getLimit() {
+        return limit == null ? DEFAULT_LIMIT : limit;
+    }
+}
@@ -1,15 +1,23 @@
 package pl.mwasyluk.ouroom_server.repos;
 
+import java.time.ZonedDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import pl.mwasyluk.ouroom_server.domain.container.Chat;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatDetailsView;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxView;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatPinsView;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
 
 @Repository
 public interface ChatRepository extends JpaRepository<Chat, UUID> {
@@ -21,16 +29,251 @@ public interface ChatRepository extends JpaRepository<Chat, UUID> {
             """)
     Collection<Chat> findAllByUserId(UUID userId);
 
+    // The chat counters are stored, so both the chat and the member are read by their primary keys. The unread
+    // amount is the distance between the highest sequence number of the chat and the read one of the member, capped
+    // by the Sendables amount, so the removed Sendables are not counted once there are not enough of them left.
     @Query("""
             SELECT new pl.mwasyluk.ouroom_server.dto.chat.ChatDetailsView(
                 c.id,
                 c.name,
                 c.image.id,
-                SIZE(c.members),
-                SIZE(c.sendables)
+                c.membersAmount,
+                c.sendablesAmount,
+                CASE WHEN m.readSequence >= c.lastSequence THEN 0L
+                    WHEN c.lastSequence - m.readSequence < c.sendablesAmount THEN c.lastSequence - m.readSequence
+                    ELSE CAST(c.sendablesAmount AS Long) END,
+                c.version
             )
             FROM Chat c
+                JOIN ChatMember m ON m.memberId.membership.id = c.id AND m.memberId.user.id = ?2
             WHERE c.id = ?1
             """)
-    Optional<ChatDetailsView> findDetailsById(UUID chatId);
+    Optional<ChatDetailsView> findDetailsById(UUID chatId, UUID userId);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.membersAmount = c.membersAmount + ?2
+            WHERE c.id = ?1
+            """)
+    int addToMembersAmount(UUID chatId, int delta);
+
+    // the pins only, so reading them neither hydrates the chat nor its image
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.chat.ChatPinsView(c.pinnedSendableIds)
+            FROM Chat c
+            WHERE c.id = ?1
+            """)
+    Optional<ChatPinsView> findPinsById(UUID chatId);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.pinnedSendableIds = ?2
+            WHERE c.id = ?1
+            """)
+    int updatePinnedSendableIds(UUID chatId, List<UUID> pinnedSendableIds);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.sendablesAmount = c.sendablesAmount + ?2
+            WHERE c.id = ?1
+            """)
+    int addToSendablesAmount(UUID chatId, int delta);
+
+    // The preview is replaced only by a newer Sendable, all the expressions see the values from before the update
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.sendablesAmount = c.sendablesAmount + 1,
+                c.lastSendableId = CASE WHEN c.lastSendableAt IS NULL OR c.lastSendableAt <= ?3
+                    THEN ?2 ELSE c.lastSendableId END,
+                c.lastSendablePreview = CASE WHEN c.lastSendableAt IS NULL OR c.lastSendableAt <= ?3
+                    THEN ?4 ELSE c.lastSendablePreview END,
+                c.lastSendableAt = CASE WHEN c.lastSendableAt IS NULL OR c.lastSendableAt <= ?3
+                    THEN ?3 ELSE c.lastSendableAt END,
+                c.lastSequence = CASE WHEN c.lastSequence < ?5 THEN ?5 ELSE c.lastSequence END
+            WHERE c.id = ?1
+            """)
+    int recordSendableAdded(UUID chatId, UUID sendableId, ZonedDateTime createdAt, String preview, long sequence);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.lastSendableId = ?3, c.lastSendableAt = ?4, c.lastSendablePreview = ?5
+            WHERE c.id = ?1 AND c.lastSendableId = ?2
+            """)
+    int replaceLastSendable(UUID chatId, UUID removedSendableId, UUID sendableId, ZonedDateTime createdAt,
+                            String preview);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.lastSendableId = ?3, c.lastSendableAt = ?4, c.lastSendablePreview = ?5
+            WHERE c.id = ?1 AND c.lastSendableId IN ?2
+            """)
+    int replaceLastSendableIn(UUID chatId, Collection<UUID> removedSendableIds, UUID sendableId,
+                              ZonedDateTime createdAt, String preview);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.lastSendablePreview = ?3
+            WHERE c.id = ?1 AND c.lastSendableId = ?2
+            """)
+    int updateLastSendablePreview(UUID chatId, UUID sendableId, String preview);
+
+    // Sequence numbers - the highest number is raised after the insert, the numbers are allocated in memory
+    @Query("""
+            SELECT c.lastSequence
+            FROM Chat c
+            WHERE c.id = ?1
+            """)
+    Optional<Long> findLastSequenceById(UUID chatId);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.lastSequence = ?2
+            WHERE c.id = ?1 AND c.lastSequence < ?2
+            """)
+    int raiseLastSequence(UUID chatId, long sequence);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.lastSequence = (SELECT MAX(s.sequence) FROM ChatSendable s WHERE s.container.id = c.id)
+            WHERE c.lastSequence < (SELECT MAX(s.sequence) FROM ChatSendable s WHERE s.container.id = c.id)
+            """)
+    int raiseLastSequencesToSendables();
+
+    // Inbox - the last activity is the later of the joining time and the newest Sendable of the chat, so it is
+    // sorted among the member rows of the user only, and the unread amounts are derived from the stored numbers
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.chat.ChatInboxView(
+                c.id, c.name, i.id, c.version, c.lastSendablePreview, c.lastSendableAt,
+                CASE WHEN m.readSequence >= c.lastSequence THEN 0L
+                    WHEN c.lastSequence - m.readSequence < c.sendablesAmount THEN c.lastSequence - m.readSequence
+                    ELSE CAST(c.sendablesAmount AS Long) END,
+                CASE WHEN c.lastSendableAt > m.joinedAt THEN c.lastSendableAt ELSE m.joinedAt END)
+            FROM ChatMember m
+                JOIN Chat c ON c.id = m.memberId.membership.id
+                LEFT JOIN c.image i
+            WHERE m.memberId.user.id = ?1
+            ORDER BY CASE WHEN c.lastSendableAt > m.joinedAt THEN c.lastSendableAt ELSE m.joinedAt END DESC,
+                m.memberId.membership.id DESC
+            """)
+    List<ChatInboxView> findInboxByUserId(UUID userId, Limit limit);
+
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.chat.ChatInboxView(
+                c.id, c.name, i.id, c.version, c.lastSendablePreview, c.lastSendableAt,
+                CASE WHEN m.readSequence >= c.lastSequence THEN 0L
+                    WHEN c.lastSequence - m.readSequence < c.sendablesAmount THEN c.lastSequence - m.readSequence
+                    ELSE CAST(c.sendablesAmount AS Long) END,
+                CASE WHEN c.lastSendableAt > m.joinedAt THEN c.lastSendableAt ELSE m.joinedAt END)
+            FROM ChatMember m
+                JOIN Chat c ON c.id = m.memberId.membership.id
+                LEFT JOIN c.image i
+            WHERE m.memberId.user.id = ?1
+                AND (CASE WHEN c.lastSendableAt > m.joinedAt THEN c.lastSendableAt ELSE m.joinedAt END,
+                    m.memberId.membership.id) < (?2, ?3)
+            ORDER BY CASE WHEN c.lastSendableAt > m.joinedAt THEN c.lastSendableAt ELSE m.joinedAt END DESC,
+                m.memberId.membership.id DESC
+            """)
+    List<ChatInboxView> findInboxByUserIdBefore(UUID userId, ZonedDateTime lastActivityAt, UUID chatId,
+                                                Limit limit);
+
+    // Admin listings - the chats are read by their IDs, the deleted ones are skipped
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView(c.id, c.name, i.id, c.version)
+            FROM Chat c
+                LEFT JOIN c.image i
+            WHERE c.deletedAt IS NULL
+            ORDER BY c.id ASC
+            """)
+    List<ChatPresentableView> findAllPresentables(Limit limit);
+
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView(c.id, c.name, i.id, c.version)
+            FROM Chat c
+                LEFT JOIN c.image i
+            WHERE c.deletedAt IS NULL AND c.id > ?1
+            ORDER BY c.id ASC
+            """)
+    List<ChatPresentableView> findAllPresentablesAfter(UUID chatId, Limit limit);
+
+    // Deletion - a deleted chat is purged in batches by the ChatPurger
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.deletedAt = ?2
+            WHERE c.id = ?1 AND c.deletedAt IS NULL
+            """)
+    int markDeleted(UUID chatId, ZonedDateTime deletedAt);
+
+    @Query("""
+            SELECT c.id
+            FROM Chat c
+            WHERE c.deletedAt IS NOT NULL
+            ORDER BY c.deletedAt ASC
+            """)
+    List<UUID> findAllDeletedIds(Limit limit);
+
+    long countByDeletedAtIsNotNull();
+
+    boolean existsByIdAndDeletedAtIsNull(UUID chatId);
+
+    @Query("""
+            SELECT i.id
+            FROM Chat c
+                LEFT JOIN c.image i
+            WHERE c.id = ?1
+            """)
+    Optional<UUID> findImageIdById(UUID chatId);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM Chat c
+            WHERE c.id = ?1 AND c.deletedAt IS NOT NULL
+            """)
+    int deleteDeletedById(UUID chatId);
+
+    // Repairing queries update only the drifted rows and return their amount
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.membersAmount = (
+                SELECT COUNT(m) FROM ChatMember m WHERE m.memberId.membership.id = c.id)
+            WHERE c.membersAmount <> (
+                SELECT COUNT(m) FROM ChatMember m WHERE m.memberId.membership.id = c.id)
+            """)
+    int repairMembersAmounts();
+
+    // archived Sendables are still counted
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Chat c
+            SET c.sendablesAmount = (
+                SELECT COUNT(s) FROM ChatSendable s WHERE s.container.id = c.id)
+                + (SELECT COALESCE(SUM(a.amount), 0) FROM SendableArchiveSegment a WHERE a.containerId = c.id)
+            WHERE c.sendablesAmount <> (
+                SELECT COUNT(s) FROM ChatSendable s WHERE s.container.id = c.id)
+                + (SELECT COALESCE(SUM(a.amount), 0) FROM SendableArchiveSegment a WHERE a.containerId = c.id)
+            """)
+    int repairSendablesAmounts();
 }
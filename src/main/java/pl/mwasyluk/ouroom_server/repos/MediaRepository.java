@@ -1,12 +1,54 @@
 package pl.mwasyluk.ouroom_server.repos;
 
+import java.util.Collection;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import pl.mwasyluk.ouroom_server.domain.media.Media;
 
 @Repository
 public interface MediaRepository extends JpaRepository<Media, UUID> {
+    long countByIdIn(Collection<UUID> ids);
+
+    // the content is read only here, where it is served
+    @Query("""
+            SELECT m
+            FROM Media m
+                JOIN FETCH m.content
+            WHERE m.id = ?1
+            """)
+    Optional<Media> findWithContentById(UUID id);
+
+    // the Media rows refer to their contents, so they are deleted first
+    @Transactional
+    default int deleteAllWithContentsByIdIn(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = deleteAllByIdIn(ids);
+        deleteAllContentsByIdIn(ids);
+        return deleted;
+    }
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM Media m
+            WHERE m.id IN ?1
+            """)
+    int deleteAllByIdIn(Collection<UUID> ids);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM MediaContent c
+            WHERE c.id IN ?1
+            """)
+    int deleteAllContentsByIdIn(Collection<UUID> ids);
 }
@@ -1,15 +1,20 @@
 package pl.mwasyluk.ouroom_server.repos;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import pl.mwasyluk.ouroom_server.domain.member.ChatMember;
 import pl.mwasyluk.ouroom_server.domain.member.id.MemberId;
+import pl.mwasyluk.ouroom_server.dto.member.MemberPresentableView;
+import pl.mwasyluk.ouroom_server.dto.member.MemberWatermarkView;
 
 @Repository
 public interface MemberRepository extends JpaRepository<ChatMember, MemberId> {
@@ -33,4 +38,81 @@ public interface MemberRepository extends JpaRepository<ChatMember, MemberId> {
     default List<ChatMember> findAllByMembershipId(UUID membershipId) {
         return findAllByMemberIdMembershipId(membershipId);
     }
+
+    // Projections selecting only what the views need, the image is joined only for its ID
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.member.MemberPresentableView(
+                u.id, u.profile.firstname, u.profile.lastname, i.id, m.locked, m.privileges, m.version)
+            FROM ChatMember m
+                JOIN m.memberId.user u
+                LEFT JOIN u.profile.image i
+            WHERE m.memberId.membership.id = ?1
+            """)
+    List<MemberPresentableView> findAllViewsByMembershipId(UUID membershipId);
+
+    @Query("""
+            SELECT m.memberId.user.id
+            FROM ChatMember m
+            WHERE m.memberId.membership.id = ?1
+            """)
+    Set<UUID> findAllUserIdsByMembershipId(UUID membershipId);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM ChatMember m
+            WHERE m.memberId.membership.id = ?1
+            """)
+    int deleteAllByMembershipId(UUID membershipId);
+
+    // Watermarks only move forward, so concurrent calls cannot move them back. The read sequence number moves
+    // together with the read watermark.
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ChatMember m
+            SET m.readUpTo = CASE WHEN m.readUpTo IS NULL OR m.readUpTo < ?3 THEN ?3 ELSE m.readUpTo END,
+                m.readSequence = CASE WHEN m.readSequence < ?4 THEN ?4 ELSE m.readSequence END
+            WHERE m.memberId.user.id = ?1 AND m.memberId.membership.id = ?2
+                AND (m.readUpTo IS NULL OR m.readUpTo < ?3 OR m.readSequence < ?4)
+            """)
+    int advanceReadUpTo(UUID userId, UUID membershipId, ZonedDateTime readUpTo, long readSequence);
+
+    // Moves the read sequence number only, the read watermark and the states of Sendables stay as they are
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ChatMember m
+            SET m.readSequence = ?3
+            WHERE m.memberId.user.id = ?1 AND m.memberId.membership.id = ?2 AND m.readSequence < ?3
+            """)
+    int raiseReadSequence(UUID userId, UUID membershipId, long readSequence);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ChatMember m
+            SET m.readSequence = (SELECT COALESCE(MAX(s.sequence), 0) FROM ChatSendable s
+                WHERE s.container.id = m.memberId.membership.id AND s.createdAt <= m.readUpTo)
+            WHERE m.readUpTo IS NOT NULL AND m.readSequence = 0
+            """)
+    int raiseReadSequencesToReadUpTo();
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ChatMember m
+            SET m.deliveredUpTo = ?3
+            WHERE m.memberId.user.id = ?1 AND m.memberId.membership.id = ?2
+                AND (m.deliveredUpTo IS NULL OR m.deliveredUpTo < ?3)
+            """)
+    int advanceDeliveredUpTo(UUID userId, UUID membershipId, ZonedDateTime deliveredUpTo);
+
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.member.MemberWatermarkView(
+                m.memberId.membership.id, m.memberId.user.id, m.readUpTo, m.deliveredUpTo)
+            FROM ChatMember m
+            WHERE m.memberId.membership.id = ?1
+            """)
+    List<MemberWatermarkView> findAllWatermarksByMembershipId(UUID membershipId);
 }
@@ -0,0 +1,56 @@
+package pl.mwasyluk.ouroom_server.repos;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableArchiveKey;
+
+@Repository
+public interface SendableArchiveKeyRepository extends JpaRepository<SendableArchiveKey, UUID> {
+    List<SendableArchiveKey> findAllByContainerIdInAndCreatorIdAndIdempotencyKeyIn(
+            Collection<UUID> containerIds, UUID creatorId, Collection<UUID> idempotencyKeys);
+
+    // copied from the hot rows before they are deleted, the Sendables sent without a key have nothing to copy
+    @Transactional
+    @Modifying
+    @Query("""
+            INSERT INTO SendableArchiveKey (sendableId, containerId, creatorId, idempotencyKey, createdAt, sequence)
+            SELECT s.id, s.container.id, s.creator.id, s.idempotencyKey, s.createdAt, s.sequence
+            FROM ChatSendable s
+            WHERE s.id IN ?1 AND s.idempotencyKey IS NOT NULL
+            """)
+    int insertAllOfSendablesIn(Collection<UUID> sendableIds);
+
+    @Query("""
+            SELECT k.sendableId
+            FROM SendableArchiveKey k
+            WHERE k.containerId = ?1
+            """)
+    List<UUID> findSendableIdsByContainerId(UUID containerId, Limit limit);
+
+    // the keys archived before the sequence numbers were introduced hold 0, see SendableSequencesMigration
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE SendableArchiveKey k
+            SET k.sequence = ?2
+            WHERE k.sendableId = ?1
+            """)
+    int updateSequenceBySendableId(UUID sendableId, long sequence);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM SendableArchiveKey k
+            WHERE k.sendableId IN ?1
+            """)
+    int deleteAllBySendableIdIn(Collection<UUID> sendableIds);
+}
@@ -0,0 +1,119 @@
+package pl.mwasyluk.ouroom_server.repos;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableArchiveSegment;
+
+@Repository
+public interface SendableArchiveRepository extends JpaRepository<SendableArchiveSegment, UUID> {
+    // Segments of a container never overlap, so the segment holding the number is the first one of both listings
+    @Query("""
+            SELECT s
+            FROM SendableArchiveSegment s
+            WHERE s.containerId = ?1 AND s.firstSequence < ?2
+            ORDER BY s.firstSequence DESC
+            """)
+    List<SendableArchiveSegment> findAllByContainerIdBefore(UUID containerId, long sequence, Limit limit);
+
+    @Query("""
+            SELECT s
+            FROM SendableArchiveSegment s
+            WHERE s.containerId = ?1 AND s.firstSequence <= ?2
+            ORDER BY s.firstSequence DESC
+            """)
+    List<SendableArchiveSegment> findAllByContainerIdUntil(UUID containerId, long sequence, Limit limit);
+
+    @Query("""
+            SELECT s
+            FROM SendableArchiveSegment s
+            WHERE s.containerId = ?1
+            ORDER BY s.firstSequence DESC
+            """)
+    List<SendableArchiveSegment> findNewestByContainerId(UUID containerId, Limit limit);
+
+    @Query("""
+            SELECT s
+            FROM SendableArchiveSegment s
+            WHERE s.containerId = ?1 AND s.lastSequence > ?2
+            ORDER BY s.lastSequence ASC
+            """)
+    List<SendableArchiveSegment> findAllByContainerIdAfter(UUID containerId, long sequence, Limit limit);
+
+    @Query("""
+            SELECT s.id
+            FROM SendableArchiveSegment s
+            WHERE s.containerId = ?1
+            ORDER BY s.firstSequence ASC
+            """)
+    List<UUID> findAllIdsByContainerId(UUID containerId);
+
+    @Query("""
+            SELECT COALESCE(MAX(s.lastSequence), 0)
+            FROM SendableArchiveSegment s
+            WHERE s.containerId = ?1
+            """)
+    long findMaxSequenceByContainerId(UUID containerId);
+
+    // the segments archived before the sequence numbers were introduced hold 0, see SendableSequencesMigration
+    @Query("""
+            SELECT DISTINCT s.containerId
+            FROM SendableArchiveSegment s
+            WHERE s.lastSequence = 0
+            """)
+    List<UUID> findAllContainerIdsOfUnnumbered();
+
+    @Query("""
+            SELECT s.id
+            FROM SendableArchiveSegment s
+            WHERE s.containerId = ?1 AND s.lastSequence = 0
+            ORDER BY s.firstCreatedAt ASC, s.firstSendableId ASC
+            """)
+    List<UUID> findAllUnnumberedIdsByContainerId(UUID containerId);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE SendableArchiveSegment s
+            SET s.firstSequence = ?2, s.lastSequence = ?3, s.content = ?4
+            WHERE s.id = ?1
+            """)
+    int updateSequencesById(UUID segmentId, long firstSequence, long lastSequence, byte[] content);
+
+    @Query("""
+            SELECT s.content
+            FROM SendableArchiveSegment s
+            WHERE s.id = ?1
+            """)
+    Optional<byte[]> findContentById(UUID segmentId);
+
+    @Query("""
+            SELECT DISTINCT s.containerId
+            FROM SendableArchiveSegment s
+            """)
+    List<UUID> findAllContainerIds();
+
+    @Query("""
+            SELECT s.id
+            FROM SendableArchiveSegment s
+            WHERE s.containerId = ?1
+            """)
+    List<UUID> findIdsByContainerId(UUID containerId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM SendableArchiveSegment s
+            WHERE s.id IN ?1
+            """)
+    int deleteAllByIdIn(Collection<UUID> segmentIds);
+}
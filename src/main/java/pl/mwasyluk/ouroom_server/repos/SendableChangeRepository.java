@@ -0,0 +1,42 @@
+package pl.mwasyluk.ouroom_server.repos;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChange;
+
+@Repository
+public interface SendableChangeRepository extends JpaRepository<SendableChange, Long> {
+    List<SendableChange> findAllByContainerIdAndRevisionGreaterThanOrderByRevisionAsc(UUID containerId,
+            long revision, Limit limit);
+
+    @Query("""
+            SELECT COALESCE(MAX(c.revision), 0)
+            FROM SendableChange c
+            WHERE c.containerId = ?1
+            """)
+    long findLatestRevisionByContainerId(UUID containerId);
+
+    @Query("""
+            SELECT c.revision
+            FROM SendableChange c
+            WHERE c.containerId = ?1
+            """)
+    List<Long> findRevisionsByContainerId(UUID containerId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM SendableChange c
+            WHERE c.revision IN ?1
+            """)
+    int deleteAllByRevisionIn(Collection<Long> revisions);
+}
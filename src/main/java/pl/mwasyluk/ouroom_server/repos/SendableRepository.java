@@ -1,14 +1,159 @@
 package pl.mwasyluk.ouroom_server.repos;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.QueryHint;
 
 import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface SendableRepository extends JpaRepository<ChatSendable, UUID> {
+public interface SendableRepository extends JpaRepository<ChatSendable, UUID>, SendableRepositoryCustom {
     List<ChatSendable> findAllByContainerId(UUID containerId);
+
+    List<ChatSendable> findAllByContainerIdInAndCreatorIdAndIdempotencyKeyIn(Collection<UUID> containerIds,
+            UUID creatorId, Collection<UUID> idempotencyKeys);
+
+    // Keyset pages - every query is a single range scan over (container_id, sequence) index
+    // and selects straight into the views, so neither the Sendables nor their creators are hydrated
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.sendable.SendableView(
+                s.id, s.container.id, s.creator.id, s.createdAt, s.state, s.message, s.edited, s.attachmentIds,
+                s.version, s.sequence)
+            FROM ChatSendable s
+            WHERE s.container.id = ?1
+            ORDER BY s.sequence DESC
+            """)
+    List<SendableView> findNewestByContainerId(UUID containerId, Limit limit);
+
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.sendable.SendableView(
+                s.id, s.container.id, s.creator.id, s.createdAt, s.state, s.message, s.edited, s.attachmentIds,
+                s.version, s.sequence)
+            FROM ChatSendable s
+            WHERE s.container.id = ?1 AND s.sequence < ?2
+            ORDER BY s.sequence DESC
+            """)
+    List<SendableView> findAllByContainerIdBefore(UUID containerId, long sequence, Limit limit);
+
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.sendable.SendableView(
+                s.id, s.container.id, s.creator.id, s.createdAt, s.state, s.message, s.edited, s.attachmentIds,
+                s.version, s.sequence)
+            FROM ChatSendable s
+            WHERE s.container.id = ?1 AND s.sequence > ?2
+            ORDER BY s.sequence ASC
+            """)
+    List<SendableView> findAllByContainerIdAfter(UUID containerId, long sequence, Limit limit);
+
+    @Query("""
+            SELECT COALESCE(MAX(s.sequence), 0)
+            FROM ChatSendable s
+            WHERE s.container.id = ?1
+            """)
+    long findMaxSequenceByContainerId(UUID containerId);
+
+    // the Sendables created before the sequence numbers were introduced hold 0, see SendableSequencesMigration
+    @Query("""
+            SELECT DISTINCT s.container.id
+            FROM ChatSendable s
+            WHERE s.sequence = 0
+            """)
+    List<UUID> findAllContainerIdsOfUnnumbered();
+
+    @Query("""
+            SELECT s.id
+            FROM ChatSendable s
+            WHERE s.container.id = ?1 AND s.sequence = 0
+            ORDER BY s.createdAt ASC, s.id ASC
+            """)
+    List<UUID> findAllUnnumberedIdsByContainerId(UUID containerId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ChatSendable s
+            SET s.sequence = ?2
+            WHERE s.id = ?1
+            """)
+    int updateSequenceById(UUID sendableId, long sequence);
+
+    // the schema update cannot create the index while the unnumbered Sendables duplicate their zeros
+    @Transactional
+    @Modifying
+    @Query(value = """
+            CREATE UNIQUE INDEX IF NOT EXISTS containers_sequence_unique_index
+            ON chat_sendable (container_id, sequence)
+            """, nativeQuery = true)
+    void createSequenceUniqueIndex();
+
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.sendable.SendableView(
+                s.id, s.container.id, s.creator.id, s.createdAt, s.state, s.message, s.edited, s.attachmentIds,
+                s.version, s.sequence)
+            FROM ChatSendable s
+            WHERE s.id IN ?1
+            """)
+    List<SendableView> findAllViewsByIdIn(Collection<UUID> sendableIds);
+
+    // Archiving - the oldest Sendables of a container are moved to the archive in full segments
+    @Query("""
+            SELECT s.container.id
+            FROM ChatSendable s
+            WHERE s.createdAt < ?1
+            GROUP BY s.container.id
+            HAVING COUNT(s) >= ?2
+            """)
+    List<UUID> findAllContainerIdsWithCreatedBefore(ZonedDateTime createdAt, long minAmount);
+
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.sendable.SendableView(
+                s.id, s.container.id, s.creator.id, s.createdAt, s.state, s.message, s.edited, s.attachmentIds,
+                s.version, s.sequence)
+            FROM ChatSendable s
+            WHERE s.container.id = ?1
+            ORDER BY s.sequence ASC
+            """)
+    List<SendableView> findOldestByContainerId(UUID containerId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM ChatSendable s
+            WHERE s.id IN ?1
+            """)
+    int deleteAllByIdIn(Collection<UUID> sendableIds);
+
+    @Query("""
+            SELECT s.id
+            FROM ChatSendable s
+            WHERE s.container.id = ?1
+            """)
+    List<UUID> findIdsByContainerId(UUID containerId, Limit limit);
+
+    // has to be consumed inside a transaction, the rows are fetched from the cursor in chunks of the fetch size
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("""
+            SELECT new pl.mwasyluk.ouroom_server.dto.sendable.SendableView(
+                s.id, s.container.id, s.creator.id, s.createdAt, s.state, s.message, s.edited, s.attachmentIds,
+                s.version, s.sequence)
+            FROM ChatSendable s
+            WHERE s.container.id = ?1
+            ORDER BY s.sequence ASC
+            """)
+    Stream<SendableView> streamAllByContainerId(UUID containerId);
 }
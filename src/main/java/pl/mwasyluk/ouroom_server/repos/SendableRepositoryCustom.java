@@ -0,0 +1,31 @@
+package pl.mwasyluk.ouroom_server.repos;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+
+public interface SendableRepositoryCustom {
+    /**
+     Reads the IDs of the Sendables of the container matching all the given criteria, ordered from the oldest one.
+     Only the given criteria are part of the query, the absent ones match every Sendable of the container.
+
+     @param creatorId
+     ID of the creator to match or {@code null} to match every creator;
+     @param from
+     creation time the Sendables are created at or after, {@code null} to match every older Sendable;
+     @param to
+     creation time the Sendables are created before, {@code null} to match every newer Sendable.
+     */
+    List<UUID> findAllIdsByContainerIdMatching(UUID containerId, UUID creatorId, ZonedDateTime from,
+                                               ZonedDateTime to, Limit limit);
+
+    /**
+     Reads the IDs of the given Sendables which belong to the container and match all the given criteria, like
+     {@link #findAllIdsByContainerIdMatching(UUID, UUID, ZonedDateTime, ZonedDateTime, Limit)}.
+     */
+    List<UUID> findAllIdsByContainerIdMatching(UUID containerId, UUID creatorId, ZonedDateTime from,
+                                               ZonedDateTime to, Collection<UUID> sendableIds);
+}
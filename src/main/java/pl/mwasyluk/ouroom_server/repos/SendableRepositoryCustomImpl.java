@@ -0,0 +1,77 @@
+package pl.mwasyluk.ouroom_server.repos;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import lombok.RequiredArgsConstructor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+
+@RequiredArgsConstructor
+public class SendableRepositoryCustomImpl implements SendableRepositoryCustom {
+    private final EntityManager entityManager;
+
+    @Override
+    public List<UUID> findAllIdsByContainerIdMatching(UUID containerId, UUID creatorId, ZonedDateTime from,
+                                                      ZonedDateTime to, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<ChatSendable> sendable = query.from(ChatSendable.class);
+
+        List<Predicate> predicates = matching(cb, sendable, containerId, creatorId, from, to);
+        query.select(sendable.get("id"))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(sendable.get("createdAt")), cb.asc(sendable.get("id")));
+
+        TypedQuery<UUID> typedQuery = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            typedQuery.setMaxResults(limit.max());
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<UUID> findAllIdsByContainerIdMatching(UUID containerId, UUID creatorId, ZonedDateTime from,
+                                                      ZonedDateTime to, Collection<UUID> sendableIds) {
+        if (sendableIds.isEmpty()) {
+            return List.of();
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<ChatSendable> sendable = query.from(ChatSendable.class);
+
+        List<Predicate> predicates = matching(cb, sendable, containerId, creatorId, from, to);
+        predicates.add(sendable.get("id").in(sendableIds));
+        query.select(sendable.get("id"))
+                .where(predicates.toArray(Predicate[]::new));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private static List<Predicate> matching(CriteriaBuilder cb, Root<ChatSendable> sendable, UUID containerId,
+                                            UUID creatorId, ZonedDateTime from, ZonedDateTime to) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(sendable.get("container").get("id"), containerId));
+        if (creatorId != null) {
+            predicates.add(cb.equal(sendable.get("creator").get("id"), creatorId));
+        }
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(sendable.get("createdAt"), from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(sendable.get("createdAt"), to));
+        }
+        return predicates;
+    }
+}
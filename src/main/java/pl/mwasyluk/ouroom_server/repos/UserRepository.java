@@ -11,7 +11,7 @@ import org.springframework.stereotype.Repository;
 import pl.mwasyluk.ouroom_server.domain.user.User;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends JpaRepository<User, UUID>, UserRepositoryCustom {
     @Query("""
             SELECT
                 COUNT(*)
@@ -0,0 +1,27 @@
+package pl.mwasyluk.ouroom_server.repos;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+
+import pl.mwasyluk.ouroom_server.domain.user.AuthProvider;
+import pl.mwasyluk.ouroom_server.domain.user.UserAuthority;
+import pl.mwasyluk.ouroom_server.dto.user.UserDetailsView;
+
+public interface UserRepositoryCustom {
+    /**
+     Reads the details of the users ordered by their IDs, without loading the entities or the images.
+
+     @param afterUserId
+     ID of the last user of the previous page or {@code null} to start from the first user;
+     @param enabled
+     state of the accounts to match or {@code null} to match every state;
+     @param provider
+     authentication provider to match or {@code null} to match every provider;
+     @param authority
+     authority the users have to have or {@code null} to match every user.
+     */
+    List<UserDetailsView> findDetailsAfter(UUID afterUserId, Boolean enabled, AuthProvider provider,
+                                           UserAuthority authority, Limit limit);
+}
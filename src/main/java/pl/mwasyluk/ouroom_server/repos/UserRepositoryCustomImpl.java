@@ -0,0 +1,98 @@
+package pl.mwasyluk.ouroom_server.repos;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import lombok.RequiredArgsConstructor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import pl.mwasyluk.ouroom_server.domain.media.Image;
+import pl.mwasyluk.ouroom_server.domain.user.AuthProvider;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.domain.user.UserAccount;
+import pl.mwasyluk.ouroom_server.domain.user.UserAuthority;
+import pl.mwasyluk.ouroom_server.domain.user.UserProfile;
+import pl.mwasyluk.ouroom_server.dto.user.UserDetailsView;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private final EntityManager entityManager;
+
+    /**
+     The authorities are stored as a single converted column, so a user having the given authority is matched by
+     every set of authorities containing it.
+     */
+    static List<EnumSet<UserAuthority>> authoritySetsContaining(UserAuthority authority) {
+        UserAuthority[] values = UserAuthority.values();
+        List<EnumSet<UserAuthority>> sets = new ArrayList<>();
+        for (int mask = 1; mask < 1 << values.length; mask++) {
+            EnumSet<UserAuthority> set = EnumSet.noneOf(UserAuthority.class);
+            for (UserAuthority value : values) {
+                if ((mask & 1 << value.ordinal()) != 0) {
+                    set.add(value);
+                }
+            }
+            if (set.contains(authority)) {
+                sets.add(set);
+            }
+        }
+        return sets;
+    }
+
+    @Override
+    public List<UserDetailsView> findDetailsAfter(UUID afterUserId, Boolean enabled, AuthProvider provider,
+                                                  UserAuthority authority, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserDetailsView> query = cb.createQuery(UserDetailsView.class);
+        Root<User> user = query.from(User.class);
+        Path<UserAccount> account = user.get("account");
+        Join<User, UserProfile> profile = user.join("profile", JoinType.LEFT);
+        Join<UserProfile, Image> image = profile.join("image", JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (afterUserId != null) {
+            predicates.add(cb.greaterThan(user.get("id"), afterUserId));
+        }
+        if (enabled != null) {
+            predicates.add(cb.equal(account.get("enabled"), enabled));
+        }
+        if (provider != null) {
+            predicates.add(cb.equal(account.get("provider"), provider));
+        }
+        if (authority != null) {
+            predicates.add(account.get("authorities").in(authoritySetsContaining(authority)));
+        }
+
+        query.select(cb.construct(UserDetailsView.class,
+                        user.get("id"),
+                        account.get("username"),
+                        account.get("authorities"),
+                        account.get("provider"),
+                        account.get("accountNonExpired"),
+                        account.get("accountNonLocked"),
+                        account.get("credentialsNonExpired"),
+                        account.get("enabled"),
+                        profile.get("firstname"),
+                        profile.get("lastname"),
+                        image.get("id")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(user.get("id")));
+
+        TypedQuery<UserDetailsView> typedQuery = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            typedQuery.setMaxResults(limit.max());
+        }
+        return typedQuery.getResultList();
+    }
+}
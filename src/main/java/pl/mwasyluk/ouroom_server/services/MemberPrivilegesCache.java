@@ -0,0 +1,136 @@
+package pl.mwasyluk.ouroom_server.services;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+
+import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
+
+/**
+ In-memory copy of the privileges of the chat members, so the membership checks preceding every operation on a chat
+ do not reach the database. The users who are not members of a chat are cached as well, as empty entries.
+ <br> The entries are split into stripes by the chat ID and are invalidated by the paths changing the memberships,
+ once the change has been committed: the entries of the given users when they are added, updated or removed, and
+ all the entries of a chat when it is deleted. An entry read from the database while any entry of its stripe was
+ invalidated is not cached, so no invalidated state is cached again.
+ <br> Entries of the least recently used chats are evicted once a stripe exceeds its share of {@code maxEntries}.
+ */
+@Component
+public class MemberPrivilegesCache {
+    private final Stripe[] stripes;
+
+    public MemberPrivilegesCache(@Value("${members.privileges-cache.stripes:64}") int stripesAmount,
+                                 @Value("${members.privileges-cache.max-entries:100000}") int maxEntries) {
+        this.stripes = new Stripe[stripesAmount];
+        for (int i = 0; i < stripesAmount; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxEntries / stripesAmount));
+        }
+    }
+
+    private Stripe stripeOf(UUID chatId) {
+        return stripes[Math.floorMod(chatId.hashCode(), stripes.length)];
+    }
+
+    /**
+     @param loader
+     reads the privileges of the member from the database, an empty optional if the user is not a member;
+
+     @return a copy of the privileges of the member, an empty optional if the user is not a member.
+     */
+    public @NonNull Optional<EnumSet<MemberPrivilege>> get(
+            @NonNull UUID userId, @NonNull UUID chatId,
+            @NonNull Supplier<Optional<EnumSet<MemberPrivilege>>> loader) {
+        Stripe stripe = stripeOf(chatId);
+        long stamp;
+        synchronized (stripe) {
+            Map<UUID, Optional<EnumSet<MemberPrivilege>>> members = stripe.chats.get(chatId);
+            Optional<EnumSet<MemberPrivilege>> cached = members == null ? null : members.get(userId);
+            if (cached != null) {
+                return cached.map(EnumSet::copyOf);
+            }
+            stamp = stripe.invalidations;
+        }
+
+        // read without the lock, so the other chats of the stripe do not wait for the database
+        Optional<EnumSet<MemberPrivilege>> loaded = loader.get().map(EnumSet::copyOf);
+        synchronized (stripe) {
+            if (stamp == stripe.invalidations) {
+                stripe.put(chatId, userId, loaded);
+            }
+        }
+        return loaded.map(EnumSet::copyOf);
+    }
+
+    public void invalidate(@NonNull UUID chatId, @NonNull Collection<UUID> userIds) {
+        Stripe stripe = stripeOf(chatId);
+        synchronized (stripe) {
+            stripe.invalidations++;
+            Map<UUID, Optional<EnumSet<MemberPrivilege>>> members = stripe.chats.get(chatId);
+            if (members == null) {
+                return;
+            }
+            userIds.forEach(userId -> {
+                if (members.remove(userId) != null) {
+                    stripe.entries--;
+                }
+            });
+            if (members.isEmpty()) {
+                stripe.chats.remove(chatId);
+            }
+        }
+    }
+
+    public void invalidateChat(@NonNull UUID chatId) {
+        Stripe stripe = stripeOf(chatId);
+        synchronized (stripe) {
+            stripe.invalidations++;
+            Map<UUID, Optional<EnumSet<MemberPrivilege>>> members = stripe.chats.remove(chatId);
+            if (members != null) {
+                stripe.entries -= members.size();
+            }
+        }
+    }
+
+    public int getEntries() {
+        int entries = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                entries += stripe.entries;
+            }
+        }
+        return entries;
+    }
+
+    private static class Stripe {
+        private final int capacity;
+        private final Map<UUID, Map<UUID, Optional<EnumSet<MemberPrivilege>>>> chats =
+                new LinkedHashMap<>(16, 0.75f, true);
+        private int entries;
+        private long invalidations;
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private void put(UUID chatId, UUID userId, Optional<EnumSet<MemberPrivilege>> privileges) {
+            if (chats.computeIfAbsent(chatId, id -> new HashMap<>()).put(userId, privileges) == null) {
+                entries++;
+            }
+            Iterator<Map<UUID, Optional<EnumSet<MemberPrivilege>>>> eldest = chats.values().iterator();
+            while (entries > capacity && eldest.hasNext()) {
+                entries -= eldest.next().size();
+                eldest.remove();
+            }
+        }
+    }
+}
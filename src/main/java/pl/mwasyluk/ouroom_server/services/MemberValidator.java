@@ -23,16 +23,22 @@ import pl.mwasyluk.ouroom_server.repos.MemberRepository;
 @Component
 public class MemberValidator {
     private final MemberRepository memberRepo;
+    private final MemberPrivilegesCache privilegesCache;
 
+    /**
+     @return detached member carrying only the user, the chat and the privileges, read from the
+     {@link MemberPrivilegesCache} if possible.
+     */
     public @NonNull Member validateAsMember(@NonNull UUID userId, @NonNull UUID chatId) {
-        Optional<ChatMember> optionalMember
-                = memberRepo.findById(new ChatMemberId(User.mockOf(userId), Chat.mockOf(chatId)));
+        Optional<EnumSet<MemberPrivilege>> optionalPrivileges = privilegesCache.get(userId, chatId,
+                () -> memberRepo.findById(new ChatMemberId(User.mockOf(userId), Chat.mockOf(chatId)))
+                        .map(ChatMember::getPrivileges));
 
-        if (optionalMember.isEmpty()) {
+        if (optionalPrivileges.isEmpty()) {
             throw new ServiceException(HttpStatus.FORBIDDEN, "This operation requires member privileges.");
         }
 
-        return optionalMember.get();
+        return new ChatMember(User.mockOf(userId), Chat.mockOf(chatId), optionalPrivileges.get());
     }
 
     public @NonNull Member validatePrivilegesAsMember(@NonNull UUID userId, @NonNull UUID chatId,
@@ -0,0 +1,58 @@
+package pl.mwasyluk.ouroom_server.services;
+
+import java.util.function.Supplier;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import lombok.NonNull;
+
+import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
+
+/**
+ Runs updates of the versioned entities, which fail once a concurrent update of the same entity has been saved first.
+ <br> An update given the version the client has read is conditional, so it fails with CONFLICT when the entity has
+ changed since that version. An update without the version only sets the given values, so applying it again gives the
+ same result and it is rerun from reading the entity up to {@value #MAX_ATTEMPTS} times.
+ */
+public class OptimisticUpdates {
+    public static final int MAX_ATTEMPTS = 3;
+
+    private static ServiceException conflict() {
+        return new ServiceException(HttpStatus.CONFLICT,
+                "The entity has been modified concurrently. Read it again before updating it.");
+    }
+
+    public static void verifyVersion(Long expectedVersion, long currentVersion) {
+        if (expectedVersion != null && expectedVersion != currentVersion) {
+            throw conflict();
+        }
+    }
+
+    /**
+     @param expectedVersion
+     version the client has read, or {@code null} for an unconditional update;
+     @param update
+     the whole update, from reading the entities to saving them;
+     */
+    public static <T> T update(Long expectedVersion, @NonNull Supplier<T> update) {
+        return update(expectedVersion != null, update);
+    }
+
+    /**
+     @param conditional
+     whether the update has been given any version the client has read, so it is not rerun;
+     @param update
+     the whole update, from reading the entities to saving them;
+     */
+    public static <T> T update(boolean conditional, @NonNull Supplier<T> update) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return update.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (conditional || attempt == MAX_ATTEMPTS) {
+                    throw conflict();
+                }
+            }
+        }
+    }
+}
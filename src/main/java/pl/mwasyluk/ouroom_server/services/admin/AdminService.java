@@ -0,0 +1,18 @@
+package pl.mwasyluk.ouroom_server.services.admin;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import lombok.NonNull;
+
+import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatsPageForm;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
+import pl.mwasyluk.ouroom_server.dto.user.UserDetailsView;
+import pl.mwasyluk.ouroom_server.dto.user.UsersPageForm;
+
+public interface AdminService {
+    @NonNull PageView<UserDetailsView> readUsersPage(@NonNull UsersPageForm pageForm);
+    @NonNull StreamingResponseBody exportUsers(@NonNull UsersPageForm filterForm);
+
+    @NonNull PageView<ChatPresentableView> readChatsPage(@NonNull ChatsPageForm pageForm);
+    @NonNull StreamingResponseBody exportChats();
+}
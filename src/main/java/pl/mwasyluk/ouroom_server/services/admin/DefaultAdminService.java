@@ -0,0 +1,141 @@
+package pl.mwasyluk.ouroom_server.services.admin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatsPageForm;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
+import pl.mwasyluk.ouroom_server.dto.user.UserDetailsView;
+import pl.mwasyluk.ouroom_server.dto.user.UsersPageForm;
+import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.UserRepository;
+
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
+
+/**
+ Lists all the users and chats for the administrators in pages ordered by their IDs, where the ID of the last row
+ is the cursor of the next page.
+ <br> The rows are read as projections, so neither the entities nor the images are loaded. The exports write the
+ same rows as newline-delimited JSON, reading them page by page, so the memory usage does not depend on the amount
+ of users or chats.
+ */
+@RequiredArgsConstructor
+
+@Service
+public class DefaultAdminService implements AdminService {
+    static final int EXPORT_BATCH_SIZE = 500;
+    private static final byte NEW_LINE = '\n';
+
+    private final UserRepository userRepo;
+    private final ChatRepository chatRepo;
+    private final ObjectMapper objectMapper;
+
+    private static UUID validateCursor(String after) {
+        try {
+            return after == null ? null : UUID.fromString(after);
+        } catch (IllegalArgumentException e) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "The given cursor is not valid.");
+        }
+    }
+
+    private static void validateLimit(int limit, int maxLimit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Page limit has to be between 1 and " + maxLimit + ".");
+        }
+    }
+
+    private static <T> PageView<T> toPage(List<T> rows, int limit, Function<T, UUID> idOf) {
+        boolean hasMore = rows.size() > limit;
+        List<T> views = rows.subList(0, Math.min(limit, rows.size()));
+        String nextCursor = hasMore ? idOf.apply(views.get(views.size() - 1)).toString() : null;
+        return new PageView<>(views, nextCursor);
+    }
+
+    private List<UserDetailsView> findUsers(UsersPageForm form, UUID after, int limit) {
+        return userRepo.findDetailsAfter(after, form.getEnabled(), form.getProvider(), form.getAuthority(),
+                Limit.of(limit));
+    }
+
+    private List<ChatPresentableView> findChats(UUID after, int limit) {
+        return after == null
+                ? chatRepo.findAllPresentables(Limit.of(limit))
+                : chatRepo.findAllPresentablesAfter(after, Limit.of(limit));
+    }
+
+    @Override
+    public @NonNull PageView<UserDetailsView> readUsersPage(@NonNull UsersPageForm pageForm) {
+        // validation
+        int limit = pageForm.getLimit();
+        validateLimit(limit, UsersPageForm.MAX_LIMIT);
+        UUID after = validateCursor(pageForm.getAfter());
+
+        // execution
+        // one extra row tells whether the listing continues past this page
+        return toPage(findUsers(pageForm, after, limit + 1), limit, UserDetailsView::userId);
+    }
+
+    @Override
+    public @NonNull StreamingResponseBody exportUsers(@NonNull UsersPageForm filterForm) {
+        return exportAll(after -> findUsers(filterForm, after, EXPORT_BATCH_SIZE), UserDetailsView::userId);
+    }
+
+    @Override
+    public @NonNull PageView<ChatPresentableView> readChatsPage(@NonNull ChatsPageForm pageForm) {
+        // validation
+        int limit = pageForm.getLimit();
+        validateLimit(limit, ChatsPageForm.MAX_LIMIT);
+        UUID after = validateCursor(pageForm.getAfter());
+
+        // execution
+        return toPage(findChats(after, limit + 1), limit, ChatPresentableView::id);
+    }
+
+    @Override
+    public @NonNull StreamingResponseBody exportChats() {
+        return exportAll(after -> findChats(after, EXPORT_BATCH_SIZE), ChatPresentableView::id);
+    }
+
+    private <T> StreamingResponseBody exportAll(Function<UUID, List<T>> nextBatch, Function<T, UUID> idOf) {
+        // the image URLs are built from the current request, which is not bound to the async thread writing the body
+        RequestAttributes requestAttributes = RequestContextHolder.currentRequestAttributes();
+        return outputStream -> {
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                writeAll(outputStream, nextBatch, idOf);
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        };
+    }
+
+    private <T> void writeAll(OutputStream outputStream, Function<UUID, List<T>> nextBatch, Function<T, UUID> idOf)
+            throws IOException {
+        UUID after = null;
+        List<T> batch;
+        do {
+            batch = nextBatch.apply(after);
+            for (T row : batch) {
+                outputStream.write(objectMapper.writeValueAsBytes(row));
+                outputStream.write(NEW_LINE);
+            }
+            outputStream.flush();
+            if (!batch.isEmpty()) {
+                after = idOf.apply(batch.get(batch.size() - 1));
+            }
+        } while (batch.size() == EXPORT_BATCH_SIZE);
+    }
+}
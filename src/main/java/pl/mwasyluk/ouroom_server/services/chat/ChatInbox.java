@@ -0,0 +1,140 @@
+package pl.mwasyluk.ouroom_server.services.chat;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+import pl.mwasyluk.ouroom_server.services.sendable.SendableArchive;
+
+/**
+ Maintains the inbox read model: the members and Sendables amounts, the newest Sendable preview and the highest
+ sequence number of chats.
+ <br> The model is updated incrementally by atomic queries of the chat row after every change, so concurrent changes
+ do not overwrite each other. Since it is not updated in the transactions of the changes themselves, a failure in
+ between can leave the counters drifted, which the periodic repair fixes by recounting them.
+ <br> The only number stored per member is the sequence number of the newest Sendable read by the member, moved by
+ reading and by sending a Sendable. The unread amounts are derived from it and the highest sequence number of the
+ chat, and the last activities from the newest Sendables of the chats, so a new Sendable updates the row of its
+ creator only and reading the inbox counts no Sendables.
+ */
+@Slf4j
+@Component
+public class ChatInbox {
+    private static final String PREVIEW_ELLIPSIS = "\u2026";
+
+    private final ChatRepository chatRepo;
+    private final MemberRepository memberRepo;
+    private final SendableRepository sendableRepo;
+    private final SendableArchive sendableArchive;
+    private final boolean repairEnabled;
+
+    public ChatInbox(ChatRepository chatRepo, MemberRepository memberRepo, SendableRepository sendableRepo,
+                     SendableArchive sendableArchive,
+                     @Value("${chats.counters.repair.enabled:true}") boolean repairEnabled) {
+        this.chatRepo = chatRepo;
+        this.memberRepo = memberRepo;
+        this.sendableRepo = sendableRepo;
+        this.sendableArchive = sendableArchive;
+        this.repairEnabled = repairEnabled;
+    }
+
+    static String previewOf(String message) {
+        if (message == null || message.length() <= Chat.PREVIEW_LENGTH) {
+            return message;
+        }
+        int end = Chat.PREVIEW_LENGTH;
+        // a surrogate pair is never split
+        if (Character.isHighSurrogate(message.charAt(end - 1))) {
+            end--;
+        }
+        return message.substring(0, end) + PREVIEW_ELLIPSIS;
+    }
+
+    private SendableView newestOf(UUID chatId) {
+        List<SendableView> newest = sendableRepo.findNewestByContainerId(chatId, Limit.of(1));
+        if (newest.isEmpty()) {
+            newest = sendableArchive.readBefore(chatId, null, 1);
+        }
+        return newest.isEmpty() ? null : newest.get(0);
+    }
+
+    public void membersAdded(@NonNull UUID chatId, @NonNull Collection<UUID> userIds) {
+        chatRepo.addToMembersAmount(chatId, userIds.size());
+    }
+
+    public void membersRemoved(@NonNull UUID chatId, int amount) {
+        chatRepo.addToMembersAmount(chatId, -amount);
+    }
+
+    public void sendableAdded(@NonNull SendableView view) {
+        chatRepo.recordSendableAdded(view.containerId(), view.id(), view.createdAt(), previewOf(view.message()),
+                view.sequence());
+        // the creator has read the chat up to its own Sendable
+        memberRepo.raiseReadSequence(view.creatorId(), view.containerId(), view.sequence());
+    }
+
+    public void sendableChanged(@NonNull SendableView view) {
+        chatRepo.updateLastSendablePreview(view.containerId(), view.id(), previewOf(view.message()));
+    }
+
+    /**
+     Has to be called after the Sendable has been deleted, so the preview falls back to the preceding one.
+     */
+    public void sendableRemoved(@NonNull SendableView view) {
+        chatRepo.addToSendablesAmount(view.containerId(), -1);
+
+        SendableView last = newestOf(view.containerId());
+        chatRepo.replaceLastSendable(view.containerId(), view.id(),
+                last == null ? null : last.id(),
+                last == null ? null : last.createdAt(),
+                last == null ? null : previewOf(last.message()));
+    }
+
+    /**
+     Has to be called after the Sendables have been deleted.
+     */
+    public void sendablesRemoved(@NonNull UUID chatId, @NonNull Collection<UUID> sendableIds) {
+        if (sendableIds.isEmpty()) {
+            return;
+        }
+        chatRepo.addToSendablesAmount(chatId, -sendableIds.size());
+
+        SendableView last = newestOf(chatId);
+        chatRepo.replaceLastSendableIn(chatId, sendableIds,
+                last == null ? null : last.id(),
+                last == null ? null : last.createdAt(),
+                last == null ? null : previewOf(last.message()));
+    }
+
+    @Scheduled(fixedDelayString = "${chats.counters.repair.interval:PT6H}",
+               initialDelayString = "${chats.counters.repair.initial-delay:PT1M}")
+    public void repairDrifted() {
+        if (!repairEnabled) {
+            return;
+        }
+        int repaired = repair();
+        if (repaired > 0) {
+            log.warn("Repaired {} drifted chat counters.", repaired);
+        }
+    }
+
+    /**
+     @return the amount of repaired rows
+     */
+    public int repair() {
+        return chatRepo.repairMembersAmounts() + chatRepo.repairSendablesAmounts()
+               + chatRepo.raiseLastSequencesToSendables();
+    }
+}
@@ -0,0 +1,169 @@
+package pl.mwasyluk.ouroom_server.services.chat;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+
+import pl.mwasyluk.ouroom_server.domain.media.Media;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
+
+/**
+ Bounded in-memory copy of the chat lists of the recently active users, so the lists polled after every membership
+ notification do not reach the database.
+ <br> A list is filled from the database on a miss and evicted by the paths that send the membership notifications:
+ the lists of the given users when they join or leave a chat, and the lists of every cached member of a chat when
+ the chat changes or is deleted.
+ <br> A fill is rejected only when its user or any of its chats has been evicted since the stamp was taken. The
+ stamps of the latest evictions are kept for up to {@code maxUsers} users and chats, a key whose stamp has been
+ dropped is treated as evicted at the newest dropped stamp.
+ <br> Users are evicted in the least-recently-used order once more than {@code maxUsers} lists are cached. The image
+ URLs depend on the request, so they are built again on every read.
+ */
+@Component
+public class ChatListCache {
+    private final int maxUsers;
+    private final Map<UUID, List<ChatPresentableView>> lists = new LinkedHashMap<>(16, 0.75f, true);
+    // the users whose cached lists contain the chat
+    private final Map<UUID, Set<UUID>> usersByChat = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final EvictionStamps userStamps;
+    private final EvictionStamps chatStamps;
+    private long writeStamp;
+
+    public ChatListCache(@Value("${chats.list-cache.max-users:10000}") int maxUsers) {
+        this.maxUsers = maxUsers;
+        this.userStamps = new EvictionStamps(maxUsers);
+        this.chatStamps = new EvictionStamps(maxUsers);
+    }
+
+    /**
+     @return the chats of the user, {@code null} when the list is not cached.
+     */
+    public synchronized List<ChatPresentableView> read(@NonNull UUID userId) {
+        List<ChatPresentableView> list = lists.get(userId);
+        if (list == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return list.stream()
+                .map(view -> new ChatPresentableView(view.id(), view.name(), view.imageId(),
+                        view.imageId() == null ? null : Media.internalUrlOf(view.imageId()), view.version()))
+                .toList();
+    }
+
+    /**
+     @return a stamp that has to be passed to {@link #fill} to detect evictions concurrent with the database read.
+     */
+    public synchronized long currentStamp() {
+        return writeStamp;
+    }
+
+    /**
+     Caches the chats of the user unless the user or any of the chats has been evicted since the given stamp was
+     taken.
+     */
+    public synchronized void fill(@NonNull UUID userId, long stamp, @NonNull List<ChatPresentableView> chats) {
+        if (userStamps.get(userId) > stamp || chats.stream().anyMatch(chat -> chatStamps.get(chat.id()) > stamp)) {
+            return;
+        }
+        remove(userId);
+        lists.put(userId, List.copyOf(chats));
+        chats.forEach(chat -> usersByChat.computeIfAbsent(chat.id(), id -> new HashSet<>()).add(userId));
+        evictOverflow();
+    }
+
+    public synchronized void evictUsers(@NonNull Collection<UUID> userIds) {
+        writeStamp++;
+        userIds.forEach(userId -> {
+            userStamps.put(userId, writeStamp);
+            remove(userId);
+        });
+    }
+
+    public synchronized void evictChat(@NonNull UUID chatId) {
+        writeStamp++;
+        chatStamps.put(chatId, writeStamp);
+        Set<UUID> userIds = usersByChat.get(chatId);
+        if (userIds != null) {
+            List.copyOf(userIds).forEach(this::remove);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRatio() {
+        long reads = hits.get() + misses.get();
+        return reads == 0 ? 0 : (double) hits.get() / reads;
+    }
+
+    public synchronized int getEntries() {
+        return lists.size();
+    }
+
+    private void remove(UUID userId) {
+        List<ChatPresentableView> removed = lists.remove(userId);
+        if (removed != null) {
+            removed.forEach(chat -> unindex(chat.id(), userId));
+        }
+    }
+
+    private void unindex(UUID chatId, UUID userId) {
+        Set<UUID> userIds = usersByChat.get(chatId);
+        if (userIds != null && userIds.remove(userId) && userIds.isEmpty()) {
+            usersByChat.remove(chatId);
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<UUID, List<ChatPresentableView>>> eldest = lists.entrySet().iterator();
+        while (lists.size() > maxUsers && eldest.hasNext()) {
+            Map.Entry<UUID, List<ChatPresentableView>> entry = eldest.next();
+            eldest.remove();
+            entry.getValue().forEach(chat -> unindex(chat.id(), entry.getKey()));
+        }
+    }
+
+    private static class EvictionStamps {
+        // in the order of the evictions, so the eldest stamp is always the lowest one
+        private final Map<UUID, Long> latest = new LinkedHashMap<>();
+        private final int maxKeys;
+        private long dropped;
+
+        private EvictionStamps(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        private long get(UUID key) {
+            return latest.getOrDefault(key, dropped);
+        }
+
+        private void put(UUID key, long stamp) {
+            latest.remove(key);
+            latest.put(key, stamp);
+            if (latest.size() > maxKeys) {
+                Iterator<Long> eldest = latest.values().iterator();
+                dropped = eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+}
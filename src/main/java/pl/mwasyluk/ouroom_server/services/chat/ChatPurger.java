@@ -0,0 +1,226 @@
+package pl.mwasyluk.ouroom_server.services.chat;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.MediaRepository;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableArchiveKeyRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableArchiveRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableChangeRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+import pl.mwasyluk.ouroom_server.services.MemberPrivilegesCache;
+import pl.mwasyluk.ouroom_server.services.sendable.ChatMailboxes;
+import pl.mwasyluk.ouroom_server.services.sendable.PinnedSendables;
+import pl.mwasyluk.ouroom_server.services.sendable.RecentSendablesCache;
+import pl.mwasyluk.ouroom_server.services.sendable.SendableArchive;
+import pl.mwasyluk.ouroom_server.services.sendable.SendableSearchIndex;
+import pl.mwasyluk.ouroom_server.services.sendable.SendableWatermarks;
+
+/**
+ Deletes chats in two steps, so deleting a chat with many Sendables neither loads them nor holds the request.
+ <br> A deleted chat is marked and loses all its members at once, in a single transaction, so it disappears from
+ every listing of its former members and none of them passes the member validation anymore. Its Sendables, their
+ change log, archive segments and archived keys are periodically removed afterward by set-based deletes of up to
+ {@code batchSize} rows, each in its own transaction together with the attachments of the removed Sendables,
+ followed by the chat row and its image. A chat failed in the middle is resumed by the next run. Once its rows are
+ gone, the chat is evicted from the caches of the recent and pinned Sendables, the search index and the archive.
+ <br> The progress is exposed by the amounts of the purged chats and rows, and of the chats waiting to be purged.
+ */
+@Slf4j
+@Component
+public class ChatPurger {
+    private final ChatRepository chatRepo;
+    private final MemberRepository memberRepo;
+    private final SendableRepository sendableRepo;
+    private final SendableChangeRepository sendableChangeRepo;
+    private final SendableArchiveRepository sendableArchiveRepo;
+    private final SendableArchiveKeyRepository sendableArchiveKeyRepo;
+    private final SendableArchive sendableArchive;
+    private final MediaRepository mediaRepo;
+    private final RecentSendablesCache recentSendablesCache;
+    private final SendableSearchIndex sendableSearchIndex;
+    private final PinnedSendables pinnedSendables;
+    private final ChatMailboxes chatMailboxes;
+    private final MemberPrivilegesCache memberPrivilegesCache;
+    private final TypingIndicators typingIndicators;
+    private final SendableWatermarks sendableWatermarks;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int chatsPerRun;
+
+    private final AtomicLong purgedChats = new AtomicLong();
+    private final AtomicLong purgedRows = new AtomicLong();
+    private volatile long pendingChats;
+
+    public ChatPurger(ChatRepository chatRepo,
+                      MemberRepository memberRepo,
+                      SendableRepository sendableRepo,
+                      SendableChangeRepository sendableChangeRepo,
+                      SendableArchiveRepository sendableArchiveRepo,
+                      SendableArchiveKeyRepository sendableArchiveKeyRepo,
+                      SendableArchive sendableArchive,
+                      MediaRepository mediaRepo,
+                      RecentSendablesCache recentSendablesCache,
+                      SendableSearchIndex sendableSearchIndex,
+                      PinnedSendables pinnedSendables,
+                      ChatMailboxes chatMailboxes,
+                      MemberPrivilegesCache memberPrivilegesCache,
+                      TypingIndicators typingIndicators,
+                      SendableWatermarks sendableWatermarks,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${chats.purge.enabled:true}") boolean enabled,
+                      @Value("${chats.purge.batch-size:1000}") int batchSize,
+                      @Value("${chats.purge.chats-per-run:10}") int chatsPerRun) {
+        this.chatRepo = chatRepo;
+        this.memberRepo = memberRepo;
+        this.sendableRepo = sendableRepo;
+        this.sendableChangeRepo = sendableChangeRepo;
+        this.sendableArchiveRepo = sendableArchiveRepo;
+        this.sendableArchiveKeyRepo = sendableArchiveKeyRepo;
+        this.sendableArchive = sendableArchive;
+        this.mediaRepo = mediaRepo;
+        this.recentSendablesCache = recentSendablesCache;
+        this.sendableSearchIndex = sendableSearchIndex;
+        this.pinnedSendables = pinnedSendables;
+        this.chatMailboxes = chatMailboxes;
+        this.memberPrivilegesCache = memberPrivilegesCache;
+        this.typingIndicators = typingIndicators;
+        this.sendableWatermarks = sendableWatermarks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.chatsPerRun = chatsPerRun;
+    }
+
+    /**
+     @return true if the chat has been marked now, false if it has been marked before
+     */
+    public boolean markDeleted(@NonNull UUID chatId) {
+        Boolean marked = transactionTemplate.execute(status -> {
+            if (chatRepo.markDeleted(chatId, ZonedDateTime.now()) == 0) {
+                return false;
+            }
+            memberRepo.deleteAllByMembershipId(chatId);
+            return true;
+        });
+        memberPrivilegesCache.invalidateChat(chatId);
+        chatMailboxes.membersChanged(chatId);
+        typingIndicators.membersChanged(chatId);
+        sendableWatermarks.membersChanged(chatId);
+        return Boolean.TRUE.equals(marked);
+    }
+
+    @Scheduled(fixedDelayString = "${chats.purge.interval:PT1M}",
+               initialDelayString = "${chats.purge.interval:PT1M}")
+    public void purgeDeleted() {
+        if (!enabled) {
+            return;
+        }
+        int purged = purge();
+        if (purged > 0) {
+            log.info("Purged {} deleted chats, {} still waiting.", purged, pendingChats);
+        }
+    }
+
+    /**
+     @return the amount of purged chats
+     */
+    public int purge() {
+        int purged = 0;
+        for (UUID chatId : chatRepo.findAllDeletedIds(Limit.of(chatsPerRun))) {
+            try {
+                purgeChat(chatId);
+                purged++;
+            } catch (RuntimeException e) {
+                // the removed batches stay removed, the next run continues with the rest
+                log.warn("Deleted chat {} could not be purged.", chatId, e);
+            }
+        }
+        pendingChats = chatRepo.countByDeletedAtIsNotNull();
+        return purged;
+    }
+
+    private void purgeChat(UUID chatId) {
+        long rows = deleteInBatches(() -> sendableRepo.findIdsByContainerId(chatId, Limit.of(batchSize)),
+                sendableIds -> {
+                    // the attachments are read before their Sendables are gone
+                    List<UUID> attachmentIds = sendableRepo.findAllViewsByIdIn(sendableIds).stream()
+                            .flatMap(view -> view.attachmentIds().stream()).toList();
+                    int deleted = sendableRepo.deleteAllByIdIn(sendableIds);
+                    mediaRepo.deleteAllWithContentsByIdIn(attachmentIds);
+                    return deleted;
+                });
+        recentSendablesCache.evict(chatId);
+        sendableSearchIndex.evict(chatId);
+        pinnedSendables.evict(chatId);
+        rows += deleteInBatches(() -> sendableChangeRepo.findRevisionsByContainerId(chatId, Limit.of(batchSize)),
+                sendableChangeRepo::deleteAllByRevisionIn);
+        rows += deleteInBatches(() -> sendableArchiveRepo.findIdsByContainerId(chatId, Limit.of(batchSize)),
+                segmentIds -> {
+                    mediaRepo.deleteAllWithContentsByIdIn(sendableArchive.findAttachmentIds(segmentIds));
+                    return sendableArchiveRepo.deleteAllByIdIn(segmentIds);
+                });
+        rows += deleteInBatches(() -> sendableArchiveKeyRepo.findSendableIdsByContainerId(chatId, Limit.of(batchSize)),
+                sendableArchiveKeyRepo::deleteAllBySendableIdIn);
+        sendableArchive.evict(chatId);
+
+        // the chat row refers to the image, so it is removed first
+        Integer deleted = transactionTemplate.execute(status -> {
+            UUID imageId = chatRepo.findImageIdById(chatId).orElse(null);
+            int chatRows = chatRepo.deleteDeletedById(chatId);
+            if (imageId != null) {
+                mediaRepo.deleteById(imageId);
+            }
+            return chatRows;
+        });
+        int chatRows = deleted == null ? 0 : deleted;
+        rows += chatRows;
+        purgedRows.addAndGet(chatRows);
+
+        purgedChats.incrementAndGet();
+        log.debug("Purged deleted chat {} with {} rows.", chatId, rows);
+    }
+
+    private <T> long deleteInBatches(Supplier<List<T>> nextBatch, Function<List<T>, Integer> delete) {
+        long deleted = 0;
+        while (true) {
+            Integer batchDeleted = transactionTemplate.execute(status -> {
+                List<T> batch = nextBatch.get();
+                return batch.isEmpty() ? 0 : delete.apply(batch);
+            });
+            if (batchDeleted == null || batchDeleted == 0) {
+                return deleted;
+            }
+            deleted += batchDeleted;
+            purgedRows.addAndGet(batchDeleted);
+        }
+    }
+
+    public long getPurgedChats() {
+        return purgedChats.get();
+    }
+
+    public long getPurgedRows() {
+        return purgedRows.get();
+    }
+
+    public long getPendingChats() {
+        return pendingChats;
+    }
+}
@@ -7,10 +7,14 @@ import lombok.NonNull;
 
 import pl.mwasyluk.ouroom_server.dto.chat.ChatDetailsView;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatForm;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxPageForm;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxView;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
 
 public interface ChatService {
     @NonNull Collection<ChatPresentableView> readAllWithPrincipal();
+    @NonNull PageView<ChatInboxView> readInboxOfPrincipal(@NonNull ChatInboxPageForm pageForm);
     @NonNull ChatPresentableView create(@NonNull ChatForm chatForm);
     @NonNull ChatDetailsView read(@NonNull UUID chatId);
     @NonNull ChatPresentableView update(@NonNull ChatForm chatForm);
@@ -1,10 +1,13 @@
 package pl.mwasyluk.ouroom_server.services.chat;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import lombok.NonNull;
@@ -19,12 +22,18 @@ import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
 import pl.mwasyluk.ouroom_server.domain.user.User;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatDetailsView;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatForm;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxPageForm;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxView;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
 import pl.mwasyluk.ouroom_server.dto.notification.NotificationView;
+import pl.mwasyluk.ouroom_server.dto.page.KeysetCursor;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
+import pl.mwasyluk.ouroom_server.exceptions.ConversionException;
 import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
 import pl.mwasyluk.ouroom_server.exceptions.UnexpectedStateException;
 import pl.mwasyluk.ouroom_server.repos.ChatRepository;
 import pl.mwasyluk.ouroom_server.services.MemberValidator;
+import pl.mwasyluk.ouroom_server.services.OptimisticUpdates;
 import pl.mwasyluk.ouroom_server.websocket.NotificationTemplate;
 import pl.mwasyluk.ouroom_server.websocket.Topic;
 
@@ -43,8 +52,11 @@ public class DefaultChatService implements ChatService {
     private final ChatRepository chatRepo;
     private final MemberValidator memberValidator;
     private final NotificationTemplate notificationTemplate;
+    private final ChatPurger chatPurger;
+    private final ChatListCache chatListCache;
 
     private void notifyAllMembers(NotificationView.Action action, ChatPresentableView chatView) {
+        chatListCache.evictChat(chatView.id());
         NotificationView notificationView = new NotificationView(action, chatView);
         notificationTemplate.notifyAllMembers(chatView.id(), Topic.MEMBERSHIPS, notificationView);
     }
@@ -69,9 +81,50 @@ public class DefaultChatService implements ChatService {
         User principal = validatePrincipal();
 
         // execution
-        return chatRepo.findAllByUserId(principal.getId()).stream()
+        List<ChatPresentableView> cached = chatListCache.read(principal.getId());
+        if (cached != null) {
+            return cached;
+        }
+
+        long stamp = chatListCache.currentStamp();
+        List<ChatPresentableView> chats = chatRepo.findAllByUserId(principal.getId()).stream()
                 .map(ChatPresentableView::new)
                 .collect(Collectors.toList());
+        chatListCache.fill(principal.getId(), stamp, chats);
+        return chats;
+    }
+
+    @Override
+    public @NonNull PageView<ChatInboxView> readInboxOfPrincipal(@NonNull ChatInboxPageForm pageForm) {
+        // validation
+        User principal = validatePrincipal();
+        int limit = pageForm.getLimit();
+        if (limit < 1 || limit > ChatInboxPageForm.MAX_LIMIT) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY,
+                    "Inbox page limit has to be between 1 and " + ChatInboxPageForm.MAX_LIMIT + ".");
+        }
+        KeysetCursor cursor;
+        try {
+            cursor = pageForm.getBefore() == null ? null : KeysetCursor.decode(pageForm.getBefore());
+        } catch (ConversionException e) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "The given cursor is not valid.");
+        }
+
+        // execution
+        // one extra row tells whether the inbox continues past this page
+        Limit queryLimit = Limit.of(limit + 1);
+        List<ChatInboxView> rows = cursor == null
+                ? chatRepo.findInboxByUserId(principal.getId(), queryLimit)
+                : chatRepo.findInboxByUserIdBefore(principal.getId(), cursor.timestamp(), cursor.id(), queryLimit);
+
+        boolean hasMore = rows.size() > limit;
+        List<ChatInboxView> views = rows.subList(0, Math.min(limit, rows.size()));
+        String nextCursor = null;
+        if (hasMore) {
+            ChatInboxView last = views.get(views.size() - 1);
+            nextCursor = new KeysetCursor(last.lastActivityAt(), last.chat().id()).encode();
+        }
+        return new PageView<>(views, nextCursor);
     }
 
     @Override
@@ -83,6 +136,7 @@ public class DefaultChatService implements ChatService {
         Chat newChat = new Chat(principal);
         setChatPresentable(newChat, chatForm.getName(), false, chatForm.getFile());
         ChatPresentableView chatPresentableView = new ChatPresentableView(chatRepo.save(newChat));
+        chatListCache.evictUsers(Set.of(principal.getId()));
 
         notifyAllMembers(NEW, chatPresentableView);
         return chatPresentableView;
@@ -95,7 +149,7 @@ public class DefaultChatService implements ChatService {
         memberValidator.validateAsMember(principal.getId(), chatId);
 
         // verification
-        Optional<ChatDetailsView> optionalView = chatRepo.findDetailsById(chatId);
+        Optional<ChatDetailsView> optionalView = chatRepo.findDetailsById(chatId, principal.getId());
         if (optionalView.isEmpty()) {
             throw new UnexpectedStateException("Chat could not be found, but the principle is recognized as a member.");
         }
@@ -119,15 +173,19 @@ public class DefaultChatService implements ChatService {
             throw new ServiceException(FORBIDDEN, "Updating Chat requires higher privileges.");
         }
 
-        Optional<Chat> targetChatOptional = chatRepo.findById(chatForm.getChatId());
-        if (targetChatOptional.isEmpty()) {
-            throw new UnexpectedStateException("Chat could not be found, but the principle is recognized as a member.");
-        }
-
         // execution
-        Chat targetChat = targetChatOptional.get();
-        setChatPresentable(targetChat, chatForm.getName(), chatForm.isClearImage(), chatForm.getFile());
-        ChatPresentableView chatPresentableView = new ChatPresentableView(chatRepo.save(targetChat));
+        ChatPresentableView chatPresentableView = OptimisticUpdates.update(chatForm.getVersion(), () -> {
+            Optional<Chat> targetChatOptional = chatRepo.findById(chatForm.getChatId());
+            if (targetChatOptional.isEmpty()) {
+                throw new UnexpectedStateException(
+                        "Chat could not be found, but the principle is recognized as a member.");
+            }
+            Chat targetChat = targetChatOptional.get();
+            OptimisticUpdates.verifyVersion(chatForm.getVersion(), targetChat.getVersion());
+
+            setChatPresentable(targetChat, chatForm.getName(), chatForm.isClearImage(), chatForm.getFile());
+            return new ChatPresentableView(chatRepo.save(targetChat));
+        });
 
         notifyAllMembers(CHANGED, chatPresentableView);
         return chatPresentableView;
@@ -140,7 +198,7 @@ public class DefaultChatService implements ChatService {
 
         // verification
         Optional<Chat> optionalChat = chatRepo.findById(chatId);
-        if (optionalChat.isEmpty()) {
+        if (optionalChat.isEmpty() || optionalChat.get().isDeleted()) {
             throw new ServiceException(NOT_FOUND, "Chat with the given ID does not exist.");
         }
 
@@ -150,7 +208,10 @@ public class DefaultChatService implements ChatService {
         }
 
         // execution
+        // the members are notified before they are removed along with the mark
         notifyAllMembers(REMOVED, new ChatPresentableView(Chat.mockOf(chatId)));
-        chatRepo.deleteById(chatId);
+        chatPurger.markDeleted(chatId);
+        // evicted again, so no list read before the members were removed stays cached
+        chatListCache.evictChat(chatId);
     }
 }
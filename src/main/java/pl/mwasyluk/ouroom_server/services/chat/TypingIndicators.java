@@ -0,0 +1,135 @@
+package pl.mwasyluk.ouroom_server.services.chat;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+
+import pl.mwasyluk.ouroom_server.dto.chat.TypingView;
+import pl.mwasyluk.ouroom_server.dto.notification.NotificationView;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.websocket.NotificationTemplate;
+import pl.mwasyluk.ouroom_server.websocket.Topic;
+
+/**
+ Fans out ephemeral typing events of chat members to the other members of the chat.
+ <br> The member IDs of every chat with typing members are kept in memory, loaded on the first event of the chat and
+ dropped by {@link #membersChanged}, which the paths changing the memberships call once the change has been
+ committed. The same IDs check the membership of the sender and give the recipients, so the events of users that
+ are not members, or are not anymore, are dropped without reaching the database. A set loaded while the members of
+ its chat were changed is not kept, and the sets of chats without typing members are dropped with them.
+ <br> Repeated typing events of a member of a chat are coalesced, only the first one within {@code coalesceWindow}
+ is sent. The event of a stopped typing is sent only if the typing has been sent before.
+ */
+@Component
+public class TypingIndicators {
+    private final MemberRepository memberRepo;
+    private final NotificationTemplate notificationTemplate;
+    private final long coalesceWindowNanos;
+    private final LongSupplier nanoClock;
+    // the time of the last sent typing event of every (chat, user) pair
+    private final Map<TypingKey, Long> lastSent = new ConcurrentHashMap<>();
+    // the member IDs of the chats with typing members
+    private final Map<UUID, Set<UUID>> memberIds = new ConcurrentHashMap<>();
+    private final AtomicLong membersChanges = new AtomicLong();
+
+    @Autowired
+    public TypingIndicators(MemberRepository memberRepo,
+                            NotificationTemplate notificationTemplate,
+                            @Value("${chats.typing.coalesce-window:PT3S}") Duration coalesceWindow) {
+        this(memberRepo, notificationTemplate, coalesceWindow, System::nanoTime);
+    }
+
+    TypingIndicators(MemberRepository memberRepo, NotificationTemplate notificationTemplate,
+                     Duration coalesceWindow, LongSupplier nanoClock) {
+        this.memberRepo = memberRepo;
+        this.notificationTemplate = notificationTemplate;
+        this.coalesceWindowNanos = coalesceWindow.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     @return {@code true} if the event has been sent to the other members, {@code false} if it has been dropped
+     */
+    public boolean publish(@NonNull UUID userId, @NonNull UUID chatId, boolean typing) {
+        Set<UUID> members = membersOf(chatId);
+        if (!members.contains(userId)) {
+            return false;
+        }
+
+        TypingKey key = new TypingKey(chatId, userId);
+        long now = nanoClock.getAsLong();
+        if (typing) {
+            Long previous = lastSent.get(key);
+            if (previous != null && now - previous < coalesceWindowNanos) {
+                return false;
+            }
+            // only one of the concurrent events of the same member passes
+            boolean won = previous == null ? lastSent.putIfAbsent(key, now) == null
+                    : lastSent.replace(key, previous, now);
+            if (!won) {
+                return false;
+            }
+        } else if (lastSent.remove(key) == null) {
+            return false;
+        }
+
+        Set<UUID> recipients = new HashSet<>(members);
+        recipients.remove(userId);
+        if (!recipients.isEmpty()) {
+            notificationTemplate.notifyAllUsers(recipients, Topic.TYPING,
+                    new NotificationView(NotificationView.Action.CHANGED, new TypingView(chatId, userId, typing)));
+        }
+        return true;
+    }
+
+    private Set<UUID> membersOf(UUID chatId) {
+        Set<UUID> cached = memberIds.get(chatId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long changes = membersChanges.get();
+        Set<UUID> loaded = Set.copyOf(memberRepo.findAllUserIdsByMembershipId(chatId));
+        memberIds.put(chatId, loaded);
+        // checked after the put, so a change made in the meantime drops either this set or the one it has replaced
+        if (changes != membersChanges.get()) {
+            memberIds.remove(chatId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     Has to be called once a change of the members of the chat has been committed.
+     */
+    public void membersChanged(@NonNull UUID chatId) {
+        membersChanges.incrementAndGet();
+        memberIds.remove(chatId);
+    }
+
+    /**
+     Forgets the typing members that have not sent any event for longer than the window, clients stop showing them
+     on their own, and the member IDs of the chats left without typing members.
+     */
+    @Scheduled(fixedDelayString = "${chats.typing.purge-delay:PT30S}")
+    public void purgeExpired() {
+        long now = nanoClock.getAsLong();
+        lastSent.values().removeIf(sentAt -> now - sentAt >= coalesceWindowNanos);
+        Set<UUID> typingChats = lastSent.keySet().stream().map(TypingKey::chatId).collect(Collectors.toSet());
+        memberIds.keySet().retainAll(typingChats);
+    }
+
+    private record TypingKey(UUID chatId, UUID userId) {
+    }
+}
@@ -1,27 +1,66 @@
 package pl.mwasyluk.ouroom_server.services.media;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 
 import pl.mwasyluk.ouroom_server.domain.media.Media;
 import pl.mwasyluk.ouroom_server.domain.media.source.DataSource;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
 import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
 import pl.mwasyluk.ouroom_server.repos.MediaRepository;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 import static pl.mwasyluk.ouroom_server.services.PrincipalValidator.validatePrincipal;
 
-@RequiredArgsConstructor
-
+/**
+ Multiple files are decoded and saved concurrently on a bounded pool of {@code ingestThreads} threads, so they take
+ about as long as the slowest of them. Once the queue of {@code ingestQueueCapacity} files is full, the calling
+ threads ingest their files themselves.
+ */
 @Service
 public class DefaultMediaService implements MediaService {
     private final MediaRepository mediaRepository;
+    private final ThreadPoolExecutor ingestPool;
+    // the workers validate the principal of the request, so they run with its security context
+    private final ExecutorService ingestExecutor;
+
+    public DefaultMediaService(MediaRepository mediaRepository,
+                               @Value("${media.ingest.threads:4}") int ingestThreads,
+                               @Value("${media.ingest.queue-capacity:64}") int ingestQueueCapacity) {
+        this.mediaRepository = mediaRepository;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.ingestPool = new ThreadPoolExecutor(ingestThreads, ingestThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(ingestQueueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "media-ingest-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.ingestExecutor = new DelegatingSecurityContextExecutorService(ingestPool);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ingestPool.shutdown();
+    }
 
     @Override
     public @NonNull Media read(@NonNull UUID mediaId) {
@@ -29,7 +68,7 @@ public class DefaultMediaService implements MediaService {
         validatePrincipal();
 
         // verification
-        Optional<Media> mediaOptional = mediaRepository.findById(mediaId);
+        Optional<Media> mediaOptional = mediaRepository.findWithContentById(mediaId);
         if (mediaOptional.isEmpty()) {
             throw new ServiceException(NOT_FOUND, "Media with the given ID does not exist.");
         }
@@ -57,4 +96,46 @@ public class DefaultMediaService implements MediaService {
         // execution
         return mediaRepository.save(result);
     }
+
+    @Override
+    public @NonNull List<Media> createAll(List<MultipartFile> files) {
+        // validation
+        validatePrincipal();
+        if (files == null || files.isEmpty()) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Media requires at least one non-empty file.");
+        }
+        if (files.size() > ChatSendable.MAX_ATTACHMENTS) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY,
+                    "Up to " + ChatSendable.MAX_ATTACHMENTS + " files can be uploaded at once.");
+        }
+
+        // execution
+        if (files.size() == 1) {
+            return List.of(create(files.get(0)));
+        }
+
+        List<Future<Media>> futures = files.stream().map(file -> ingestExecutor.submit(() -> create(file))).toList();
+        List<Media> created = new ArrayList<>(files.size());
+        RuntimeException failure = null;
+        // every file is awaited, even after a failure, so none is saved after the saved ones are removed
+        for (Future<Media> future : futures) {
+            try {
+                created.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new ServiceException(SERVICE_UNAVAILABLE, "Media could not be saved in time.");
+                break;
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e);
+                }
+            }
+        }
+        if (failure != null) {
+            // the files are uploaded all or none
+            mediaRepository.deleteAll(created);
+            throw failure;
+        }
+        return created;
+    }
 }
@@ -0,0 +1,131 @@
+package pl.mwasyluk.ouroom_server.services.media;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PostConstruct;
+
+import pl.mwasyluk.ouroom_server.converters.DataSourceColumnConverter;
+import pl.mwasyluk.ouroom_server.domain.media.MediaContent;
+import pl.mwasyluk.ouroom_server.domain.media.source.DataSource;
+
+/**
+ Moves the payloads of the Media created before {@link MediaContent} was introduced, once on startup, before any
+ request is served.
+ <br> Such Media keep their payloads in the legacy {@code data_source} column of the media table, left unmapped by
+ the schema update, and have no content type. The payloads are copied to the media_content table in the same
+ format, the content types are read from them, and the legacy column is cleared, in chunks committed one by one.
+ Once none is left, the foreign key of the contents is added, which the schema update cannot add over the Media
+ without contents. The migration does nothing once the column has been cleared or when the database never had it.
+ */
+@Slf4j
+
+@Component
+// the schema update has to create the media_content table first
+@DependsOn("entityManagerFactory")
+public class MediaContentMigration {
+    public static final int CHUNK_SIZE = 100;
+    public static final String CONTENT_FOREIGN_KEY_NAME = "media_content_fk";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSourceColumnConverter dataSourceConverter = new DataSourceColumnConverter();
+
+    public MediaContentMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (!hasLegacyColumn()) {
+            return;
+        }
+
+        int migrated = 0;
+        Integer chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> migrateChunk());
+            migrated += chunk == null ? 0 : chunk;
+        } while (chunk != null && chunk == CHUNK_SIZE);
+        if (migrated > 0) {
+            log.info("Moved the payloads of {} Media created before the media contents.", migrated);
+        }
+
+        if (!hasContentForeignKey()) {
+            jdbcTemplate.execute("ALTER TABLE media ADD CONSTRAINT " + CONTENT_FOREIGN_KEY_NAME
+                                 + " FOREIGN KEY (id) REFERENCES media_content (id)");
+        }
+    }
+
+    private boolean hasLegacyColumn() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            boolean upperCase = metaData.storesUpperCaseIdentifiers();
+            try (ResultSet columns = metaData.getColumns(null, null,
+                    upperCase ? "MEDIA" : "media", upperCase ? "DATA_SOURCE" : "data_source")) {
+                return columns.next();
+            }
+        }));
+    }
+
+    private boolean hasContentForeignKey() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet foreignKeys = metaData.getImportedKeys(null, null,
+                    metaData.storesUpperCaseIdentifiers() ? "MEDIA" : "media")) {
+                while (foreignKeys.next()) {
+                    if ("media_content".equalsIgnoreCase(foreignKeys.getString("PKTABLE_NAME"))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }));
+    }
+
+    private int migrateChunk() {
+        List<LegacyMedia> legacyMedia = jdbcTemplate.query("""
+                SELECT m.id, m.content_type, m.data_source
+                FROM media m
+                WHERE m.data_source IS NOT NULL
+                LIMIT ?
+                """, (rs, rowNum) -> new LegacyMedia(rs.getObject(1, UUID.class), rs.getString(2), rs.getBytes(3)),
+                CHUNK_SIZE);
+
+        for (LegacyMedia media : legacyMedia) {
+            // the column is written by the same converter, so the bytes are copied as they are
+            jdbcTemplate.update("""
+                    INSERT INTO media_content (id, data_source)
+                    SELECT ?, ?
+                    WHERE NOT EXISTS (SELECT 1 FROM media_content c WHERE c.id = ?)
+                    """, media.id(), media.dataSource(), media.id());
+            jdbcTemplate.update("""
+                    UPDATE media
+                    SET content_type = ?, data_source = NULL
+                    WHERE id = ?
+                    """, media.contentType() != null ? media.contentType() : contentTypeOf(media.dataSource()),
+                    media.id());
+        }
+        return legacyMedia.size();
+    }
+
+    private String contentTypeOf(byte[] dataSourceColumn) {
+        DataSource dataSource = dataSourceConverter.convertToEntityAttribute(dataSourceColumn);
+        String contentType = dataSource == null ? null : dataSource.getContentType();
+        return contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    private record LegacyMedia(UUID id, String contentType, byte[] dataSource) {
+    }
+}
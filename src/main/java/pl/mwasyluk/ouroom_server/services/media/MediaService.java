@@ -1,5 +1,6 @@
 package pl.mwasyluk.ouroom_server.services.media;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.web.multipart.MultipartFile;
@@ -10,4 +11,5 @@ import pl.mwasyluk.ouroom_server.domain.media.Media;
 public interface MediaService {
     @NonNull Media read(@NonNull UUID mediaId);
     @NonNull Media create(MultipartFile file);
+    @NonNull List<Media> createAll(List<MultipartFile> files);
 }
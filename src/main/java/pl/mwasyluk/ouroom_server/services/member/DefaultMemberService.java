@@ -1,7 +1,10 @@
 package pl.mwasyluk.ouroom_server.services.member;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -25,7 +28,14 @@ import pl.mwasyluk.ouroom_server.exceptions.UnexpectedStateException;
 import pl.mwasyluk.ouroom_server.repos.ChatRepository;
 import pl.mwasyluk.ouroom_server.repos.MemberRepository;
 import pl.mwasyluk.ouroom_server.repos.UserRepository;
+import pl.mwasyluk.ouroom_server.services.MemberPrivilegesCache;
 import pl.mwasyluk.ouroom_server.services.MemberValidator;
+import pl.mwasyluk.ouroom_server.services.OptimisticUpdates;
+import pl.mwasyluk.ouroom_server.services.chat.ChatInbox;
+import pl.mwasyluk.ouroom_server.services.chat.ChatListCache;
+import pl.mwasyluk.ouroom_server.services.chat.TypingIndicators;
+import pl.mwasyluk.ouroom_server.services.sendable.ChatMailboxes;
+import pl.mwasyluk.ouroom_server.services.sendable.SendableWatermarks;
 import pl.mwasyluk.ouroom_server.websocket.NotificationTemplate;
 import pl.mwasyluk.ouroom_server.websocket.Topic;
 
@@ -45,8 +55,15 @@ public class DefaultMemberService implements MemberService {
     private final ChatRepository chatRepository;
     private final MemberValidator memberValidator;
     private final NotificationTemplate notificationTemplate;
+    private final ChatInbox chatInbox;
+    private final ChatMailboxes chatMailboxes;
+    private final ChatListCache chatListCache;
+    private final MemberPrivilegesCache memberPrivilegesCache;
+    private final TypingIndicators typingIndicators;
+    private final SendableWatermarks sendableWatermarks;
 
     private void notifyAllUsers(Set<UUID> userIdSet, NotificationView.Action action, ChatPresentableView chatView) {
+        chatListCache.evictUsers(userIdSet);
         NotificationView notificationView = new NotificationView(action, chatView);
         notificationTemplate.notifyAllUsers(userIdSet, Topic.MEMBERSHIPS, notificationView);
     }
@@ -57,9 +74,7 @@ public class DefaultMemberService implements MemberService {
         memberValidator.validateAsMember(validatePrincipal().getId(), membershipId);
 
         // execution
-        return memberRepository.findAllByMembershipId(membershipId).stream()
-                .map(MemberPresentableView::new)
-                .collect(Collectors.toList());
+        return memberRepository.findAllViewsByMembershipId(membershipId);
     }
 
     public @NonNull Collection<MemberPresentableView> createAll(@NonNull MembersForm membersForm) {
@@ -95,8 +110,15 @@ public class DefaultMemberService implements MemberService {
                 .map(e -> memberFactory.create(User.mockOf(e.getKey()), e.getValue()))
                 .collect(Collectors.toSet());
 
+        List<ChatMember> savedMembers = memberRepository.saveAll(members);
+        memberPrivilegesCache.invalidate(targetChat.getId(), requestedUserIds);
+        chatInbox.membersAdded(targetChat.getId(), requestedUserIds);
+        chatMailboxes.membersChanged(targetChat.getId());
+        typingIndicators.membersChanged(targetChat.getId());
+        sendableWatermarks.membersChanged(targetChat.getId());
+
         notifyAllUsers(requestedUserIds, NEW, new ChatPresentableView(targetChat));
-        return memberRepository.saveAll(members).stream()
+        return savedMembers.stream()
                 .map(MemberPresentableView::new)
                 .collect(Collectors.toList());
     }
@@ -110,26 +132,57 @@ public class DefaultMemberService implements MemberService {
             throw new ServiceException(UNPROCESSABLE_ENTITY, "Updating members requires a membership ID "
                                                              + "and a non-empty map of members' ID and privileges.");
         }
+        Map<UUID, Long> versions = versionsOf(membersForm);
         memberValidator.validatePrivilegesAsMember(principal.getId(), membersForm.getMembershipId(),
                 MemberPrivilege.MANAGE_MEMBERS);
 
-        // verification
-        List<ChatMember> members = memberRepository
-                .findAllByUserIdIn(membersForm.getMembers().keySet(), membersForm.getMembershipId());
-        if (members.size() < membersForm.getMembers().size()) {
-            throw new ServiceException(NOT_FOUND, "Member with the given ID does not exist.");
-        }
+        // the given privileges replace the current ones, so a conflicting update without versions is applied again
+        // to the new state, while one given the versions of the read members fails once any of them has changed
+        Collection<MemberPresentableView> updatedMembers = OptimisticUpdates.update(!versions.isEmpty(), () -> {
+            // verification
+            List<ChatMember> members = memberRepository
+                    .findAllByUserIdIn(membersForm.getMembers().keySet(), membersForm.getMembershipId());
+            if (members.size() < membersForm.getMembers().size()) {
+                throw new ServiceException(NOT_FOUND, "Member with the given ID does not exist.");
+            }
+            members.forEach(m -> OptimisticUpdates.verifyVersion(versions.get(m.getUser().getId()), m.getVersion()));
+
+            // execution
+            boolean someFailed = members.stream()
+                    .anyMatch(m -> !m.setPrivileges(membersForm.getMembers().get(m.getUser().getId())));
+            if (someFailed) {
+                throw new ServiceException(CONFLICT, "Some members could not be updated. Verify if they are locked.");
+            }
+
+            return memberRepository.saveAll(members).stream()
+                    .map(MemberPresentableView::new)
+                    .collect(Collectors.toList());
+        });
+        memberPrivilegesCache.invalidate(membersForm.getMembershipId(), membersForm.getMembers().keySet());
+        chatMailboxes.membersChanged(membersForm.getMembershipId());
+        typingIndicators.membersChanged(membersForm.getMembershipId());
+        sendableWatermarks.membersChanged(membersForm.getMembershipId());
+        return updatedMembers;
+    }
 
-        // execution
-        boolean someFailed = members.stream()
-                .anyMatch(m -> !m.setPrivileges(membersForm.getMembers().get(m.getUser().getId())));
-        if (someFailed) {
-            throw new ServiceException(CONFLICT, "Some members could not be updated. Verify if they are locked.");
+    private static Map<UUID, Long> versionsOf(MembersForm membersForm) {
+        List<UUID> memberIds = membersForm.getVersionedMemberIds();
+        List<Long> versions = membersForm.getVersions();
+        if (memberIds == null && versions == null) {
+            return Map.of();
+        }
+        if (memberIds == null || versions == null || memberIds.size() != versions.size()
+            || versions.stream().anyMatch(Objects::isNull)
+            || !memberIds.stream().allMatch(id -> id != null && membersForm.getMembers().containsKey(id))) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Versions of members require the IDs of the updated "
+                                                             + "members in the same order.");
         }
 
-        return memberRepository.saveAll(members).stream()
-                .map(MemberPresentableView::new)
-                .collect(Collectors.toList());
+        Map<UUID, Long> versionsById = new HashMap<>();
+        for (int i = 0; i < memberIds.size(); i++) {
+            versionsById.put(memberIds.get(i), versions.get(i));
+        }
+        return versionsById;
     }
 
     @Override
@@ -158,5 +211,12 @@ public class DefaultMemberService implements MemberService {
         notifyAllUsers(membersForm.getMembers().keySet(), REMOVED,
                 new ChatPresentableView(Chat.mockOf(membersForm.getMembershipId())));
         memberRepository.deleteAll(members);
+        memberPrivilegesCache.invalidate(membersForm.getMembershipId(), membersForm.getMembers().keySet());
+        chatInbox.membersRemoved(membersForm.getMembershipId(), members.size());
+        chatMailboxes.membersChanged(membersForm.getMembershipId());
+        typingIndicators.membersChanged(membersForm.getMembershipId());
+        sendableWatermarks.membersChanged(membersForm.getMembershipId());
+        // evicted again, so no list read before the members were removed stays cached
+        chatListCache.evictUsers(membersForm.getMembers().keySet());
     }
 }
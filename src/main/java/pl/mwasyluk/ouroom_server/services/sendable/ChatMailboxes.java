@@ -0,0 +1,318 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
+
+import pl.mwasyluk.ouroom_server.domain.member.ChatMember;
+import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+
+import static org.springframework.http.HttpStatus.FORBIDDEN;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ Single writer of the new Sendables of every chat, used instead of the direct inserts when enabled.
+ <br> Writes to a chat are queued in its mailbox, which is drained by one worker of a shared pool at a time, so the
+ writes of a chat are processed serially, in batches of up to {@code batchSize} Sendables inserted at once. A failed
+ batch is inserted one by one, so a single invalid Sendable does not fail the rest of it. Every caller is blocked
+ until its Sendable has been inserted and announced, for up to {@code writeTimeout}. A write which has not been taken
+ in time is dropped, one taken already may still be inserted, so the caller retries it with the same idempotency key.
+ <br> A mailbox keeps the members of its chat with their privileges, loaded at most once per {@code membersTtl} or
+ after {@link #membersChanged}, so neither the privileges of the writers nor the recipients of the notifications are
+ queried per write. Mailboxes idle for {@code membersTtl} are closed. A mailbox is opened only for an existing chat
+ which has not been deleted.
+ */
+@Slf4j
+@Component
+public class ChatMailboxes {
+    private final ChatRepository chatRepo;
+    private final MemberRepository memberRepo;
+    private final SendableWritePipeline sendableWritePipeline;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long membersTtlNanos;
+    private final long writeTimeoutNanos;
+    private final ExecutorService workers;
+    private final Map<UUID, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public ChatMailboxes(ChatRepository chatRepo,
+                         MemberRepository memberRepo,
+                         SendableWritePipeline sendableWritePipeline,
+                         @Value("${sendables.mailboxes.enabled:false}") boolean enabled,
+                         @Value("${sendables.mailboxes.threads:4}") int threads,
+                         @Value("${sendables.mailboxes.batch-size:50}") int batchSize,
+                         @Value("${sendables.mailboxes.members-ttl:PT30S}") Duration membersTtl,
+                         @Value("${sendables.mailboxes.write-timeout:PT10S}") Duration writeTimeout) {
+        this.chatRepo = chatRepo;
+        this.memberRepo = memberRepo;
+        this.sendableWritePipeline = sendableWritePipeline;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.membersTtlNanos = membersTtl.toNanos();
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+
+        if (enabled) {
+            AtomicInteger threadCounter = new AtomicInteger();
+            // a mailbox is queued at most once at a time, so the queue is bounded by the amount of active chats
+            this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "chat-mailbox-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.workers = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     Inserts the Sendable once its creator is verified to have the ADD_MESSAGES privilege in the chat.
+
+     @param announcer
+     called on the worker with the inserted Sendable and the user IDs of the chat members, before the following
+     writes of the chat are processed;
+     */
+    public @NonNull SendableView write(@NonNull ChatSendable sendable,
+                                       @NonNull BiConsumer<SendableView, Set<UUID>> announcer) {
+        if (!enabled) {
+            throw new IllegalStateException("Chat mailboxes are disabled.");
+        }
+
+        UUID chatId = sendable.getContainer().getId();
+        Mailbox mailbox = mailboxes.get(chatId);
+        if (mailbox == null) {
+            // verified once per opened mailbox, so the writes to unknown chats do not open mailboxes of their own
+            if (!chatRepo.existsByIdAndDeletedAtIsNull(chatId)) {
+                throw new ServiceException(NOT_FOUND, "Chat with the given ID does not exist.");
+            }
+            mailbox = mailboxes.computeIfAbsent(chatId, Mailbox::new);
+        }
+
+        PendingWrite pending = new PendingWrite(sendable, announcer, new CompletableFuture<>());
+        while (!mailbox.offer(pending)) {
+            // closed as idle in the meantime, so replaced by a new one
+            mailboxes.remove(chatId, mailbox);
+            mailbox = mailboxes.computeIfAbsent(chatId, Mailbox::new);
+        }
+
+        try {
+            return pending.result.get(writeTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result.cancel(false);
+            throw new ServiceException(SERVICE_UNAVAILABLE, "Sendable could not be saved in time.");
+        } catch (TimeoutException e) {
+            // a stalled drain or a saturated pool does not hold the request thread any longer
+            pending.result.cancel(false);
+            throw new ServiceException(SERVICE_UNAVAILABLE, "Sendable could not be saved in time.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     Makes the mailbox of the chat load its members again before the next batch.
+     */
+    public void membersChanged(@NonNull UUID chatId) {
+        Mailbox mailbox = mailboxes.get(chatId);
+        if (mailbox != null) {
+            mailbox.membersStale = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sendables.mailboxes.members-ttl:PT30S}")
+    public void closeIdle() {
+        long now = System.nanoTime();
+        mailboxes.forEach((chatId, mailbox) -> {
+            if (mailbox.closeIfIdle(now)) {
+                mailboxes.remove(chatId, mailbox);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            workers.shutdown();
+        }
+    }
+
+    private static void verifyPrivileges(Map<UUID, EnumSet<MemberPrivilege>> members, UUID userId) {
+        EnumSet<MemberPrivilege> privileges = members.get(userId);
+        if (privileges == null) {
+            throw new ServiceException(FORBIDDEN, "This operation requires member privileges.");
+        }
+        if (!privileges.contains(MemberPrivilege.ADD_MESSAGES)) {
+            throw new ServiceException(FORBIDDEN, "This operation requires higher member privileges.");
+        }
+    }
+
+    private static void announce(PendingWrite pending, Set<UUID> memberIds) {
+        try {
+            SendableView sendableView = new SendableView(pending.sendable);
+            pending.announcer.accept(sendableView, memberIds);
+            pending.result.complete(sendableView);
+        } catch (RuntimeException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private record PendingWrite(ChatSendable sendable,
+                                BiConsumer<SendableView, Set<UUID>> announcer,
+                                CompletableFuture<SendableView> result) {
+    }
+
+    private class Mailbox {
+        private final UUID chatId;
+        private final Queue<PendingWrite> queue = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closed;
+        private long lastWriteAt;
+        // accessed by the draining worker only
+        private Map<UUID, EnumSet<MemberPrivilege>> members;
+        private long membersLoadedAt;
+        private volatile boolean membersStale;
+
+        private Mailbox(UUID chatId) {
+            this.chatId = chatId;
+        }
+
+        private synchronized boolean offer(PendingWrite pending) {
+            if (closed) {
+                return false;
+            }
+            queue.add(pending);
+            lastWriteAt = System.nanoTime();
+            if (!scheduled) {
+                scheduled = true;
+                workers.execute(this::drain);
+            }
+            return true;
+        }
+
+        private synchronized boolean closeIfIdle(long now) {
+            if (!scheduled && now - lastWriteAt >= membersTtlNanos) {
+                closed = true;
+            }
+            return closed;
+        }
+
+        private synchronized List<PendingWrite> takeBatch() {
+            List<PendingWrite> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+            while (batch.size() < batchSize && !queue.isEmpty()) {
+                batch.add(queue.poll());
+            }
+            return batch;
+        }
+
+        // the mailbox is queued again instead of draining on, so a busy chat does not hold the worker
+        private synchronized void reschedule() {
+            if (queue.isEmpty()) {
+                scheduled = false;
+            } else {
+                workers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            List<PendingWrite> batch = takeBatch();
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+            } finally {
+                reschedule();
+            }
+        }
+
+        private Map<UUID, EnumSet<MemberPrivilege>> members() {
+            long now = System.nanoTime();
+            if (members == null || membersStale || now - membersLoadedAt >= membersTtlNanos) {
+                membersStale = false;
+                Map<UUID, EnumSet<MemberPrivilege>> loaded = new HashMap<>();
+                for (ChatMember member : memberRepo.findAllByMembershipId(chatId)) {
+                    loaded.put(member.getUser().getId(), EnumSet.copyOf(member.getPrivileges()));
+                }
+                members = loaded;
+                membersLoadedAt = now;
+            }
+            return members;
+        }
+
+        private void process(List<PendingWrite> batch) {
+            Map<UUID, EnumSet<MemberPrivilege>> currentMembers = members();
+            List<PendingWrite> permitted = new ArrayList<>(batch.size());
+            for (PendingWrite pending : batch) {
+                // cancelled by its caller after the timeout
+                if (pending.result.isDone()) {
+                    continue;
+                }
+                try {
+                    verifyPrivileges(currentMembers, pending.sendable.getCreator().getId());
+                    permitted.add(pending);
+                } catch (ServiceException e) {
+                    pending.result.completeExceptionally(e);
+                }
+            }
+            if (permitted.isEmpty()) {
+                return;
+            }
+
+            Set<UUID> memberIds = Set.copyOf(currentMembers.keySet());
+            try {
+                sendableWritePipeline.insertAll(permitted.stream().map(PendingWrite::sendable).toList());
+            } catch (RuntimeException e) {
+                log.warn("Batch insert of {} Sendables of chat {} failed, inserting them one by one.",
+                        permitted.size(), chatId, e);
+                for (PendingWrite pending : permitted) {
+                    try {
+                        sendableWritePipeline.insert(pending.sendable);
+                    } catch (RuntimeException singleException) {
+                        pending.result.completeExceptionally(singleException);
+                        continue;
+                    }
+                    announce(pending, memberIds);
+                }
+                return;
+            }
+            permitted.forEach(pending -> announce(pending, memberIds));
+        }
+    }
+}
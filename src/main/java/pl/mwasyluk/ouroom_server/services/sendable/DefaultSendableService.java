@@ -1,107 +1,523 @@
 package pl.mwasyluk.ouroom_server.services.sendable;
 
-import java.util.Collection;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
 import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.media.Media;
 import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
 import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChange;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChangeType;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableState;
 import pl.mwasyluk.ouroom_server.domain.user.User;
 import pl.mwasyluk.ouroom_server.dto.notification.NotificationView;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableChangesView;
 import pl.mwasyluk.ouroom_server.dto.sendable.SendableForm;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablePinView;
 import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesRemovalForm;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesRemovedView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesPageForm;
 import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
+import pl.mwasyluk.ouroom_server.repos.MediaRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableChangeRepository;
 import pl.mwasyluk.ouroom_server.repos.SendableRepository;
 import pl.mwasyluk.ouroom_server.services.MemberValidator;
+import pl.mwasyluk.ouroom_server.services.OptimisticUpdates;
+import pl.mwasyluk.ouroom_server.services.chat.ChatInbox;
+import pl.mwasyluk.ouroom_server.services.media.MediaService;
 import pl.mwasyluk.ouroom_server.websocket.NotificationTemplate;
 import pl.mwasyluk.ouroom_server.websocket.Topic;
 
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 import static pl.mwasyluk.ouroom_server.dto.notification.NotificationView.Action.CHANGED;
 import static pl.mwasyluk.ouroom_server.dto.notification.NotificationView.Action.NEW;
+import static pl.mwasyluk.ouroom_server.dto.notification.NotificationView.Action.PINNED;
 import static pl.mwasyluk.ouroom_server.dto.notification.NotificationView.Action.REMOVED;
+import static pl.mwasyluk.ouroom_server.dto.notification.NotificationView.Action.UNPINNED;
 import static pl.mwasyluk.ouroom_server.services.PrincipalValidator.validatePrincipal;
 
 @RequiredArgsConstructor
 
 @Service
 public class DefaultSendableService implements SendableService {
+    private static final int CHANGES_LIMIT = 500;
+    private static final int BATCH_LIMIT = 100;
+    private static final int REMOVAL_CHUNK_SIZE = 500;
+    private static final int REMOVAL_LIMIT = 10 * REMOVAL_CHUNK_SIZE;
+
     private final SendableRepository sendableRepo;
+    private final SendableChangeRepository sendableChangeRepo;
+    private final SendableChangeLog sendableChangeLog;
     private final MemberValidator memberValidator;
     private final NotificationTemplate notificationTemplate;
+    private final RecentSendablesCache recentSendablesCache;
+    private final SendableWritePipeline sendableWritePipeline;
+    private final SendableExporter sendableExporter;
+    private final SendableWatermarks sendableWatermarks;
+    private final SendableSearchIndex sendableSearchIndex;
+    private final SendableArchive sendableArchive;
+    private final ChatInbox chatInbox;
+    private final PinnedSendables pinnedSendables;
+    private final MediaRepository mediaRepo;
+    private final MediaService mediaService;
+    private final ChatMailboxes chatMailboxes;
 
     private void notifyAllMembers(UUID membershipId, NotificationView.Action action, SendableView sendableView) {
         NotificationView notificationView = new NotificationView(action, sendableView);
         notificationTemplate.notifyAllMembers(membershipId, Topic.MESSAGES, notificationView);
     }
 
+    // the members are kept by the mailbox of the chat, so they are not queried again
+    private void announceNew(SendableView sendableView, Set<UUID> memberIds) {
+        chatInbox.sendableAdded(sendableView);
+        recentSendablesCache.put(sendableView);
+        sendableSearchIndex.put(sendableView);
+        notificationTemplate.notifyAllUsers(memberIds, Topic.MESSAGES, new NotificationView(NEW, sendableView));
+    }
+
+    private static boolean hasContent(SendableForm sendableForm) {
+        return sendableForm.getMessage() != null || !sendableForm.getAttachmentIds().isEmpty();
+    }
+
+    private static void validateAttachments(List<UUID> attachmentIds) {
+        if (attachmentIds.size() > ChatSendable.MAX_ATTACHMENTS) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY,
+                    "Sendable can hold up to " + ChatSendable.MAX_ATTACHMENTS + " attachments.");
+        }
+        if (attachmentIds.stream().anyMatch(Objects::isNull)
+            || new HashSet<>(attachmentIds).size() < attachmentIds.size()) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Attachments of a Sendable have to be distinct IDs.");
+        }
+    }
+
+    // the Media are uploaded beforehand, so a Sendable only references the existing ones
+    private void verifyAttachments(Set<UUID> attachmentIds) {
+        if (!attachmentIds.isEmpty() && mediaRepo.countByIdIn(attachmentIds) < attachmentIds.size()) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Some of the attached Media do not exist.");
+        }
+    }
+
+    // the cursor of a page is the sequence number of its last Sendable
+    private static long decodeCursor(String cursor) {
+        try {
+            return Long.parseUnsignedLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "The given cursor is not valid.");
+        }
+    }
+
+    private List<SendableView> readNewest(UUID containerId, Limit limit) {
+        List<SendableView> cached = recentSendablesCache.readNewest(containerId, limit.max());
+        if (cached != null) {
+            return cached;
+        }
+
+        long stamp = recentSendablesCache.currentStamp();
+        List<SendableView> newest = sendableRepo.findNewestByContainerId(containerId, limit);
+        recentSendablesCache.fillNewest(containerId, stamp, newest, newest.size() < limit.max());
+        return newest;
+    }
+
+    // archived Sendables precede all the hot ones, so the archive continues the descending pages cut short
+    private List<SendableView> withArchivedBefore(UUID containerId, List<SendableView> newestFirst,
+                                                  Long before, Limit limit) {
+        if (newestFirst.size() >= limit.max()) {
+            return newestFirst;
+        }
+        Long key = newestFirst.isEmpty() ? before : newestFirst.get(newestFirst.size() - 1).sequence();
+        List<SendableView> merged = new ArrayList<>(newestFirst);
+        merged.addAll(sendableArchive.readBefore(containerId, key, limit.max() - newestFirst.size()));
+        return merged;
+    }
+
+    // the hot rows are read first, so the rows moved to the archive in the meantime are neither missed nor repeated
+    private List<SendableView> withArchivedAfter(UUID containerId, List<SendableView> oldestFirst,
+                                                 long after, Limit limit) {
+        Long until = oldestFirst.isEmpty() ? null : oldestFirst.get(0).sequence();
+        List<SendableView> archived = sendableArchive.readAfter(containerId, after, until, limit.max());
+        if (archived.isEmpty()) {
+            return oldestFirst;
+        }
+        List<SendableView> merged = new ArrayList<>(archived);
+        merged.addAll(oldestFirst);
+        return merged.subList(0, Math.min(limit.max(), merged.size()));
+    }
+
+    @Override
+    public @NonNull PageView<SendableView> readPageFromContainer(@NonNull SendablesPageForm pageForm) {
+        // validation
+        User principal = validatePrincipal();
+        if (pageForm.getContainerId() == null) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Reading Sendables requires a container ID.");
+        }
+        if (pageForm.getBefore() != null && pageForm.getAfter() != null) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY,
+                    "Sendables page can be read either before or after a single cursor.");
+        }
+        int limit = pageForm.getLimit();
+        if (limit < 1 || limit > SendablesPageForm.MAX_LIMIT) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY,
+                    "Sendables page limit has to be between 1 and " + SendablesPageForm.MAX_LIMIT + ".");
+        }
+
+        // verification
+        memberValidator.validateAsMember(principal.getId(), pageForm.getContainerId());
+
+        // execution
+        // one extra row tells whether the listing continues past this page
+        Limit queryLimit = Limit.of(limit + 1);
+        boolean ascending = pageForm.getAfter() != null;
+        List<SendableView> sendables;
+        if (pageForm.getBefore() != null) {
+            long cursor = decodeCursor(pageForm.getBefore());
+            sendables = withArchivedBefore(pageForm.getContainerId(),
+                    sendableRepo.findAllByContainerIdBefore(pageForm.getContainerId(), cursor, queryLimit),
+                    cursor, queryLimit);
+        } else if (ascending) {
+            // also fills a gap between the notified Sendables, as the cursor is a sequence number
+            long cursor = decodeCursor(pageForm.getAfter());
+            sendables = withArchivedAfter(pageForm.getContainerId(),
+                    sendableRepo.findAllByContainerIdAfter(pageForm.getContainerId(), cursor, queryLimit),
+                    cursor, queryLimit);
+        } else {
+            sendables = withArchivedBefore(pageForm.getContainerId(),
+                    readNewest(pageForm.getContainerId(), queryLimit), null, queryLimit);
+        }
+
+        boolean hasMore = sendables.size() > limit;
+        List<SendableView> views = new ArrayList<>(sendables.subList(0, Math.min(limit, sendables.size())));
+        String nextCursor = hasMore ? String.valueOf(views.get(views.size() - 1).sequence()) : null;
+        // pages are always returned in chronological order
+        if (!ascending) {
+            Collections.reverse(views);
+        }
+        return new PageView<>(sendableWatermarks.applyStates(pageForm.getContainerId(), views), nextCursor);
+    }
+
+    @Override
+    public @NonNull SendableChangesView readChangesFromContainer(@NonNull UUID containerId, Long sinceRevision) {
+        // validation
+        User principal = validatePrincipal();
+        if (sinceRevision != null && sinceRevision < 0) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Revision cannot be a negative number.");
+        }
+
+        // verification
+        memberValidator.validateAsMember(principal.getId(), containerId);
+
+        // execution
+        // without a revision the client only asks for the point to synchronize from
+        if (sinceRevision == null) {
+            long latestRevision = sendableChangeRepo.findLatestRevisionByContainerId(containerId);
+            return new SendableChangesView(List.of(), List.of(), latestRevision, false);
+        }
+
+        List<SendableChange> changes = sendableChangeRepo.findAllByContainerIdAndRevisionGreaterThanOrderByRevisionAsc(
+                containerId, sinceRevision, Limit.of(CHANGES_LIMIT + 1));
+        boolean hasMore = changes.size() > CHANGES_LIMIT;
+        if (hasMore) {
+            changes = changes.subList(0, CHANGES_LIMIT);
+        }
+
+        // only the latest change of every Sendable is relevant for the client
+        Map<UUID, SendableChangeType> latestChanges = new LinkedHashMap<>();
+        long revision = sinceRevision;
+        for (SendableChange change : changes) {
+            latestChanges.remove(change.getSendableId());
+            latestChanges.put(change.getSendableId(), change.getType());
+            revision = change.getRevision();
+        }
+
+        List<UUID> upsertedIds = latestChanges.entrySet().stream()
+                .filter(e -> e.getValue() != SendableChangeType.REMOVED)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<UUID, SendableView> existing = sendableRepo.findAllViewsByIdIn(upsertedIds).stream()
+                .collect(Collectors.toMap(SendableView::id, Function.identity()));
+
+        List<SendableView> upserted = new ArrayList<>();
+        List<UUID> removed = new ArrayList<>();
+        latestChanges.forEach((sendableId, type) -> {
+            SendableView view = existing.get(sendableId);
+            if (view != null) {
+                upserted.add(view);
+            } else if (type == SendableChangeType.REMOVED) {
+                removed.add(sendableId);
+            }
+            // otherwise it has been either archived (and is not going to change anymore) or removed by a change
+            // of a later revision
+        });
+        return new SendableChangesView(sendableWatermarks.applyStates(containerId, upserted), removed, revision,
+                hasMore);
+    }
+
     @Override
-    public @NonNull Collection<SendableView> readAllFromContainer(@NonNull UUID containerId) {
+    public @NonNull List<SendableView> searchInContainer(@NonNull UUID containerId, String query) {
+        // validation
+        User principal = validatePrincipal();
+        if (query == null || query.isBlank()) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Searching Sendables requires a non-empty query.");
+        }
+
         // verification
-        memberValidator.validateAsMember(validatePrincipal().getId(), containerId);
+        memberValidator.validateAsMember(principal.getId(), containerId);
 
         // execution
-        return sendableRepo.findAllByContainerId(containerId).stream()
-                .map(SendableView::new)
-                .collect(Collectors.toList());
+        List<UUID> hitIds = sendableSearchIndex.search(containerId, query, SendablesPageForm.DEFAULT_LIMIT);
+        if (hitIds.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, SendableView> hits = sendableRepo.findAllViewsByIdIn(hitIds).stream()
+                .collect(Collectors.toMap(SendableView::id, Function.identity()));
+        // the index order (from the newest hit) is kept
+        List<SendableView> views = hitIds.stream()
+                .map(hits::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return sendableWatermarks.applyStates(containerId, views);
+    }
+
+    @Override
+    public @NonNull List<SendableView> readPinnedFromContainer(@NonNull UUID containerId) {
+        // validation
+        User principal = validatePrincipal();
+
+        // verification
+        memberValidator.validateAsMember(principal.getId(), containerId);
+
+        // execution
+        List<UUID> pinnedIds = pinnedSendables.read(containerId);
+        if (pinnedIds.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, SendableView> pinned = sendableRepo.findAllViewsByIdIn(pinnedIds).stream()
+                .collect(Collectors.toMap(SendableView::id, Function.identity()));
+        // the order of pinning (from the most recently pinned) is kept, archived Sendables are skipped
+        List<SendableView> views = pinnedIds.stream()
+                .map(pinned::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return sendableWatermarks.applyStates(containerId, views);
+    }
+
+    @Override
+    public @NonNull StreamingResponseBody exportFromContainer(@NonNull UUID containerId) {
+        // validation
+        User principal = validatePrincipal();
+
+        // verification
+        memberValidator.validateAsMember(principal.getId(), containerId);
+
+        // execution
+        // the body is written later on an async thread, after the response status has been committed
+        return outputStream -> sendableExporter.exportTo(containerId, outputStream);
     }
 
     @Override
     public @NonNull SendableView create(@NonNull SendableForm sendableForm) {
         // validation
         User principal = validatePrincipal();
-        if (sendableForm.getContainerId() == null || sendableForm.getMessage() == null) {
+        if (sendableForm.getContainerId() == null || !hasContent(sendableForm)) {
             throw new ServiceException(UNPROCESSABLE_ENTITY,
-                    "Sendable requires a target container ID and a non-empty String value.");
+                    "Sendable requires a target container ID and a non-empty String value or attachments.");
         }
+        validateAttachments(sendableForm.getAttachmentIds());
 
         // verification
         memberValidator.validatePrivilegesAsMember(principal.getId(), sendableForm.getContainerId(),
                 MemberPrivilege.ADD_MESSAGES);
+        verifyAttachments(new HashSet<>(sendableForm.getAttachmentIds()));
 
         // execution
-        ChatSendable targetSendable = new ChatSendable(principal, sendableForm.getMessage());
+        ChatSendable targetSendable = new ChatSendable(principal, sendableForm.getMessage(), null,
+                sendableForm.getAttachmentIds());
         targetSendable.setContainer(Chat.mockOf(sendableForm.getContainerId()));
+        if (chatMailboxes.isEnabled()) {
+            return chatMailboxes.write(targetSendable, this::announceNew);
+        }
 
-        SendableView sendableView = new SendableView(sendableRepo.save(targetSendable));
+        // the pipeline records the NEW change together with the insert
+        SendableView sendableView = new SendableView(sendableWritePipeline.insert(targetSendable));
+        chatInbox.sendableAdded(sendableView);
+        recentSendablesCache.put(sendableView);
+        sendableSearchIndex.put(sendableView);
         notifyAllMembers(sendableForm.getContainerId(), NEW, sendableView);
         return sendableView;
     }
 
     @Override
-    public @NonNull SendableView update(@NonNull SendableForm sendableForm) {
+    public @NonNull SendableView create(@NonNull SendableForm sendableForm, @NonNull List<MultipartFile> files) {
         // validation
         User principal = validatePrincipal();
-        if (sendableForm.getSendableId() == null) {
-            throw new ServiceException(UNPROCESSABLE_ENTITY, "Updating Sendable requires its ID.");
+        List<MultipartFile> sentFiles = files.stream().filter(file -> file != null && !file.isEmpty()).toList();
+        if (sentFiles.isEmpty()) {
+            return create(sendableForm);
+        }
+        if (sendableForm.getContainerId() == null) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Sendable requires a target container ID.");
         }
 
         // verification
-        Optional<ChatSendable> optionalSendable = sendableRepo.findById(sendableForm.getSendableId());
-        if (optionalSendable.isEmpty()) {
-            throw new ServiceException(NOT_FOUND, "Sendable with the given ID does not exist.");
+        // the files are persisted only for the members allowed to send them
+        memberValidator.validatePrivilegesAsMember(principal.getId(), sendableForm.getContainerId(),
+                MemberPrivilege.ADD_MESSAGES);
+
+        // execution
+        List<UUID> attachmentIds = mediaService.createAll(sentFiles).stream().map(Media::getId).toList();
+        sendableForm.setAttachmentIds(attachmentIds);
+        try {
+            return create(sendableForm);
+        } catch (RuntimeException e) {
+            // the attachments of a rejected Sendable would not be referred to by anything
+            mediaRepo.deleteAllWithContentsByIdIn(attachmentIds);
+            throw e;
         }
-        ChatSendable targetSendable = optionalSendable.get();
-        if (!targetSendable.getCreator().equals(principal)) {
-            throw new ServiceException(FORBIDDEN, "Only creators are allowed to modify Sendables.");
+    }
+
+    @Override
+    public @NonNull List<SendableView> createAll(@NonNull List<SendableForm> sendableForms) {
+        // validation
+        User principal = validatePrincipal();
+        if (sendableForms.isEmpty() || sendableForms.size() > BATCH_LIMIT) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY,
+                    "Sendables batch has to hold between 1 and " + BATCH_LIMIT + " Sendables.");
+        }
+        for (SendableForm sendableForm : sendableForms) {
+            if (sendableForm == null || sendableForm.getContainerId() == null || !hasContent(sendableForm)
+                || sendableForm.getIdempotencyKey() == null) {
+                throw new ServiceException(UNPROCESSABLE_ENTITY, "Every batched Sendable requires a target "
+                                                                 + "container ID, a non-empty String value or "
+                                                                 + "attachments and an idempotency key.");
+            }
+            validateAttachments(sendableForm.getAttachmentIds());
         }
 
+        // verification
+        // a single check per container, however many Sendables of the batch target it
+        sendableForms.stream().map(SendableForm::getContainerId).distinct().forEach(containerId ->
+                memberValidator.validatePrivilegesAsMember(principal.getId(), containerId,
+                        MemberPrivilege.ADD_MESSAGES));
+        verifyAttachments(sendableForms.stream().flatMap(sendableForm -> sendableForm.getAttachmentIds().stream())
+                .collect(Collectors.toSet()));
+
         // execution
-        boolean failed = !targetSendable.updateMessage(sendableForm.getMessage());
-        if (failed) {
-            throw new ServiceException(UNPROCESSABLE_ENTITY, "The new content cannot be applied to this Sendable.");
+        // the first Sendable of a key and container is the one to create, the following ones are its resends
+        Map<ResendKey, SendableForm> formsByKey = new LinkedHashMap<>();
+        sendableForms.forEach(sendableForm -> formsByKey.putIfAbsent(ResendKey.of(sendableForm), sendableForm));
+        Set<UUID> containerIds = formsByKey.keySet().stream().map(ResendKey::containerId).collect(Collectors.toSet());
+        Set<UUID> idempotencyKeys =
+                formsByKey.keySet().stream().map(ResendKey::idempotencyKey).collect(Collectors.toSet());
+
+        Map<ResendKey, SendableView> viewsByKey = new HashMap<>();
+        // the archived Sendables keep their keys as well, so the resends of old ones are not inserted again
+        sendableArchive.findKeys(containerIds, principal.getId(), idempotencyKeys).forEach(archiveKey ->
+                sendableArchive.find(archiveKey).ifPresent(view -> viewsByKey.put(
+                        new ResendKey(archiveKey.getContainerId(), archiveKey.getIdempotencyKey()), view)));
+        for (int attempt = 1; ; attempt++) {
+            sendableRepo.findAllByContainerIdInAndCreatorIdAndIdempotencyKeyIn(containerIds, principal.getId(),
+                            idempotencyKeys)
+                    .forEach(sendable -> viewsByKey.put(ResendKey.of(sendable), new SendableView(sendable)));
+
+            List<ChatSendable> absentSendables = new ArrayList<>();
+            formsByKey.forEach((key, sendableForm) -> {
+                if (!viewsByKey.containsKey(key)) {
+                    ChatSendable sendable = new ChatSendable(principal, sendableForm.getMessage(),
+                            key.idempotencyKey(), sendableForm.getAttachmentIds());
+                    sendable.setContainer(Chat.mockOf(sendableForm.getContainerId()));
+                    absentSendables.add(sendable);
+                }
+            });
+            if (absentSendables.isEmpty()) {
+                break;
+            }
+
+            try {
+                // the batch writer records the NEW changes together with the inserts
+                sendableWritePipeline.insertAll(absentSendables);
+            } catch (DataIntegrityViolationException e) {
+                // a concurrent resend has inserted some of the keys in the meantime, so they are read again
+                if (attempt == 2) {
+                    throw new ServiceException(CONFLICT, "Sendables batch conflicts with a concurrent one.");
+                }
+                continue;
+            }
+            for (ChatSendable sendable : absentSendables) {
+                SendableView sendableView = new SendableView(sendable);
+                viewsByKey.put(ResendKey.of(sendable), sendableView);
+                chatInbox.sendableAdded(sendableView);
+                recentSendablesCache.put(sendableView);
+                sendableSearchIndex.put(sendableView);
+                notifyAllMembers(sendableView.containerId(), NEW, sendableView);
+            }
+            break;
         }
+        return sendableForms.stream().map(sendableForm -> viewsByKey.get(ResendKey.of(sendableForm))).toList();
+    }
 
-        SendableView sendableView = new SendableView(sendableRepo.save(targetSendable));
-        notifyAllMembers(targetSendable.getContainer().getId(), CHANGED, sendableView);
+    @Override
+    public @NonNull SendableView update(@NonNull SendableForm sendableForm) {
+        // validation
+        User principal = validatePrincipal();
+        // an edit replaces the whole message, so it is applied only to the version the client has read
+        if (sendableForm.getSendableId() == null || sendableForm.getVersion() == null) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Updating Sendable requires its ID and version.");
+        }
+
+        SendableView sendableView = OptimisticUpdates.update(sendableForm.getVersion(), () -> {
+            // verification
+            Optional<ChatSendable> optionalSendable = sendableRepo.findById(sendableForm.getSendableId());
+            if (optionalSendable.isEmpty()) {
+                throw new ServiceException(NOT_FOUND, "Sendable with the given ID does not exist.");
+            }
+            ChatSendable targetSendable = optionalSendable.get();
+            if (!targetSendable.getCreator().equals(principal)) {
+                throw new ServiceException(FORBIDDEN, "Only creators are allowed to modify Sendables.");
+            }
+            OptimisticUpdates.verifyVersion(sendableForm.getVersion(), targetSendable.getVersion());
+
+            // execution
+            boolean failed = !targetSendable.updateMessage(sendableForm.getMessage());
+            if (failed) {
+                throw new ServiceException(UNPROCESSABLE_ENTITY,
+                        "The new content cannot be applied to this Sendable.");
+            }
+            UUID containerId = targetSendable.getContainer().getId();
+            return sendableChangeLog.write(containerId, () -> {
+                SendableView savedView = new SendableView(sendableRepo.save(targetSendable));
+                sendableChangeLog.record(containerId, savedView.id(), SendableChangeType.CHANGED);
+                return savedView;
+            });
+        });
+        chatInbox.sendableChanged(sendableView);
+        recentSendablesCache.put(sendableView);
+        sendableSearchIndex.put(sendableView);
+        notifyAllMembers(sendableView.containerId(), CHANGED, sendableView);
         return sendableView;
     }
 
@@ -121,7 +537,159 @@ public class DefaultSendableService implements SendableService {
                     MemberPrivilege.DELETE_MESSAGES);
         }
 
-        notifyAllMembers(targetSendable.getContainer().getId(), REMOVED, new SendableView(targetSendable));
-        sendableRepo.deleteById(sendableId);
+        SendableView sendableView = new SendableView(targetSendable);
+        notifyAllMembers(targetSendable.getContainer().getId(), REMOVED, sendableView);
+        sendableChangeLog.write(targetSendable.getContainer().getId(), () -> {
+            sendableRepo.deleteById(sendableId);
+            sendableChangeLog.record(targetSendable.getContainer().getId(), sendableId, SendableChangeType.REMOVED);
+            mediaRepo.deleteAllWithContentsByIdIn(targetSendable.getAttachmentIds());
+            return null;
+        });
+        chatInbox.sendableRemoved(sendableView);
+        recentSendablesCache.remove(targetSendable.getContainer().getId(), sendableId);
+        sendableSearchIndex.remove(targetSendable.getContainer().getId(), sendableId);
+        pinnedSendables.unpinAll(targetSendable.getContainer().getId(), List.of(sendableId));
+    }
+
+    private ChatSendable findToPin(UUID sendableId, User principal) {
+        Optional<ChatSendable> optionalSendable = sendableRepo.findById(sendableId);
+        if (optionalSendable.isEmpty()) {
+            throw new ServiceException(NOT_FOUND, "Sendable with the given ID does not exist.");
+        }
+        ChatSendable targetSendable = optionalSendable.get();
+        memberValidator.validatePrivilegesAsMember(principal.getId(), targetSendable.getContainer().getId(),
+                MemberPrivilege.PIN_MESSAGES);
+        return targetSendable;
+    }
+
+    @Override
+    public void pin(@NonNull UUID sendableId) {
+        // validation
+        User principal = validatePrincipal();
+
+        // verification
+        ChatSendable targetSendable = findToPin(sendableId, principal);
+
+        // execution
+        UUID containerId = targetSendable.getContainer().getId();
+        if (pinnedSendables.pin(containerId, sendableId)) {
+            notifyAllMembers(containerId, PINNED, new SendableView(targetSendable));
+        }
+    }
+
+    @Override
+    public void unpin(@NonNull UUID containerId, @NonNull UUID sendableId) {
+        // validation
+        User principal = validatePrincipal();
+
+        // verification
+        // the pin alone is removed, so the Sendable is not read and may have been archived already
+        memberValidator.validatePrivilegesAsMember(principal.getId(), containerId, MemberPrivilege.PIN_MESSAGES);
+
+        // execution
+        if (pinnedSendables.unpinAll(containerId, List.of(sendableId))) {
+            notificationTemplate.notifyAllMembers(containerId, Topic.MESSAGES,
+                    new NotificationView(UNPINNED, new SendablePinView(containerId, sendableId)));
+        }
+    }
+
+    @Override
+    public @NonNull SendablesRemovedView deleteAll(@NonNull SendablesRemovalForm removalForm) {
+        // validation
+        User principal = validatePrincipal();
+        UUID containerId = removalForm.getContainerId();
+        if (containerId == null) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Removing Sendables requires a container ID.");
+        }
+        UUID creatorId = removalForm.getCreatorId();
+        ZonedDateTime from = removalForm.getFrom();
+        ZonedDateTime to = removalForm.getTo();
+        List<UUID> sendableIds = removalForm.getSendableIds();
+        if (creatorId == null && from == null && to == null && sendableIds == null) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Removing Sendables requires at least one criterion.");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "The beginning of the range has to precede its end.");
+        }
+        if (sendableIds != null && sendableIds.size() > SendablesRemovalForm.MAX_IDS) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY,
+                    "Up to " + SendablesRemovalForm.MAX_IDS + " Sendables can be removed by their IDs at once.");
+        }
+
+        // verification
+        memberValidator.validatePrivilegesAsMember(principal.getId(), containerId, MemberPrivilege.DELETE_MESSAGES);
+
+        // execution
+        // every chunk is selected and deleted by a single query each, committed together with its change log
+        // entries and announced by a single notification; a request removes up to the limit, the client repeats it
+        List<UUID> removed = new ArrayList<>();
+        List<UUID> chunk;
+        do {
+            chunk = sendableChangeLog.write(containerId, () -> {
+                List<UUID> selected = sendableIds == null
+                        ? sendableRepo.findAllIdsByContainerIdMatching(containerId, creatorId, from, to,
+                                Limit.of(REMOVAL_CHUNK_SIZE))
+                        : sendableRepo.findAllIdsByContainerIdMatching(containerId, creatorId, from, to,
+                                sendableIds);
+                if (!selected.isEmpty()) {
+                    // the attachments are read before their Sendables are gone
+                    List<UUID> attachmentIds = sendableRepo.findAllViewsByIdIn(selected).stream()
+                            .flatMap(view -> view.attachmentIds().stream())
+                            .toList();
+                    sendableRepo.deleteAllByIdIn(selected);
+                    sendableChangeLog.recordAll(containerId, selected, SendableChangeType.REMOVED);
+                    mediaRepo.deleteAllWithContentsByIdIn(attachmentIds);
+                }
+                return selected;
+            });
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            chunk.forEach(sendableId -> sendableSearchIndex.remove(containerId, sendableId));
+            notificationTemplate.notifyAllMembers(containerId, Topic.MESSAGES,
+                    new NotificationView(REMOVED, new SendablesRemovedView(containerId, chunk)));
+            removed.addAll(chunk);
+        } while (sendableIds == null && chunk.size() == REMOVAL_CHUNK_SIZE && removed.size() < REMOVAL_LIMIT);
+        boolean more = sendableIds == null && chunk.size() == REMOVAL_CHUNK_SIZE && removed.size() >= REMOVAL_LIMIT;
+
+        if (!removed.isEmpty()) {
+            recentSendablesCache.evict(containerId);
+            chatInbox.sendablesRemoved(containerId, removed);
+            pinnedSendables.unpinAll(containerId, removed);
+        }
+        return new SendablesRemovedView(containerId, removed, more);
+    }
+
+    @Override
+    public void markUpTo(@NonNull UUID sendableId, @NonNull SendableState state) {
+        // validation
+        User principal = validatePrincipal();
+        if (state == SendableState.SENT) {
+            throw new ServiceException(UNPROCESSABLE_ENTITY, "Sendables can be marked only as delivered or read.");
+        }
+        Optional<ChatSendable> optionalSendable = sendableRepo.findById(sendableId);
+        if (optionalSendable.isEmpty()) {
+            throw new ServiceException(NOT_FOUND, "Sendable with the given ID does not exist.");
+        }
+
+        // verification
+        ChatSendable targetSendable = optionalSendable.get();
+        UUID containerId = targetSendable.getContainer().getId();
+        memberValidator.validateAsMember(principal.getId(), containerId);
+
+        // execution
+        sendableWatermarks.advance(principal.getId(), containerId, targetSendable.getCreatedAt(),
+                targetSendable.getSequence(), state);
+    }
+
+    private record ResendKey(UUID containerId, UUID idempotencyKey) {
+        private static ResendKey of(SendableForm sendableForm) {
+            return new ResendKey(sendableForm.getContainerId(), sendableForm.getIdempotencyKey());
+        }
+
+        private static ResendKey of(ChatSendable sendable) {
+            return new ResendKey(sendable.getContainer().getId(), sendable.getIdempotencyKey());
+        }
     }
 }
@@ -0,0 +1,129 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatPinsView;
+import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+
+import static org.springframework.http.HttpStatus.CONFLICT;
+
+/**
+ Pinned Sendable IDs of chats, the most recently pinned first. The lists are stored in a single column of their chats
+ and cached for the recently opened chats, which are evicted in the least-recently-used order.
+ <br> Changes of the pins are serialized, so the concurrent ones do not overwrite each other.
+ */
+@Component
+public class PinnedSendables {
+    private final ChatRepository chatRepo;
+    private final int maxChats;
+    private final Map<UUID, List<UUID>> pins;
+    private final Object writeLock = new Object();
+    private long writeStamp;
+
+    public PinnedSendables(ChatRepository chatRepo,
+                           @Value("${sendables.pins.max-chats:10000}") int maxChats) {
+        this.chatRepo = chatRepo;
+        this.maxChats = maxChats;
+        this.pins = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, List<UUID>> eldest) {
+                return size() > PinnedSendables.this.maxChats;
+            }
+        };
+    }
+
+    /**
+     @return immutable list of the pinned Sendable IDs of the chat, the most recently pinned first
+     */
+    public @NonNull List<UUID> read(@NonNull UUID chatId) {
+        long stamp;
+        synchronized (this) {
+            List<UUID> cached = pins.get(chatId);
+            if (cached != null) {
+                return cached;
+            }
+            stamp = writeStamp;
+        }
+
+        List<UUID> loaded = List.copyOf(chatRepo.findPinsById(chatId)
+                .map(ChatPinsView::pinnedSendableIds)
+                .orElse(List.of()));
+        synchronized (this) {
+            // a write concurrent with the load could have made it stale
+            if (stamp == writeStamp) {
+                pins.put(chatId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     @return whether the Sendable has not been pinned before
+     */
+    public boolean pin(@NonNull UUID chatId, @NonNull UUID sendableId) {
+        synchronized (writeLock) {
+            List<UUID> current = read(chatId);
+            if (current.contains(sendableId)) {
+                return false;
+            }
+            if (current.size() >= Chat.MAX_PINNED) {
+                throw new ServiceException(CONFLICT, "Chat cannot have more than " + Chat.MAX_PINNED
+                                                     + " pinned Sendables.");
+            }
+
+            List<UUID> updated = new ArrayList<>(current.size() + 1);
+            updated.add(sendableId);
+            updated.addAll(current);
+            write(chatId, updated);
+            return true;
+        }
+    }
+
+    /**
+     @return whether any of the Sendables has been pinned before
+     */
+    public boolean unpinAll(@NonNull UUID chatId, @NonNull Collection<UUID> sendableIds) {
+        synchronized (writeLock) {
+            List<UUID> current = read(chatId);
+            List<UUID> updated = new ArrayList<>(current);
+            if (!updated.removeAll(sendableIds)) {
+                return false;
+            }
+            write(chatId, updated);
+            return true;
+        }
+    }
+
+    /**
+     Has to be called once the chat has been deleted.
+     */
+    public void evict(@NonNull UUID chatId) {
+        synchronized (this) {
+            writeStamp++;
+            pins.remove(chatId);
+        }
+    }
+
+    private void write(UUID chatId, List<UUID> pinnedIds) {
+        synchronized (this) {
+            writeStamp++;
+            pins.remove(chatId);
+        }
+        chatRepo.updatePinnedSendableIds(chatId, pinnedIds);
+        synchronized (this) {
+            writeStamp++;
+            pins.put(chatId, List.copyOf(pinnedIds));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+
+/**
+ Bounded in-memory window of the most recent {@link SendableView}s of every recently read chat.
+ <br> A window is filled from the database by a read of the newest page and afterward kept up to date by the
+ create/update/delete paths, so the following newest page reads of the chat do not reach the database.
+ <br> Chats are evicted in the least-recently-used order whenever the total amount of cached views exceeds the
+ global limit.
+ <br> A fill is rejected only when its own chat has been written since the stamp was taken. The stamps of the latest
+ writes are kept for up to {@code maxEntries} chats, a chat whose stamp has been dropped is treated as written at
+ the newest dropped stamp.
+ */
+@Component
+public class RecentSendablesCache {
+    // the same order as the (container_id, sequence) index
+    private static final Comparator<SendableView> SEQUENCE_ORDER = Comparator.comparingLong(SendableView::sequence);
+
+    private final int chatCapacity;
+    private final int maxEntries;
+    private final Map<UUID, Window> windows = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    // stamps of the latest writes of the recently written chats, in the order of the writes
+    private final Map<UUID, Long> writeStamps = new LinkedHashMap<>();
+    private long writeStamp;
+    private long droppedStamp;
+    private int entries;
+
+    public RecentSendablesCache(@Value("${sendables.cache.chat-capacity:100}") int chatCapacity,
+                                @Value("${sendables.cache.max-entries:100000}") int maxEntries) {
+        this.chatCapacity = chatCapacity;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     @return the newest views of the chat ordered from the newest one, exactly as the database would return them
+     for the given limit; {@code null} when the window cannot answer it.
+     */
+    public synchronized List<SendableView> readNewest(@NonNull UUID chatId, int limit) {
+        Window window = windows.get(chatId);
+        if (window == null || (window.views.size() < limit && !window.complete)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+
+        List<SendableView> newest = new ArrayList<>(Math.min(limit, window.views.size()));
+        for (int i = window.views.size() - 1; i >= 0 && newest.size() < limit; i--) {
+            newest.add(window.views.get(i));
+        }
+        return newest;
+    }
+
+    /**
+     @return a stamp that has to be passed to {@link #fillNewest} to detect writes to the chat concurrent with the
+     database read.
+     */
+    public synchronized long currentStamp() {
+        return writeStamp;
+    }
+
+    /**
+     Replaces the chat window with the given newest views (ordered from the newest one) unless the chat has been
+     written since the given stamp was taken.
+
+     @param complete whether the given views are the whole history of the chat
+     */
+    public synchronized void fillNewest(@NonNull UUID chatId, long stamp, @NonNull List<SendableView> newest,
+                                        boolean complete) {
+        if (writeStamps.getOrDefault(chatId, droppedStamp) > stamp) {
+            return;
+        }
+        Window window = new Window();
+        int size = Math.min(newest.size(), chatCapacity);
+        for (int i = size - 1; i >= 0; i--) {
+            window.views.add(newest.get(i));
+        }
+        window.complete = complete && size == newest.size();
+        putWindow(chatId, window);
+    }
+
+    public synchronized void put(@NonNull SendableView view) {
+        stampWrite(view.containerId());
+        Window window = windows.get(view.containerId());
+        if (window == null) {
+            return;
+        }
+        int index = indexOf(window, view.id());
+        if (index >= 0) {
+            window.views.set(index, view);
+            return;
+        }
+        // the window holds only the newest views, an older one would leave a gap
+        if (!window.complete && !window.views.isEmpty()
+            && SEQUENCE_ORDER.compare(view, window.views.get(0)) < 0) {
+            return;
+        }
+        int insertion = window.views.size();
+        while (insertion > 0 && SEQUENCE_ORDER.compare(view, window.views.get(insertion - 1)) < 0) {
+            insertion--;
+        }
+        window.views.add(insertion, view);
+        entries++;
+        if (window.views.size() > chatCapacity) {
+            window.views.remove(0);
+            window.complete = false;
+            entries--;
+        }
+        evictOverflow();
+    }
+
+    public synchronized void remove(@NonNull UUID chatId, @NonNull UUID sendableId) {
+        stampWrite(chatId);
+        Window window = windows.get(chatId);
+        if (window == null) {
+            return;
+        }
+        int index = indexOf(window, sendableId);
+        if (index >= 0) {
+            window.views.remove(index);
+            entries--;
+        }
+    }
+
+    public synchronized void evict(@NonNull UUID chatId) {
+        stampWrite(chatId);
+        Window removed = windows.remove(chatId);
+        if (removed != null) {
+            entries -= removed.views.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized int getEntries() {
+        return entries;
+    }
+
+    private void stampWrite(UUID chatId) {
+        writeStamp++;
+        // re-inserted, so the eldest stamp is always the lowest one
+        writeStamps.remove(chatId);
+        writeStamps.put(chatId, writeStamp);
+        if (writeStamps.size() > maxEntries) {
+            Iterator<Long> eldest = writeStamps.values().iterator();
+            droppedStamp = eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private int indexOf(Window window, UUID sendableId) {
+        for (int i = window.views.size() - 1; i >= 0; i--) {
+            if (window.views.get(i).id().equals(sendableId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void putWindow(UUID chatId, Window window) {
+        Window previous = windows.put(chatId, window);
+        if (previous != null) {
+            entries -= previous.views.size();
+        }
+        entries += window.views.size();
+        evictOverflow();
+    }
+
+    private void evictOverflow() {
+        Iterator<Window> eldest = windows.values().iterator();
+        while (entries > maxEntries && eldest.hasNext()) {
+            entries -= eldest.next().views.size();
+            eldest.remove();
+        }
+    }
+
+    private static class Window {
+        // chronological order, the newest view is the last one
+        private final List<SendableView> views = new ArrayList<>();
+        // whether no sendables older than the first view exist
+        private boolean complete;
+    }
+}
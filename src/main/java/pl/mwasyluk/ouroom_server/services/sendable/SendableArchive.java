@@ -0,0 +1,267 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableArchiveKey;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableArchiveSegment;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.exceptions.ConversionException;
+import pl.mwasyluk.ouroom_server.repos.SendableArchiveKeyRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableArchiveRepository;
+
+/**
+ Cold tier of the Sendables history. Segments hold gzipped newline-delimited JSON of {@link SendableView}s.
+ <br> Only the oldest Sendables of a container are archived (see {@link SendableArchiver}), so every archived
+ Sendable precedes all the Sendables of its container left in the hot table. Pages reach the archive only after
+ they run out of the hot rows.
+ <br> The idempotency keys of the archived Sendables are kept aside of the segments, so their resends are recognized.
+ */
+@Component
+public class SendableArchive {
+    private static final byte NEW_LINE = '\n';
+
+    private final SendableArchiveRepository archiveRepo;
+    private final SendableArchiveKeyRepository archiveKeyRepo;
+    private final ObjectWriter viewWriter;
+    private final ObjectReader viewReader;
+    // containers without any segment do not reach the segments table at all, the purged ones are evicted
+    private volatile Set<UUID> archivedContainers;
+
+    public SendableArchive(SendableArchiveRepository archiveRepo, SendableArchiveKeyRepository archiveKeyRepo,
+                           ObjectMapper objectMapper) {
+        this.archiveRepo = archiveRepo;
+        this.archiveKeyRepo = archiveKeyRepo;
+        this.viewWriter = objectMapper.writerFor(SendableView.class);
+        this.viewReader = objectMapper.readerFor(SendableView.class);
+    }
+
+    private Set<UUID> archivedContainers() {
+        Set<UUID> containers = archivedContainers;
+        if (containers == null) {
+            synchronized (this) {
+                if (archivedContainers == null) {
+                    Set<UUID> loaded = ConcurrentHashMap.newKeySet();
+                    loaded.addAll(archiveRepo.findAllContainerIds());
+                    archivedContainers = loaded;
+                }
+                containers = archivedContainers;
+            }
+        }
+        return containers;
+    }
+
+    public boolean hasArchived(@NonNull UUID containerId) {
+        return archivedContainers().contains(containerId);
+    }
+
+    /**
+     Has to be called once all the segments of the container have been deleted.
+     */
+    public void evict(@NonNull UUID containerId) {
+        archivedContainers().remove(containerId);
+    }
+
+    /**
+     Compresses the given views, ordered by their sequence numbers, into a new segment of the container. Has to be
+     called before the Sendables are deleted from the hot table, their idempotency keys are copied from there.
+     */
+    public @NonNull SendableArchiveSegment append(@NonNull UUID containerId, @NonNull List<SendableView> views) {
+        if (views.isEmpty()) {
+            throw new IllegalArgumentException("Archive segment cannot be empty.");
+        }
+
+        SendableView first = views.get(0);
+        SendableView last = views.get(views.size() - 1);
+        SendableArchiveSegment segment = archiveRepo.save(new SendableArchiveSegment(containerId,
+                first.createdAt(), first.id(), last.createdAt(), last.id(), first.sequence(), last.sequence(),
+                views.size(), encode(views)));
+        archiveKeyRepo.insertAllOfSendablesIn(views.stream().map(SendableView::id).toList());
+        archivedContainers().add(containerId);
+        return segment;
+    }
+
+    /**
+     @return keys of the archived Sendables of the creator, sent to the given containers with the given idempotency
+     keys
+     */
+    public @NonNull List<SendableArchiveKey> findKeys(@NonNull Collection<UUID> containerIds, @NonNull UUID creatorId,
+                                                      @NonNull Collection<UUID> idempotencyKeys) {
+        List<UUID> archivedContainerIds = containerIds.stream().filter(this::hasArchived).toList();
+        if (archivedContainerIds.isEmpty()) {
+            return List.of();
+        }
+        return archiveKeyRepo.findAllByContainerIdInAndCreatorIdAndIdempotencyKeyIn(archivedContainerIds, creatorId,
+                idempotencyKeys);
+    }
+
+    /**
+     @return the archived view of the Sendable of the key, decompressing the single segment holding it
+     */
+    public @NonNull Optional<SendableView> find(@NonNull SendableArchiveKey key) {
+        List<SendableArchiveSegment> segments =
+                archiveRepo.findAllByContainerIdUntil(key.getContainerId(), key.getSequence(), Limit.of(1));
+        if (segments.isEmpty()) {
+            return Optional.empty();
+        }
+        return decode(segments.get(0)).stream().filter(view -> view.id().equals(key.getSendableId())).findFirst();
+    }
+
+    /**
+     @return up to {@code limit} archived views preceding the given sequence number (or the newest ones without a
+     number), ordered from the newest one
+     */
+    public @NonNull List<SendableView> readBefore(@NonNull UUID containerId, Long before, int limit) {
+        List<SendableView> views = new ArrayList<>();
+        if (limit < 1 || !hasArchived(containerId)) {
+            return views;
+        }
+
+        Long key = before;
+        while (views.size() < limit) {
+            List<SendableArchiveSegment> segments = key == null
+                    ? archiveRepo.findNewestByContainerId(containerId, Limit.of(1))
+                    : archiveRepo.findAllByContainerIdBefore(containerId, key, Limit.of(1));
+            if (segments.isEmpty()) {
+                break;
+            }
+
+            SendableArchiveSegment segment = segments.get(0);
+            List<SendableView> content = decode(segment);
+            for (int i = content.size() - 1; i >= 0 && views.size() < limit; i--) {
+                if (key == null || content.get(i).sequence() < key) {
+                    views.add(content.get(i));
+                }
+            }
+            key = segment.getFirstSequence();
+        }
+        return views;
+    }
+
+    /**
+     @return up to {@code limit} archived views following the {@code after} sequence number and preceding the
+     {@code until} one (when given), ordered from the oldest one
+     */
+    public @NonNull List<SendableView> readAfter(@NonNull UUID containerId, long after, Long until, int limit) {
+        List<SendableView> views = new ArrayList<>();
+        if (limit < 1 || !hasArchived(containerId)) {
+            return views;
+        }
+
+        long key = after;
+        while (views.size() < limit) {
+            List<SendableArchiveSegment> segments = archiveRepo.findAllByContainerIdAfter(containerId, key,
+                    Limit.of(1));
+            if (segments.isEmpty()) {
+                break;
+            }
+
+            SendableArchiveSegment segment = segments.get(0);
+            for (SendableView view : decode(segment)) {
+                if (views.size() == limit || (until != null && view.sequence() >= until)) {
+                    return views;
+                }
+                if (view.sequence() > key) {
+                    views.add(view);
+                }
+            }
+            key = segment.getLastSequence();
+        }
+        return views;
+    }
+
+    /**
+     Numbers the views of a segment archived before the sequence numbers were introduced, together with their keys.
+     Has to be called by a write of {@link SendableChangeLog}, like any other numbering.
+
+     @return the amount of the numbered views
+     */
+    int number(@NonNull UUID segmentId, long first) {
+        byte[] content = archiveRepo.findContentById(segmentId).orElse(null);
+        if (content == null) {
+            return 0;
+        }
+        List<SendableView> views = decode(segmentId, content);
+        List<SendableView> numbered = new ArrayList<>(views.size());
+        for (int i = 0; i < views.size(); i++) {
+            numbered.add(views.get(i).withSequence(first + i));
+            archiveKeyRepo.updateSequenceBySendableId(views.get(i).id(), first + i);
+        }
+        archiveRepo.updateSequencesById(segmentId, first, first + views.size() - 1, encode(numbered));
+        return views.size();
+    }
+
+    /**
+     Passes all archived views of the container to the consumer in the order of their sequence numbers, decompressing
+     a single segment at a time.
+     */
+    public void forEach(@NonNull UUID containerId, @NonNull Consumer<SendableView> consumer) {
+        if (!hasArchived(containerId)) {
+            return;
+        }
+        // the content is selected as a scalar, so the segments do not pile up in the persistence context
+        for (UUID segmentId : archiveRepo.findAllIdsByContainerId(containerId)) {
+            archiveRepo.findContentById(segmentId).ifPresent(content -> decode(segmentId, content).forEach(consumer));
+        }
+    }
+
+    /**
+     @return IDs of the attachments of the Sendables archived in the given segments
+     */
+    public @NonNull List<UUID> findAttachmentIds(@NonNull Collection<UUID> segmentIds) {
+        List<UUID> attachmentIds = new ArrayList<>();
+        for (UUID segmentId : segmentIds) {
+            archiveRepo.findContentById(segmentId).ifPresent(content -> decode(segmentId, content)
+                    .forEach(view -> attachmentIds.addAll(view.attachmentIds())));
+        }
+        return attachmentIds;
+    }
+
+    private byte[] encode(List<SendableView> views) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (SendableView view : views) {
+                gzip.write(viewWriter.writeValueAsBytes(view));
+                gzip.write(NEW_LINE);
+            }
+        } catch (IOException e) {
+            throw new ConversionException("Sendables could not be compressed into an archive segment.");
+        }
+        if (bytes.size() > SendableArchiveSegment.MAX_CONTENT_LENGTH) {
+            throw new ConversionException("Archive segment exceeds the maximum content length.");
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<SendableView> decode(SendableArchiveSegment segment) {
+        return decode(segment.getId(), segment.getContent());
+    }
+
+    private List<SendableView> decode(UUID segmentId, byte[] content) {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return viewReader.<SendableView>readValues(gzip).readAll();
+        } catch (IOException e) {
+            throw new ConversionException("Archive segment " + segmentId + " could not be decompressed.");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+
+/**
+ Periodically moves the Sendables older than the configured age from the hot table to the {@link SendableArchive}.
+ <br> Sendables of a container are archived from the lowest sequence number and only in full segments, each moved in
+ a single transaction. Small remainders stay in the hot table until they fill a segment.
+ <br> Archived Sendables are immutable, they can be neither edited nor deleted, and they are not searchable. Their
+ pins are dropped, so the pinned Sendables of a chat are always read from the hot table.
+ */
+@Slf4j
+@Component
+public class SendableArchiver {
+    private final SendableRepository sendableRepo;
+    private final SendableArchive sendableArchive;
+    private final RecentSendablesCache recentSendablesCache;
+    private final SendableSearchIndex sendableSearchIndex;
+    private final PinnedSendables pinnedSendables;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final int segmentSize;
+
+    public SendableArchiver(SendableRepository sendableRepo,
+                            SendableArchive sendableArchive,
+                            RecentSendablesCache recentSendablesCache,
+                            SendableSearchIndex sendableSearchIndex,
+                            PinnedSendables pinnedSendables,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${sendables.archive.enabled:false}") boolean enabled,
+                            @Value("${sendables.archive.max-age:P90D}") Duration maxAge,
+                            @Value("${sendables.archive.segment-size:1000}") int segmentSize) {
+        this.sendableRepo = sendableRepo;
+        this.sendableArchive = sendableArchive;
+        this.recentSendablesCache = recentSendablesCache;
+        this.sendableSearchIndex = sendableSearchIndex;
+        this.pinnedSendables = pinnedSendables;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.segmentSize = segmentSize;
+    }
+
+    @Scheduled(fixedDelayString = "${sendables.archive.interval:PT1H}",
+               initialDelayString = "${sendables.archive.interval:PT1H}")
+    public void archiveExpired() {
+        if (!enabled) {
+            return;
+        }
+        int archived = archiveOlderThan(ZonedDateTime.now().minus(maxAge));
+        log.debug("Archived {} Sendables older than {}.", archived, maxAge);
+    }
+
+    /**
+     @return the amount of archived Sendables
+     */
+    public int archiveOlderThan(@NonNull ZonedDateTime cutoff) {
+        int archived = 0;
+        for (UUID containerId : sendableRepo.findAllContainerIdsWithCreatedBefore(cutoff, segmentSize)) {
+            try {
+                archived += archiveContainer(containerId, cutoff);
+            } catch (RuntimeException e) {
+                // the failed segment has been rolled back, the next run retries it
+                log.warn("Sendables of container {} could not be archived.", containerId, e);
+            }
+        }
+        return archived;
+    }
+
+    private int archiveContainer(UUID containerId, ZonedDateTime cutoff) {
+        int archived = 0;
+        while (true) {
+            List<SendableView> segment = transactionTemplate.execute(status -> archiveSegment(containerId, cutoff));
+            if (segment == null || segment.isEmpty()) {
+                return archived;
+            }
+
+            archived += segment.size();
+            recentSendablesCache.evict(containerId);
+            segment.forEach(view -> sendableSearchIndex.remove(containerId, view.id()));
+            pinnedSendables.unpinAll(containerId, segment.stream().map(SendableView::id).toList());
+        }
+    }
+
+    private List<SendableView> archiveSegment(UUID containerId, ZonedDateTime cutoff) {
+        // the archived Sendables have to precede all the hot ones in the order of the sequence numbers, so a segment
+        // is archived only once all its Sendables are older than the cutoff
+        List<SendableView> views = sendableRepo.findOldestByContainerId(containerId, Limit.of(segmentSize));
+        if (views.size() < segmentSize || views.stream().anyMatch(view -> !view.createdAt().isBefore(cutoff))) {
+            return List.of();
+        }
+
+        sendableArchive.append(containerId, views);
+        sendableRepo.deleteAllByIdIn(views.stream().map(SendableView::id).toList());
+        return views;
+    }
+}
@@ -0,0 +1,63 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+import jakarta.persistence.EntityManager;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.container.SendablesContainer;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChange;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChangeType;
+
+/**
+ Persists new Sendables together with their change log entries in a single write of {@link SendableChangeLog}, so
+ the inserts are sent in JDBC batches and committed at once. The Sendables are numbered by {@link SendableSequences}
+ in the same transaction, in the order they are given.
+ */
+@Component
+public class SendableBatchWriter {
+    private final EntityManager entityManager;
+    private final SendableChangeLog sendableChangeLog;
+    private final SendableSequences sendableSequences;
+
+    public SendableBatchWriter(EntityManager entityManager, SendableChangeLog sendableChangeLog,
+                               SendableSequences sendableSequences) {
+        this.entityManager = entityManager;
+        this.sendableChangeLog = sendableChangeLog;
+        this.sendableSequences = sendableSequences;
+    }
+
+    public void insertAll(@NonNull List<ChatSendable> sendables) {
+        Set<UUID> containerIds = sendables.stream()
+                .map(sendable -> sendable.getContainer().getId())
+                .collect(Collectors.toSet());
+        List<SendablesContainer> containers = new ArrayList<>(sendables.size());
+        try {
+            sendableChangeLog.writeAll(containerIds, () -> {
+                sendableSequences.numberAll(sendables);
+                for (ChatSendable sendable : sendables) {
+                    SendablesContainer container = sendable.getContainer();
+                    containers.add(container);
+                    // a reference does not load the chat, unlike merging the detached one
+                    sendable.setContainer(entityManager.getReference(Chat.class, container.getId()));
+                    entityManager.persist(sendable);
+                    entityManager.persist(
+                            new SendableChange(container.getId(), sendable.getId(), SendableChangeType.NEW));
+                }
+                return null;
+            });
+        } finally {
+            // the references are not usable outside the transaction
+            for (int i = 0; i < containers.size(); i++) {
+                sendables.get(i).setContainer(containers.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import lombok.NonNull;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChange;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChangeType;
+import pl.mwasyluk.ouroom_server.repos.SendableChangeRepository;
+
+/**
+ Writes the changes of Sendables together with the entries of the per-container change log, so a change is logged
+ if and only if it has been committed.
+ <br> The revisions of the entries are allocated from a sequence when they are saved, not when they are committed,
+ so the writes to the same container are serialized by locks split into stripes by the container ID. A write holds
+ the locks of all its containers until it has been committed, thus the revisions of a container are committed in
+ ascending order and a client synchronized up to a revision never misses a later commit of a lower one.
+ <br> All the changes have to be written by a single instance of the application.
+ */
+@Component
+public class SendableChangeLog {
+    private final SendableChangeRepository sendableChangeRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock[] stripes;
+
+    public SendableChangeLog(SendableChangeRepository sendableChangeRepo,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${sendables.change-log.stripes:64}") int stripesAmount) {
+        this.sendableChangeRepo = sendableChangeRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripes = new ReentrantLock[stripesAmount];
+        for (int i = 0; i < stripesAmount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    private int stripeIndexOf(UUID containerId) {
+        return Math.floorMod(containerId.hashCode(), stripes.length);
+    }
+
+    /**
+     @param write
+     the changes of the Sendables of the container, recording their log entries by the {@code record} methods;
+
+     @return result of the write, once it has been committed
+     */
+    public <T> T write(@NonNull UUID containerId, @NonNull Supplier<T> write) {
+        return writeAll(List.of(containerId), write);
+    }
+
+    /**
+     @param write
+     the changes of the Sendables of the given containers, recording their log entries by the {@code record}
+     methods;
+
+     @return result of the write, once it has been committed
+     */
+    public <T> T writeAll(@NonNull Collection<UUID> containerIds, @NonNull Supplier<T> write) {
+        // the stripes are always locked in the ascending order, so the writes to several containers cannot deadlock
+        int[] locked = containerIds.stream().mapToInt(this::stripeIndexOf).distinct().sorted().toArray();
+        for (int index : locked) {
+            stripes[index].lock();
+        }
+        try {
+            return transactionTemplate.execute(status -> write.get());
+        } finally {
+            for (int i = locked.length - 1; i >= 0; i--) {
+                stripes[locked[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     Has to be called by a write, so the entry is committed together with the change.
+     */
+    public void record(@NonNull UUID containerId, @NonNull UUID sendableId, @NonNull SendableChangeType type) {
+        sendableChangeRepo.save(new SendableChange(containerId, sendableId, type));
+    }
+
+    /**
+     Has to be called by a write, so the entries are committed together with the changes.
+     */
+    public void recordAll(@NonNull UUID containerId, @NonNull Collection<UUID> sendableIds,
+                          @NonNull SendableChangeType type) {
+        sendableChangeRepo.saveAll(sendableIds.stream()
+                .map(sendableId -> new SendableChange(containerId, sendableId, type))
+                .toList());
+    }
+}
@@ -0,0 +1,88 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import lombok.NonNull;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+
+/**
+ Writes the whole history of a container, including its archived part, as newline-delimited JSON of
+ {@link SendableView}s.
+ <br> Rows are read from a database cursor straight into the views, so neither the Sendables nor their creators are
+ loaded, and the output is flushed every {@value #FLUSH_INTERVAL} rows, so the memory usage does not depend on the
+ history size.
+ */
+@Component
+public class SendableExporter {
+    private static final int FLUSH_INTERVAL = 500;
+    private static final byte NEW_LINE = '\n';
+
+    private final SendableRepository sendableRepo;
+    private final SendableArchive sendableArchive;
+    private final ObjectWriter viewWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    public SendableExporter(SendableRepository sendableRepo, SendableArchive sendableArchive,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager) {
+        this.sendableRepo = sendableRepo;
+        this.sendableArchive = sendableArchive;
+        this.viewWriter = objectMapper.writerFor(SendableView.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // a single snapshot for both tiers, Sendables archived during the export are neither missed nor repeated
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     @return the amount of exported Sendables
+     */
+    public long exportTo(@NonNull UUID containerId, @NonNull OutputStream outputStream) {
+        Long exported = transactionTemplate.execute(status -> {
+            // the archived part of the history precedes the hot one
+            long[] archived = {0};
+            sendableArchive.forEach(containerId, view -> {
+                writeLine(outputStream, view);
+                archived[0]++;
+            });
+
+            long count = 0;
+            try (Stream<SendableView> views = sendableRepo.streamAllByContainerId(containerId)) {
+                Iterator<SendableView> iterator = views.iterator();
+                while (iterator.hasNext()) {
+                    writeLine(outputStream, iterator.next());
+                    if (++count % FLUSH_INTERVAL == 0) {
+                        outputStream.flush();
+                    }
+                }
+                outputStream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return archived[0] + count;
+        });
+        return exported == null ? 0 : exported;
+    }
+
+    private void writeLine(OutputStream outputStream, SendableView view) {
+        try {
+            outputStream.write(viewWriter.writeValueAsBytes(view));
+            outputStream.write(NEW_LINE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
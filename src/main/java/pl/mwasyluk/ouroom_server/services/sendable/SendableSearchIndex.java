@@ -0,0 +1,289 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
+
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ In-memory inverted index of Sendable messages, partitioned by container.
+ <br> The index of a container is built in the background from the repository on its first search and is updated
+ incrementally by the create/update/delete paths afterward. Only the most recently searched containers are kept,
+ each with up to {@code maxSendablesPerChat} of its newest Sendables, so older ones are no longer found.
+ <br> Every word of a query has to match a prefix of any word of the message.
+ */
+@Slf4j
+@Component
+public class SendableSearchIndex {
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int BUILD_PAGE_SIZE = 500;
+    private static final long BUILD_WAIT_SECONDS = 10;
+
+    private final SendableRepository sendableRepo;
+    private final int maxChats;
+    private final int maxSendablesPerChat;
+    private final Map<UUID, ChatIndex> chatIndexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sendable-search-index-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SendableSearchIndex(SendableRepository sendableRepo,
+                               @Value("${sendables.search.max-chats:1000}") int maxChats,
+                               @Value("${sendables.search.max-sendables-per-chat:10000}") int maxSendablesPerChat) {
+        this.sendableRepo = sendableRepo;
+        this.maxChats = maxChats;
+        this.maxSendablesPerChat = maxSendablesPerChat;
+    }
+
+    static Set<String> tokenize(String text) {
+        if (text == null) {
+            return Set.of();
+        }
+        return Arrays.stream(WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     @return IDs of the newest matching Sendables, ordered from the newest one
+     */
+    public @NonNull List<UUID> search(@NonNull UUID containerId, @NonNull String query, int limit) {
+        Set<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        ChatIndex chatIndex = obtainBuilt(containerId);
+        return chatIndex.search(words, limit);
+    }
+
+    public void put(@NonNull SendableView view) {
+        ChatIndex chatIndex = existing(view.containerId());
+        if (chatIndex != null) {
+            chatIndex.put(view.id(), view.createdAt(), view.message(), true);
+        }
+    }
+
+    public void remove(@NonNull UUID containerId, @NonNull UUID sendableId) {
+        ChatIndex chatIndex = existing(containerId);
+        if (chatIndex != null) {
+            chatIndex.remove(sendableId);
+        }
+    }
+
+    /**
+     Has to be called once all the Sendables of the container have been deleted.
+     */
+    public void evict(@NonNull UUID containerId) {
+        synchronized (chatIndexes) {
+            chatIndexes.remove(containerId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    private ChatIndex existing(UUID containerId) {
+        synchronized (chatIndexes) {
+            return chatIndexes.get(containerId);
+        }
+    }
+
+    private ChatIndex obtainBuilt(UUID containerId) {
+        ChatIndex chatIndex;
+        boolean created = false;
+        synchronized (chatIndexes) {
+            chatIndex = chatIndexes.get(containerId);
+            if (chatIndex == null) {
+                chatIndex = new ChatIndex(maxSendablesPerChat);
+                chatIndexes.put(containerId, chatIndex);
+                evictOverflow();
+                created = true;
+            }
+        }
+        if (created) {
+            ChatIndex toBuild = chatIndex;
+            builder.execute(() -> build(containerId, toBuild));
+        }
+
+        try {
+            chatIndex.ready.get(BUILD_WAIT_SECONDS, TimeUnit.SECONDS);
+            return chatIndex;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Search index of container {} is not ready.", containerId, e);
+        }
+        throw new ServiceException(SERVICE_UNAVAILABLE, "Search is not available yet, please try again later.");
+    }
+
+    private void evictOverflow() {
+        Iterator<ChatIndex> eldest = chatIndexes.values().iterator();
+        while (chatIndexes.size() > maxChats && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    // ChatIndex is registered before the build starts, so the writes committed after the first page was read are
+    // applied to it by the write paths, and the build never overrides them. The history is read from the newest
+    // Sendable and only until the index is full, so the Sendables which would be evicted at once are never read.
+    private void build(UUID containerId, ChatIndex chatIndex) {
+        try {
+            int remaining = maxSendablesPerChat;
+            List<SendableView> page = sendableRepo.findNewestByContainerId(containerId,
+                    Limit.of(Math.min(BUILD_PAGE_SIZE, remaining)));
+            while (!page.isEmpty()) {
+                for (SendableView view : page) {
+                    chatIndex.put(view.id(), view.createdAt(), view.message(), false);
+                }
+                remaining -= page.size();
+                if (remaining <= 0 || page.size() < BUILD_PAGE_SIZE) {
+                    break;
+                }
+                page = sendableRepo.findAllByContainerIdBefore(containerId, page.get(page.size() - 1).sequence(),
+                        Limit.of(Math.min(BUILD_PAGE_SIZE, remaining)));
+            }
+            chatIndex.markReady();
+        } catch (RuntimeException e) {
+            log.warn("Search index of container {} could not be built.", containerId, e);
+            synchronized (chatIndexes) {
+                chatIndexes.remove(containerId, chatIndex);
+            }
+            chatIndex.ready.completeExceptionally(e);
+        }
+    }
+
+    private static class ChatIndex {
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+        private final TreeMap<String, Set<UUID>> postings = new TreeMap<>();
+        private final Map<UUID, Document> documents = new HashMap<>();
+        private final TreeSet<Document> oldestFirst = new TreeSet<>(
+                Comparator.comparing(Document::createdAt).thenComparing(Document::id));
+        // Sendables removed while building, the build must not bring them back
+        private final Set<UUID> removed = new HashSet<>();
+        private final int capacity;
+
+        private ChatIndex(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private synchronized void markReady() {
+            removed.clear();
+            ready.complete(null);
+        }
+
+        private synchronized void put(UUID sendableId, ZonedDateTime createdAt, String message, boolean fresh) {
+            if (!fresh && (documents.containsKey(sendableId) || removed.contains(sendableId))) {
+                return;
+            }
+            unindex(sendableId);
+            removed.remove(sendableId);
+
+            Set<String> words = tokenize(message);
+            Document document = new Document(sendableId, createdAt.toInstant(), words);
+            documents.put(sendableId, document);
+            oldestFirst.add(document);
+            for (String word : words) {
+                postings.computeIfAbsent(word, w -> new HashSet<>()).add(sendableId);
+            }
+            // an evicted Sendable is older than all the indexed ones, so the build cannot bring it back for long
+            while (documents.size() > capacity) {
+                unindex(oldestFirst.first().id());
+            }
+        }
+
+        private synchronized void remove(UUID sendableId) {
+            unindex(sendableId);
+            if (!ready.isDone()) {
+                removed.add(sendableId);
+            }
+        }
+
+        private void unindex(UUID sendableId) {
+            Document document = documents.remove(sendableId);
+            if (document == null) {
+                return;
+            }
+            oldestFirst.remove(document);
+            for (String word : document.words) {
+                Set<UUID> ids = postings.get(word);
+                ids.remove(sendableId);
+                if (ids.isEmpty()) {
+                    postings.remove(word);
+                }
+            }
+        }
+
+        private synchronized List<UUID> search(Set<String> words, int limit) {
+            Set<UUID> hits = null;
+            // the rarest words first keep the intersection small
+            List<Set<UUID>> matches = words.stream()
+                    .map(this::matchPrefix)
+                    .sorted(Comparator.comparingInt(Set::size))
+                    .toList();
+            for (Set<UUID> match : matches) {
+                if (hits == null) {
+                    hits = new HashSet<>(match);
+                } else {
+                    hits.retainAll(match);
+                }
+                if (hits.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return hits.stream()
+                    .sorted(Comparator.comparing((UUID id) -> documents.get(id).createdAt).reversed())
+                    .limit(limit)
+                    .toList();
+        }
+
+        private Set<UUID> matchPrefix(String prefix) {
+            Set<UUID> ids = new HashSet<>();
+            for (Set<UUID> posting : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+                ids.addAll(posting);
+            }
+            return ids;
+        }
+    }
+
+    private record Document(UUID id, Instant createdAt, Set<String> words) {
+    }
+}
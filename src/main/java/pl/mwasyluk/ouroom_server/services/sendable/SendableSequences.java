@@ -0,0 +1,134 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import lombok.NonNull;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+
+/**
+ Allocates dense sequence numbers of the new Sendables of every container.
+ <br> The last number allocated for a container is kept in memory, in counters split into stripes by the container
+ ID, so an insert neither updates nor locks any row to number its Sendables. A counter is seeded on its first use
+ from the highest number held by the Sendables of the container or recorded in the chat row, whichever is higher, and
+ every write reserves a single block of consecutive numbers per container. Counters of the least recently used
+ containers are dropped once a stripe exceeds its share of {@code maxContainers}, and are seeded again.
+ <br> The numbers are allocated only by the writes of {@link SendableChangeLog}, which hold the lock of the container
+ until the transaction completes. The counter of a rolled back write is dropped before the lock is released, so the
+ next write seeds it again and no number is skipped. Like the change log, the counters require all the Sendables to
+ be written by a single instance of the application, the unique index of the numbers rejects a duplicate anyway.
+ */
+@Component
+public class SendableSequences {
+    private final ChatRepository chatRepo;
+    private final SendableRepository sendableRepo;
+    private final Stripe[] stripes;
+
+    public SendableSequences(ChatRepository chatRepo, SendableRepository sendableRepo,
+                             @Value("${sendables.sequences.stripes:64}") int stripesAmount,
+                             @Value("${sendables.sequences.max-containers:100000}") int maxContainers) {
+        this.chatRepo = chatRepo;
+        this.sendableRepo = sendableRepo;
+        this.stripes = new Stripe[stripesAmount];
+        for (int i = 0; i < stripesAmount; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxContainers / stripesAmount));
+        }
+    }
+
+    private Stripe stripeOf(UUID containerId) {
+        return stripes[Math.floorMod(containerId.hashCode(), stripes.length)];
+    }
+
+    /**
+     Numbers the given Sendables of every container in their order, a single block per container.
+     <br> Has to be called by a write of {@link SendableChangeLog}, so the numbers are committed together with the
+     Sendables.
+     */
+    public void numberAll(@NonNull List<ChatSendable> sendables) {
+        Map<UUID, List<ChatSendable>> sendablesByContainer = new LinkedHashMap<>();
+        sendables.forEach(sendable -> sendablesByContainer
+                .computeIfAbsent(sendable.getContainer().getId(), containerId -> new ArrayList<>())
+                .add(sendable));
+        sendablesByContainer.forEach((containerId, containerSendables) -> {
+            long first = allocate(containerId, containerSendables.size());
+            for (int i = 0; i < containerSendables.size(); i++) {
+                containerSendables.get(i).setSequence(first + i);
+            }
+        });
+    }
+
+    /**
+     @return the first of {@code amount} consecutive numbers following all the numbers allocated for the container
+     */
+    long allocate(@NonNull UUID containerId, int amount) {
+        if (amount < 1) {
+            throw new IllegalArgumentException("At least one sequence number has to be allocated.");
+        }
+
+        Stripe stripe = stripeOf(containerId);
+        Long last;
+        synchronized (stripe) {
+            last = stripe.lastNumbers.get(containerId);
+        }
+        // seeded without the lock, so the other containers of the stripe do not wait for the database
+        if (last == null) {
+            last = Math.max(chatRepo.findLastSequenceById(containerId).orElse(0L),
+                    sendableRepo.findMaxSequenceByContainerId(containerId));
+        }
+        synchronized (stripe) {
+            stripe.put(containerId, last + amount);
+        }
+        forgetOnRollback(containerId);
+        return last + 1;
+    }
+
+    /**
+     Drops the counter of the container, so it is seeded again from the database on its next use.
+     */
+    void forget(@NonNull UUID containerId) {
+        Stripe stripe = stripeOf(containerId);
+        synchronized (stripe) {
+            stripe.lastNumbers.remove(containerId);
+        }
+    }
+
+    private void forgetOnRollback(UUID containerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    forget(containerId);
+                }
+            }
+        });
+    }
+
+    private static class Stripe {
+        private final int capacity;
+        private final Map<UUID, Long> lastNumbers = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private void put(UUID containerId, long lastNumber) {
+            lastNumbers.put(containerId, lastNumber);
+            while (lastNumbers.size() > capacity) {
+                lastNumbers.remove(lastNumbers.keySet().iterator().next());
+            }
+        }
+    }
+}
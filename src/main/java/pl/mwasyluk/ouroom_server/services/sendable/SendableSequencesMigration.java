@@ -0,0 +1,116 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PostConstruct;
+
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableArchiveRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+
+/**
+ Numbers the Sendables created before the sequence numbers were introduced, which all hold 0, once on startup,
+ before any request is served.
+ <br> Such Sendables are numbered following the highest number held in their container, in the order of their
+ creation, in chunks written by {@link SendableChangeLog} like any insert. The archived ones precede the hot ones,
+ so their segments are numbered first, one by one, together with their archived keys. The chat rows are raised to
+ the allocated numbers, so the in-memory counters of {@link SendableSequences} are seeded past them, and the read
+ sequence numbers of the members are raised to the newest Sendables before their read watermarks.
+ <br> Once none is left, the unique index of the numbers is created, which the schema update cannot create over the
+ duplicated zeros. The index marks the completed migration, so the migration checks nothing once it exists.
+ */
+@Slf4j
+@RequiredArgsConstructor
+
+@Component
+public class SendableSequencesMigration {
+    public static final int CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatRepository chatRepo;
+    private final MemberRepository memberRepo;
+    private final SendableRepository sendableRepo;
+    private final SendableArchiveRepository sendableArchiveRepo;
+    private final SendableArchive sendableArchive;
+    private final SendableChangeLog sendableChangeLog;
+
+    @PostConstruct
+    public void migrate() {
+        if (hasSequenceUniqueIndex()) {
+            return;
+        }
+
+        int numbered = 0;
+        for (UUID containerId : sendableArchiveRepo.findAllContainerIdsOfUnnumbered()) {
+            for (UUID segmentId : sendableArchiveRepo.findAllUnnumberedIdsByContainerId(containerId)) {
+                numbered += sendableChangeLog.write(containerId, () -> {
+                    long first = highestSequenceOf(containerId) + 1;
+                    int amount = sendableArchive.number(segmentId, first);
+                    chatRepo.raiseLastSequence(containerId, first + amount - 1);
+                    return amount;
+                });
+            }
+        }
+        for (UUID containerId : sendableRepo.findAllContainerIdsOfUnnumbered()) {
+            int chunk;
+            do {
+                chunk = sendableChangeLog.write(containerId, () -> {
+                    List<UUID> sendableIds =
+                            sendableRepo.findAllUnnumberedIdsByContainerId(containerId, Limit.of(CHUNK_SIZE));
+                    long first = highestSequenceOf(containerId) + 1;
+                    for (int i = 0; i < sendableIds.size(); i++) {
+                        sendableRepo.updateSequenceById(sendableIds.get(i), first + i);
+                    }
+                    chatRepo.raiseLastSequence(containerId, first + sendableIds.size() - 1);
+                    return sendableIds.size();
+                });
+                numbered += chunk;
+            } while (chunk == CHUNK_SIZE);
+        }
+        if (numbered > 0) {
+            log.info("Numbered {} Sendables created before the sequence numbers.", numbered);
+        }
+        memberRepo.raiseReadSequencesToReadUpTo();
+        sendableRepo.createSequenceUniqueIndex();
+    }
+
+    private long highestSequenceOf(UUID containerId) {
+        return Math.max(chatRepo.findLastSequenceById(containerId).orElse(0L),
+                Math.max(sendableRepo.findMaxSequenceByContainerId(containerId),
+                        sendableArchiveRepo.findMaxSequenceByContainerId(containerId)));
+    }
+
+    // the schema update may create the index as a unique constraint, backed by an index of another name
+    private boolean hasSequenceUniqueIndex() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, Set<String>> uniqueIndexColumns = new HashMap<>();
+            try (ResultSet indexes = metaData.getIndexInfo(null, null,
+                    metaData.storesUpperCaseIdentifiers() ? "CHAT_SENDABLE" : "chat_sendable", true, false)) {
+                while (indexes.next()) {
+                    String indexName = indexes.getString("INDEX_NAME");
+                    String columnName = indexes.getString("COLUMN_NAME");
+                    if (indexName != null && columnName != null) {
+                        uniqueIndexColumns.computeIfAbsent(indexName, name -> new HashSet<>())
+                                .add(columnName.toLowerCase());
+                    }
+                }
+            }
+            return uniqueIndexColumns.containsValue(Set.of("container_id", "sequence"));
+        }));
+    }
+}
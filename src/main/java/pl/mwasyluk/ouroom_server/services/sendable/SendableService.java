@@ -1,16 +1,34 @@
 package pl.mwasyluk.ouroom_server.services.sendable;
 
-import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.NonNull;
 
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableState;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableChangesView;
 import pl.mwasyluk.ouroom_server.dto.sendable.SendableForm;
 import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesPageForm;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesRemovalForm;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesRemovedView;
 
 public interface SendableService {
-    @NonNull Collection<SendableView> readAllFromContainer(@NonNull UUID containerId);
+    @NonNull PageView<SendableView> readPageFromContainer(@NonNull SendablesPageForm pageForm);
+    @NonNull SendableChangesView readChangesFromContainer(@NonNull UUID containerId, Long sinceRevision);
+    @NonNull List<SendableView> searchInContainer(@NonNull UUID containerId, String query);
+    @NonNull List<SendableView> readPinnedFromContainer(@NonNull UUID containerId);
+    @NonNull StreamingResponseBody exportFromContainer(@NonNull UUID containerId);
     @NonNull SendableView create(@NonNull SendableForm sendableForm);
+    @NonNull SendableView create(@NonNull SendableForm sendableForm, @NonNull List<MultipartFile> files);
+    @NonNull List<SendableView> createAll(@NonNull List<SendableForm> sendableForms);
     @NonNull SendableView update(@NonNull SendableForm sendableForm);
     void delete(@NonNull UUID sendableId);
+    @NonNull SendablesRemovedView deleteAll(@NonNull SendablesRemovalForm removalForm);
+    void pin(@NonNull UUID sendableId);
+    void unpin(@NonNull UUID containerId, @NonNull UUID sendableId);
+    void markUpTo(@NonNull UUID sendableId, @NonNull SendableState state);
 }
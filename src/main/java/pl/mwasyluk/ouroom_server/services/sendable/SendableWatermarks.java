@@ -0,0 +1,232 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableState;
+import pl.mwasyluk.ouroom_server.dto.member.MemberWatermarkView;
+import pl.mwasyluk.ouroom_server.dto.notification.NotificationView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.websocket.NotificationTemplate;
+import pl.mwasyluk.ouroom_server.websocket.Topic;
+
+/**
+ Maintains the read and delivered watermarks of chat members and derives the states of Sendables from them.
+ <br> A Sendable is READ (or DELIVERED) when every member of its container other than its creator has the read
+ (or delivered) watermark at or after its creation time.
+ <br> The watermarks of the members of a chat are kept in memory once its states have been derived, so reading a page
+ does not query the members. They are moved forward by {@link #advance} together with the database and are dropped
+ by {@link #membersChanged}, which the paths changing the memberships call once the change has been committed. The
+ watermarks read from the database while any chat of their stripe was changed are not kept. The chats are split into
+ stripes by their IDs, and the least recently used ones are dropped once a stripe exceeds its share of
+ {@code maxEntries} members. Like the other in-memory copies, they require all the watermarks to be moved by a single
+ instance of the application.
+ */
+@Component
+public class SendableWatermarks {
+    private final MemberRepository memberRepo;
+    private final NotificationTemplate notificationTemplate;
+    private final Stripe[] stripes;
+
+    public SendableWatermarks(MemberRepository memberRepo, NotificationTemplate notificationTemplate,
+                              @Value("${sendables.watermarks.stripes:64}") int stripesAmount,
+                              @Value("${sendables.watermarks.max-entries:100000}") int maxEntries) {
+        this.memberRepo = memberRepo;
+        this.notificationTemplate = notificationTemplate;
+        this.stripes = new Stripe[stripesAmount];
+        for (int i = 0; i < stripesAmount; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxEntries / stripesAmount));
+        }
+    }
+
+    private Stripe stripeOf(UUID chatId) {
+        return stripes[Math.floorMod(chatId.hashCode(), stripes.length)];
+    }
+
+    /**
+     Moves the watermark of the given state forward to the given time. Reading moves the delivered watermark too,
+     and the read sequence number to the given one.
+     Members of the container are notified only if any of the watermarks has moved.
+     */
+    public void advance(@NonNull UUID userId, @NonNull UUID containerId, @NonNull ZonedDateTime upTo, long upToSequence,
+                        @NonNull SendableState state) {
+        boolean readMoved = state == SendableState.READ
+                            && memberRepo.advanceReadUpTo(userId, containerId, upTo, upToSequence) > 0;
+        boolean deliveredMoved = memberRepo.advanceDeliveredUpTo(userId, containerId, upTo) > 0;
+        if (!readMoved && !deliveredMoved) {
+            return;
+        }
+        moved(containerId, userId, readMoved ? upTo.toInstant() : null, deliveredMoved ? upTo.toInstant() : null);
+
+        MemberWatermarkView watermarkView = new MemberWatermarkView(containerId, userId,
+                readMoved ? upTo : null, deliveredMoved ? upTo : null);
+        notificationTemplate.notifyAllMembers(containerId, Topic.MESSAGES,
+                new NotificationView(NotificationView.Action.MARKED, watermarkView));
+    }
+
+    /**
+     Has to be called once a change of the members of the chat has been committed.
+     */
+    public void membersChanged(@NonNull UUID chatId) {
+        Stripe stripe = stripeOf(chatId);
+        synchronized (stripe) {
+            stripe.changes++;
+            stripe.remove(chatId);
+        }
+    }
+
+    public @NonNull List<SendableView> applyStates(@NonNull UUID containerId, @NonNull List<SendableView> views) {
+        if (views.isEmpty()) {
+            return views;
+        }
+
+        LowestTwo lowestRead = new LowestTwo();
+        LowestTwo lowestDelivered = new LowestTwo();
+        Stripe stripe = stripeOf(containerId);
+        Map<UUID, Watermarks> members;
+        long changes;
+        synchronized (stripe) {
+            members = stripe.chats.get(containerId);
+            if (members != null) {
+                members.forEach((userId, watermarks) -> {
+                    lowestRead.offer(userId, watermarks.read);
+                    lowestDelivered.offer(userId, watermarks.delivered);
+                });
+            }
+            changes = stripe.changes;
+        }
+
+        if (members == null) {
+            // read without the lock, so the other chats of the stripe do not wait for the database
+            Map<UUID, Watermarks> loaded = new HashMap<>();
+            for (MemberWatermarkView watermark : memberRepo.findAllWatermarksByMembershipId(containerId)) {
+                Watermarks watermarks = new Watermarks(toInstant(watermark.readUpTo()),
+                        toInstant(watermark.deliveredUpTo()));
+                loaded.put(watermark.userId(), watermarks);
+                lowestRead.offer(watermark.userId(), watermarks.read);
+                lowestDelivered.offer(watermark.userId(), watermarks.delivered);
+            }
+            synchronized (stripe) {
+                if (changes == stripe.changes) {
+                    stripe.put(containerId, loaded);
+                }
+            }
+        }
+
+        return views.stream()
+                .map(view -> view.withState(stateOf(view, lowestRead, lowestDelivered).name()))
+                .toList();
+    }
+
+    private void moved(UUID chatId, UUID userId, Instant read, Instant delivered) {
+        Stripe stripe = stripeOf(chatId);
+        synchronized (stripe) {
+            stripe.changes++;
+            Map<UUID, Watermarks> members = stripe.chats.get(chatId);
+            if (members == null) {
+                return;
+            }
+            Watermarks watermarks = members.get(userId);
+            if (watermarks == null) {
+                // a member unknown to the kept watermarks, they are read again
+                stripe.remove(chatId);
+                return;
+            }
+            watermarks.read = later(watermarks.read, read);
+            watermarks.delivered = later(watermarks.delivered, delivered);
+        }
+    }
+
+    private static Instant toInstant(ZonedDateTime dateTime) {
+        return dateTime == null ? null : dateTime.toInstant();
+    }
+
+    private static Instant later(Instant current, Instant moved) {
+        return moved == null || current != null && !moved.isAfter(current) ? current : moved;
+    }
+
+    private SendableState stateOf(SendableView view, LowestTwo lowestRead, LowestTwo lowestDelivered) {
+        Instant createdAt = view.createdAt().toInstant();
+        Instant read = lowestRead.excluding(view.creatorId());
+        if (read != null && !read.isBefore(createdAt)) {
+            return SendableState.READ;
+        }
+        Instant delivered = lowestDelivered.excluding(view.creatorId());
+        if (delivered != null && !delivered.isBefore(createdAt)) {
+            return SendableState.DELIVERED;
+        }
+        return SendableState.SENT;
+    }
+
+    // the two lowest watermarks are enough to know the lowest one of all members but any single one
+    private static class LowestTwo {
+        private UUID firstUserId;
+        private Instant first;
+        private Instant second;
+
+        private void offer(UUID userId, Instant watermark) {
+            Instant value = watermark == null ? Instant.MIN : watermark;
+            if (first == null || value.isBefore(first)) {
+                second = first;
+                first = value;
+                firstUserId = userId;
+            } else if (second == null || value.isBefore(second)) {
+                second = value;
+            }
+        }
+
+        private Instant excluding(UUID userId) {
+            return userId.equals(firstUserId) ? second : first;
+        }
+    }
+
+    private static class Watermarks {
+        private Instant read;
+        private Instant delivered;
+
+        private Watermarks(Instant read, Instant delivered) {
+            this.read = read;
+            this.delivered = delivered;
+        }
+    }
+
+    private static class Stripe {
+        private final int capacity;
+        private final Map<UUID, Map<UUID, Watermarks>> chats = new LinkedHashMap<>(16, 0.75f, true);
+        private int entries;
+        private long changes;
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private void put(UUID chatId, Map<UUID, Watermarks> members) {
+            remove(chatId);
+            chats.put(chatId, members);
+            entries += members.size();
+            Iterator<Map<UUID, Watermarks>> eldest = chats.values().iterator();
+            while (entries > capacity && eldest.hasNext()) {
+                entries -= eldest.next().size();
+                eldest.remove();
+            }
+        }
+
+        private void remove(UUID chatId) {
+            Map<UUID, Watermarks> members = chats.remove(chatId);
+            if (members != null) {
+                entries -= members.size();
+            }
+        }
+    }
+}
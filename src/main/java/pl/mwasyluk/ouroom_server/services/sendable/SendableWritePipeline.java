@@ -0,0 +1,172 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChangeType;
+import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ Inserts new Sendables with their NEW change log entries, numbered by {@link SendableSequences} in the same
+ transaction.
+ <br> When enabled, the inserts of concurrent callers are queued and written by a single flusher thread in groups
+ of up to {@code batchSize} Sendables, each committed in one transaction. A group is flushed once it is full or
+ {@code maxLatencyMs} after its first insert was queued. Every caller is blocked until its group is committed.
+ <br> When disabled, every insert is saved in its own transaction by the calling thread. Either way the NEW changes
+ are written by {@link SendableChangeLog}, so they are committed in the order of their revisions.
+ */
+@Slf4j
+@Component
+public class SendableWritePipeline {
+    private final SendableRepository sendableRepo;
+    private final SendableChangeLog sendableChangeLog;
+    private final SendableBatchWriter batchWriter;
+    private final SendableSequences sendableSequences;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxLatencyNanos;
+    private final BlockingQueue<PendingInsert> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private volatile boolean running;
+
+    public SendableWritePipeline(SendableRepository sendableRepo,
+                                 SendableChangeLog sendableChangeLog,
+                                 SendableBatchWriter batchWriter,
+                                 SendableSequences sendableSequences,
+                                 @Value("${sendables.write-pipeline.enabled:false}") boolean enabled,
+                                 @Value("${sendables.write-pipeline.batch-size:50}") int batchSize,
+                                 @Value("${sendables.write-pipeline.max-latency-ms:5}") long maxLatencyMs) {
+        this.sendableRepo = sendableRepo;
+        this.sendableChangeLog = sendableChangeLog;
+        this.batchWriter = batchWriter;
+        this.sendableSequences = sendableSequences;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMs);
+
+        if (enabled) {
+            this.running = true;
+            this.flusher = new Thread(this::flushLoop, "sendable-write-pipeline");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    public @NonNull ChatSendable insert(@NonNull ChatSendable sendable) {
+        return enabled ? insertQueued(sendable) : insertSingle(sendable);
+    }
+
+    private ChatSendable insertQueued(ChatSendable sendable) {
+        PendingInsert pending = new PendingInsert(sendable, new CompletableFuture<>());
+        queue.add(pending);
+        try {
+            return pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(SERVICE_UNAVAILABLE, "Sendable could not be saved in time.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     Inserts all the given Sendables in a single transaction, bypassing the queue. Either all of them are saved
+     or none is.
+     */
+    public void insertAll(@NonNull List<ChatSendable> sendables) {
+        batchWriter.insertAll(sendables);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // inserts queued after the flusher stopped are still written by this thread
+        List<PendingInsert> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    private ChatSendable insertSingle(ChatSendable sendable) {
+        UUID containerId = sendable.getContainer().getId();
+        return sendableChangeLog.write(containerId, () -> {
+            sendableSequences.numberAll(List.of(sendable));
+            ChatSendable saved = sendableRepo.save(sendable);
+            sendableChangeLog.record(containerId, saved.getId(), SendableChangeType.NEW);
+            return saved;
+        });
+    }
+
+    private void flushLoop() {
+        while (running) {
+            List<PendingInsert> group = new ArrayList<>(batchSize);
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + maxLatencyNanos;
+                while (group.size() < batchSize) {
+                    PendingInsert next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                // shutting down, the collected group is flushed below
+            }
+            if (!group.isEmpty()) {
+                flush(group);
+            }
+        }
+    }
+
+    private void flush(List<PendingInsert> group) {
+        try {
+            batchWriter.insertAll(group.stream().map(PendingInsert::sendable).toList());
+            group.forEach(pending -> pending.result.complete(pending.sendable));
+        } catch (RuntimeException e) {
+            // a single invalid Sendable must not fail the rest of its group
+            log.warn("Group insert of {} Sendables failed, inserting them one by one.", group.size(), e);
+            for (PendingInsert pending : group) {
+                try {
+                    pending.result.complete(insertSingle(pending.sendable));
+                } catch (RuntimeException singleException) {
+                    pending.result.completeExceptionally(singleException);
+                }
+            }
+        }
+    }
+
+    private record PendingInsert(ChatSendable sendable, CompletableFuture<ChatSendable> result) {
+    }
+}
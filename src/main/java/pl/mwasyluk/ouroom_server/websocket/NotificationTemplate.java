@@ -3,7 +3,6 @@ package pl.mwasyluk.ouroom_server.websocket;
 import java.util.Collection;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
@@ -34,11 +33,7 @@ public class NotificationTemplate {
     }
 
     public void notifyAllMembers(@NonNull UUID membershipId, @NonNull Topic topic, @NonNull NotificationView view) {
-        Set<UUID> allMemberIds = memberRepository.findAllByMembershipId(membershipId).stream()
-                .map(m -> m.getUser().getId())
-                .collect(Collectors.toSet());
-
-        notifyAllUsers(allMemberIds, topic, view);
+        notifyAllUsers(memberRepository.findAllUserIdsByMembershipId(membershipId), topic, view);
     }
 
     public void notifyAllUsers(@NonNull Set<UUID> userIdSet, @NonNull Topic topic, @NonNull NotificationView view) {
@@ -3,7 +3,7 @@ package pl.mwasyluk.ouroom_server.websocket;
 import lombok.Getter;
 
 public enum Topic {
-    MESSAGES("messages"), MEMBERSHIPS("memberships");
+    MESSAGES("messages"), MEMBERSHIPS("memberships"), TYPING("typing");
 
     @Getter
     private final String value;
@@ -44,7 +44,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // endpoint for @MessageMapping methods in @Controller (under consideration)
+        // endpoint for @MessageMapping methods in @Controller
         registry.setApplicationDestinationPrefixes("/app");
         // endpoint for the default message broker
         registry.enableSimpleBroker("/ws/topic");
@@ -1,6 +1,7 @@
 package pl.mwasyluk.ouroom_server.controllers;
 
 import java.util.Collections;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,7 +23,10 @@ import pl.mwasyluk.ouroom_server.domain.container.Chat;
 import pl.mwasyluk.ouroom_server.domain.user.User;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatDetailsView;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatForm;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxPageForm;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxView;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
 import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
 import pl.mwasyluk.ouroom_server.services.chat.ChatService;
 
@@ -119,6 +123,41 @@ class ChatControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/chats/inbox")
+    class ReadInboxMethodTest {
+        @Test
+        @DisplayName("passes the cursor and the limit to the service")
+        void passesTheCursorAndTheLimitToTheService() throws Exception {
+            when(chatService.readInboxOfPrincipal(any())).thenReturn(new PageView<>(List.of(), null));
+
+            mockMvc.perform(get(baseEndpoint + "/inbox")
+                            .param("before", "cursor")
+                            .param("limit", "10"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("content", hasSize(0)));
+
+            ArgumentCaptor<ChatInboxPageForm> argument = ArgumentCaptor.forClass(ChatInboxPageForm.class);
+            verify(chatService).readInboxOfPrincipal(argument.capture());
+            assertEquals("cursor", argument.getValue().getBefore());
+            assertEquals(10, argument.getValue().getLimit());
+        }
+
+        @Test
+        @DisplayName("returns inbox rows with the chat presentables")
+        void returnsInboxRowsWithTheChatPresentables() throws Exception {
+            ChatInboxView row = new ChatInboxView(new ChatPresentableView(mockChat), "preview", null, 3, null);
+            when(chatService.readInboxOfPrincipal(any())).thenReturn(new PageView<>(List.of(row), "next"));
+
+            mockMvc.perform(get(baseEndpoint + "/inbox"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("content[0].chat.id").value(mockChat.getId().toString()))
+                    .andExpect(jsonPath("content[0].lastSendablePreview").value("preview"))
+                    .andExpect(jsonPath("content[0].unreadAmount").value(3))
+                    .andExpect(jsonPath("nextCursor").value("next"));
+        }
+    }
+
     @Nested
     @DisplayName("GET /api/chats/details")
     class ReadDetailsMethodTest {
@@ -152,7 +191,7 @@ class ChatControllerTest {
         @DisplayName("returns chat details when chatId parameter is valid")
         void returnsChatDetailsWhenChatIdParameterIsValid() throws Exception {
             when(chatService.read(mockChat.getId()))
-                    .thenReturn(new ChatDetailsView(mockChat));
+                    .thenReturn(new ChatDetailsView(mockChat, 0));
 
             mockMvc.perform(get(baseEndpoint + "/details")
                             .param("chatId", mockChat.getId().toString()))
@@ -345,6 +345,26 @@ class MemberControllerTest {
             });
         }
 
+        @Test
+        @DisplayName("passes the versions of the members at the positions of their IDs")
+        void passesTheVersionsOfTheMembersAtThePositionsOfTheirIds() throws Exception {
+            UUID u1Id = UUID.randomUUID();
+            UUID u2Id = UUID.randomUUID();
+            mockMvc.perform(patch(baseEndpoint)
+                            .param("membershipId", mockChat.getId().toString())
+                            .param("memberIdList", u1Id.toString(), u2Id.toString())
+                            .param("versionList", "3", "5")
+                            .content("{\"" + u1Id + "\": [\"" + ADD_MESSAGES + "\"], "
+                                     + "\"" + u2Id + "\": [\"" + ADD_MESSAGES + "\"]}")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+
+            ArgumentCaptor<MembersForm> formCaptor = ArgumentCaptor.forClass(MembersForm.class);
+            verify(memberService).updateAll(formCaptor.capture());
+            assertEquals(List.of(u1Id, u2Id), formCaptor.getValue().getVersionedMemberIds());
+            assertEquals(List.of(3L, 5L), formCaptor.getValue().getVersions());
+        }
+
         @Test
         @DisplayName("returns list of members when updated")
         void returnsListOfMembersWhenUpdated() throws Exception {
@@ -13,8 +13,8 @@ import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.context.WebApplicationContext;
-import lombok.NonNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -22,14 +22,17 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 import pl.mwasyluk.ouroom_server.domain.container.Chat;
-import pl.mwasyluk.ouroom_server.domain.media.Media;
-import pl.mwasyluk.ouroom_server.domain.media.source.DataSource;
 import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
 import pl.mwasyluk.ouroom_server.domain.sendable.Sendable;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableState;
 import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableChangesView;
 import pl.mwasyluk.ouroom_server.dto.sendable.SendableForm;
 import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
-import pl.mwasyluk.ouroom_server.services.media.MediaService;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesPageForm;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesRemovalForm;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesRemovedView;
 import pl.mwasyluk.ouroom_server.services.sendable.SendableService;
 
 import static org.hamcrest.Matchers.hasSize;
@@ -37,9 +40,11 @@ import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
@@ -47,27 +52,23 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
-import static pl.mwasyluk.ouroom_server.domain.media.source.DataSourceTestUtil.JPEG_BYTES;
 
 @WebMvcTest(value = SendableController.class)
 @AutoConfigureMockMvc(addFilters = false)
 @ActiveProfiles("test")
 class SendableControllerTest {
 
-    private final String mockInternalUrlEndpoint = "http://localhost:8080/api/media";
     @Autowired
     private MockMvc mockMvc;
     @MockBean
     private SendableService sendableService;
-    @MockBean
-    private MediaService mediaService;
 
     private String baseEndpoint;
     private Chat mockChat;
     private Sendable mockSendable;
     private MockMultipartFile mockFile;
-    private Media mockMedia;
 
     @Value("${server.api.prefix}")
     public void setBaseEndpoint(String apiPrefix) {
@@ -81,16 +82,6 @@ class SendableControllerTest {
         this.mockSendable = new ChatSendable(mockUser, "mock");
         this.mockSendable.setContainer(mockChat);
         this.mockFile = new MockMultipartFile("file", "test".getBytes());
-        this.mockMedia = new Media(DataSource.of(JPEG_BYTES)) {
-            @Override
-            protected void validate() {
-            }
-
-            @Override
-            public @NonNull String getInternalUrl() {
-                return mockInternalUrlEndpoint + "/" + getId();
-            }
-        };
     }
 
     @Nested
@@ -114,40 +105,174 @@ class SendableControllerTest {
         @Test
         @DisplayName("returns empty list when no sendables are available")
         void returnsEmptyListWhenNoSendablesAreAvailable() throws Exception {
-            when(sendableService.readAllFromContainer(mockChat.getId()))
-                    .thenReturn(Collections.emptyList());
+            when(sendableService.readPageFromContainer(any()))
+                    .thenReturn(new PageView<>(Collections.emptyList(), null));
 
             mockMvc.perform(get(baseEndpoint)
                             .param("containerId", mockChat.getId().toString()))
                     .andExpect(status().isOk())
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                    .andExpect(jsonPath("$", hasSize(0)));
+                    .andExpect(jsonPath("$.content", hasSize(0)));
         }
 
         @Test
         @DisplayName("returns list of sendables when one available")
         void returnsListOfSendablesWhenOneAvailable() throws Exception {
-            when(sendableService.readAllFromContainer(mockChat.getId()))
-                    .thenReturn(Collections.singletonList(new SendableView(mockSendable)));
+            when(sendableService.readPageFromContainer(any()))
+                    .thenReturn(new PageView<>(Collections.singletonList(new SendableView(mockSendable)), null));
 
             mockMvc.perform(get(baseEndpoint)
                             .param("containerId", mockChat.getId().toString()))
                     .andExpect(status().isOk())
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                    .andExpect(jsonPath("$", hasSize(1)));
+                    .andExpect(jsonPath("$.content", hasSize(1)));
         }
 
         @Test
         @DisplayName("returns list of sendables when multiple available")
         void returnsListOfSendablesWhenMultipleAvailable() throws Exception {
-            when(sendableService.readAllFromContainer(mockChat.getId()))
-                    .thenReturn(List.of(new SendableView(mockSendable), new SendableView(mockSendable)));
+            when(sendableService.readPageFromContainer(any()))
+                    .thenReturn(new PageView<>(
+                            List.of(new SendableView(mockSendable), new SendableView(mockSendable)), "cursor"));
 
             mockMvc.perform(get(baseEndpoint)
                             .param("containerId", mockChat.getId().toString()))
                     .andExpect(status().isOk())
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                    .andExpect(jsonPath("$", hasSize(2)));
+                    .andExpect(jsonPath("$.content", hasSize(2)))
+                    .andExpect(jsonPath("$.nextCursor").value("cursor"));
+        }
+
+        @Test
+        @DisplayName("correctly creates a form when all parameters are provided")
+        void correctlyCreatesAFormWhenAllParametersAreProvided() throws Exception {
+            when(sendableService.readPageFromContainer(any()))
+                    .thenReturn(new PageView<>(Collections.emptyList(), null));
+
+            mockMvc.perform(get(baseEndpoint)
+                            .param("containerId", mockChat.getId().toString())
+                            .param("before", "cursor")
+                            .param("limit", "20"))
+                    .andExpect(status().isOk());
+
+            ArgumentCaptor<SendablesPageForm> formCaptor = ArgumentCaptor.forClass(SendablesPageForm.class);
+            verify(sendableService).readPageFromContainer(formCaptor.capture());
+            assertAll(() -> {
+                assertEquals(mockChat.getId(), formCaptor.getValue().getContainerId());
+                assertEquals("cursor", formCaptor.getValue().getBefore());
+                assertEquals(20, formCaptor.getValue().getLimit());
+            });
+        }
+
+        @Test
+        @DisplayName("passes the after cursor to the form")
+        void passesTheAfterCursorToTheForm() throws Exception {
+            when(sendableService.readPageFromContainer(any()))
+                    .thenReturn(new PageView<>(Collections.emptyList(), null));
+
+            mockMvc.perform(get(baseEndpoint)
+                            .param("containerId", mockChat.getId().toString())
+                            .param("after", "12"))
+                    .andExpect(status().isOk());
+
+            ArgumentCaptor<SendablesPageForm> formCaptor = ArgumentCaptor.forClass(SendablesPageForm.class);
+            verify(sendableService).readPageFromContainer(formCaptor.capture());
+            assertEquals("12", formCaptor.getValue().getAfter());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/sendables/changes")
+    class ReadChangesByContainerIdMethodTest {
+        @Test
+        @DisplayName("returns BAD_REQUEST when containerId parameter is not provided")
+        void returnsBadRequestWhenContainerIdParameterIsNotProvided() throws Exception {
+            mockMvc.perform(get(baseEndpoint + "/changes"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("returns changes since the given revision")
+        void returnsChangesSinceTheGivenRevision() throws Exception {
+            UUID removedId = UUID.randomUUID();
+            when(sendableService.readChangesFromContainer(mockChat.getId(), 7L))
+                    .thenReturn(new SendableChangesView(List.of(new SendableView(mockSendable)), List.of(removedId),
+                            9, false));
+
+            mockMvc.perform(get(baseEndpoint + "/changes")
+                            .param("containerId", mockChat.getId().toString())
+                            .param("since", "7"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.upserted", hasSize(1)))
+                    .andExpect(jsonPath("$.removed[0]").value(removedId.toString()))
+                    .andExpect(jsonPath("$.revision").value(9));
+        }
+
+        @Test
+        @DisplayName("passes null revision when since parameter is not provided")
+        void passesNullRevisionWhenSinceParameterIsNotProvided() throws Exception {
+            when(sendableService.readChangesFromContainer(mockChat.getId(), null))
+                    .thenReturn(new SendableChangesView(List.of(), List.of(), 3, false));
+
+            mockMvc.perform(get(baseEndpoint + "/changes")
+                            .param("containerId", mockChat.getId().toString()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.revision").value(3));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/sendables/search")
+    class SearchByContainerIdMethodTest {
+        @Test
+        @DisplayName("returns BAD_REQUEST when q parameter is not provided")
+        void returnsBadRequestWhenQParameterIsNotProvided() throws Exception {
+            mockMvc.perform(get(baseEndpoint + "/search")
+                            .param("containerId", mockChat.getId().toString()))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("returns list of found sendables")
+        void returnsListOfFoundSendables() throws Exception {
+            when(sendableService.searchInContainer(mockChat.getId(), "mock"))
+                    .thenReturn(List.of(new SendableView(mockSendable)));
+
+            mockMvc.perform(get(baseEndpoint + "/search")
+                            .param("containerId", mockChat.getId().toString())
+                            .param("q", "mock"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$", hasSize(1)));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/sendables/export")
+    class ExportByContainerIdMethodTest {
+        @Test
+        @DisplayName("returns BAD_REQUEST when containerId parameter is not provided")
+        void returnsBadRequestWhenContainerIdParameterIsNotProvided() throws Exception {
+            mockMvc.perform(get(baseEndpoint + "/export"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("streams the exported sendables as newline-delimited JSON")
+        void streamsTheExportedSendablesAsNewlineDelimitedJson() throws Exception {
+            when(sendableService.exportFromContainer(mockChat.getId()))
+                    .thenReturn(outputStream -> outputStream.write("{}\n{}\n".getBytes()));
+
+            MvcResult result = mockMvc.perform(get(baseEndpoint + "/export")
+                            .param("containerId", mockChat.getId().toString()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andExpect(content().string("{}\n{}\n"));
         }
     }
 
@@ -191,15 +316,12 @@ class SendableControllerTest {
                             .contentType("multipart/form-data"))
                     .andExpect(status().isOk());
 
-            verify(sendableService).create(any());
+            verify(sendableService).create(any(), argThat(List::isEmpty));
         }
 
         @Test
-        @DisplayName("correctly appends media internal url to message when file is provided")
-        void correctlyAppendsMediaInternalUrlToMessageWhenFileIsProvided() throws Exception {
-            when(mediaService.create(any()))
-                    .thenReturn(mockMedia);
-
+        @DisplayName("passes the provided file to the service instead of persisting it")
+        void passesTheProvidedFileToTheServiceInsteadOfPersistingIt() throws Exception {
             mockMvc.perform(multipart(baseEndpoint)
                             .file(mockFile)
                             .param("containerId", mockChat.getId().toString())
@@ -207,8 +329,11 @@ class SendableControllerTest {
                     .andExpect(status().isOk());
 
             ArgumentCaptor<SendableForm> formCaptor = ArgumentCaptor.forClass(SendableForm.class);
-            verify(sendableService).create(formCaptor.capture());
-            assertEquals("mock\n" + mockMedia.getInternalUrl(), formCaptor.getValue().getMessage());
+            verify(sendableService).create(formCaptor.capture(), argThat(files -> files.size() == 1));
+            assertAll(() -> {
+                assertEquals("mock", formCaptor.getValue().getMessage());
+                assertTrue(formCaptor.getValue().getAttachmentIds().isEmpty());
+            });
         }
 
         @Test
@@ -216,8 +341,6 @@ class SendableControllerTest {
         void correctlyCreatesAFormWhenAllParametersAreValid() throws Exception {
             UUID containerId = mockChat.getId();
             String message = "mock";
-            when(mediaService.create(any()))
-                    .thenReturn(mockMedia);
 
             mockMvc.perform(multipart(baseEndpoint)
                             .file(mockFile)
@@ -226,7 +349,7 @@ class SendableControllerTest {
                     .andExpect(status().isOk());
 
             ArgumentCaptor<SendableForm> formCaptor = ArgumentCaptor.forClass(SendableForm.class);
-            verify(sendableService).create(formCaptor.capture());
+            verify(sendableService).create(formCaptor.capture(), any());
             assertAll(() -> {
                 assertEquals(containerId, formCaptor.getValue().getContainerId());
                 assertTrue(formCaptor.getValue().getMessage().startsWith(message));
@@ -243,11 +366,150 @@ class SendableControllerTest {
                     .andExpect(status().isOk());
 
             ArgumentCaptor<SendableForm> formCaptor = ArgumentCaptor.forClass(SendableForm.class);
-            verify(sendableService).create(formCaptor.capture());
+            verify(sendableService).create(formCaptor.capture(), any());
             assertEquals("mock", formCaptor.getValue().getMessage());
         }
     }
 
+    @Nested
+    @DisplayName("POST /api/sendables/batch")
+    class CreateAllMethodTest {
+        @Test
+        @DisplayName("returns BAD_REQUEST when body is not provided")
+        void returnsBadRequestWhenBodyIsNotProvided() throws Exception {
+            mockMvc.perform(post(baseEndpoint + "/batch")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("passes all sendables of the body in their order")
+        void passesAllSendablesOfTheBodyInTheirOrder() throws Exception {
+            UUID key1 = UUID.randomUUID();
+            UUID key2 = UUID.randomUUID();
+            when(sendableService.createAll(any()))
+                    .thenReturn(List.of(new SendableView(mockSendable), new SendableView(mockSendable)));
+
+            mockMvc.perform(post(baseEndpoint + "/batch")
+                            .content("[{\"containerId\": \"" + mockChat.getId() + "\", \"message\": \"m1\", "
+                                     + "\"idempotencyKey\": \"" + key1 + "\"}, "
+                                     + "{\"containerId\": \"" + mockChat.getId() + "\", \"message\": \"m2\", "
+                                     + "\"idempotencyKey\": \"" + key2 + "\"}]")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)));
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<SendableForm>> formsCaptor = ArgumentCaptor.forClass(List.class);
+            verify(sendableService).createAll(formsCaptor.capture());
+            assertAll(() -> {
+                assertEquals(List.of(key1, key2),
+                        formsCaptor.getValue().stream().map(SendableForm::getIdempotencyKey).toList());
+                assertEquals("m1", formsCaptor.getValue().get(0).getMessage());
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /api/sendables/bulk-delete")
+    class DeleteAllMethodTest {
+        @Test
+        @DisplayName("returns BAD_REQUEST when body is not provided")
+        void returnsBadRequestWhenBodyIsNotProvided() throws Exception {
+            mockMvc.perform(post(baseEndpoint + "/bulk-delete")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("correctly creates a form when all criteria are provided")
+        void correctlyCreatesAFormWhenAllCriteriaAreProvided() throws Exception {
+            UUID creatorId = UUID.randomUUID();
+            UUID sendableId = UUID.randomUUID();
+            when(sendableService.deleteAll(any()))
+                    .thenReturn(new SendablesRemovedView(mockChat.getId(), List.of(sendableId)));
+
+            mockMvc.perform(post(baseEndpoint + "/bulk-delete")
+                            .content("{\"containerId\": \"" + mockChat.getId() + "\", "
+                                     + "\"creatorId\": \"" + creatorId + "\", "
+                                     + "\"from\": \"2024-01-01T00:00:00Z\", \"to\": \"2024-01-02T00:00:00Z\", "
+                                     + "\"sendableIds\": [\"" + sendableId + "\"]}")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.removed", hasSize(1)));
+
+            ArgumentCaptor<SendablesRemovalForm> formCaptor = ArgumentCaptor.forClass(SendablesRemovalForm.class);
+            verify(sendableService).deleteAll(formCaptor.capture());
+            assertAll(() -> {
+                assertEquals(mockChat.getId(), formCaptor.getValue().getContainerId());
+                assertEquals(creatorId, formCaptor.getValue().getCreatorId());
+                assertTrue(formCaptor.getValue().getFrom().isBefore(formCaptor.getValue().getTo()));
+                assertEquals(List.of(sendableId), formCaptor.getValue().getSendableIds());
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/sendables/pinned")
+    class ReadPinnedByContainerIdMethodTest {
+        @Test
+        @DisplayName("returns BAD_REQUEST when containerId parameter is not provided")
+        void returnsBadRequestWhenContainerIdParameterIsNotProvided() throws Exception {
+            mockMvc.perform(get(baseEndpoint + "/pinned"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("returns list of pinned sendables")
+        void returnsListOfPinnedSendables() throws Exception {
+            when(sendableService.readPinnedFromContainer(mockChat.getId()))
+                    .thenReturn(List.of(new SendableView(mockSendable)));
+
+            mockMvc.perform(get(baseEndpoint + "/pinned")
+                            .param("containerId", mockChat.getId().toString()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)));
+        }
+    }
+
+    @Nested
+    @DisplayName("POST and DELETE /api/sendables/pin")
+    class PinAndUnpinMethodsTest {
+        @Test
+        @DisplayName("return BAD_REQUEST when sendableId parameter is not provided")
+        void returnBadRequestWhenSendableIdParameterIsNotProvided() throws Exception {
+            mockMvc.perform(post(baseEndpoint + "/pin"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(delete(baseEndpoint + "/pin"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("unpin returns BAD_REQUEST when containerId parameter is not provided")
+        void unpinReturnsBadRequestWhenContainerIdParameterIsNotProvided() throws Exception {
+            mockMvc.perform(delete(baseEndpoint + "/pin")
+                            .param("sendableId", mockSendable.getId().toString()))
+                    .andExpect(status().isBadRequest());
+
+            verify(sendableService, never()).unpin(any(), any());
+        }
+
+        @Test
+        @DisplayName("pin and unpin the sendable with the given ID")
+        void pinAndUnpinTheSendableWithTheGivenId() throws Exception {
+            mockMvc.perform(post(baseEndpoint + "/pin")
+                            .param("sendableId", mockSendable.getId().toString()))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete(baseEndpoint + "/pin")
+                            .param("containerId", mockChat.getId().toString())
+                            .param("sendableId", mockSendable.getId().toString()))
+                    .andExpect(status().isOk());
+
+            verify(sendableService).pin(mockSendable.getId());
+            verify(sendableService).unpin(mockChat.getId(), mockSendable.getId());
+        }
+    }
+
     @Nested
     @DisplayName("PATCH /api/sendables")
     class UpdateMethodTest {
@@ -282,12 +544,24 @@ class SendableControllerTest {
             verify(sendableService, never()).update(any());
         }
 
+        @Test
+        @DisplayName("returns BAD_REQUEST when version parameter is not provided")
+        void returnsBadRequestWhenVersionParameterIsNotProvided() throws Exception {
+            mockMvc.perform(patch(baseEndpoint)
+                            .param("sendableId", mockSendable.getId().toString())
+                            .param("message", "mock"))
+                    .andExpect(status().isBadRequest());
+
+            verify(sendableService, never()).update(any());
+        }
+
         @Test
         @DisplayName("returns OK when sendableId and message parameters are valid")
         void returnsOkWhenSendableIdAndMessageParametersAreValid() throws Exception {
             mockMvc.perform(patch(baseEndpoint)
                             .param("sendableId", mockSendable.getId().toString())
-                            .param("message", "mock"))
+                            .param("message", "mock")
+                            .param("version", "0"))
                     .andExpect(status().isOk());
 
             verify(sendableService).update(any());
@@ -301,7 +575,8 @@ class SendableControllerTest {
 
             mockMvc.perform(patch(baseEndpoint)
                             .param("sendableId", sendableId.toString())
-                            .param("message", message))
+                            .param("message", message)
+                            .param("version", "3"))
                     .andExpect(status().isOk());
 
             ArgumentCaptor<SendableForm> formCaptor = ArgumentCaptor.forClass(SendableForm.class);
@@ -309,6 +584,7 @@ class SendableControllerTest {
             assertAll(() -> {
                 assertEquals(sendableId, formCaptor.getValue().getSendableId());
                 assertEquals(message, formCaptor.getValue().getMessage());
+                assertEquals(3L, formCaptor.getValue().getVersion());
             });
         }
 
@@ -320,7 +596,8 @@ class SendableControllerTest {
 
             mockMvc.perform(patch(baseEndpoint)
                             .param("sendableId", mockSendable.getId().toString())
-                            .param("message", "mock"))
+                            .param("message", "mock")
+                            .param("version", "0"))
                     .andExpect(status().isOk())
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                     .andExpect(jsonPath("id").value(mockSendable.getId().toString()))
@@ -360,4 +637,49 @@ class SendableControllerTest {
             verify(sendableService).delete(mockSendable.getId());
         }
     }
+
+    @Nested
+    @DisplayName("POST /api/sendables/read")
+    class MarkUpToMethodTest {
+        @Test
+        @DisplayName("returns BAD_REQUEST when sendableId parameter is not provided")
+        void returnsBadRequestWhenSendableIdParameterIsNotProvided() throws Exception {
+            mockMvc.perform(post(baseEndpoint + "/read"))
+                    .andExpect(status().isBadRequest());
+
+            verify(sendableService, never()).markUpTo(any(), any());
+        }
+
+        @Test
+        @DisplayName("returns BAD_REQUEST when state parameter is not valid")
+        void returnsBadRequestWhenStateParameterIsNotValid() throws Exception {
+            mockMvc.perform(post(baseEndpoint + "/read")
+                            .param("sendableId", mockSendable.getId().toString())
+                            .param("state", "SEEN"))
+                    .andExpect(status().isBadRequest());
+
+            verify(sendableService, never()).markUpTo(any(), any());
+        }
+
+        @Test
+        @DisplayName("marks as read when state parameter is not provided")
+        void marksAsReadWhenStateParameterIsNotProvided() throws Exception {
+            mockMvc.perform(post(baseEndpoint + "/read")
+                            .param("sendableId", mockSendable.getId().toString()))
+                    .andExpect(status().isOk());
+
+            verify(sendableService).markUpTo(mockSendable.getId(), SendableState.READ);
+        }
+
+        @Test
+        @DisplayName("marks as delivered when state parameter is DELIVERED")
+        void marksAsDeliveredWhenStateParameterIsDelivered() throws Exception {
+            mockMvc.perform(post(baseEndpoint + "/read")
+                            .param("sendableId", mockSendable.getId().toString())
+                            .param("state", "DELIVERED"))
+                    .andExpect(status().isOk());
+
+            verify(sendableService).markUpTo(mockSendable.getId(), SendableState.DELIVERED);
+        }
+    }
 }
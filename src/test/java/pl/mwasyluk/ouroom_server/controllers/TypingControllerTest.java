@@ -0,0 +1,55 @@
+package pl.mwasyluk.ouroom_server.controllers;
+
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.domain.user.UserAuthority;
+import pl.mwasyluk.ouroom_server.dto.chat.TypingForm;
+import pl.mwasyluk.ouroom_server.services.chat.TypingIndicators;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class TypingControllerTest {
+    @Mock
+    private TypingIndicators typingIndicators;
+
+    private TypingController typingController;
+    private TypingForm form;
+
+    @BeforeEach
+    void setUp() {
+        typingController = new TypingController(typingIndicators);
+        form = new TypingForm();
+        form.setChatId(UUID.randomUUID());
+        form.setTyping(true);
+    }
+
+    @Test
+    @DisplayName("publishes the typing event of the authenticated user")
+    void publishesTheTypingEventOfTheAuthenticatedUser() {
+        User user = new User("mock", "mock", Set.of(UserAuthority.USER));
+
+        typingController.publishTyping(form, UsernamePasswordAuthenticationToken.authenticated(user, null, Set.of()));
+
+        verify(typingIndicators).publish(user.getId(), form.getChatId(), true);
+    }
+
+    @Test
+    @DisplayName("drops events without an authenticated user")
+    void dropsEventsWithoutAnAuthenticatedUser() {
+        typingController.publishTyping(form, null);
+
+        verifyNoInteractions(typingIndicators);
+    }
+}
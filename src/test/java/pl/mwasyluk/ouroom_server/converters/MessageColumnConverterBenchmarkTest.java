@@ -0,0 +1,104 @@
+package pl.mwasyluk.ouroom_server.converters;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ Reports the storage savings and the CPU cost of message compression on a chat-like distribution of messages:
+ mostly short messages, some paragraphs and a few pasted logs.
+ <br> Run with {@code -Dbenchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MessageColumnConverterBenchmarkTest {
+    private static final int MESSAGES = 20_000;
+    private static final int ROUNDS = 5;
+    private static final String[] WORDS = {"the", "meeting", "is", "at", "noon", "ok", "thanks", "see", "you",
+            "tomorrow", "deploy", "failed", "again", "could", "you", "check", "logs", "please", "lunch", "today"};
+    private static final String[] LEVELS = {"INFO", "DEBUG", "WARN", "ERROR"};
+
+    private final Random random = new Random(42);
+
+    private String words(int amount) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < amount; i++) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return builder.toString().trim();
+    }
+
+    private String pastedLog(int lines) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            builder.append("2024-03-0").append(1 + random.nextInt(9)).append(' ')
+                    .append(String.format("%02d:%02d:%02d.%03d ", random.nextInt(24), random.nextInt(60),
+                            random.nextInt(60), random.nextInt(1000)))
+                    .append(LEVELS[random.nextInt(LEVELS.length)])
+                    .append(" [http-nio-8080-exec-").append(random.nextInt(10)).append("] ")
+                    .append("p.m.o.services.sendable.DefaultSendableService : ")
+                    .append(words(4 + random.nextInt(8))).append('\n');
+            if (random.nextInt(10) == 0) {
+                builder.append("\tat pl.mwasyluk.ouroom_server.services.sendable.DefaultSendableService"
+                               + ".create(DefaultSendableService.java:").append(random.nextInt(400)).append(")\n");
+            }
+        }
+        return builder.toString();
+    }
+
+    // 85% short messages, 12% paragraphs, 3% pasted logs
+    private List<String> messages() {
+        List<String> messages = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            int kind = random.nextInt(100);
+            if (kind < 85) {
+                messages.add(words(1 + random.nextInt(15)));
+            } else if (kind < 97) {
+                messages.add(words(60 + random.nextInt(250)));
+            } else {
+                messages.add(pastedLog(20 + random.nextInt(200)));
+            }
+        }
+        return messages;
+    }
+
+    @Test
+    void reportsSizeSavingsAndCpuCost() {
+        MessageColumnConverter converter = new MessageColumnConverter();
+        List<String> messages = messages();
+        long rawBytes = messages.stream().mapToLong(m -> m.getBytes(StandardCharsets.UTF_8).length).sum();
+
+        List<String> stored = new ArrayList<>();
+        long writeNanos = 0;
+        long readNanos = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            stored.clear();
+            long start = System.nanoTime();
+            for (String message : messages) {
+                stored.add(converter.convertToDatabaseColumn(message));
+            }
+            writeNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < stored.size(); i++) {
+                assertEquals(messages.get(i).length(), converter.convertToEntityAttribute(stored.get(i)).length());
+            }
+            readNanos = System.nanoTime() - start;
+        }
+        long storedBytes = stored.stream().mapToLong(m -> m.getBytes(StandardCharsets.UTF_8).length).sum();
+        long compressed = stored.stream().filter(m -> m.charAt(0) == '\u0001').count();
+
+        log.info("Messages: {}, compressed: {}, raw: {} B, stored: {} B, saved: {}%", messages.size(), compressed,
+                rawBytes, storedBytes, String.format("%.1f", 100.0 * (rawBytes - storedBytes) / rawBytes));
+        log.info("Write: {} us/message, read: {} us/message",
+                String.format("%.2f", writeNanos / 1000.0 / messages.size()),
+                String.format("%.2f", readNanos / 1000.0 / messages.size()));
+    }
+}
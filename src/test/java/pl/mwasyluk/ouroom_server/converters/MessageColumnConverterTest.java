@@ -0,0 +1,80 @@
+package pl.mwasyluk.ouroom_server.converters;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.exceptions.ConversionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageColumnConverterTest {
+    private final MessageColumnConverter converter = new MessageColumnConverter();
+
+    private String roundTrip(String message) {
+        return converter.convertToEntityAttribute(converter.convertToDatabaseColumn(message));
+    }
+
+    @Nested
+    @DisplayName("convertToDatabaseColumn method")
+    class ConvertToDatabaseColumnMethodTest {
+        @Test
+        @DisplayName("stores short messages as they are")
+        void storesShortMessagesAsTheyAre() {
+            assertEquals("hello there", converter.convertToDatabaseColumn("hello there"));
+        }
+
+        @Test
+        @DisplayName("compresses long repetitive messages")
+        void compressesLongRepetitiveMessages() {
+            String message = "2024-01-01 12:00:00 INFO Request handled in 5 ms\n".repeat(100);
+
+            String stored = converter.convertToDatabaseColumn(message);
+
+            assertTrue(stored.length() < message.length() / 4);
+            assertEquals(message, converter.convertToEntityAttribute(stored));
+        }
+
+        @Test
+        @DisplayName("stores long messages as they are when compression does not make them shorter")
+        void storesLongMessagesAsTheyAreWhenCompressionDoesNotMakeThemShorter() {
+            StringBuilder builder = new StringBuilder();
+            Random random = new Random(7);
+            while (builder.length() < MessageColumnConverter.COMPRESSION_THRESHOLD * 2) {
+                builder.append((char) ('!' + random.nextInt(90)));
+            }
+            String message = builder.toString();
+
+            assertEquals(message, converter.convertToDatabaseColumn(message));
+        }
+    }
+
+    @Nested
+    @DisplayName("convertToEntityAttribute method")
+    class ConvertToEntityAttributeMethodTest {
+        @Test
+        @DisplayName("reads messages starting with a marker back unchanged")
+        void readsMessagesStartingWithAMarkerBackUnchanged() {
+            assertEquals("\u0001not compressed", roundTrip("\u0001not compressed"));
+            assertEquals("\u0002escaped", roundTrip("\u0002escaped"));
+        }
+
+        @Test
+        @DisplayName("reads non-ASCII messages back unchanged")
+        void readsNonAsciiMessagesBackUnchanged() {
+            String message = "Za\u017c\u00f3\u0142\u0107 g\u0119\u015bl\u0105 ja\u017a\u0144 \ud83d\udc4b ".repeat(100);
+
+            assertEquals(message, roundTrip(message));
+        }
+
+        @Test
+        @DisplayName("throws ConversionException when compressed value is corrupted")
+        void throwsConversionExceptionWhenCompressedValueIsCorrupted() {
+            assertThrowsExactly(ConversionException.class, () -> converter.convertToEntityAttribute("\u0001%%%"));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package pl.mwasyluk.ouroom_server.converters;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.exceptions.ConversionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidListConverterTest {
+    private final UuidListConverter converter = new UuidListConverter();
+
+    @Nested
+    @DisplayName("convertToDatabaseColumn method")
+    class ConvertToDatabaseColumnMethodTest {
+        @Test
+        @DisplayName("stores 16 bytes per UUID")
+        void stores16BytesPerUuid() {
+            List<UUID> uuids = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+            assertEquals(2 * UuidListConverter.UUID_LENGTH, converter.convertToDatabaseColumn(uuids).length);
+        }
+
+        @Test
+        @DisplayName("stores an empty list as null")
+        void storesAnEmptyListAsNull() {
+            assertNull(converter.convertToDatabaseColumn(List.of()));
+        }
+    }
+
+    @Nested
+    @DisplayName("convertToEntityAttribute method")
+    class ConvertToEntityAttributeMethodTest {
+        @Test
+        @DisplayName("reads UUIDs back in their order")
+        void readsUuidsBackInTheirOrder() {
+            List<UUID> uuids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+            assertEquals(uuids, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(uuids)));
+        }
+
+        @Test
+        @DisplayName("reads null as an empty list")
+        void readsNullAsAnEmptyList() {
+            assertTrue(converter.convertToEntityAttribute(null).isEmpty());
+        }
+
+        @Test
+        @DisplayName("throws ConversionException when the value is truncated")
+        void throwsConversionExceptionWhenTheValueIsTruncated() {
+            assertThrowsExactly(ConversionException.class, () -> converter.convertToEntityAttribute(new byte[20]));
+        }
+    }
+}
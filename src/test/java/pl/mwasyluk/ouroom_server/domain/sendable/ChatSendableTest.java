@@ -2,6 +2,8 @@ package pl.mwasyluk.ouroom_server.domain.sendable;
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -112,6 +114,28 @@ class ChatSendableTest {
 
             assertEquals(SendableState.SENT, o1.getState());
         }
+
+        @Test
+        @DisplayName("accepts an empty message when attachments are given")
+        void acceptsAnEmptyMessageWhenAttachmentsAreGiven() {
+            List<UUID> attachmentIds = List.of(UUID.randomUUID());
+
+            ChatSendable o1 = new ChatSendable(MOCK_USER, null, null, attachmentIds);
+
+            assertAll(() -> {
+                assertEquals("", o1.getMessage());
+                assertEquals(attachmentIds, o1.getAttachmentIds());
+            });
+        }
+
+        @Test
+        @DisplayName("throws exception when too many attachments are given")
+        void throwsExceptionWhenTooManyAttachmentsAreGiven() {
+            List<UUID> attachmentIds = Collections.nCopies(ChatSendable.MAX_ATTACHMENTS + 1, UUID.randomUUID());
+
+            assertThrowsExactly(InitializationException.class,
+                    () -> new ChatSendable(MOCK_USER, "text", null, attachmentIds));
+        }
     }
 
     @Nested
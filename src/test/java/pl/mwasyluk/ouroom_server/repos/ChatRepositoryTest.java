@@ -1,23 +1,42 @@
 package pl.mwasyluk.ouroom_server.repos;
 
+import java.time.ZonedDateTime;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.media.Image;
+import pl.mwasyluk.ouroom_server.domain.media.Media;
+import pl.mwasyluk.ouroom_server.domain.media.source.DataSource;
 import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
 import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
 import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxView;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pl.mwasyluk.ouroom_server.domain.media.source.DataSourceTestUtil.JPEG_BYTES;
 
 @DataJpaTest
 class ChatRepositoryTest {
@@ -30,6 +49,14 @@ class ChatRepositoryTest {
     @Autowired
     @SuppressWarnings("unused")
     private ChatRepository chatRepository;
+    @Autowired
+    @SuppressWarnings("unused")
+    private SendableRepository sendableRepository;
+    @Autowired
+    @SuppressWarnings("unused")
+    private MediaRepository mediaRepository;
+    @Autowired
+    private EntityManager entityManager;
 
     @Nested
     @DisplayName("findAllByUserId method")
@@ -56,6 +83,39 @@ class ChatRepositoryTest {
             assertTrue(chats.contains(chat3));
         }
 
+        @Test
+        @DisplayName("does not load the content of the chat images")
+        void doesNotLoadTheContentOfTheChatImages() {
+            Chat chat = new Chat(mockUser);
+            chat.setImage((Image) Media.of(DataSource.of(JPEG_BYTES)));
+            userRepository.save(mockUser);
+            chatRepository.save(chat);
+            entityManager.flush();
+            entityManager.clear();
+
+            Chat found = chatRepository.findAllByUserId(mockUser.getId()).iterator().next();
+
+            assertEquals(chat.getImage().getId(), found.getImage().getId());
+            assertEquals("image/jpeg", found.getImage().getContentType());
+            assertFalse(Hibernate.isInitialized(found.getImage().getContent()));
+        }
+
+        @Test
+        @DisplayName("leaves the content of the chat images readable by findWithContentById")
+        void leavesTheContentOfTheChatImagesReadableByFindWithContentById() {
+            Chat chat = new Chat(mockUser);
+            chat.setImage((Image) Media.of(DataSource.of(JPEG_BYTES)));
+            userRepository.save(mockUser);
+            chatRepository.save(chat);
+            entityManager.flush();
+            entityManager.clear();
+
+            Media found = mediaRepository.findWithContentById(chat.getImage().getId()).orElseThrow();
+
+            assertTrue(Hibernate.isInitialized(found.getContent()));
+            assertArrayEquals(JPEG_BYTES, found.getSource().getData());
+        }
+
         @Test
         @DisplayName("returns empty collection when user is not a member of any chat")
         void returnsEmptyCollectionWhenUserIsNotAMemberOfAnyChat() {
@@ -98,7 +158,7 @@ class ChatRepositoryTest {
             userRepository.save(mockUser);
             chatRepository.save(chat);
 
-            var chatDetails = chatRepository.findDetailsById(chat.getId());
+            var chatDetails = chatRepository.findDetailsById(chat.getId(), mockUser.getId());
 
             assertTrue(chatDetails.isPresent());
             assertEquals(chat.getId(), chatDetails.get().id());
@@ -111,7 +171,7 @@ class ChatRepositoryTest {
         @Test
         @DisplayName("returns empty optional when chat does not exist")
         void returnsEmptyOptionalWhenChatDoesNotExist() {
-            var chatDetails = chatRepository.findDetailsById(UUID.randomUUID());
+            var chatDetails = chatRepository.findDetailsById(UUID.randomUUID(), mockUser.getId());
 
             assertTrue(chatDetails.isEmpty());
         }
@@ -128,7 +188,7 @@ class ChatRepositoryTest {
             userRepository.save(mockUser3);
             chatRepository.save(chat);
 
-            var chatDetails = chatRepository.findDetailsById(chat.getId());
+            var chatDetails = chatRepository.findDetailsById(chat.getId(), mockUser.getId());
 
             assertTrue(chatDetails.isPresent());
             assertEquals(3, chatDetails.get().membersAmount());
@@ -139,16 +199,297 @@ class ChatRepositoryTest {
         void returnsCorrectSendablesAmount() {
             Chat chat = new Chat(mockUser);
             chat.addMember(mockUser2, Set.of(MemberPrivilege.ADD_MESSAGES));
-            chat.addSendable(new ChatSendable(mockUser, "mock"));
-            chat.addSendable(new ChatSendable(mockUser2, "mock2"));
+            ChatSendable sendable1 = new ChatSendable(mockUser, "mock");
+            ChatSendable sendable2 = new ChatSendable(mockUser2, "mock2");
+            sendable1.setSequence(1);
+            sendable2.setSequence(2);
+            chat.addSendable(sendable1);
+            chat.addSendable(sendable2);
             userRepository.save(mockUser);
             userRepository.save(mockUser2);
             chatRepository.save(chat);
 
-            var chatDetails = chatRepository.findDetailsById(chat.getId());
+            var chatDetails = chatRepository.findDetailsById(chat.getId(), mockUser.getId());
 
             assertTrue(chatDetails.isPresent());
             assertEquals(2, chatDetails.get().sendablesAmount());
         }
+
+        @Test
+        @DisplayName("returns empty optional when user is not a member of the chat")
+        void returnsEmptyOptionalWhenUserIsNotAMemberOfTheChat() {
+            Chat chat = new Chat(mockUser);
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(chat);
+
+            var chatDetails = chatRepository.findDetailsById(chat.getId(), mockUser2.getId());
+
+            assertTrue(chatDetails.isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("findInboxByUserId and findInboxByUserIdBefore methods")
+    class FindInboxByUserIdMethodsTest {
+        @Test
+        @DisplayName("returns chats of the user from the most recently active one")
+        void returnsChatsOfTheUserFromTheMostRecentlyActiveOne() {
+            Chat chat1 = new Chat(mockUser);
+            Chat chat2 = new Chat(mockUser);
+            Chat chat3 = new Chat(mockUser2);
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(chat1);
+            chatRepository.save(chat2);
+            chatRepository.saveAndFlush(chat3);
+            ChatSendable sendable = new ChatSendable(mockUser2, "text");
+            sendable.setContainer(chat1);
+            sendableRepository.save(sendable);
+            chatRepository.recordSendableAdded(chat1.getId(), sendable.getId(), ZonedDateTime.now().plusDays(1),
+                    "text", 1);
+
+            List<ChatInboxView> inbox = chatRepository.findInboxByUserId(mockUser.getId(), Limit.of(10));
+
+            assertEquals(List.of(chat1.getId(), chat2.getId()), inbox.stream().map(v -> v.chat().id()).toList());
+            assertEquals(1, inbox.get(0).unreadAmount());
+        }
+
+        @Test
+        @DisplayName("continues the inbox before the given row")
+        void continuesTheInboxBeforeTheGivenRow() {
+            Chat chat1 = new Chat(mockUser);
+            Chat chat2 = new Chat(mockUser);
+            userRepository.save(mockUser);
+            chatRepository.save(chat1);
+            chatRepository.saveAndFlush(chat2);
+            List<ChatInboxView> all = chatRepository.findInboxByUserId(mockUser.getId(), Limit.of(10));
+            ChatInboxView first = all.get(0);
+
+            List<ChatInboxView> rest = chatRepository.findInboxByUserIdBefore(mockUser.getId(),
+                    first.lastActivityAt(), first.chat().id(), Limit.of(10));
+
+            assertEquals(List.of(all.get(1).chat().id()), rest.stream().map(v -> v.chat().id()).toList());
+        }
+    }
+
+    @Nested
+    @DisplayName("addToMembersAmount and addToSendablesAmount methods")
+    class AddToAmountMethodsTest {
+        @Test
+        @DisplayName("adds the given delta to the stored counters")
+        void addsTheGivenDeltaToTheStoredCounters() {
+            Chat chat = new Chat(mockUser);
+            userRepository.save(mockUser);
+            chatRepository.saveAndFlush(chat);
+
+            chatRepository.addToMembersAmount(chat.getId(), 2);
+            chatRepository.addToSendablesAmount(chat.getId(), 5);
+            chatRepository.addToSendablesAmount(chat.getId(), -1);
+            var chatDetails = chatRepository.findDetailsById(chat.getId(), mockUser.getId());
+
+            assertTrue(chatDetails.isPresent());
+            assertEquals(3, chatDetails.get().membersAmount());
+            assertEquals(4, chatDetails.get().sendablesAmount());
+        }
+    }
+
+    @Nested
+    @DisplayName("sequence counter methods")
+    class SequenceCounterMethodsTest {
+        @Test
+        @DisplayName("recordSendableAdded raises the counter of the chat to the number of the sendable")
+        void recordSendableAddedRaisesTheCounterOfTheChatToTheNumberOfTheSendable() {
+            Chat chat = new Chat(mockUser);
+            Chat otherChat = new Chat(mockUser);
+            userRepository.save(mockUser);
+            chatRepository.save(chat);
+            chatRepository.saveAndFlush(otherChat);
+
+            chatRepository.recordSendableAdded(chat.getId(), UUID.randomUUID(), ZonedDateTime.now(), "text", 5);
+            chatRepository.recordSendableAdded(chat.getId(), UUID.randomUUID(), ZonedDateTime.now(), "text", 3);
+
+            assertEquals(5, chatRepository.findLastSequenceById(chat.getId()).orElseThrow());
+            assertEquals(0, chatRepository.findLastSequenceById(otherChat.getId()).orElseThrow());
+            assertTrue(chatRepository.findLastSequenceById(UUID.randomUUID()).isEmpty());
+        }
+
+        @Test
+        @DisplayName("raiseLastSequence never lowers the counter")
+        void raiseLastSequenceNeverLowersTheCounter() {
+            Chat chat = new Chat(mockUser);
+            userRepository.save(mockUser);
+            chatRepository.saveAndFlush(chat);
+
+            assertEquals(1, chatRepository.raiseLastSequence(chat.getId(), 4));
+            assertEquals(0, chatRepository.raiseLastSequence(chat.getId(), 2));
+
+            assertEquals(4, chatRepository.findLastSequenceById(chat.getId()).orElseThrow());
+        }
+
+        @Test
+        @DisplayName("raiseLastSequencesToSendables raises the counters to the highest numbers of the sendables")
+        void raiseLastSequencesToSendablesRaisesTheCountersToTheHighestNumbersOfTheSendables() {
+            Chat chat = new Chat(mockUser);
+            Chat emptyChat = new Chat(mockUser);
+            userRepository.save(mockUser);
+            chatRepository.save(chat);
+            chatRepository.saveAndFlush(emptyChat);
+            for (long sequence : List.of(3L, 7L)) {
+                ChatSendable sendable = new ChatSendable(mockUser, "text");
+                sendable.setContainer(chat);
+                sendable.setSequence(sequence);
+                sendableRepository.save(sendable);
+            }
+            entityManager.flush();
+
+            assertEquals(1, chatRepository.raiseLastSequencesToSendables());
+
+            assertEquals(7, chatRepository.findLastSequenceById(chat.getId()).orElseThrow());
+            assertEquals(0, chatRepository.findLastSequenceById(emptyChat.getId()).orElseThrow());
+        }
+    }
+
+    @Nested
+    @DisplayName("updatePinnedSendableIds method")
+    class UpdatePinnedSendableIdsMethodTest {
+        @Test
+        @DisplayName("stores the pinned IDs in their order")
+        void storesThePinnedIdsInTheirOrder() {
+            Chat chat = new Chat(mockUser);
+            List<UUID> pinnedIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+            userRepository.save(mockUser);
+            chatRepository.saveAndFlush(chat);
+
+            chatRepository.updatePinnedSendableIds(chat.getId(), pinnedIds);
+            entityManager.clear();
+
+            assertEquals(pinnedIds, chatRepository.findById(chat.getId()).orElseThrow().getPinnedSendableIds());
+        }
+
+        @Test
+        @DisplayName("stores an empty list of pinned IDs")
+        void storesAnEmptyListOfPinnedIds() {
+            Chat chat = new Chat(mockUser);
+            userRepository.save(mockUser);
+            chatRepository.saveAndFlush(chat);
+            chatRepository.updatePinnedSendableIds(chat.getId(), List.of(UUID.randomUUID()));
+
+            chatRepository.updatePinnedSendableIds(chat.getId(), List.of());
+            entityManager.clear();
+
+            assertTrue(chatRepository.findById(chat.getId()).orElseThrow().getPinnedSendableIds().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("findPinsById method")
+    class FindPinsByIdMethodTest {
+        @Test
+        @DisplayName("returns the pinned IDs of the chat in their order")
+        void returnsThePinnedIdsOfTheChatInTheirOrder() {
+            Chat chat = new Chat(mockUser);
+            List<UUID> pinnedIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+            userRepository.save(mockUser);
+            chatRepository.saveAndFlush(chat);
+            chatRepository.updatePinnedSendableIds(chat.getId(), pinnedIds);
+            entityManager.clear();
+
+            assertEquals(pinnedIds, chatRepository.findPinsById(chat.getId()).orElseThrow().pinnedSendableIds());
+        }
+
+        @Test
+        @DisplayName("returns an empty optional when the chat does not exist")
+        void returnsAnEmptyOptionalWhenTheChatDoesNotExist() {
+            assertTrue(chatRepository.findPinsById(UUID.randomUUID()).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("version")
+    class VersionTest {
+        @Test
+        @DisplayName("rejects saving a chat read before a concurrent update")
+        void rejectsSavingAChatReadBeforeAConcurrentUpdate() {
+            Chat chat = new Chat(mockUser);
+            userRepository.save(mockUser);
+            chatRepository.saveAndFlush(chat);
+            entityManager.clear();
+            Chat stale = chatRepository.findById(chat.getId()).orElseThrow();
+            entityManager.clear();
+
+            Chat current = chatRepository.findById(chat.getId()).orElseThrow();
+            current.setName("current");
+            chatRepository.saveAndFlush(current);
+            entityManager.clear();
+
+            stale.setName("stale");
+            assertThrows(OptimisticLockingFailureException.class, () -> chatRepository.saveAndFlush(stale));
+        }
+
+        @Test
+        @DisplayName("is neither checked nor incremented by the counter updates")
+        void isNeitherCheckedNorIncrementedByTheCounterUpdates() {
+            Chat chat = new Chat(mockUser);
+            userRepository.save(mockUser);
+            chatRepository.saveAndFlush(chat);
+            entityManager.clear();
+            Chat read = chatRepository.findById(chat.getId()).orElseThrow();
+            entityManager.clear();
+
+            chatRepository.addToSendablesAmount(chat.getId(), 3);
+            read.setName("renamed");
+            chatRepository.saveAndFlush(read);
+            entityManager.clear();
+
+            Chat saved = chatRepository.findById(chat.getId()).orElseThrow();
+            assertEquals(read.getVersion() + 1, saved.getVersion());
+            // the entity update does not overwrite the counter with the value read before
+            assertEquals(3, saved.getSendablesAmount());
+        }
+    }
+
+    @Nested
+    @DisplayName("findAllPresentables and findAllPresentablesAfter methods")
+    class FindAllPresentablesMethodsTest {
+        @Test
+        @DisplayName("pages through the chats by their IDs and skips the deleted ones")
+        void pagesThroughTheChatsByTheirIdsAndSkipsTheDeletedOnes() {
+            userRepository.save(mockUser);
+            List<Chat> chats = List.of(new Chat(mockUser), new Chat(mockUser), new Chat(mockUser), new Chat(mockUser));
+            chatRepository.saveAll(chats);
+            Chat deleted = chats.get(0);
+            chatRepository.markDeleted(deleted.getId(), ZonedDateTime.now());
+            List<UUID> expectedIds = chats.stream()
+                    .filter(chat -> chat != deleted)
+                    .map(Chat::getId)
+                    // the database compares the IDs as unsigned values, the same way as their hexadecimal forms
+                    .sorted(Comparator.comparing(UUID::toString))
+                    .toList();
+
+            List<ChatPresentableView> first = chatRepository.findAllPresentables(Limit.of(2));
+            List<ChatPresentableView> second =
+                    chatRepository.findAllPresentablesAfter(first.get(1).id(), Limit.of(2));
+
+            assertEquals(expectedIds.subList(0, 2), first.stream().map(ChatPresentableView::id).toList());
+            assertEquals(expectedIds.subList(2, 3), second.stream().map(ChatPresentableView::id).toList());
+        }
+
+        @Test
+        @DisplayName("reads the image ID without the image content")
+        void readsTheImageIdWithoutTheImageContent() {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            Chat chat = new Chat(mockUser);
+            chat.setImage((Image) Media.of(DataSource.of(JPEG_BYTES)));
+            userRepository.save(mockUser);
+            chatRepository.saveAndFlush(chat);
+            entityManager.clear();
+
+            ChatPresentableView view = chatRepository.findAllPresentables(Limit.of(1)).get(0);
+
+            assertEquals(chat.getImage().getId(), view.imageId());
+            assertEquals(Media.internalUrlOf(view.imageId()), view.imageUrl());
+            RequestContextHolder.resetRequestAttributes();
+        }
     }
 }
@@ -0,0 +1,45 @@
+package pl.mwasyluk.ouroom_server.repos;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.domain.media.Media;
+import pl.mwasyluk.ouroom_server.domain.media.source.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pl.mwasyluk.ouroom_server.domain.media.source.DataSourceTestUtil.JPEG_BYTES;
+
+@DataJpaTest
+class MediaRepositoryTest {
+    @Autowired
+    @SuppressWarnings("unused")
+    private MediaRepository mediaRepository;
+    @Autowired
+    @SuppressWarnings("unused")
+    private TestEntityManager entityManager;
+
+    @Nested
+    @DisplayName("deleteAllWithContentsByIdIn method")
+    class DeleteAllWithContentsByIdInMethodTest {
+        @Test
+        @DisplayName("deletes the given media together with their contents only")
+        void deletesTheGivenMediaTogetherWithTheirContentsOnly() {
+            Media deleted = mediaRepository.save(Media.of(DataSource.of(JPEG_BYTES)));
+            Media kept = mediaRepository.save(Media.of(DataSource.of(JPEG_BYTES)));
+            entityManager.flush();
+            entityManager.clear();
+
+            assertEquals(1, mediaRepository.deleteAllWithContentsByIdIn(List.of(deleted.getId())));
+
+            assertTrue(mediaRepository.findWithContentById(deleted.getId()).isEmpty());
+            assertTrue(mediaRepository.findWithContentById(kept.getId()).isPresent());
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package pl.mwasyluk.ouroom_server.repos;
 
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -13,10 +16,14 @@ import org.junit.jupiter.api.Test;
 
 import pl.mwasyluk.ouroom_server.domain.container.Chat;
 import pl.mwasyluk.ouroom_server.domain.member.ChatMember;
+import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
 import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.member.MemberPresentableView;
+import pl.mwasyluk.ouroom_server.dto.member.MemberWatermarkView;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
@@ -35,6 +42,8 @@ class MemberRepositoryTest {
     @Autowired
     @SuppressWarnings("unused")
     private ChatRepository chatRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @BeforeEach
     void setUp() {
@@ -202,21 +211,116 @@ class MemberRepositoryTest {
             assertEquals(0, members.size());
         }
     }
-}
 
+    @Nested
+    @DisplayName("projection methods")
+    class ProjectionMethodsTest {
+        @Test
+        @DisplayName("findAllViewsByMembershipId returns views of all members with their names")
+        void findAllViewsReturnsViewsOfAllMembersWithTheirNames() {
+            mockUser2.profileBuilder().setFirstname("Firstname").setLastname("Lastname").apply();
+            userRepository.save(mockUser2);
+            mockChat.addMember(mockUser2, Set.of(MemberPrivilege.ADD_MESSAGES));
+            chatRepository.save(mockChat);
 
+            List<MemberPresentableView> views = memberRepository.findAllViewsByMembershipId(mockChat.getId());
+
+            assertEquals(2, views.size());
+            MemberPresentableView named = views.stream()
+                    .filter(v -> v.user().id().equals(mockUser2.getId()))
+                    .findFirst().orElseThrow();
+            assertEquals("Firstname Lastname", named.user().name());
+            assertNull(named.user().imageId());
+            assertEquals(Set.of(MemberPrivilege.ADD_MESSAGES), Set.copyOf(named.privileges()));
+            MemberPresentableView unnamed = views.stream()
+                    .filter(v -> v.user().id().equals(mockUser.getId()))
+                    .findFirst().orElseThrow();
+            assertNull(unnamed.user().name());
+        }
 
+        @Test
+        @DisplayName("findAllUserIdsByMembershipId returns IDs of all members")
+        void findAllUserIdsReturnsIdsOfAllMembers() {
+            mockChat.addMember(mockUser2, null);
+            chatRepository.save(mockChat);
+            chatRepository.save(new Chat(mockUser3));
 
+            assertEquals(Set.of(mockUser.getId(), mockUser2.getId()),
+                    memberRepository.findAllUserIdsByMembershipId(mockChat.getId()));
+        }
+    }
 
+    @Nested
+    @DisplayName("watermark methods")
+    class WatermarkMethodsTest {
+        private MemberWatermarkView watermarkOf(User user) {
+            return memberRepository.findAllWatermarksByMembershipId(mockChat.getId()).stream()
+                    .filter(w -> w.userId().equals(user.getId()))
+                    .findFirst()
+                    .orElseThrow();
+        }
+
+        private long readSequenceOf(User user) {
+            return entityManager.getEntityManager().createQuery("""
+                            SELECT m.readSequence FROM ChatMember m
+                            WHERE m.memberId.user.id = ?1 AND m.memberId.membership.id = ?2
+                            """, Long.class)
+                    .setParameter(1, user.getId())
+                    .setParameter(2, mockChat.getId())
+                    .getSingleResult();
+        }
 
+        @Test
+        @DisplayName("advanceReadUpTo moves the watermark forward only")
+        void advanceReadUpToMovesTheWatermarkForwardOnly() {
+            chatRepository.save(mockChat);
+            ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
 
+            assertEquals(1, memberRepository.advanceReadUpTo(mockUser.getId(), mockChat.getId(), now, 2));
+            assertEquals(0, memberRepository.advanceReadUpTo(mockUser.getId(), mockChat.getId(),
+                    now.minusMinutes(1), 1));
 
+            assertEquals(now.toInstant(), watermarkOf(mockUser).readUpTo().toInstant());
+            assertNull(watermarkOf(mockUser).deliveredUpTo());
+            assertEquals(2, readSequenceOf(mockUser));
+        }
 
+        @Test
+        @DisplayName("advanceReadUpTo moves the read sequence number even if the watermark stays")
+        void advanceReadUpToMovesTheReadSequenceNumberEvenIfTheWatermarkStays() {
+            chatRepository.save(mockChat);
+            ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            memberRepository.advanceReadUpTo(mockUser.getId(), mockChat.getId(), now, 1);
 
+            assertEquals(1, memberRepository.advanceReadUpTo(mockUser.getId(), mockChat.getId(), now, 2));
 
+            assertEquals(now.toInstant(), watermarkOf(mockUser).readUpTo().toInstant());
+            assertEquals(2, readSequenceOf(mockUser));
+        }
 
+        @Test
+        @DisplayName("raiseReadSequence moves the read sequence number forward only")
+        void raiseReadSequenceMovesTheReadSequenceNumberForwardOnly() {
+            chatRepository.save(mockChat);
 
+            assertEquals(1, memberRepository.raiseReadSequence(mockUser.getId(), mockChat.getId(), 3));
+            assertEquals(0, memberRepository.raiseReadSequence(mockUser.getId(), mockChat.getId(), 2));
 
+            assertEquals(3, readSequenceOf(mockUser));
+            assertNull(watermarkOf(mockUser).readUpTo());
+        }
 
+        @Test
+        @DisplayName("advanceDeliveredUpTo does not affect members of other chats")
+        void advanceDeliveredUpToDoesNotAffectMembersOfOtherChats() {
+            Chat mockChat2 = new Chat(mockUser);
+            chatRepository.save(mockChat);
+            chatRepository.save(mockChat2);
 
+            assertEquals(1, memberRepository.advanceDeliveredUpTo(mockUser.getId(), mockChat2.getId(),
+                    ZonedDateTime.now()));
 
+            assertNull(watermarkOf(mockUser).deliveredUpTo());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package pl.mwasyluk.ouroom_server.repos;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChange;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChangeType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class SendableChangeRepositoryTest {
+    private final UUID containerId = UUID.randomUUID();
+    private final UUID otherContainerId = UUID.randomUUID();
+
+    @Autowired
+    @SuppressWarnings("unused")
+    private SendableChangeRepository sendableChangeRepository;
+
+    private SendableChange save(UUID containerId, SendableChangeType type) {
+        return sendableChangeRepository.save(new SendableChange(containerId, UUID.randomUUID(), type));
+    }
+
+    @Nested
+    @DisplayName("findAllByContainerIdAndRevisionGreaterThanOrderByRevisionAsc method")
+    class FindAllSinceRevisionMethodTest {
+        @Test
+        @DisplayName("returns changes of the container newer than the given revision in order")
+        void returnsChangesOfTheContainerNewerThanTheGivenRevisionInOrder() {
+            SendableChange first = save(containerId, SendableChangeType.NEW);
+            SendableChange second = save(containerId, SendableChangeType.CHANGED);
+            save(otherContainerId, SendableChangeType.NEW);
+            SendableChange third = save(containerId, SendableChangeType.REMOVED);
+
+            List<SendableChange> changes = sendableChangeRepository
+                    .findAllByContainerIdAndRevisionGreaterThanOrderByRevisionAsc(containerId,
+                            first.getRevision(), Limit.of(10));
+
+            assertEquals(List.of(second, third), changes);
+        }
+    }
+
+    @Nested
+    @DisplayName("findLatestRevisionByContainerId method")
+    class FindLatestRevisionByContainerIdMethodTest {
+        @Test
+        @DisplayName("returns the revision of the newest change of the container")
+        void returnsTheRevisionOfTheNewestChangeOfTheContainer() {
+            save(containerId, SendableChangeType.NEW);
+            SendableChange latest = save(containerId, SendableChangeType.CHANGED);
+            save(otherContainerId, SendableChangeType.NEW);
+
+            assertEquals(latest.getRevision(), sendableChangeRepository.findLatestRevisionByContainerId(containerId));
+        }
+
+        @Test
+        @DisplayName("returns zero when the container has no changes")
+        void returnsZeroWhenTheContainerHasNoChanges() {
+            assertEquals(0, sendableChangeRepository.findLatestRevisionByContainerId(containerId));
+        }
+    }
+}
@@ -1,9 +1,18 @@
 package pl.mwasyluk.ouroom_server.repos;
 
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -11,8 +20,11 @@ import org.junit.jupiter.api.Test;
 import pl.mwasyluk.ouroom_server.domain.container.Chat;
 import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
 import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
@@ -21,6 +33,7 @@ class SendableRepositoryTest {
     private final User mockUser2 = new User("mock2", "mock");
     private final Chat mockChat = new Chat(mockUser);
     private final Chat mockChat2 = new Chat(mockUser2);
+    private long lastSequence;
 
     @Autowired
     @SuppressWarnings("unused")
@@ -31,6 +44,8 @@ class SendableRepositoryTest {
     @Autowired
     @SuppressWarnings("unused")
     private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
 
     @Nested
     @DisplayName("findAllByContainerId method")
@@ -48,9 +63,9 @@ class SendableRepositoryTest {
             userRepository.save(mockUser2);
             chatRepository.save(mockChat);
             chatRepository.save(mockChat2);
-            sendableRepository.save(sendable1);
-            sendableRepository.save(sendable2);
-            sendableRepository.save(sendable3);
+            sendableRepository.save(numbered(sendable1));
+            sendableRepository.save(numbered(sendable2));
+            sendableRepository.save(numbered(sendable3));
 
             List<ChatSendable> sendables = sendableRepository.findAllByContainerId(mockChat.getId());
 
@@ -72,13 +87,368 @@ class SendableRepositoryTest {
             userRepository.save(mockUser2);
             chatRepository.save(mockChat);
             chatRepository.save(mockChat2);
-            sendableRepository.save(sendable1);
-            sendableRepository.save(sendable2);
-            sendableRepository.save(sendable3);
+            sendableRepository.save(numbered(sendable1));
+            sendableRepository.save(numbered(sendable2));
+            sendableRepository.save(numbered(sendable3));
 
             List<ChatSendable> sendables = sendableRepository.findAllByContainerId(mockChat2.getId());
 
             assertTrue(sendables.isEmpty());
         }
     }
+
+    private ChatSendable saveSendableAt(Chat chat, ZonedDateTime createdAt) {
+        ChatSendable sendable = new ChatSendable(mockUser, "text");
+        sendable.setContainer(chat);
+        ReflectionTestUtils.setField(sendable, "createdAt", createdAt);
+        return sendableRepository.save(numbered(sendable));
+    }
+
+    // numbered as by SendableSequences, so the sendables do not collide on the unique numbers of their containers
+    private ChatSendable numbered(ChatSendable sendable) {
+        sendable.setSequence(++lastSequence);
+        return sendable;
+    }
+
+    private List<UUID> idsOf(ChatSendable... sendables) {
+        return Arrays.stream(sendables).map(ChatSendable::getId).toList();
+    }
+
+    private List<UUID> idsOf(List<SendableView> views) {
+        return views.stream().map(SendableView::id).toList();
+    }
+
+    @Nested
+    @DisplayName("keyset page methods")
+    class KeysetPageMethodsTest {
+        private final ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        private ChatSendable oldest;
+        private ChatSendable middle;
+        private ChatSendable newest;
+
+        private void saveThreeSendables() {
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            chatRepository.save(mockChat2);
+            oldest = saveSendableAt(mockChat, now.minusMinutes(2));
+            middle = saveSendableAt(mockChat, now.minusMinutes(1));
+            newest = saveSendableAt(mockChat, now);
+            saveSendableAt(mockChat2, now);
+        }
+
+        @Test
+        @DisplayName("findNewestByContainerId returns the newest sendables first up to the limit")
+        void findNewestReturnsNewestSendablesFirstUpToTheLimit() {
+            saveThreeSendables();
+
+            List<SendableView> sendables = sendableRepository.findNewestByContainerId(mockChat.getId(), Limit.of(2));
+
+            assertEquals(idsOf(newest, middle), idsOf(sendables));
+        }
+
+        @Test
+        @DisplayName("findAllByContainerIdBefore returns sendables preceding the given number")
+        void findBeforeReturnsSendablesPrecedingTheGivenNumber() {
+            saveThreeSendables();
+
+            List<SendableView> sendables = sendableRepository.findAllByContainerIdBefore(mockChat.getId(),
+                    newest.getSequence(), Limit.of(10));
+
+            assertEquals(idsOf(middle, oldest), idsOf(sendables));
+        }
+
+        @Test
+        @DisplayName("findAllByContainerIdAfter returns sendables following the given number in ascending order")
+        void findAfterReturnsSendablesFollowingTheGivenNumberInAscendingOrder() {
+            saveThreeSendables();
+
+            List<SendableView> sendables = sendableRepository.findAllByContainerIdAfter(mockChat.getId(),
+                    oldest.getSequence(), Limit.of(10));
+
+            assertEquals(idsOf(middle, newest), idsOf(sendables));
+        }
+
+        @Test
+        @DisplayName("findAllViewsByIdIn returns views of the given sendables only")
+        void findAllViewsByIdInReturnsViewsOfTheGivenSendablesOnly() {
+            saveThreeSendables();
+
+            List<SendableView> sendables = sendableRepository.findAllViewsByIdIn(
+                    List.of(oldest.getId(), newest.getId(), UUID.randomUUID()));
+
+            assertEquals(Set.copyOf(idsOf(oldest, newest)), Set.copyOf(idsOf(sendables)));
+        }
+    }
+
+    @Nested
+    @DisplayName("sequence number methods")
+    class SequenceNumberMethodsTest {
+        private ChatSendable saveSendableNumbered(Chat chat, long sequence) {
+            ChatSendable sendable = new ChatSendable(mockUser, "text");
+            sendable.setContainer(chat);
+            sendable.setSequence(sequence);
+            return sendableRepository.save(sendable);
+        }
+
+        // saved as before the sequence numbers were introduced
+        private ChatSendable saveSendableUnnumbered(Chat chat) {
+            ChatSendable sendable = new ChatSendable(mockUser, "text");
+            sendable.setContainer(chat);
+            return sendableRepository.save(sendable);
+        }
+
+        @Test
+        @DisplayName("findAllByContainerIdAfter returns sendables in the order of the numbers rather than creation")
+        void findAfterReturnsSendablesInTheOrderOfTheNumbersRatherThanCreation() {
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            chatRepository.save(mockChat2);
+            ChatSendable third = saveSendableNumbered(mockChat, 3);
+            saveSendableNumbered(mockChat, 1);
+            ChatSendable second = saveSendableNumbered(mockChat, 2);
+            saveSendableNumbered(mockChat2, 4);
+
+            List<SendableView> sendables = sendableRepository.findAllByContainerIdAfter(mockChat.getId(), 1,
+                    Limit.of(10));
+
+            assertEquals(idsOf(second, third), idsOf(sendables));
+            assertEquals(List.of(2L, 3L), sendables.stream().map(SendableView::sequence).toList());
+        }
+
+        @Test
+        @DisplayName("findMaxSequenceByContainerId returns the highest number of the container only")
+        void findMaxSequenceReturnsTheHighestNumberOfTheContainerOnly() {
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            chatRepository.save(mockChat2);
+            saveSendableNumbered(mockChat, 3);
+            saveSendableNumbered(mockChat, 1);
+            saveSendableNumbered(mockChat2, 4);
+
+            assertEquals(3, sendableRepository.findMaxSequenceByContainerId(mockChat.getId()));
+            assertEquals(0, sendableRepository.findMaxSequenceByContainerId(UUID.randomUUID()));
+        }
+
+        @Test
+        @DisplayName("findAllUnnumberedIdsByContainerId returns the sendables without numbers of the container only")
+        void findAllUnnumberedIdsReturnsTheSendablesWithoutNumbersOfTheContainerOnly() {
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            chatRepository.save(mockChat2);
+            ChatSendable unnumbered = saveSendableUnnumbered(mockChat);
+            saveSendableNumbered(mockChat, 1);
+            saveSendableUnnumbered(mockChat2);
+
+            assertEquals(idsOf(unnumbered),
+                    sendableRepository.findAllUnnumberedIdsByContainerId(mockChat.getId(), Limit.of(10)));
+        }
+
+        @Test
+        @DisplayName("updateSequenceById numbers the given sendable")
+        void updateSequenceByIdNumbersTheGivenSendable() {
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            ChatSendable sendable = saveSendableUnnumbered(mockChat);
+            entityManager.flush();
+
+            assertEquals(1, sendableRepository.updateSequenceById(sendable.getId(), 7));
+
+            entityManager.clear();
+            assertEquals(7, sendableRepository.findById(sendable.getId()).orElseThrow().getSequence());
+        }
+
+        @Test
+        @DisplayName("the same number cannot be saved twice in a container")
+        void theSameNumberCannotBeSavedTwiceInAContainer() {
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            chatRepository.save(mockChat2);
+            saveSendableNumbered(mockChat, 1);
+            saveSendableNumbered(mockChat2, 1);
+            entityManager.flush();
+
+            assertThrows(DataIntegrityViolationException.class, () -> {
+                saveSendableNumbered(mockChat, 1);
+                sendableRepository.flush();
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("long messages")
+    class LongMessagesTest {
+        @Test
+        @DisplayName("are read back unchanged by entity and view queries")
+        void areReadBackUnchangedByEntityAndViewQueries() {
+            String message = "2024-01-01 12:00:00 INFO Request handled in 5 ms\n".repeat(100).trim();
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            ChatSendable sendable = new ChatSendable(mockUser, message);
+            sendable.setContainer(mockChat);
+            sendableRepository.saveAndFlush(sendable);
+            entityManager.clear();
+
+            assertEquals(message, sendableRepository.findById(sendable.getId()).orElseThrow().getMessage());
+            assertEquals(message, sendableRepository.findAllViewsByIdIn(List.of(sendable.getId())).get(0).message());
+        }
+    }
+
+    @Nested
+    @DisplayName("attachments")
+    class AttachmentsTest {
+        @Test
+        @DisplayName("are read back in order by entity and view queries")
+        void areReadBackInOrderByEntityAndViewQueries() {
+            List<UUID> attachmentIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            ChatSendable withAttachments = new ChatSendable(mockUser, null, null, attachmentIds);
+            withAttachments.setContainer(mockChat);
+            sendableRepository.saveAndFlush(numbered(withAttachments));
+            ChatSendable withoutAttachments = new ChatSendable(mockUser, "text");
+            withoutAttachments.setContainer(mockChat);
+            sendableRepository.saveAndFlush(numbered(withoutAttachments));
+            entityManager.clear();
+
+            assertEquals(attachmentIds,
+                    sendableRepository.findById(withAttachments.getId()).orElseThrow().getAttachmentIds());
+            assertEquals(attachmentIds,
+                    sendableRepository.findAllViewsByIdIn(List.of(withAttachments.getId())).get(0).attachmentIds());
+            assertTrue(sendableRepository.findAllViewsByIdIn(List.of(withoutAttachments.getId())).get(0)
+                    .attachmentIds().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("idempotency keys")
+    class IdempotencyKeysTest {
+        private ChatSendable saveSendableWithKey(Chat chat, User creator, UUID idempotencyKey) {
+            ChatSendable sendable = new ChatSendable(creator, "text", idempotencyKey);
+            sendable.setContainer(chat);
+            return sendableRepository.saveAndFlush(numbered(sendable));
+        }
+
+        private ChatSendable saveSendableWithKey(User creator, UUID idempotencyKey) {
+            return saveSendableWithKey(mockChat, creator, idempotencyKey);
+        }
+
+        @Test
+        @DisplayName("findAllByContainerIdInAndCreatorIdAndIdempotencyKeyIn returns the matching sendables only")
+        void findAllByContainerIdInAndCreatorIdAndIdempotencyKeyInReturnsTheMatchingSendablesOnly() {
+            UUID key1 = UUID.randomUUID();
+            UUID key2 = UUID.randomUUID();
+            Chat otherChat = new Chat(mockUser);
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            chatRepository.save(otherChat);
+            ChatSendable sendable1 = saveSendableWithKey(mockUser, key1);
+            saveSendableWithKey(mockUser, key2);
+            saveSendableWithKey(mockUser2, key1);
+            saveSendableWithKey(otherChat, mockUser, key1);
+
+            List<ChatSendable> sendables = sendableRepository.findAllByContainerIdInAndCreatorIdAndIdempotencyKeyIn(
+                    List.of(mockChat.getId()), mockUser.getId(), List.of(key1));
+
+            assertEquals(List.of(sendable1), sendables);
+        }
+
+        @Test
+        @DisplayName("are unique per container and creator")
+        void areUniquePerContainerAndCreator() {
+            UUID key = UUID.randomUUID();
+            Chat otherChat = new Chat(mockUser);
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            chatRepository.save(otherChat);
+            saveSendableWithKey(mockUser, key);
+            saveSendableWithKey(otherChat, mockUser, key);
+
+            assertThrows(DataIntegrityViolationException.class, () -> saveSendableWithKey(mockUser, key));
+        }
+
+        @Test
+        @DisplayName("are not required")
+        void areNotRequired() {
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            saveSendableWithKey(mockUser, null);
+
+            assertDoesNotThrow(() -> saveSendableWithKey(mockUser, null));
+        }
+    }
+
+    @Nested
+    @DisplayName("findAllIdsByContainerIdMatching methods")
+    class FindAllIdsByContainerIdMatchingMethodsTest {
+        private final ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        private ChatSendable saveSendableOf(User creator, ZonedDateTime createdAt) {
+            ChatSendable sendable = new ChatSendable(creator, "text");
+            sendable.setContainer(mockChat);
+            ReflectionTestUtils.setField(sendable, "createdAt", createdAt);
+            return sendableRepository.save(numbered(sendable));
+        }
+
+        @Test
+        @DisplayName("match all the given criteria at once")
+        void matchAllTheGivenCriteriaAtOnce() {
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            chatRepository.save(mockChat2);
+            saveSendableOf(mockUser, now.minusMinutes(2));
+            ChatSendable matching1 = saveSendableOf(mockUser, now.minusMinutes(1));
+            ChatSendable matching2 = saveSendableOf(mockUser, now);
+            saveSendableOf(mockUser2, now);
+            saveSendableAt(mockChat2, now);
+
+            List<UUID> ids = sendableRepository.findAllIdsByContainerIdMatching(mockChat.getId(), mockUser.getId(),
+                    now.minusMinutes(1), now.plusMinutes(1), Limit.of(10));
+
+            assertEquals(idsOf(matching1, matching2), ids);
+        }
+
+        @Test
+        @DisplayName("match every sendable of the container when no criterion is given")
+        void matchEverySendableOfTheContainerWhenNoCriterionIsGiven() {
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            ChatSendable oldest = saveSendableOf(mockUser, now.minusMinutes(1));
+            saveSendableOf(mockUser, now);
+
+            List<UUID> ids = sendableRepository.findAllIdsByContainerIdMatching(mockChat.getId(), null, null, null,
+                    Limit.of(1));
+
+            assertEquals(idsOf(oldest), ids);
+        }
+
+        @Test
+        @DisplayName("match only the given IDs of the container")
+        void matchOnlyTheGivenIdsOfTheContainer() {
+            userRepository.save(mockUser);
+            userRepository.save(mockUser2);
+            chatRepository.save(mockChat);
+            chatRepository.save(mockChat2);
+            ChatSendable matching = saveSendableOf(mockUser, now);
+            saveSendableOf(mockUser, now);
+            ChatSendable ofOtherContainer = saveSendableAt(mockChat2, now);
+
+            List<UUID> ids = sendableRepository.findAllIdsByContainerIdMatching(mockChat.getId(), null, null, null,
+                    idsOf(matching, ofOtherContainer));
+
+            assertEquals(idsOf(matching), ids);
+        }
+    }
 }
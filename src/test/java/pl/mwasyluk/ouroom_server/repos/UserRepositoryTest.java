@@ -1,16 +1,24 @@
 package pl.mwasyluk.ouroom_server.repos;
 
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import pl.mwasyluk.ouroom_server.domain.user.AuthProvider;
 import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.domain.user.UserAuthority;
+import pl.mwasyluk.ouroom_server.dto.user.UserDetailsView;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -199,4 +207,69 @@ class UserRepositoryTest {
             assertFalse(allExist);
         }
     }
+
+    @Nested
+    @DisplayName("findDetailsAfter method")
+    class FindDetailsAfterMethodTest {
+        private final User admin = new User("admin", "mock", Set.of(UserAuthority.ADMIN, UserAuthority.USER));
+        private final User googleUser = new User("google", "mock").accountBuilder()
+                .setProvider(AuthProvider.GOOGLE)
+                .apply();
+        private final User disabledUser = new User("disabled", "mock").accountBuilder()
+                .setEnabled(false)
+                .apply();
+
+        private List<UUID> findIds(Boolean enabled, AuthProvider provider, UserAuthority authority) {
+            return userRepository.findDetailsAfter(null, enabled, provider, authority, Limit.unlimited()).stream()
+                    .map(UserDetailsView::userId)
+                    .toList();
+        }
+
+        @BeforeEach
+        void setUp() {
+            userRepository.saveAll(List.of(mockUser, admin, googleUser, disabledUser));
+        }
+
+        @Test
+        @DisplayName("pages through all users by their IDs")
+        void pagesThroughAllUsersByTheirIds() {
+            List<UUID> expectedIds = Stream.of(mockUser, admin, googleUser, disabledUser)
+                    .map(User::getId)
+                    // the database compares the IDs as unsigned values, the same way as their hexadecimal forms
+                    .sorted(Comparator.comparing(UUID::toString))
+                    .toList();
+
+            List<UserDetailsView> first = userRepository.findDetailsAfter(null, null, null, null, Limit.of(3));
+            List<UserDetailsView> second =
+                    userRepository.findDetailsAfter(first.get(2).userId(), null, null, null, Limit.of(3));
+
+            assertEquals(expectedIds.subList(0, 3), first.stream().map(UserDetailsView::userId).toList());
+            assertEquals(expectedIds.subList(3, 4), second.stream().map(UserDetailsView::userId).toList());
+        }
+
+        @Test
+        @DisplayName("returns only users matching the given filters")
+        void returnsOnlyUsersMatchingTheGivenFilters() {
+            assertEquals(List.of(disabledUser.getId()), findIds(false, null, null));
+            assertEquals(List.of(googleUser.getId()), findIds(null, AuthProvider.GOOGLE, null));
+            assertEquals(List.of(admin.getId()), findIds(null, null, UserAuthority.ADMIN));
+            assertEquals(Set.of(mockUser.getId(), admin.getId()),
+                    Set.copyOf(findIds(true, AuthProvider.LOCAL, UserAuthority.USER)));
+        }
+
+        @Test
+        @DisplayName("reads the account details and the profile of a user")
+        void readsTheAccountDetailsAndTheProfileOfAUser() {
+            mockUser.profileBuilder().setFirstname("John").setLastname("Doe").apply();
+            userRepository.saveAndFlush(mockUser);
+
+            UserDetailsView view = userRepository
+                    .findDetailsAfter(null, null, AuthProvider.LOCAL, UserAuthority.USER, Limit.unlimited()).stream()
+                    .filter(details -> details.userId().equals(mockUser.getId()))
+                    .findFirst()
+                    .orElseThrow();
+
+            assertEquals(new UserDetailsView(mockUser), view);
+        }
+    }
 }
@@ -0,0 +1,118 @@
+package pl.mwasyluk.ouroom_server.services;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemberPrivilegesCacheTest {
+    private final UUID userId = UUID.randomUUID();
+    private final UUID otherUserId = UUID.randomUUID();
+    private final UUID chatId = UUID.randomUUID();
+    private final AtomicInteger loads = new AtomicInteger();
+    private MemberPrivilegesCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MemberPrivilegesCache(1, 2);
+    }
+
+    private Supplier<Optional<EnumSet<MemberPrivilege>>> loader(EnumSet<MemberPrivilege> privileges) {
+        return () -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(privileges);
+        };
+    }
+
+    @Nested
+    @DisplayName("get method")
+    class GetMethodTest {
+        @Test
+        @DisplayName("loads the privileges once")
+        void loadsThePrivilegesOnce() {
+            EnumSet<MemberPrivilege> privileges = EnumSet.of(MemberPrivilege.ADD_MESSAGES);
+
+            cache.get(userId, chatId, loader(privileges));
+            Optional<EnumSet<MemberPrivilege>> cached = cache.get(userId, chatId, loader(privileges));
+
+            assertEquals(Optional.of(privileges), cached);
+            assertEquals(1, loads.get());
+        }
+
+        @Test
+        @DisplayName("caches the users who are not members")
+        void cachesTheUsersWhoAreNotMembers() {
+            cache.get(userId, chatId, loader(null));
+
+            assertTrue(cache.get(userId, chatId, loader(null)).isEmpty());
+            assertEquals(1, loads.get());
+        }
+
+        @Test
+        @DisplayName("does not cache the privileges loaded during an invalidation")
+        void doesNotCacheThePrivilegesLoadedDuringAnInvalidation() {
+            cache.get(userId, chatId, () -> {
+                cache.invalidate(chatId, List.of(userId));
+                return Optional.of(EnumSet.noneOf(MemberPrivilege.class));
+            });
+
+            cache.get(userId, chatId, loader(null));
+
+            assertEquals(1, loads.get());
+        }
+
+        @Test
+        @DisplayName("evicts the entries of the least recently used chat when the limit is exceeded")
+        void evictsTheEntriesOfTheLeastRecentlyUsedChatWhenTheLimitIsExceeded() {
+            UUID otherChatId = UUID.randomUUID();
+            cache.get(userId, chatId, loader(null));
+            cache.get(otherUserId, chatId, loader(null));
+
+            cache.get(userId, otherChatId, loader(null));
+
+            assertEquals(1, cache.getEntries());
+            cache.get(userId, chatId, loader(null));
+            assertEquals(4, loads.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("invalidate methods")
+    class InvalidateMethodsTest {
+        @Test
+        @DisplayName("invalidate removes the entries of the given users only")
+        void invalidateRemovesTheEntriesOfTheGivenUsersOnly() {
+            cache.get(userId, chatId, loader(null));
+            cache.get(otherUserId, chatId, loader(null));
+
+            cache.invalidate(chatId, List.of(userId));
+
+            assertEquals(1, cache.getEntries());
+            cache.get(otherUserId, chatId, loader(null));
+            assertEquals(2, loads.get());
+        }
+
+        @Test
+        @DisplayName("invalidateChat removes all the entries of the chat")
+        void invalidateChatRemovesAllTheEntriesOfTheChat() {
+            cache.get(userId, chatId, loader(EnumSet.allOf(MemberPrivilege.class)));
+            cache.get(otherUserId, chatId, loader(null));
+
+            cache.invalidateChat(chatId);
+
+            assertEquals(0, cache.getEntries());
+        }
+    }
+}
@@ -17,6 +17,7 @@ import pl.mwasyluk.ouroom_server.domain.container.Chat;
 import pl.mwasyluk.ouroom_server.domain.member.ChatMember;
 import pl.mwasyluk.ouroom_server.domain.member.Member;
 import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
+import pl.mwasyluk.ouroom_server.domain.member.id.ChatMemberId;
 import pl.mwasyluk.ouroom_server.domain.user.User;
 import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
 import pl.mwasyluk.ouroom_server.repos.MemberRepository;
@@ -26,6 +27,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
 
@@ -42,7 +45,7 @@ class MemberValidatorTest {
 
     @BeforeEach
     void setUp() {
-        memberValidator = new MemberValidator(memberRepo);
+        memberValidator = new MemberValidator(memberRepo, new MemberPrivilegesCache(1, 100));
     }
 
     @Nested
@@ -72,6 +75,26 @@ class MemberValidatorTest {
 
             assertDoesNotThrow(() -> memberValidator.validateAsMember(userId, chatId));
         }
+
+        @Test
+        @DisplayName("reads the member and the non-member from the database once")
+        void readsTheMemberAndTheNonMemberFromTheDatabaseOnce() {
+            UUID userId = UUID.randomUUID();
+            UUID nonMemberId = UUID.randomUUID();
+            UUID chatId = UUID.randomUUID();
+
+            when(memberRepo.findById(new ChatMemberId(User.mockOf(userId), Chat.mockOf(chatId)))).thenReturn(
+                    Optional.of(newMockMember(userId, chatId, Set.of(MemberPrivilege.ADD_MESSAGES))));
+            when(memberRepo.findById(new ChatMemberId(User.mockOf(nonMemberId), Chat.mockOf(chatId))))
+                    .thenReturn(Optional.empty());
+
+            for (int i = 0; i < 2; i++) {
+                Member member = memberValidator.validateAsMember(userId, chatId);
+                assertEquals(Set.of(MemberPrivilege.ADD_MESSAGES), member.getPrivileges());
+                assertThrows(ServiceException.class, () -> memberValidator.validateAsMember(nonMemberId, chatId));
+            }
+            verify(memberRepo, times(2)).findById(any());
+        }
     }
 
     @Nested
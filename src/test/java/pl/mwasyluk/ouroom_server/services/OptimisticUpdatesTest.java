@@ -0,0 +1,89 @@
+package pl.mwasyluk.ouroom_server.services;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.springframework.http.HttpStatus.CONFLICT;
+
+class OptimisticUpdatesTest {
+    private static ObjectOptimisticLockingFailureException lockingFailure() {
+        return new ObjectOptimisticLockingFailureException(Chat.class, "id");
+    }
+
+    @Nested
+    @DisplayName("verifyVersion method")
+    class VerifyVersionMethodTest {
+        @Test
+        @DisplayName("throws CONFLICT when the expected version is not the current one")
+        void throwsConflictWhenTheExpectedVersionIsNotTheCurrentOne() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> OptimisticUpdates.verifyVersion(1L, 2));
+            assertEquals(CONFLICT, serviceException.getStatusCode());
+        }
+
+        @Test
+        @DisplayName("passes when the version is not expected or is the current one")
+        void passesWhenTheVersionIsNotExpectedOrIsTheCurrentOne() {
+            assertDoesNotThrow(() -> OptimisticUpdates.verifyVersion(null, 2));
+            assertDoesNotThrow(() -> OptimisticUpdates.verifyVersion(2L, 2));
+        }
+    }
+
+    @Nested
+    @DisplayName("update method")
+    class UpdateMethodTest {
+        @Test
+        @DisplayName("reruns an unconditional update after a conflict")
+        void rerunsAnUnconditionalUpdateAfterAConflict() {
+            AtomicInteger attempts = new AtomicInteger();
+
+            String result = OptimisticUpdates.update(null, () -> {
+                if (attempts.incrementAndGet() < OptimisticUpdates.MAX_ATTEMPTS) {
+                    throw lockingFailure();
+                }
+                return "updated";
+            });
+
+            assertEquals("updated", result);
+            assertEquals(OptimisticUpdates.MAX_ATTEMPTS, attempts.get());
+        }
+
+        @Test
+        @DisplayName("throws CONFLICT when an unconditional update conflicts on every attempt")
+        void throwsConflictWhenAnUnconditionalUpdateConflictsOnEveryAttempt() {
+            AtomicInteger attempts = new AtomicInteger();
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> OptimisticUpdates.update(null, () -> {
+                        attempts.incrementAndGet();
+                        throw lockingFailure();
+                    }));
+            assertEquals(CONFLICT, serviceException.getStatusCode());
+            assertEquals(OptimisticUpdates.MAX_ATTEMPTS, attempts.get());
+        }
+
+        @Test
+        @DisplayName("throws CONFLICT without rerunning a conditional update")
+        void throwsConflictWithoutRerunningAConditionalUpdate() {
+            AtomicInteger attempts = new AtomicInteger();
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> OptimisticUpdates.update(0L, () -> {
+                        attempts.incrementAndGet();
+                        throw lockingFailure();
+                    }));
+            assertEquals(CONFLICT, serviceException.getStatusCode());
+            assertEquals(1, attempts.get());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package pl.mwasyluk.ouroom_server.services.admin;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pl.mwasyluk.ouroom_server.domain.user.AuthProvider;
+import pl.mwasyluk.ouroom_server.domain.user.UserAuthority;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatsPageForm;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
+import pl.mwasyluk.ouroom_server.dto.user.UserDetailsView;
+import pl.mwasyluk.ouroom_server.dto.user.UsersPageForm;
+import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
+
+@ExtendWith(MockitoExtension.class)
+class DefaultAdminServiceTest {
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ChatRepository chatRepository;
+
+    private DefaultAdminService adminService;
+
+    @BeforeEach
+    void setUp() {
+        adminService = new DefaultAdminService(userRepository, chatRepository, new ObjectMapper());
+    }
+
+    private static UserDetailsView userView() {
+        return new UserDetailsView(UUID.randomUUID(), "mock", List.of(UserAuthority.USER), AuthProvider.LOCAL,
+                true, true, true, true, null, null, null);
+    }
+
+    private static List<ChatPresentableView> chatViews(int amount) {
+        return IntStream.range(0, amount)
+                .mapToObj(i -> new ChatPresentableView(UUID.randomUUID(), "chat " + i, null, 0))
+                .toList();
+    }
+
+    @Nested
+    @DisplayName("readUsersPage method")
+    class ReadUsersPageMethod {
+        @Test
+        @DisplayName("throws UNPROCESSABLE_ENTITY when the limit exceeds the maximum")
+        void throwsUnprocessableEntityWhenTheLimitExceedsTheMaximum() {
+            UsersPageForm form = new UsersPageForm();
+            form.setLimit(UsersPageForm.MAX_LIMIT + 1);
+
+            ServiceException exception = assertThrows(ServiceException.class, () -> adminService.readUsersPage(form));
+            assertEquals(UNPROCESSABLE_ENTITY, exception.getStatusCode());
+        }
+
+        @Test
+        @DisplayName("throws UNPROCESSABLE_ENTITY when the cursor is not an ID")
+        void throwsUnprocessableEntityWhenTheCursorIsNotAnId() {
+            UsersPageForm form = new UsersPageForm();
+            form.setAfter("invalid");
+
+            ServiceException exception = assertThrows(ServiceException.class, () -> adminService.readUsersPage(form));
+            assertEquals(UNPROCESSABLE_ENTITY, exception.getStatusCode());
+        }
+
+        @Test
+        @DisplayName("passes the filters and returns the ID of the last user as the next cursor")
+        void passesTheFiltersAndReturnsTheIdOfTheLastUserAsTheNextCursor() {
+            UUID after = UUID.randomUUID();
+            UsersPageForm form = new UsersPageForm();
+            form.setAfter(after.toString());
+            form.setLimit(2);
+            form.setEnabled(true);
+            form.setAuthority(UserAuthority.ADMIN);
+            List<UserDetailsView> rows = List.of(userView(), userView(), userView());
+            when(userRepository.findDetailsAfter(after, true, null, UserAuthority.ADMIN, Limit.of(3)))
+                    .thenReturn(rows);
+
+            PageView<UserDetailsView> page = adminService.readUsersPage(form);
+
+            assertEquals(rows.subList(0, 2), page.content());
+            assertEquals(rows.get(1).userId().toString(), page.nextCursor());
+        }
+    }
+
+    @Nested
+    @DisplayName("readChatsPage method")
+    class ReadChatsPageMethod {
+        @Test
+        @DisplayName("returns no next cursor when the last page is read")
+        void returnsNoNextCursorWhenTheLastPageIsRead() {
+            List<ChatPresentableView> rows = chatViews(2);
+            when(chatRepository.findAllPresentables(Limit.of(ChatsPageForm.DEFAULT_LIMIT + 1))).thenReturn(rows);
+
+            PageView<ChatPresentableView> page = adminService.readChatsPage(new ChatsPageForm());
+
+            assertEquals(rows, page.content());
+            assertNull(page.nextCursor());
+        }
+    }
+
+    @Nested
+    @DisplayName("exportChats method")
+    class ExportChatsMethod {
+        @BeforeEach
+        void setUp() {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        }
+
+        @AfterEach
+        void tearDown() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        @Test
+        @DisplayName("writes all chats as lines reading them in batches")
+        void writesAllChatsAsLinesReadingThemInBatches() throws Exception {
+            List<ChatPresentableView> first = chatViews(DefaultAdminService.EXPORT_BATCH_SIZE);
+            List<ChatPresentableView> second = chatViews(1);
+            UUID lastOfFirst = first.get(first.size() - 1).id();
+            when(chatRepository.findAllPresentables(Limit.of(DefaultAdminService.EXPORT_BATCH_SIZE)))
+                    .thenReturn(first);
+            when(chatRepository.findAllPresentablesAfter(lastOfFirst, Limit.of(DefaultAdminService.EXPORT_BATCH_SIZE)))
+                    .thenReturn(second);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            adminService.exportChats().writeTo(outputStream);
+
+            List<String> lines = outputStream.toString(StandardCharsets.UTF_8).lines().toList();
+            List<ChatPresentableView> all = new ArrayList<>(first);
+            all.addAll(second);
+            assertEquals(all.size(), lines.size());
+            ObjectMapper objectMapper = new ObjectMapper();
+            assertEquals(all.get(all.size() - 1),
+                    objectMapper.readValue(lines.get(lines.size() - 1), ChatPresentableView.class));
+            verify(chatRepository).findAllPresentablesAfter(lastOfFirst,
+                    Limit.of(DefaultAdminService.EXPORT_BATCH_SIZE));
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package pl.mwasyluk.ouroom_server.services.chat;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatDetailsView;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+import pl.mwasyluk.ouroom_server.repos.UserRepository;
+import pl.mwasyluk.ouroom_server.services.sendable.SendableArchive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@Import({ChatInbox.class, SendableArchive.class, JacksonAutoConfiguration.class})
+class ChatInboxTest {
+    private final User owner = new User("owner", "mock");
+    private final User member = new User("member", "mock");
+    private final Chat chat = new Chat(owner);
+    private final ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    private long lastSequence;
+
+    @Autowired
+    private ChatInbox chatInbox;
+    @Autowired
+    private ChatRepository chatRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private SendableRepository sendableRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private ChatSendable saveSendable(User creator, ZonedDateTime createdAt) {
+        ChatSendable sendable = new ChatSendable(creator, "text");
+        sendable.setContainer(chat);
+        ReflectionTestUtils.setField(sendable, "createdAt", createdAt);
+        return sendableRepository.saveAndFlush(numbered(sendable));
+    }
+
+    private ChatDetailsView detailsOf(User user) {
+        return chatRepository.findDetailsById(chat.getId(), user.getId()).orElseThrow();
+    }
+
+    private List<ChatInboxView> inboxOf(User user) {
+        return chatRepository.findInboxByUserId(user.getId(), Limit.of(10));
+    }
+
+    @BeforeEach
+    void setUp() {
+        chat.addMember(member, Set.of());
+        userRepository.save(owner);
+        userRepository.save(member);
+        chatRepository.saveAndFlush(chat);
+    }
+
+    // numbered as by SendableSequences, so the sendables do not collide on the unique numbers of their containers
+    private ChatSendable numbered(ChatSendable sendable) {
+        sendable.setSequence(++lastSequence);
+        return sendable;
+    }
+
+    @Nested
+    @DisplayName("previewOf method")
+    class PreviewOfMethodTest {
+        @Test
+        @DisplayName("keeps short messages as they are")
+        void keepsShortMessagesAsTheyAre() {
+            assertEquals("text", ChatInbox.previewOf("text"));
+            assertNull(ChatInbox.previewOf(null));
+        }
+
+        @Test
+        @DisplayName("cuts long messages without splitting surrogate pairs")
+        void cutsLongMessagesWithoutSplittingSurrogatePairs() {
+            String message = "a".repeat(Chat.PREVIEW_LENGTH - 1) + "\uD83D\uDE00" + "b";
+
+            String preview = ChatInbox.previewOf(message);
+
+            assertEquals("a".repeat(Chat.PREVIEW_LENGTH - 1) + "\u2026", preview);
+        }
+    }
+
+    @Nested
+    @DisplayName("sendableAdded, sendableChanged and sendableRemoved methods")
+    class SendableMethodsTest {
+        @Test
+        @DisplayName("counts the sendable as unread for members other than its creator")
+        void countsTheSendableAsUnreadForMembersOtherThanItsCreator() {
+            chatInbox.sendableAdded(new SendableView(saveSendable(owner, now)));
+
+            assertEquals(1, detailsOf(owner).sendablesAmount());
+            assertEquals(0, detailsOf(owner).unreadAmount());
+            assertEquals(1, detailsOf(member).unreadAmount());
+        }
+
+        @Test
+        @DisplayName("moves the preview and the last activities to the newest sendable only")
+        void movesThePreviewAndTheLastActivitiesToTheNewestSendableOnly() {
+            ChatSendable newest = saveSendable(owner, now.plusMinutes(1));
+            chatInbox.sendableAdded(new SendableView(newest));
+            chatInbox.sendableAdded(new SendableView(saveSendable(member, now)));
+
+            ChatInboxView row = inboxOf(owner).get(0);
+            assertEquals(newest.getMessage(), row.lastSendablePreview());
+            assertEquals(newest.getCreatedAt().toInstant(), row.lastSendableAt().toInstant());
+            assertEquals(newest.getCreatedAt().toInstant(), row.lastActivityAt().toInstant());
+            assertEquals(1, row.unreadAmount());
+        }
+
+        @Test
+        @DisplayName("updates the preview when the newest sendable is changed")
+        void updatesThePreviewWhenTheNewestSendableIsChanged() {
+            ChatSendable sendable = saveSendable(owner, now);
+            chatInbox.sendableAdded(new SendableView(sendable));
+            sendable.updateMessage("changed");
+
+            chatInbox.sendableChanged(new SendableView(sendableRepository.saveAndFlush(sendable)));
+
+            assertEquals("changed", inboxOf(owner).get(0).lastSendablePreview());
+        }
+
+        @Test
+        @DisplayName("falls back to the preceding sendable when the newest one is removed")
+        void fallsBackToThePrecedingSendableWhenTheNewestOneIsRemoved() {
+            ChatSendable preceding = saveSendable(owner, now.minusMinutes(1));
+            chatInbox.sendableAdded(new SendableView(preceding));
+            ChatSendable newest = saveSendable(owner, now);
+            chatInbox.sendableAdded(new SendableView(newest));
+            sendableRepository.deleteById(newest.getId());
+            sendableRepository.flush();
+
+            chatInbox.sendableRemoved(new SendableView(newest));
+
+            ChatInboxView row = inboxOf(member).get(0);
+            assertEquals(preceding.getMessage(), row.lastSendablePreview());
+            assertEquals(preceding.getCreatedAt().toInstant(), row.lastSendableAt().toInstant());
+            assertEquals(1, row.unreadAmount());
+            assertEquals(1, detailsOf(member).sendablesAmount());
+        }
+
+        @Test
+        @DisplayName("does not decrement unread amount of members who have read the sendable")
+        void doesNotDecrementUnreadAmountOfMembersWhoHaveReadTheSendable() {
+            ChatSendable read = saveSendable(owner, now.minusMinutes(1));
+            chatInbox.sendableAdded(new SendableView(read));
+            chatInbox.sendableAdded(new SendableView(saveSendable(owner, now)));
+            memberRepository.advanceReadUpTo(member.getId(), chat.getId(), now.minusMinutes(1), read.getSequence());
+
+            chatInbox.sendableRemoved(new SendableView(read));
+
+            assertEquals(1, detailsOf(member).sendablesAmount());
+            assertEquals(1, detailsOf(member).unreadAmount());
+        }
+    }
+
+    @Nested
+    @DisplayName("sendablesRemoved method")
+    class SendablesRemovedMethodTest {
+        @Test
+        @DisplayName("recounts the amounts and falls back to the newest remaining sendable")
+        void recountsTheAmountsAndFallsBackToTheNewestRemainingSendable() {
+            ChatSendable remaining = saveSendable(owner, now.minusMinutes(2));
+            ChatSendable removed1 = saveSendable(owner, now.minusMinutes(1));
+            ChatSendable removed2 = saveSendable(owner, now);
+            for (ChatSendable sendable : List.of(remaining, removed1, removed2)) {
+                chatInbox.sendableAdded(new SendableView(sendable));
+            }
+            List<UUID> removedIds = List.of(removed1.getId(), removed2.getId());
+            sendableRepository.deleteAllByIdIn(removedIds);
+
+            chatInbox.sendablesRemoved(chat.getId(), removedIds);
+
+            ChatInboxView row = inboxOf(member).get(0);
+            assertEquals(remaining.getCreatedAt().toInstant(), row.lastSendableAt().toInstant());
+            assertEquals(1, row.unreadAmount());
+            assertEquals(1, detailsOf(member).sendablesAmount());
+        }
+
+        @Test
+        @DisplayName("keeps the preview when the newest sendable remains")
+        void keepsThePreviewWhenTheNewestSendableRemains() {
+            ChatSendable removed = saveSendable(owner, now.minusMinutes(1));
+            ChatSendable newest = saveSendable(owner, now);
+            chatInbox.sendableAdded(new SendableView(removed));
+            chatInbox.sendableAdded(new SendableView(newest));
+            sendableRepository.deleteAllByIdIn(List.of(removed.getId()));
+
+            chatInbox.sendablesRemoved(chat.getId(), List.of(removed.getId()));
+
+            ChatInboxView row = inboxOf(member).get(0);
+            assertEquals(newest.getCreatedAt().toInstant(), row.lastSendableAt().toInstant());
+            assertEquals(1, row.unreadAmount());
+        }
+    }
+
+    @Nested
+    @DisplayName("read watermark")
+    class ReadWatermarkTest {
+        @Test
+        @DisplayName("derives unread amount from the sendables after the read watermark")
+        void derivesUnreadAmountFromTheSendablesAfterTheReadWatermark() {
+            ChatSendable read = saveSendable(owner, now.minusMinutes(2));
+            chatInbox.sendableAdded(new SendableView(read));
+            chatInbox.sendableAdded(new SendableView(saveSendable(owner, now.minusMinutes(1))));
+            chatInbox.sendableAdded(new SendableView(saveSendable(owner, now)));
+
+            memberRepository.advanceReadUpTo(member.getId(), chat.getId(), read.getCreatedAt(), read.getSequence());
+
+            assertEquals(2, detailsOf(member).unreadAmount());
+            assertEquals(2, inboxOf(member).get(0).unreadAmount());
+        }
+
+        @Test
+        @DisplayName("counts nothing up to the own sendable of the member as unread")
+        void countsNothingUpToTheOwnSendableOfTheMemberAsUnread() {
+            chatInbox.sendableAdded(new SendableView(saveSendable(owner, now.minusMinutes(2))));
+            chatInbox.sendableAdded(new SendableView(saveSendable(owner, now.minusMinutes(1))));
+            chatInbox.sendableAdded(new SendableView(saveSendable(member, now)));
+
+            assertEquals(0, detailsOf(member).unreadAmount());
+
+            chatInbox.sendableAdded(new SendableView(saveSendable(owner, now)));
+
+            assertEquals(1, detailsOf(member).unreadAmount());
+        }
+    }
+
+    @Nested
+    @DisplayName("membersAdded method")
+    class MembersAddedMethodTest {
+        @Test
+        @DisplayName("counts the whole history as unread for new members")
+        void countsTheWholeHistoryAsUnreadForNewMembers() {
+            chatInbox.sendableAdded(new SendableView(saveSendable(owner, now.minusMinutes(1))));
+            chatInbox.sendableAdded(new SendableView(saveSendable(owner, now)));
+
+            chatInbox.membersAdded(chat.getId(), Set.of(member.getId()));
+
+            assertEquals(3, detailsOf(member).membersAmount());
+            assertEquals(2, detailsOf(member).unreadAmount());
+        }
+    }
+
+    @Nested
+    @DisplayName("repair method")
+    class RepairMethodTest {
+        @Test
+        @DisplayName("recounts only drifted counters")
+        void recountsOnlyDriftedCounters() {
+            saveSendable(owner, now.minusMinutes(1));
+            saveSendable(owner, now);
+            chatRepository.addToMembersAmount(chat.getId(), 5);
+
+            // both amounts and the highest sequence number of the chat
+            assertEquals(3, chatInbox.repair());
+            assertEquals(0, chatInbox.repair());
+
+            assertEquals(2, detailsOf(member).membersAmount());
+            assertEquals(2, detailsOf(member).sendablesAmount());
+            assertEquals(2, chatRepository.findLastSequenceById(chat.getId()).orElseThrow());
+            assertEquals(2, detailsOf(member).unreadAmount());
+        }
+    }
+}
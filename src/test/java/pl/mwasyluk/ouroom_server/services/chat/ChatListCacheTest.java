@@ -0,0 +1,126 @@
+package pl.mwasyluk.ouroom_server.services.chat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ChatListCacheTest {
+    private final UUID userId = UUID.randomUUID();
+    private final UUID otherUserId = UUID.randomUUID();
+    private ChatListCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ChatListCache(2);
+    }
+
+    private ChatPresentableView chatView(String name) {
+        return new ChatPresentableView(UUID.randomUUID(), name, null, null, 0);
+    }
+
+    @Nested
+    @DisplayName("read method")
+    class ReadMethodTest {
+        @Test
+        @DisplayName("returns null and counts a miss when the list was not filled")
+        void returnsNullAndCountsAMissWhenTheListWasNotFilled() {
+            assertNull(cache.read(userId));
+            assertEquals(1, cache.getMisses());
+            assertEquals(0, cache.getHitRatio());
+        }
+
+        @Test
+        @DisplayName("returns the filled chats and counts a hit")
+        void returnsTheFilledChatsAndCountsAHit() {
+            List<ChatPresentableView> chats = List.of(chatView("first"), chatView("second"));
+            cache.fill(userId, cache.currentStamp(), chats);
+
+            assertEquals(chats, cache.read(userId));
+            assertNull(cache.read(otherUserId));
+            assertEquals(1, cache.getHits());
+            assertEquals(0.5, cache.getHitRatio());
+        }
+    }
+
+    @Nested
+    @DisplayName("fill method")
+    class FillMethodTest {
+        @Test
+        @DisplayName("ignores the list read before an eviction of its user")
+        void ignoresTheListReadBeforeAnEvictionOfItsUser() {
+            long stamp = cache.currentStamp();
+            cache.evictUsers(Set.of(userId));
+
+            cache.fill(userId, stamp, List.of(chatView("stale")));
+
+            assertNull(cache.read(userId));
+        }
+
+        @Test
+        @DisplayName("ignores the list read before an eviction of any of its chats")
+        void ignoresTheListReadBeforeAnEvictionOfAnyOfItsChats() {
+            ChatPresentableView changed = chatView("changed");
+            long stamp = cache.currentStamp();
+            cache.evictChat(changed.id());
+
+            cache.fill(userId, stamp, List.of(chatView("unchanged"), changed));
+
+            assertNull(cache.read(userId));
+        }
+
+        @Test
+        @DisplayName("caches the list read before an eviction of another user")
+        void cachesTheListReadBeforeAnEvictionOfAnotherUser() {
+            List<ChatPresentableView> chats = List.of(chatView("first"));
+            long stamp = cache.currentStamp();
+            cache.evictUsers(Set.of(otherUserId));
+
+            cache.fill(userId, stamp, chats);
+
+            assertEquals(chats, cache.read(userId));
+        }
+
+        @Test
+        @DisplayName("evicts the least recently read list when the limit is exceeded")
+        void evictsTheLeastRecentlyReadListWhenTheLimitIsExceeded() {
+            UUID thirdUserId = UUID.randomUUID();
+            cache.fill(userId, cache.currentStamp(), List.of());
+            cache.fill(otherUserId, cache.currentStamp(), List.of());
+            cache.read(userId);
+
+            cache.fill(thirdUserId, cache.currentStamp(), List.of());
+
+            assertEquals(2, cache.getEntries());
+            assertNotNull(cache.read(userId));
+            assertNull(cache.read(otherUserId));
+        }
+    }
+
+    @Nested
+    @DisplayName("evictChat method")
+    class EvictChatMethodTest {
+        @Test
+        @DisplayName("evicts the lists of every user containing the chat")
+        void evictsTheListsOfEveryUserContainingTheChat() {
+            ChatPresentableView shared = chatView("shared");
+            cache.fill(userId, cache.currentStamp(), List.of(shared));
+            cache.fill(otherUserId, cache.currentStamp(), List.of(chatView("other")));
+
+            cache.evictChat(shared.id());
+
+            assertNull(cache.read(userId));
+            assertNotNull(cache.read(otherUserId));
+        }
+    }
+}
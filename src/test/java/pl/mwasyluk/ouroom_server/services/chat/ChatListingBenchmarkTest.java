@@ -0,0 +1,104 @@
+package pl.mwasyluk.ouroom_server.services.chat;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.media.Image;
+import pl.mwasyluk.ouroom_server.domain.media.Media;
+import pl.mwasyluk.ouroom_server.domain.media.source.DataSource;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static pl.mwasyluk.ouroom_server.domain.media.source.DataSourceTestUtil.JPEG_BYTES;
+
+/**
+ Measures the heap allocated and the time taken by listing the chats of a user (as {@code GET /chats} does) when all
+ of them have images, with the image content left unloaded and with the content read as well, as it was when the
+ payload was a column of the Media.
+ <br> Run with {@code -Dbenchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest
+class ChatListingBenchmarkTest {
+    private static final int CHATS = 500;
+    private static final int IMAGE_SIZE = 64 * 1024;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private ChatRepository chatRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private User saveChatsWithImages() {
+        // a JPEG header followed by padding, so every image is recognized and has the size of a typical avatar
+        byte[] imageBytes = Arrays.copyOf(JPEG_BYTES, Math.max(IMAGE_SIZE, JPEG_BYTES.length));
+        User owner = userRepository.save(new User("bench", "bench"));
+        for (int i = 0; i < CHATS; i++) {
+            Chat chat = new Chat(owner);
+            chat.setImage((Image) Media.of(DataSource.of(imageBytes)));
+            chatRepository.save(chat);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return owner;
+    }
+
+    private String measure(User owner, Function<Chat, ChatPresentableView> mapper) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocated = 0;
+        long elapsed = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            List<ChatPresentableView> views = chatRepository.findAllByUserId(owner.getId()).stream()
+                    .map(mapper)
+                    .toList();
+            elapsed += System.nanoTime() - start;
+            allocated += threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            assertEquals(CHATS, views.size());
+            entityManager.clear();
+        }
+        return String.format("%.1f MB, %.1f ms", allocated / ROUNDS / 1024.0 / 1024.0,
+                elapsed / ROUNDS / 1_000_000.0);
+    }
+
+    @Test
+    void comparesListingOfChatsWithAndWithoutImageContent() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        User owner = saveChatsWithImages();
+
+        Function<Chat, ChatPresentableView> metadataOnly = ChatPresentableView::new;
+        Function<Chat, ChatPresentableView> withContent = chat -> {
+            chat.getImage().getSource().getData();
+            return new ChatPresentableView(chat);
+        };
+
+        // warm-up of both paths
+        measure(owner, metadataOnly);
+        measure(owner, withContent);
+
+        log.info("Listing {} chats with {} KB images - metadata only: {}, with content: {}",
+                CHATS, IMAGE_SIZE / 1024, measure(owner, metadataOnly), measure(owner, withContent));
+        RequestContextHolder.resetRequestAttributes();
+    }
+}
@@ -0,0 +1,238 @@
+package pl.mwasyluk.ouroom_server.services.chat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.media.Image;
+import pl.mwasyluk.ouroom_server.domain.media.Media;
+import pl.mwasyluk.ouroom_server.domain.media.source.DataSource;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChange;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChangeType;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.MediaRepository;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableArchiveKeyRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableArchiveRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableChangeRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+import pl.mwasyluk.ouroom_server.repos.UserRepository;
+import pl.mwasyluk.ouroom_server.services.MemberPrivilegesCache;
+import pl.mwasyluk.ouroom_server.services.sendable.ChatMailboxes;
+import pl.mwasyluk.ouroom_server.services.sendable.PinnedSendables;
+import pl.mwasyluk.ouroom_server.services.sendable.RecentSendablesCache;
+import pl.mwasyluk.ouroom_server.services.sendable.SendableArchive;
+import pl.mwasyluk.ouroom_server.services.sendable.SendableSearchIndex;
+import pl.mwasyluk.ouroom_server.services.sendable.SendableWatermarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static pl.mwasyluk.ouroom_server.domain.media.source.DataSourceTestUtil.JPEG_BYTES;
+
+@DataJpaTest
+@Import({SendableArchive.class, JacksonAutoConfiguration.class})
+class ChatPurgerTest {
+    private final User mockUser = new User("mock", "mock");
+    private final User mockUser2 = new User("mock2", "mock");
+    private final Chat mockChat = new Chat(mockUser);
+    private long lastSequence;
+
+    @Autowired
+    private ChatRepository chatRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private SendableRepository sendableRepository;
+    @Autowired
+    private SendableChangeRepository sendableChangeRepository;
+    @Autowired
+    private SendableArchiveRepository sendableArchiveRepository;
+    @Autowired
+    private SendableArchiveKeyRepository sendableArchiveKeyRepository;
+    @Autowired
+    private MediaRepository mediaRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private SendableArchive sendableArchive;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManager entityManager;
+
+    private RecentSendablesCache recentSendablesCache;
+    private SendableSearchIndex sendableSearchIndex;
+    private PinnedSendables pinnedSendables;
+    private ChatMailboxes chatMailboxes;
+    private MemberPrivilegesCache memberPrivilegesCache;
+    private TypingIndicators typingIndicators;
+    private SendableWatermarks sendableWatermarks;
+    private ChatPurger chatPurger;
+
+    // a chat with an image, two members, five sendables with their change log and an archived segment with a key
+    @BeforeEach
+    void setUp() {
+        recentSendablesCache = Mockito.mock(RecentSendablesCache.class);
+        sendableSearchIndex = Mockito.mock(SendableSearchIndex.class);
+        pinnedSendables = Mockito.mock(PinnedSendables.class);
+        chatMailboxes = Mockito.mock(ChatMailboxes.class);
+        memberPrivilegesCache = Mockito.mock(MemberPrivilegesCache.class);
+        typingIndicators = Mockito.mock(TypingIndicators.class);
+        sendableWatermarks = Mockito.mock(SendableWatermarks.class);
+        chatPurger = new ChatPurger(chatRepository, memberRepository, sendableRepository, sendableChangeRepository,
+                sendableArchiveRepository, sendableArchiveKeyRepository, sendableArchive, mediaRepository,
+                recentSendablesCache, sendableSearchIndex, pinnedSendables, chatMailboxes, memberPrivilegesCache,
+                typingIndicators, sendableWatermarks, transactionManager, true, 2, 10);
+
+        userRepository.save(mockUser);
+        userRepository.save(mockUser2);
+        mockChat.addMember(mockUser2, Set.of());
+        mockChat.setImage((Image) Media.of(DataSource.of(JPEG_BYTES)));
+        chatRepository.save(mockChat);
+        for (int i = 0; i < 5; i++) {
+            ChatSendable sendable = new ChatSendable(mockUser, "text " + i);
+            sendable.setContainer(mockChat);
+            sendableRepository.save(numbered(sendable));
+            sendableChangeRepository.save(
+                    new SendableChange(mockChat.getId(), sendable.getId(), SendableChangeType.NEW));
+        }
+        ChatSendable archived = new ChatSendable(mockUser, "archived", UUID.randomUUID());
+        archived.setContainer(mockChat);
+        sendableRepository.saveAndFlush(numbered(archived));
+        sendableArchive.append(mockChat.getId(), List.of(new SendableView(archived)));
+        sendableRepository.deleteAllByIdIn(List.of(archived.getId()));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // numbered as by SendableSequences, so the sendables do not collide on the unique numbers of their containers
+    private ChatSendable numbered(ChatSendable sendable) {
+        sendable.setSequence(++lastSequence);
+        return sendable;
+    }
+
+    @Nested
+    @DisplayName("markDeleted method")
+    class MarkDeletedMethodTest {
+        @Test
+        @DisplayName("marks the chat and removes its members at once")
+        void marksTheChatAndRemovesItsMembersAtOnce() {
+            assertTrue(chatPurger.markDeleted(mockChat.getId()));
+            entityManager.clear();
+
+            assertTrue(chatRepository.findById(mockChat.getId()).orElseThrow().isDeleted());
+            assertTrue(memberRepository.findAllByMembershipId(mockChat.getId()).isEmpty());
+            assertTrue(chatRepository.findAllByUserId(mockUser.getId()).isEmpty());
+            assertEquals(5, sendableRepository.findAllByContainerId(mockChat.getId()).size());
+            verify(chatMailboxes).membersChanged(mockChat.getId());
+            verify(memberPrivilegesCache).invalidateChat(mockChat.getId());
+            verify(typingIndicators).membersChanged(mockChat.getId());
+            verify(sendableWatermarks).membersChanged(mockChat.getId());
+        }
+
+        @Test
+        @DisplayName("returns false when the chat has already been marked")
+        void returnsFalseWhenTheChatHasAlreadyBeenMarked() {
+            chatPurger.markDeleted(mockChat.getId());
+
+            assertFalse(chatPurger.markDeleted(mockChat.getId()));
+        }
+    }
+
+    @Nested
+    @DisplayName("purge method")
+    class PurgeMethodTest {
+        @Test
+        @DisplayName("removes the sendables, change log, archive, image and row of the deleted chat in batches")
+        void removesTheSendablesChangeLogArchiveImageAndRowOfTheDeletedChatInBatches() {
+            chatPurger.markDeleted(mockChat.getId());
+            entityManager.clear();
+            Chat chat = chatRepository.findById(mockChat.getId()).orElseThrow();
+            entityManager.clear();
+
+            assertEquals(1, chatPurger.purge());
+            entityManager.flush();
+            entityManager.clear();
+
+            assertTrue(sendableRepository.findAllByContainerId(mockChat.getId()).isEmpty());
+            assertTrue(sendableChangeRepository
+                    .findRevisionsByContainerId(mockChat.getId(), Limit.unlimited()).isEmpty());
+            assertTrue(sendableArchiveRepository.findIdsByContainerId(mockChat.getId(), Limit.unlimited()).isEmpty());
+            assertFalse(sendableArchive.hasArchived(mockChat.getId()));
+            assertEquals(0, sendableArchiveKeyRepository.count());
+            assertFalse(chatRepository.existsById(mockChat.getId()));
+            assertFalse(mediaRepository.existsById(chat.getImage().getId()));
+            // the chat row is counted along with the sendables, their changes, the archive segment and its key
+            assertEquals(13, chatPurger.getPurgedRows());
+            assertEquals(1, chatPurger.getPurgedChats());
+            assertEquals(0, chatPurger.getPendingChats());
+        }
+
+        @Test
+        @DisplayName("deletes the attachments of the sendables and of the archived sendables")
+        void deletesTheAttachmentsOfTheSendablesAndOfTheArchivedSendables() {
+            Media attachment = mediaRepository.save(Media.of(DataSource.of(JPEG_BYTES)));
+            ChatSendable withAttachment = new ChatSendable(mockUser, null, null, List.of(attachment.getId()));
+            withAttachment.setContainer(mockChat);
+            sendableRepository.save(numbered(withAttachment));
+            Media archivedAttachment = mediaRepository.save(Media.of(DataSource.of(JPEG_BYTES)));
+            ChatSendable archived = new ChatSendable(mockUser, null, null, List.of(archivedAttachment.getId()));
+            archived.setContainer(mockChat);
+            sendableRepository.saveAndFlush(numbered(archived));
+            sendableArchive.append(mockChat.getId(), List.of(new SendableView(archived)));
+            sendableRepository.deleteAllByIdIn(List.of(archived.getId()));
+            chatPurger.markDeleted(mockChat.getId());
+            entityManager.flush();
+            entityManager.clear();
+
+            assertEquals(1, chatPurger.purge());
+            entityManager.flush();
+            entityManager.clear();
+
+            assertFalse(mediaRepository.existsById(attachment.getId()));
+            assertFalse(mediaRepository.existsById(archivedAttachment.getId()));
+        }
+
+        @Test
+        @DisplayName("evicts the purged chat from the caches and the search index")
+        void evictsThePurgedChatFromTheCachesAndTheSearchIndex() {
+            chatPurger.markDeleted(mockChat.getId());
+            entityManager.clear();
+
+            chatPurger.purge();
+
+            verify(recentSendablesCache).evict(mockChat.getId());
+            verify(sendableSearchIndex).evict(mockChat.getId());
+            verify(pinnedSendables).evict(mockChat.getId());
+        }
+
+        @Test
+        @DisplayName("leaves the chats which have not been deleted")
+        void leavesTheChatsWhichHaveNotBeenDeleted() {
+            assertEquals(0, chatPurger.purge());
+            entityManager.clear();
+
+            assertTrue(chatRepository.existsById(mockChat.getId()));
+            assertEquals(5, sendableRepository.findAllByContainerId(mockChat.getId()).size());
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package pl.mwasyluk.ouroom_server.services.chat;
 
 import java.io.IOException;
+import java.time.ZonedDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -31,8 +36,12 @@ import pl.mwasyluk.ouroom_server.domain.user.User;
 import pl.mwasyluk.ouroom_server.domain.user.UserAuthority;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatDetailsView;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatForm;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxPageForm;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatInboxView;
 import pl.mwasyluk.ouroom_server.dto.chat.ChatPresentableView;
 import pl.mwasyluk.ouroom_server.dto.notification.NotificationView;
+import pl.mwasyluk.ouroom_server.dto.page.KeysetCursor;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
 import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
 import pl.mwasyluk.ouroom_server.exceptions.UnexpectedStateException;
 import pl.mwasyluk.ouroom_server.mocks.WithMockCustomUser;
@@ -47,8 +56,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static pl.mwasyluk.ouroom_server.mocks.WithUserDetailsSecurityContextFactory.pullPrincipalUser;
@@ -62,6 +74,10 @@ class DefaultChatServiceTest {
     private MemberValidator memberValidator;
     @Mock
     private NotificationTemplate notificationTemplate;
+    @Mock
+    private ChatPurger chatPurger;
+    @Mock
+    private ChatListCache chatListCache;
 
     private DefaultChatService defaultChatService;
     private User mockUser;
@@ -70,7 +86,8 @@ class DefaultChatServiceTest {
 
     @BeforeEach
     void setUp() {
-        defaultChatService = new DefaultChatService(chatRepository, memberValidator, notificationTemplate);
+        defaultChatService = new DefaultChatService(chatRepository, memberValidator, notificationTemplate,
+                chatPurger, chatListCache);
         mockUser = new User("test", "pass", Set.of(UserAuthority.USER));
         mockJpegImage = (Image) Media.of(DataSource.of(DataSourceTestUtil.JPEG_BYTES));
         mockPngImageFile = new MockMultipartFile("mock_image.png", DataSourceTestUtil.PNG_BYTES);
@@ -226,6 +243,7 @@ class DefaultChatServiceTest {
         @WithMockCustomUser
         @DisplayName("returns empty collection when user is authenticated and has no chats")
         void returnsEmptyCollectionWhenUserIsAuthenticatedAndHasNoChats() {
+            when(chatListCache.read(any())).thenReturn(null);
             when(chatRepository.findAllByUserId(any())).thenReturn(Set.of());
 
             Collection<ChatPresentableView> chatPresentableViews =
@@ -240,11 +258,105 @@ class DefaultChatServiceTest {
             User principal = pullPrincipalUser();
             Chat chat1 = new Chat(principal);
             Chat chat2 = new Chat(principal);
+            when(chatListCache.read(principal.getId())).thenReturn(null);
             when(chatRepository.findAllByUserId(any())).thenReturn(Set.of(chat1, chat2));
 
             Collection<ChatPresentableView> chatPresentableViews =
                     assertDoesNotThrow(() -> defaultChatService.readAllWithPrincipal());
             assertEquals(2, chatPresentableViews.size());
+            verify(chatListCache).fill(eq(principal.getId()), anyLong(), any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("returns cached chats without reaching the repository")
+        void returnsCachedChatsWithoutReachingTheRepository() {
+            User principal = pullPrincipalUser();
+            List<ChatPresentableView> cached = List.of(new ChatPresentableView(Chat.mockOf(UUID.randomUUID())));
+            when(chatListCache.read(principal.getId())).thenReturn(cached);
+
+            assertEquals(cached, defaultChatService.readAllWithPrincipal());
+            verify(chatRepository, never()).findAllByUserId(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("readInboxOfPrincipal method")
+    class ReadInboxOfPrincipalMethod {
+        private ChatInboxView inboxRowAt(int minute) {
+            ZonedDateTime activityAt = ZonedDateTime.now().plusMinutes(minute);
+            return new ChatInboxView(UUID.randomUUID(), null, null, 0, "m", activityAt, 0, activityAt);
+        }
+
+        @Test
+        @DisplayName("throws UNAUTHORIZED when user is not authenticated")
+        void throwsUnauthorizedWhenUserIsNotAuthenticated() {
+            ServiceException serviceException = assertThrows(ServiceException.class,
+                    () -> defaultChatService.readInboxOfPrincipal(new ChatInboxPageForm()));
+            assertEquals(HttpStatus.UNAUTHORIZED, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when limit is out of range")
+        void throwsUnprocessableEntityWhenLimitIsOutOfRange() {
+            ChatInboxPageForm pageForm = new ChatInboxPageForm();
+            pageForm.setLimit(ChatInboxPageForm.MAX_LIMIT + 1);
+
+            ServiceException serviceException = assertThrows(ServiceException.class,
+                    () -> defaultChatService.readInboxOfPrincipal(pageForm));
+            assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when cursor is not valid")
+        void throwsUnprocessableEntityWhenCursorIsNotValid() {
+            ChatInboxPageForm pageForm = new ChatInboxPageForm();
+            pageForm.setBefore("invalid");
+
+            ServiceException serviceException = assertThrows(ServiceException.class,
+                    () -> defaultChatService.readInboxOfPrincipal(pageForm));
+            assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("returns a cursor of the last row when more rows exist")
+        void returnsACursorOfTheLastRowWhenMoreRowsExist() {
+            User principal = pullPrincipalUser();
+            ChatInboxPageForm pageForm = new ChatInboxPageForm();
+            pageForm.setLimit(2);
+            List<ChatInboxView> rows = List.of(inboxRowAt(3), inboxRowAt(2), inboxRowAt(1));
+
+            when(chatRepository.findInboxByUserId(principal.getId(), Limit.of(3))).thenReturn(rows);
+
+            PageView<ChatInboxView> page = defaultChatService.readInboxOfPrincipal(pageForm);
+
+            assertEquals(rows.subList(0, 2), page.content());
+            KeysetCursor cursor = KeysetCursor.decode(page.nextCursor());
+            assertEquals(rows.get(1).chat().id(), cursor.id());
+            assertEquals(rows.get(1).lastActivityAt().toInstant(), cursor.timestamp().toInstant());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("continues the inbox before the given cursor")
+        void continuesTheInboxBeforeTheGivenCursor() {
+            User principal = pullPrincipalUser();
+            ChatInboxView row = inboxRowAt(1);
+            KeysetCursor cursor = new KeysetCursor(row.lastActivityAt(), UUID.randomUUID());
+            ChatInboxPageForm pageForm = new ChatInboxPageForm();
+            pageForm.setBefore(cursor.encode());
+
+            when(chatRepository.findInboxByUserIdBefore(eq(principal.getId()), any(), eq(cursor.id()),
+                    eq(Limit.of(ChatInboxPageForm.DEFAULT_LIMIT + 1))))
+                    .thenReturn(List.of(row));
+
+            PageView<ChatInboxView> page = defaultChatService.readInboxOfPrincipal(pageForm);
+
+            assertEquals(List.of(row), page.content());
+            assertNull(page.nextCursor());
         }
     }
 
@@ -267,14 +379,14 @@ class DefaultChatServiceTest {
             User principal = pullPrincipalUser();
             UUID randomUUID = UUID.randomUUID();
 
-            when(chatRepository.findDetailsById(randomUUID)).thenReturn(Optional.empty());
+            when(chatRepository.findDetailsById(randomUUID, principal.getId())).thenReturn(Optional.empty());
 
             UnexpectedStateException exception =
                     assertThrows(UnexpectedStateException.class, () -> defaultChatService.read(randomUUID));
             assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getStatusCode());
 
             verify(memberValidator).validateAsMember(principal.getId(), randomUUID);
-            verify(chatRepository).findDetailsById(randomUUID);
+            verify(chatRepository).findDetailsById(randomUUID, principal.getId());
         }
 
         @Test
@@ -285,13 +397,14 @@ class DefaultChatServiceTest {
             Chat chat = new Chat(mockUser);
             chat.addMember(principal, Set.of());
 
-            when(chatRepository.findDetailsById(chat.getId())).thenReturn(Optional.of(new ChatDetailsView(chat)));
+            when(chatRepository.findDetailsById(chat.getId(), principal.getId()))
+                    .thenReturn(Optional.of(new ChatDetailsView(chat, 0)));
 
             ChatDetailsView chatDetailsView = assertDoesNotThrow(() -> defaultChatService.read(chat.getId()));
             assertNotNull(chatDetailsView);
 
             verify(memberValidator).validateAsMember(principal.getId(), chat.getId());
-            verify(chatRepository).findDetailsById(chat.getId());
+            verify(chatRepository).findDetailsById(chat.getId(), principal.getId());
         }
     }
 
@@ -422,6 +535,48 @@ class DefaultChatServiceTest {
             assertEquals("CHANGED", argument.getValue().action());
         }
 
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws CONFLICT when the given version is not the current one")
+        void throwsConflictWhenTheGivenVersionIsNotTheCurrentOne() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+
+            ChatForm chatForm = new ChatForm();
+            chatForm.setChatId(chat.getId());
+            chatForm.setVersion(chat.getVersion() + 1);
+
+            whenUserIsAMemberWithManageDetails(principal, chat);
+            when(chatRepository.findById(chatForm.getChatId())).thenReturn(Optional.of(chat));
+
+            ServiceException serviceException =
+                    assertThrows(ServiceException.class, () -> defaultChatService.update(chatForm));
+            assertEquals(HttpStatus.CONFLICT, serviceException.getStatusCode());
+            verify(chatRepository, never()).save(any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("reads and updates the chat again after a concurrent update")
+        void readsAndUpdatesTheChatAgainAfterAConcurrentUpdate() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+
+            ChatForm chatForm = new ChatForm();
+            chatForm.setChatId(chat.getId());
+            chatForm.setName("Test");
+
+            whenUserIsAMemberWithManageDetails(principal, chat);
+            when(chatRepository.findById(chatForm.getChatId())).thenReturn(Optional.of(chat));
+            when(chatRepository.save(any()))
+                    .thenThrow(new ObjectOptimisticLockingFailureException(Chat.class, chat.getId()))
+                    .thenReturn(chat);
+
+            assertDoesNotThrow(() -> defaultChatService.update(chatForm));
+            verify(chatRepository, times(2)).findById(chat.getId());
+            verify(notificationTemplate).notifyAllMembers(eq(chat.getId()), eq(Topic.MEMBERSHIPS), any());
+        }
+
         @Nested
         @DisplayName("for image")
         @SpringBootTest
@@ -588,7 +743,24 @@ class DefaultChatServiceTest {
             when(chatRepository.findById(chat.getId())).thenReturn(Optional.of(chat));
 
             assertDoesNotThrow(() -> defaultChatService.delete(chat.getId()));
-            verify(chatRepository).deleteById(chat.getId());
+            verify(chatPurger).markDeleted(chat.getId());
+            verify(chatRepository, never()).deleteById(any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws NOT_FOUND when chat has already been deleted")
+        void throwsNotFoundWhenChatHasAlreadyBeenDeleted() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            ReflectionTestUtils.setField(chat, "deletedAt", ZonedDateTime.now());
+
+            when(chatRepository.findById(chat.getId())).thenReturn(Optional.of(chat));
+
+            ServiceException serviceException =
+                    assertThrows(ServiceException.class, () -> defaultChatService.delete(chat.getId()));
+            assertEquals(HttpStatus.NOT_FOUND, serviceException.getStatusCode());
+            verify(chatPurger, never()).markDeleted(any());
         }
 
         @Test
@@ -0,0 +1,164 @@
+package pl.mwasyluk.ouroom_server.services.chat;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import pl.mwasyluk.ouroom_server.dto.notification.NotificationView;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.websocket.NotificationTemplate;
+import pl.mwasyluk.ouroom_server.websocket.Topic;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TypingIndicatorsTest {
+    private final UUID chatId = UUID.randomUUID();
+    private final UUID typistId = UUID.randomUUID();
+    private final UUID otherMemberId = UUID.randomUUID();
+    private final AtomicLong clock = new AtomicLong();
+    @Mock
+    private MemberRepository memberRepository;
+    @Mock
+    private NotificationTemplate notificationTemplate;
+
+    private TypingIndicators typingIndicators;
+
+    @BeforeEach
+    void setUp() {
+        typingIndicators = new TypingIndicators(memberRepository, notificationTemplate,
+                Duration.ofSeconds(3), clock::get);
+    }
+
+    private void whenMembers(UUID... userIds) {
+        when(memberRepository.findAllUserIdsByMembershipId(chatId)).thenReturn(Set.of(userIds));
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    @Nested
+    @DisplayName("publish method")
+    class PublishMethodTest {
+        @Test
+        @DisplayName("drops events of users that are not members")
+        void dropsEventsOfUsersThatAreNotMembers() {
+            whenMembers(otherMemberId);
+
+            assertFalse(typingIndicators.publish(typistId, chatId, true));
+            verifyNoInteractions(notificationTemplate);
+        }
+
+        @Test
+        @DisplayName("sends the event to the other members only")
+        void sendsTheEventToTheOtherMembersOnly() {
+            whenMembers(typistId, otherMemberId);
+
+            assertTrue(typingIndicators.publish(typistId, chatId, true));
+
+            ArgumentCaptor<NotificationView> argument = ArgumentCaptor.forClass(NotificationView.class);
+            verify(notificationTemplate).notifyAllUsers(eq(Set.of(otherMemberId)), eq(Topic.TYPING),
+                    argument.capture());
+            assertTrue(argument.getValue().content().contains(typistId.toString()));
+        }
+
+        @Test
+        @DisplayName("coalesces repeated events within the window")
+        void coalescesRepeatedEventsWithinTheWindow() {
+            whenMembers(typistId, otherMemberId);
+
+            assertTrue(typingIndicators.publish(typistId, chatId, true));
+            advance(Duration.ofSeconds(2));
+            assertFalse(typingIndicators.publish(typistId, chatId, true));
+            advance(Duration.ofSeconds(1));
+            assertTrue(typingIndicators.publish(typistId, chatId, true));
+
+            verify(notificationTemplate, times(2)).notifyAllUsers(any(), eq(Topic.TYPING), any());
+        }
+
+        @Test
+        @DisplayName("sends the stop event only after a sent typing event")
+        void sendsTheStopEventOnlyAfterASentTypingEvent() {
+            whenMembers(typistId, otherMemberId);
+
+            assertFalse(typingIndicators.publish(typistId, chatId, false));
+            assertTrue(typingIndicators.publish(typistId, chatId, true));
+            assertTrue(typingIndicators.publish(typistId, chatId, false));
+            // the stop event ends the window
+            assertTrue(typingIndicators.publish(typistId, chatId, true));
+        }
+
+        @Test
+        @DisplayName("reads the members of the chat once until they change")
+        void readsTheMembersOfTheChatOnceUntilTheyChange() {
+            whenMembers(typistId, otherMemberId);
+
+            typingIndicators.publish(typistId, chatId, true);
+            typingIndicators.publish(otherMemberId, chatId, true);
+            typingIndicators.publish(typistId, chatId, false);
+
+            verify(memberRepository, times(1)).findAllUserIdsByMembershipId(chatId);
+        }
+
+        @Test
+        @DisplayName("drops events of members removed after their members have been read")
+        void dropsEventsOfMembersRemovedAfterTheirMembersHaveBeenRead() {
+            whenMembers(typistId, otherMemberId);
+            assertTrue(typingIndicators.publish(typistId, chatId, true));
+            whenMembers(otherMemberId);
+
+            typingIndicators.membersChanged(chatId);
+
+            assertFalse(typingIndicators.publish(typistId, chatId, false));
+            verify(memberRepository, times(2)).findAllUserIdsByMembershipId(chatId);
+        }
+    }
+
+    @Nested
+    @DisplayName("purgeExpired method")
+    class PurgeExpiredMethodTest {
+        @Test
+        @DisplayName("forgets typing members past the window")
+        void forgetsTypingMembersPastTheWindow() {
+            whenMembers(typistId, otherMemberId);
+            typingIndicators.publish(typistId, chatId, true);
+            advance(Duration.ofSeconds(3));
+
+            typingIndicators.purgeExpired();
+
+            assertFalse(typingIndicators.publish(typistId, chatId, false));
+            verify(notificationTemplate, times(1)).notifyAllUsers(any(), eq(Topic.TYPING), any());
+        }
+
+        @Test
+        @DisplayName("forgets the members of chats left without typing members")
+        void forgetsTheMembersOfChatsLeftWithoutTypingMembers() {
+            whenMembers(typistId, otherMemberId);
+            typingIndicators.publish(typistId, chatId, true);
+            advance(Duration.ofSeconds(3));
+
+            typingIndicators.purgeExpired();
+            typingIndicators.publish(typistId, chatId, true);
+
+            verify(memberRepository, times(2)).findAllUserIdsByMembershipId(chatId);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package pl.mwasyluk.ouroom_server.services.media;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,6 +19,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import pl.mwasyluk.ouroom_server.domain.media.Media;
 import pl.mwasyluk.ouroom_server.domain.media.source.DataSource;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
 import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
 import pl.mwasyluk.ouroom_server.mocks.WithMockCustomUser;
 import pl.mwasyluk.ouroom_server.repos.MediaRepository;
@@ -26,12 +29,15 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 import static pl.mwasyluk.ouroom_server.domain.media.source.DataSourceTestUtil.JPEG_BYTES;
+import static pl.mwasyluk.ouroom_server.domain.media.source.DataSourceTestUtil.PNG_BYTES;
 
 @ExtendWith(MockitoExtension.class)
 @SpringJUnitConfig
@@ -44,7 +50,7 @@ class DefaultMediaServiceTest {
 
     @BeforeEach
     void setUp() {
-        mediaService = new DefaultMediaService(mediaRepository);
+        mediaService = new DefaultMediaService(mediaRepository, 2, 8);
         mockMedia = Media.of(DataSource.of(JPEG_BYTES));
     }
 
@@ -65,7 +71,7 @@ class DefaultMediaServiceTest {
         void throwsNotFoundWhenMediaDoesNotExist() {
             UUID mediaId = UUID.randomUUID();
 
-            when(mediaRepository.findById(mediaId)).thenReturn(Optional.empty());
+            when(mediaRepository.findWithContentById(mediaId)).thenReturn(Optional.empty());
 
             ServiceException serviceException =
                     assertThrowsExactly(ServiceException.class, () -> mediaService.read(mediaId));
@@ -78,7 +84,7 @@ class DefaultMediaServiceTest {
         void returnsMediaWhenUserIsAuthenticated() {
             UUID mediaId = UUID.randomUUID();
 
-            when(mediaRepository.findById(mediaId)).thenReturn(Optional.of(mockMedia));
+            when(mediaRepository.findWithContentById(mediaId)).thenReturn(Optional.of(mockMedia));
 
             Media media = assertDoesNotThrow(() -> mediaService.read(mediaId));
             assertEquals(mockMedia, media);
@@ -143,4 +149,60 @@ class DefaultMediaServiceTest {
             assertArrayEquals(JPEG_BYTES, argument.getValue().getSource().getData());
         }
     }
+
+    @Nested
+    @DisplayName("createAll method")
+    class CreateAllMethodTest {
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when too many files are sent")
+        void throwsUnprocessableEntityWhenTooManyFilesAreSent() {
+            List<MultipartFile> files = new ArrayList<>();
+            for (int i = 0; i <= ChatSendable.MAX_ATTACHMENTS; i++) {
+                files.add(new MockMultipartFile("file.jpg", JPEG_BYTES));
+            }
+
+            ServiceException serviceException =
+                    assertThrowsExactly(ServiceException.class, () -> mediaService.createAll(files));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+            verify(mediaRepository, never()).save(any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("saves all files and returns media in the order of the files")
+        void savesAllFilesAndReturnsMediaInTheOrderOfTheFiles() {
+            List<MultipartFile> files = List.of(new MockMultipartFile("file.jpg", JPEG_BYTES),
+                    new MockMultipartFile("file.png", PNG_BYTES), new MockMultipartFile("file.jpg", JPEG_BYTES));
+
+            when(mediaRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            List<Media> media = assertDoesNotThrow(() -> mediaService.createAll(files));
+            assertEquals(3, media.size());
+            assertArrayEquals(JPEG_BYTES, media.get(0).getSource().getData());
+            assertArrayEquals(PNG_BYTES, media.get(1).getSource().getData());
+            assertArrayEquals(JPEG_BYTES, media.get(2).getSource().getData());
+            verify(mediaRepository, times(3)).save(any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("removes the saved media when any file is not valid")
+        void removesTheSavedMediaWhenAnyFileIsNotValid() {
+            List<MultipartFile> files = List.of(new MockMultipartFile("file.jpg", JPEG_BYTES),
+                    new MockMultipartFile("file.png", new byte[]{0x00, 0x01, 0x02, 0x03}),
+                    new MockMultipartFile("file.png", PNG_BYTES));
+
+            when(mediaRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            ServiceException serviceException =
+                    assertThrowsExactly(ServiceException.class, () -> mediaService.createAll(files));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Media>> argument = ArgumentCaptor.forClass(List.class);
+            verify(mediaRepository).deleteAll(argument.capture());
+            assertEquals(2, argument.getValue().size());
+        }
+    }
 }
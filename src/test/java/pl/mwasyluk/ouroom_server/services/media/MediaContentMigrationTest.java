@@ -0,0 +1,108 @@
+package pl.mwasyluk.ouroom_server.services.media;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.converters.DataSourceColumnConverter;
+import pl.mwasyluk.ouroom_server.domain.media.Media;
+import pl.mwasyluk.ouroom_server.domain.media.source.DataSource;
+import pl.mwasyluk.ouroom_server.repos.MediaRepository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static pl.mwasyluk.ouroom_server.domain.media.source.DataSourceTestUtil.JPEG_BYTES;
+
+@DataJpaTest
+@Import(MediaContentMigration.class)
+// the legacy column is added and dropped by DDL, which commits implicitly, so nothing is rolled back
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MediaContentMigrationTest {
+    @Autowired
+    private MediaContentMigration mediaContentMigration;
+    @Autowired
+    private MediaRepository mediaRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // the schema preceding MediaContent, which the schema update could not add the foreign key to
+    @BeforeEach
+    void setUp() {
+        String foreignKeyName = jdbcTemplate.queryForObject("""
+                SELECT constraint_name
+                FROM information_schema.table_constraints
+                WHERE table_name = 'MEDIA' AND constraint_type = 'FOREIGN KEY'
+                """, String.class);
+        jdbcTemplate.execute("ALTER TABLE media DROP CONSTRAINT " + foreignKeyName);
+        jdbcTemplate.execute("ALTER TABLE media ADD COLUMN data_source VARBINARY(1048576)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("ALTER TABLE media DROP COLUMN data_source");
+        jdbcTemplate.update("DELETE FROM media");
+        jdbcTemplate.update("DELETE FROM media_content");
+    }
+
+    // stored as by the Media mapping preceding MediaContent
+    private UUID saveLegacyImage(byte[] bytes) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO media (dtype, id, data_source) VALUES ('Image', ?, ?)",
+                id, new DataSourceColumnConverter().convertToDatabaseColumn(DataSource.of(bytes)));
+        return id;
+    }
+
+    @Nested
+    @DisplayName("migrate method")
+    class MigrateMethodTest {
+        @Test
+        @DisplayName("moves the legacy payload to the content and fills the content type")
+        void movesTheLegacyPayloadToTheContentAndFillsTheContentType() {
+            UUID mediaId = saveLegacyImage(JPEG_BYTES);
+
+            mediaContentMigration.migrate();
+
+            Media media = mediaRepository.findWithContentById(mediaId).orElseThrow();
+            assertEquals(MediaType.IMAGE_JPEG, media.getType());
+            assertArrayEquals(JPEG_BYTES, media.getDataSource().getData());
+            assertNull(jdbcTemplate.queryForObject("SELECT data_source FROM media WHERE id = ?", byte[].class,
+                    mediaId));
+        }
+
+        @Test
+        @DisplayName("adds the foreign key of the contents once every media has its content")
+        void addsTheForeignKeyOfTheContentsOnceEveryMediaHasItsContent() {
+            saveLegacyImage(JPEG_BYTES);
+
+            mediaContentMigration.migrate();
+
+            assertThrows(DataIntegrityViolationException.class, () -> saveLegacyImage(JPEG_BYTES));
+        }
+
+        @Test
+        @DisplayName("leaves the media created with their contents unchanged")
+        void leavesTheMediaCreatedWithTheirContentsUnchanged() {
+            Media media = mediaRepository.save(Media.of(DataSource.of(JPEG_BYTES)));
+
+            mediaContentMigration.migrate();
+
+            Media migrated = mediaRepository.findWithContentById(media.getId()).orElseThrow();
+            assertEquals(MediaType.IMAGE_JPEG, migrated.getType());
+            assertArrayEquals(JPEG_BYTES, migrated.getDataSource().getData());
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -33,7 +34,13 @@ import pl.mwasyluk.ouroom_server.mocks.WithMockCustomUser;
 import pl.mwasyluk.ouroom_server.repos.ChatRepository;
 import pl.mwasyluk.ouroom_server.repos.MemberRepository;
 import pl.mwasyluk.ouroom_server.repos.UserRepository;
+import pl.mwasyluk.ouroom_server.services.MemberPrivilegesCache;
 import pl.mwasyluk.ouroom_server.services.MemberValidator;
+import pl.mwasyluk.ouroom_server.services.chat.ChatInbox;
+import pl.mwasyluk.ouroom_server.services.chat.ChatListCache;
+import pl.mwasyluk.ouroom_server.services.chat.TypingIndicators;
+import pl.mwasyluk.ouroom_server.services.sendable.ChatMailboxes;
+import pl.mwasyluk.ouroom_server.services.sendable.SendableWatermarks;
 import pl.mwasyluk.ouroom_server.websocket.NotificationTemplate;
 import pl.mwasyluk.ouroom_server.websocket.Topic;
 
@@ -45,7 +52,10 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
@@ -68,6 +78,18 @@ class DefaultMemberServiceTest {
     private MemberValidator memberValidator;
     @Mock
     private NotificationTemplate notificationTemplate;
+    @Mock
+    private ChatInbox chatInbox;
+    @Mock
+    private ChatMailboxes chatMailboxes;
+    @Mock
+    private ChatListCache chatListCache;
+    @Mock
+    private MemberPrivilegesCache memberPrivilegesCache;
+    @Mock
+    private TypingIndicators typingIndicators;
+    @Mock
+    private SendableWatermarks sendableWatermarks;
 
     private DefaultMemberService memberService;
     private User mockUser1;
@@ -80,7 +102,8 @@ class DefaultMemberServiceTest {
     @BeforeEach
     void setUp() {
         memberService = new DefaultMemberService(userRepository, memberRepository, chatRepository, memberValidator,
-                notificationTemplate);
+                notificationTemplate, chatInbox, chatMailboxes, chatListCache,
+                memberPrivilegesCache, typingIndicators, sendableWatermarks);
         mockUser1 = new User("test", "pass", Set.of(UserAuthority.USER));
         mockUser2 = new User("test", "pass", Set.of(UserAuthority.USER));
         mockUser3 = new User("test", "pass", Set.of(UserAuthority.USER));
@@ -158,8 +181,8 @@ class DefaultMemberServiceTest {
                     new ChatMember(mockUser3, chat, privileges3));
 
             whenValidAsMember(principal, chat);
-            when(memberRepository.findAllByMembershipId(chat.getId()))
-                    .thenReturn(expectedMembersSet);
+            when(memberRepository.findAllViewsByMembershipId(chat.getId()))
+                    .thenReturn(expectedMembersSet.stream().map(MemberPresentableView::new).toList());
 
             Collection<MemberPresentableView> memberPresentableViews =
                     assertDoesNotThrow(() -> memberService.readAllInMembership(chat.getId()));
@@ -358,6 +381,7 @@ class DefaultMemberServiceTest {
                     .map(ChatMember::getPrivileges)
                     .toList()
                     .containsAll(List.of(EnumSet.copyOf(privileges1), EnumSet.copyOf(privileges2))));
+            verify(chatInbox).membersAdded(chat.getId(), Set.of(mockUser1.getId(), mockUser2.getId()));
         }
 
         @Test
@@ -522,6 +546,71 @@ class DefaultMemberServiceTest {
             assertEquals(CONFLICT, serviceException.getStatusCode());
         }
 
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when the versions do not match the IDs of the updated members")
+        void throwsUnprocessableEntityWhenTheVersionsDoNotMatchTheIdsOfTheUpdatedMembers() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            MembersForm membersForm = new MembersForm();
+            membersForm.setMembershipId(chat.getId());
+            membersForm.setMembers(Map.of(mockUser1.getId(), EnumSet.copyOf(privileges1)));
+            membersForm.setVersionedMemberIds(List.of(mockUser1.getId(), mockUser2.getId()));
+            membersForm.setVersions(List.of(0L, 0L));
+
+            ServiceException serviceException =
+                    assertThrows(ServiceException.class, () -> memberService.updateAll(membersForm));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+            verifyNoInteractions(memberRepository);
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws CONFLICT when one of the members has changed since the given version")
+        void throwsConflictWhenOneOfTheMembersHasChangedSinceTheGivenVersion() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            MembersForm membersForm = new MembersForm();
+            membersForm.setMembershipId(chat.getId());
+            membersForm.setMembers(Map.of(mockUser1.getId(), EnumSet.copyOf(privileges1),
+                    mockUser2.getId(), EnumSet.copyOf(privileges2)));
+            membersForm.setVersionedMemberIds(List.of(mockUser1.getId(), mockUser2.getId()));
+            membersForm.setVersions(List.of(0L, 1L));
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.MANAGE_MEMBERS);
+            when(memberRepository.findAllByUserIdIn(Set.of(mockUser1.getId(), mockUser2.getId()), chat.getId()))
+                    .thenReturn(List.of(new ChatMember(mockUser1, chat, privileges1),
+                            new ChatMember(mockUser2, chat, privileges2)));
+
+            ServiceException serviceException =
+                    assertThrows(ServiceException.class, () -> memberService.updateAll(membersForm));
+            assertEquals(CONFLICT, serviceException.getStatusCode());
+            verify(memberRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws CONFLICT without rerunning when a versioned update is saved concurrently")
+        void throwsConflictWithoutRerunningWhenAVersionedUpdateIsSavedConcurrently() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            MembersForm membersForm = new MembersForm();
+            membersForm.setMembershipId(chat.getId());
+            membersForm.setMembers(Map.of(mockUser1.getId(), EnumSet.copyOf(privileges1)));
+            membersForm.setVersionedMemberIds(List.of(mockUser1.getId()));
+            membersForm.setVersions(List.of(0L));
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.MANAGE_MEMBERS);
+            when(memberRepository.findAllByUserIdIn(Set.of(mockUser1.getId()), chat.getId()))
+                    .thenReturn(List.of(new ChatMember(mockUser1, chat, privileges1)));
+            when(memberRepository.saveAll(any())).thenThrow(new OptimisticLockingFailureException("Concurrent."));
+
+            ServiceException serviceException =
+                    assertThrows(ServiceException.class, () -> memberService.updateAll(membersForm));
+            assertEquals(CONFLICT, serviceException.getStatusCode());
+            verify(memberRepository, times(1)).saveAll(any());
+        }
+
         @Test
         @WithMockCustomUser
         @DisplayName("updates members and saves them")
@@ -697,6 +786,12 @@ class DefaultMemberServiceTest {
                     .map(User::getId)
                     .collect(Collectors.toSet())
                     .containsAll(Set.of(mockUser1.getId(), mockUser2.getId())));
+            verify(chatInbox).membersRemoved(chat.getId(), 2);
+            verify(chatMailboxes).membersChanged(chat.getId());
+            verify(typingIndicators).membersChanged(chat.getId());
+            verify(sendableWatermarks).membersChanged(chat.getId());
+            verify(chatListCache, times(2)).evictUsers(Set.of(mockUser1.getId(), mockUser2.getId()));
+            verify(memberPrivilegesCache).invalidate(chat.getId(), Set.of(mockUser1.getId(), mockUser2.getId()));
 
             verify(notificationTemplate).notifyAllUsers(
                     eq(Set.of(mockUser1.getId(), mockUser2.getId())), eq(Topic.MEMBERSHIPS),
@@ -0,0 +1,166 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.notification.NotificationView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+import pl.mwasyluk.ouroom_server.repos.UserRepository;
+import pl.mwasyluk.ouroom_server.services.MemberPrivilegesCache;
+import pl.mwasyluk.ouroom_server.services.MemberValidator;
+import pl.mwasyluk.ouroom_server.services.chat.ChatInbox;
+import pl.mwasyluk.ouroom_server.websocket.NotificationTemplate;
+import pl.mwasyluk.ouroom_server.websocket.Topic;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ Measures Sendables written per second by many concurrent writers of a single chat, through the direct path of the
+ service (privileges check, insert and notification of the members queried per write) and through the chat mailboxes
+ behind the same privileges check.
+ <br> Run with {@code -Dbenchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+@Import({ChatInbox.class, MemberValidator.class, MemberPrivilegesCache.class, SendableChangeLog.class,
+        SendableBatchWriter.class, SendableSequences.class, SendableArchive.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChatMailboxesBenchmarkTest {
+    private static final int MEMBERS = 50;
+    private static final int THREADS = 32;
+    private static final int WRITES_PER_THREAD = 100;
+
+    @Autowired
+    private ChatInbox chatInbox;
+    @Autowired
+    private MemberValidator memberValidator;
+    @Autowired
+    private SendableChangeLog sendableChangeLog;
+    @Autowired
+    private SendableBatchWriter batchWriter;
+    @Autowired
+    private SendableSequences sendableSequences;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private SendableRepository sendableRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private ChatRepository chatRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private Chat saveHotChat(List<User> writers) {
+        String prefix = "bench" + System.nanoTime();
+        User owner = userRepository.save(new User(prefix, "bench"));
+        writers.add(owner);
+        Chat chat = new Chat(owner);
+        for (int i = 1; i < MEMBERS; i++) {
+            User member = userRepository.save(new User(prefix + "_" + i, "bench"));
+            chat.addMember(member, Set.of(MemberPrivilege.ADD_MESSAGES));
+            writers.add(member);
+        }
+        return chatRepository.save(chat);
+    }
+
+    // the writes failed by the contention (e.g. deadlocked updates of the counters) are counted, not retried;
+    // a write may fail after its Sendable has been inserted, so the written ones are counted in the database
+    private String measureWritesPerSecond(Chat chat, List<User> writers, Consumer<ChatSendable> write)
+            throws Exception {
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            User writer = writers.get(t % writers.size());
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    ChatSendable sendable = new ChatSendable(writer, "message " + i);
+                    sendable.setContainer(Chat.mockOf(chat.getId()));
+                    try {
+                        write.accept(sendable);
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        int written = sendableRepository.findAllByContainerId(chat.getId()).size();
+        assertTrue(written + failed.get() >= THREADS * WRITES_PER_THREAD);
+        return String.format("%.0f/s (%d failed)", written / (elapsed / 1_000_000_000.0), failed.get());
+    }
+
+    @Test
+    void comparesWritesPerSecondOfDirectPathAndChatMailboxes() throws Exception {
+        NotificationTemplate notificationTemplate = new NotificationTemplate(
+                Mockito.mock(SimpMessagingTemplate.class), memberRepository, objectMapper);
+        SendableWritePipeline pipeline = new SendableWritePipeline(sendableRepository, sendableChangeLog,
+                batchWriter, sendableSequences, false, 50, 5);
+        ChatMailboxes chatMailboxes = new ChatMailboxes(chatRepository, memberRepository, pipeline, true, 4, 50,
+                Duration.ofSeconds(30), Duration.ofSeconds(30));
+
+        List<User> directWriters = new ArrayList<>();
+        Chat directChat = saveHotChat(directWriters);
+        String direct = measureWritesPerSecond(directChat, directWriters, sendable -> {
+            memberValidator.validatePrivilegesAsMember(sendable.getCreator().getId(), directChat.getId(),
+                    MemberPrivilege.ADD_MESSAGES);
+            SendableView sendableView = new SendableView(pipeline.insert(sendable));
+            chatInbox.sendableAdded(sendableView);
+            notificationTemplate.notifyAllMembers(directChat.getId(), Topic.MESSAGES,
+                    new NotificationView(NotificationView.Action.NEW, sendableView));
+        });
+
+        List<User> mailboxWriters = new ArrayList<>();
+        Chat mailboxChat = saveHotChat(mailboxWriters);
+        String mailboxes = measureWritesPerSecond(mailboxChat, mailboxWriters, sendable -> {
+            memberValidator.validatePrivilegesAsMember(sendable.getCreator().getId(), mailboxChat.getId(),
+                    MemberPrivilege.ADD_MESSAGES);
+            chatMailboxes.write(sendable, (sendableView, memberIds) -> {
+                chatInbox.sendableAdded(sendableView);
+                notificationTemplate.notifyAllUsers(memberIds, Topic.MESSAGES,
+                        new NotificationView(NotificationView.Action.NEW, sendableView));
+            });
+        });
+        chatMailboxes.shutdown();
+
+        log.info("Sendable writes to a single chat - direct: {}, mailboxes: {}", direct, mailboxes);
+    }
+}
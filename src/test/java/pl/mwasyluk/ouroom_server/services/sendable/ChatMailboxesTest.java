@@ -0,0 +1,246 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.member.ChatMember;
+import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.FORBIDDEN;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+@ExtendWith(MockitoExtension.class)
+class ChatMailboxesTest {
+    private final User writer = new User("writer", "pass");
+    private final User reader = new User("reader", "pass");
+    private final Chat chat = new Chat(writer);
+    @Mock
+    private ChatRepository chatRepository;
+    @Mock
+    private MemberRepository memberRepository;
+    @Mock
+    private SendableWritePipeline sendableWritePipeline;
+
+    private ChatMailboxes chatMailboxes;
+
+    @BeforeEach
+    void setUp() {
+        chatMailboxes = new ChatMailboxes(chatRepository, memberRepository, sendableWritePipeline, true, 2, 10,
+                Duration.ofMinutes(1), Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        chatMailboxes.shutdown();
+    }
+
+    private void whenMembers() {
+        when(chatRepository.existsByIdAndDeletedAtIsNull(chat.getId())).thenReturn(true);
+        when(memberRepository.findAllByMembershipId(chat.getId())).thenReturn(List.of(
+                new ChatMember(writer, chat, Set.of(MemberPrivilege.ADD_MESSAGES)),
+                new ChatMember(reader, chat, Set.of())));
+    }
+
+    private ChatSendable newSendable(User creator) {
+        ChatSendable sendable = new ChatSendable(creator, "text");
+        sendable.setContainer(Chat.mockOf(chat.getId()));
+        return sendable;
+    }
+
+    @Nested
+    @DisplayName("write method")
+    class WriteMethodTest {
+        @Test
+        @DisplayName("throws NOT_FOUND and opens no mailbox when the chat does not exist")
+        void throwsNotFoundAndOpensNoMailboxWhenTheChatDoesNotExist() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> chatMailboxes.write(newSendable(writer), (view, memberIds) -> {}));
+            assertEquals(NOT_FOUND, serviceException.getStatusCode());
+            verify(memberRepository, never()).findAllByMembershipId(any());
+            verify(sendableWritePipeline, never()).insertAll(anyList());
+        }
+
+        @Test
+        @DisplayName("throws FORBIDDEN when the creator does not have ADD_MESSAGES privilege")
+        void throwsForbiddenWhenTheCreatorDoesNotHaveAddMessagesPrivilege() {
+            whenMembers();
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> chatMailboxes.write(newSendable(reader), (view, memberIds) -> {}));
+            assertEquals(FORBIDDEN, serviceException.getStatusCode());
+            verify(sendableWritePipeline, never()).insertAll(anyList());
+        }
+
+        @Test
+        @DisplayName("inserts the sendable and announces it to the members")
+        void insertsTheSendableAndAnnouncesItToTheMembers() {
+            whenMembers();
+            ChatSendable sendable = newSendable(writer);
+            AtomicReference<Set<UUID>> announcedTo = new AtomicReference<>();
+
+            SendableView sendableView = chatMailboxes.write(sendable, (view, memberIds) -> announcedTo.set(memberIds));
+
+            assertEquals(sendable.getId(), sendableView.id());
+            assertEquals(Set.of(writer.getId(), reader.getId()), announcedTo.get());
+            verify(sendableWritePipeline).insertAll(List.of(sendable));
+        }
+
+        @Test
+        @DisplayName("inserts the writes queued in the meantime as one batch")
+        @SuppressWarnings("unchecked")
+        void insertsTheWritesQueuedInTheMeantimeAsOneBatch() throws Exception {
+            whenMembers();
+            CountDownLatch entered = new CountDownLatch(1);
+            CountDownLatch released = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Thread> writers = new CopyOnWriteArrayList<>();
+
+            // the first write holds the mailbox until the others are waiting for their results
+            Future<SendableView> first = executor.submit(() -> chatMailboxes.write(newSendable(writer),
+                    (view, memberIds) -> {
+                        entered.countDown();
+                        awaitQuietly(released);
+                    }));
+            awaitQuietly(entered);
+            List<Future<SendableView>> queued = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                queued.add(executor.submit(() -> {
+                    writers.add(Thread.currentThread());
+                    return chatMailboxes.write(newSendable(writer), (view, memberIds) -> {});
+                }));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((writers.size() < 3 || writers.stream().anyMatch(t -> t.getState() != Thread.State.TIMED_WAITING))
+                   && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            released.countDown();
+
+            first.get();
+            for (Future<SendableView> result : queued) {
+                result.get();
+            }
+            executor.shutdown();
+
+            ArgumentCaptor<List<ChatSendable>> batches = ArgumentCaptor.forClass(List.class);
+            verify(sendableWritePipeline, times(2)).insertAll(batches.capture());
+            assertEquals(List.of(1, 3), batches.getAllValues().stream().map(List::size).toList());
+        }
+
+        @Test
+        @DisplayName("throws SERVICE_UNAVAILABLE and drops the write which has not been taken in time")
+        void throwsServiceUnavailableAndDropsTheWriteWhichHasNotBeenTakenInTime() throws Exception {
+            chatMailboxes.shutdown();
+            chatMailboxes = new ChatMailboxes(chatRepository, memberRepository, sendableWritePipeline, true, 1, 10,
+                    Duration.ofMinutes(1), Duration.ofMillis(100));
+            whenMembers();
+            CountDownLatch entered = new CountDownLatch(1);
+            CountDownLatch released = new CountDownLatch(1);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+
+            // the first write holds the only worker until the second one has timed out, timing out itself as well
+            executor.execute(() -> assertThrowsExactly(ServiceException.class, () -> chatMailboxes.write(
+                    newSendable(writer), (view, memberIds) -> {
+                        entered.countDown();
+                        awaitQuietly(released);
+                    })));
+            awaitQuietly(entered);
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> chatMailboxes.write(newSendable(writer), (view, memberIds) -> {}));
+            released.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+
+            assertEquals(SERVICE_UNAVAILABLE, serviceException.getStatusCode());
+            verify(sendableWritePipeline, times(1)).insertAll(anyList());
+        }
+
+        @Test
+        @DisplayName("inserts the batch one by one when the batch insert fails")
+        void insertsTheBatchOneByOneWhenTheBatchInsertFails() {
+            whenMembers();
+            ChatSendable sendable = newSendable(writer);
+            doThrow(new IllegalStateException()).when(sendableWritePipeline).insertAll(anyList());
+            when(sendableWritePipeline.insert(sendable)).thenReturn(sendable);
+
+            assertEquals(sendable.getId(), chatMailboxes.write(sendable, (view, memberIds) -> {}).id());
+            verify(sendableWritePipeline).insert(sendable);
+        }
+
+        @Test
+        @DisplayName("rethrows the exception of a failed insert to its caller")
+        void rethrowsTheExceptionOfAFailedInsertToItsCaller() {
+            whenMembers();
+            doThrow(new IllegalStateException()).when(sendableWritePipeline).insertAll(anyList());
+            when(sendableWritePipeline.insert(any())).thenThrow(new IllegalArgumentException());
+
+            assertThrowsExactly(IllegalArgumentException.class,
+                    () -> chatMailboxes.write(newSendable(writer), (view, memberIds) -> {}));
+        }
+    }
+
+    @Nested
+    @DisplayName("membersChanged method")
+    class MembersChangedMethodTest {
+        @Test
+        @DisplayName("makes the mailbox load the members again")
+        void makesTheMailboxLoadTheMembersAgain() {
+            whenMembers();
+
+            chatMailboxes.write(newSendable(writer), (view, memberIds) -> {});
+            chatMailboxes.write(newSendable(writer), (view, memberIds) -> {});
+            verify(memberRepository, times(1)).findAllByMembershipId(chat.getId());
+
+            chatMailboxes.membersChanged(chat.getId());
+            chatMailboxes.write(newSendable(writer), (view, memberIds) -> {});
+            verify(memberRepository, times(2)).findAllByMembershipId(chat.getId());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
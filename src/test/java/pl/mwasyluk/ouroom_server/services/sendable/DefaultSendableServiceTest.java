@@ -1,12 +1,23 @@
 package pl.mwasyluk.ouroom_server.services.sendable;
 
-import java.util.Collection;
+import java.io.ByteArrayOutputStream;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -17,31 +28,57 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.media.Media;
 import pl.mwasyluk.ouroom_server.domain.member.ChatMember;
 import pl.mwasyluk.ouroom_server.domain.member.MemberPrivilege;
 import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableArchiveKey;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChange;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChangeType;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableState;
 import pl.mwasyluk.ouroom_server.domain.user.User;
 import pl.mwasyluk.ouroom_server.domain.user.UserAuthority;
 import pl.mwasyluk.ouroom_server.dto.notification.NotificationView;
+import pl.mwasyluk.ouroom_server.dto.page.PageView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableChangesView;
 import pl.mwasyluk.ouroom_server.dto.sendable.SendableForm;
 import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesPageForm;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesRemovalForm;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendablesRemovedView;
 import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
 import pl.mwasyluk.ouroom_server.mocks.WithMockCustomUser;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.MediaRepository;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableChangeRepository;
 import pl.mwasyluk.ouroom_server.repos.SendableRepository;
 import pl.mwasyluk.ouroom_server.services.MemberValidator;
+import pl.mwasyluk.ouroom_server.services.chat.ChatInbox;
+import pl.mwasyluk.ouroom_server.services.media.MediaService;
 import pl.mwasyluk.ouroom_server.websocket.NotificationTemplate;
 import pl.mwasyluk.ouroom_server.websocket.Topic;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
@@ -54,9 +91,35 @@ class DefaultSendableServiceTest {
     @Mock
     private SendableRepository sendableRepository;
     @Mock
+    private SendableChangeRepository sendableChangeRepository;
+    @Mock
     private MemberValidator memberValidator;
     @Mock
     private NotificationTemplate notificationTemplate;
+    @Mock
+    private SendableExporter sendableExporter;
+    @Mock
+    private MemberRepository memberRepository;
+    @Mock
+    private SendableSearchIndex sendableSearchIndex;
+    @Mock
+    private SendableArchive sendableArchive;
+    @Mock
+    private ChatInbox chatInbox;
+    @Mock
+    private ChatRepository chatRepository;
+    @Mock
+    private SendableBatchWriter sendableBatchWriter;
+    @Mock
+    private PinnedSendables pinnedSendables;
+    @Mock
+    private MediaRepository mediaRepository;
+    @Mock
+    private MediaService mediaService;
+    @Mock
+    private ChatMailboxes chatMailboxes;
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     private DefaultSendableService sendableService;
     private User mockUser1;
@@ -66,7 +129,21 @@ class DefaultSendableServiceTest {
 
     @BeforeEach
     void setUp() {
-        sendableService = new DefaultSendableService(sendableRepository, memberValidator, notificationTemplate);
+        SendableChangeLog changeLog = new SendableChangeLog(sendableChangeRepository, transactionManager, 4);
+        sendableService = new DefaultSendableService(sendableRepository, sendableChangeRepository, changeLog,
+                memberValidator, notificationTemplate,
+                new RecentSendablesCache(100, 1000),
+                new SendableWritePipeline(sendableRepository, changeLog, sendableBatchWriter,
+                        new SendableSequences(chatRepository, sendableRepository, 4, 100), false, 50, 5),
+                sendableExporter,
+                new SendableWatermarks(memberRepository, notificationTemplate, 4, 100),
+                sendableSearchIndex,
+                sendableArchive,
+                chatInbox,
+                pinnedSendables,
+                mediaRepository,
+                mediaService,
+                chatMailboxes);
         mockUser1 = new User("u1", "pass", Set.of(UserAuthority.USER));
 
         mockSendable1 = new ChatSendable(mockUser1, "m1");
@@ -75,6 +152,13 @@ class DefaultSendableServiceTest {
         mockSendable1.setContainer(new Chat(mockUser1));
         mockSendable2.setContainer(new Chat(mockUser1));
         mockSendable3.setContainer(new Chat(mockUser1));
+        mockSendable1.setSequence(1);
+        mockSendable2.setSequence(2);
+        mockSendable3.setSequence(3);
+    }
+
+    private List<SendableView> viewsOf(ChatSendable... sendables) {
+        return Arrays.stream(sendables).map(SendableView::new).toList();
     }
 
     private void whenNotValidAsMember(User user) {
@@ -103,18 +187,328 @@ class DefaultSendableServiceTest {
     }
 
     @Nested
-    @DisplayName("readAllFromContainer method")
-    class ReadAllFromContainer {
-        // provide test methods similar to the ones in DefaultMemberServiceTest
+    @DisplayName("readPageFromContainer method")
+    class ReadPageFromContainer {
+        private SendablesPageForm pageForm(UUID containerId) {
+            SendablesPageForm form = new SendablesPageForm();
+            form.setContainerId(containerId);
+            return form;
+        }
+
+        @Test
+        @DisplayName("throws UNAUTHORIZED when user is not authenticated")
+        void throwsUnauthorizedWhenUserIsNotAuthenticated() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readPageFromContainer(pageForm(UUID.randomUUID())));
+            assertEquals(UNAUTHORIZED, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when container ID is null")
+        void throwsUnprocessableEntityWhenContainerIdIsNull() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readPageFromContainer(pageForm(null)));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when both cursors are given")
+        void throwsUnprocessableEntityWhenBothCursorsAreGiven() {
+            SendablesPageForm form = pageForm(UUID.randomUUID());
+            form.setBefore("1");
+            form.setAfter("1");
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readPageFromContainer(form));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when limit is out of range")
+        void throwsUnprocessableEntityWhenLimitIsOutOfRange() {
+            SendablesPageForm form = pageForm(UUID.randomUUID());
+            form.setLimit(SendablesPageForm.MAX_LIMIT + 1);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readPageFromContainer(form));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws FORBIDDEN when user is not a member")
+        void throwsForbiddenWhenUserIsNotAMember() {
+            User principal = pullPrincipalUser();
+            whenNotValidAsMember(principal);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readPageFromContainer(pageForm(UUID.randomUUID())));
+            assertEquals(FORBIDDEN, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when cursor is not valid")
+        void throwsUnprocessableEntityWhenCursorIsNotValid() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendablesPageForm form = pageForm(chat.getId());
+            form.setBefore("not-a-cursor");
+
+            whenValidAsMember(principal, chat);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readPageFromContainer(form));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("continues the page with archived sendables when the hot ones run out")
+        void continuesThePageWithArchivedSendablesWhenTheHotOnesRunOut() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+
+            whenValidAsMember(principal, chat);
+            when(sendableRepository.findNewestByContainerId(eq(chat.getId()), any(Limit.class)))
+                    .thenReturn(viewsOf(mockSendable3));
+            when(sendableArchive.readBefore(eq(chat.getId()), eq(3L), eq(SendablesPageForm.DEFAULT_LIMIT)))
+                    .thenReturn(viewsOf(mockSendable2, mockSendable1));
+
+            PageView<SendableView> page =
+                    assertDoesNotThrow(() -> sendableService.readPageFromContainer(pageForm(chat.getId())));
+            assertEquals(List.of(mockSendable1.getId(), mockSendable2.getId(), mockSendable3.getId()),
+                    page.content().stream().map(SendableView::id).toList());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("returns the newest sendables in chronological order when no cursor is given")
+        void returnsNewestSendablesInChronologicalOrderWhenNoCursorIsGiven() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+
+            whenValidAsMember(principal, chat);
+            when(sendableRepository.findNewestByContainerId(eq(chat.getId()), any(Limit.class)))
+                    .thenReturn(viewsOf(mockSendable3, mockSendable2, mockSendable1));
+
+            PageView<SendableView> page =
+                    assertDoesNotThrow(() -> sendableService.readPageFromContainer(pageForm(chat.getId())));
+            assertAll(() -> {
+                assertEquals(3, page.content().size());
+                assertEquals(mockSendable1.getId(), page.content().get(0).id());
+                assertEquals(mockSendable3.getId(), page.content().get(2).id());
+                assertNull(page.nextCursor());
+            });
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("returns a cursor of the oldest sendable when more sendables exist")
+        void returnsCursorOfOldestSendableWhenMoreSendablesExist() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendablesPageForm form = pageForm(chat.getId());
+            form.setLimit(2);
+
+            whenValidAsMember(principal, chat);
+            when(sendableRepository.findNewestByContainerId(chat.getId(), Limit.of(3)))
+                    .thenReturn(viewsOf(mockSendable3, mockSendable2, mockSendable1));
+
+            PageView<SendableView> page = assertDoesNotThrow(() -> sendableService.readPageFromContainer(form));
+            assertAll(() -> {
+                assertEquals(2, page.content().size());
+                assertEquals(mockSendable2.getId(), page.content().get(0).id());
+                assertEquals("2", page.nextCursor());
+            });
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("serves the repeated newest page read without querying the repository again")
+        void servesRepeatedNewestPageReadWithoutQueryingTheRepositoryAgain() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+
+            when(memberValidator.validateAsMember(principal.getId(), chat.getId()))
+                    .thenReturn(new ChatMember(principal, chat, Set.of()));
+            when(sendableRepository.findNewestByContainerId(eq(chat.getId()), any(Limit.class)))
+                    .thenReturn(viewsOf(mockSendable3, mockSendable2, mockSendable1));
+
+            PageView<SendableView> first = sendableService.readPageFromContainer(pageForm(chat.getId()));
+            PageView<SendableView> second = sendableService.readPageFromContainer(pageForm(chat.getId()));
+
+            assertEquals(first, second);
+            verify(sendableRepository, times(1)).findNewestByContainerId(eq(chat.getId()), any(Limit.class));
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("reads sendables older than the cursor when before cursor is given")
+        void readsSendablesOlderThanTheCursorWhenBeforeCursorIsGiven() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendablesPageForm form = pageForm(chat.getId());
+            form.setBefore("3");
+
+            whenValidAsMember(principal, chat);
+            when(sendableRepository.findAllByContainerIdBefore(eq(chat.getId()), eq(3L), any(Limit.class)))
+                    .thenReturn(viewsOf(mockSendable2, mockSendable1));
+
+            PageView<SendableView> page = assertDoesNotThrow(() -> sendableService.readPageFromContainer(form));
+            assertAll(() -> {
+                assertEquals(2, page.content().size());
+                assertEquals(mockSendable1.getId(), page.content().get(0).id());
+                assertNull(page.nextCursor());
+            });
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("reads sendables newer than the cursor when after cursor is given")
+        void readsSendablesNewerThanTheCursorWhenAfterCursorIsGiven() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendablesPageForm form = pageForm(chat.getId());
+            form.setAfter("1");
+            form.setLimit(1);
+
+            whenValidAsMember(principal, chat);
+            when(sendableRepository.findAllByContainerIdAfter(chat.getId(), 1L, Limit.of(2)))
+                    .thenReturn(viewsOf(mockSendable2, mockSendable3));
+
+            PageView<SendableView> page = assertDoesNotThrow(() -> sendableService.readPageFromContainer(form));
+            assertAll(() -> {
+                assertEquals(List.of(mockSendable2.getId()), page.content().stream().map(SendableView::id).toList());
+                assertEquals("2", page.nextCursor());
+            });
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when the cursor is a negative number")
+        void throwsUnprocessableEntityWhenTheCursorIsANegativeNumber() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendablesPageForm form = pageForm(chat.getId());
+            form.setAfter("-1");
+
+            whenValidAsMember(principal, chat);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readPageFromContainer(form));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+    }
+
+    @Nested
+    @DisplayName("readChangesFromContainer method")
+    class ReadChangesFromContainer {
+        private SendableChange changeOf(ChatSendable sendable, SendableChangeType type, long revision) {
+            SendableChange change = new SendableChange(sendable.getContainer().getId(), sendable.getId(), type);
+            ReflectionTestUtils.setField(change, "revision", revision);
+            return change;
+        }
+
+        @Test
+        @DisplayName("throws UNAUTHORIZED when user is not authenticated")
+        void throwsUnauthorizedWhenUserIsNotAuthenticated() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readChangesFromContainer(UUID.randomUUID(), 0L));
+            assertEquals(UNAUTHORIZED, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when revision is negative")
+        void throwsUnprocessableEntityWhenRevisionIsNegative() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readChangesFromContainer(UUID.randomUUID(), -1L));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
 
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws FORBIDDEN when user is not a member")
+        void throwsForbiddenWhenUserIsNotAMember() {
+            User principal = pullPrincipalUser();
+            whenNotValidAsMember(principal);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readChangesFromContainer(UUID.randomUUID(), 0L));
+            assertEquals(FORBIDDEN, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("returns only the latest revision when revision is not given")
+        void returnsOnlyTheLatestRevisionWhenRevisionIsNotGiven() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+
+            whenValidAsMember(principal, chat);
+            when(sendableChangeRepository.findLatestRevisionByContainerId(chat.getId())).thenReturn(12L);
+
+            SendableChangesView changes =
+                    assertDoesNotThrow(() -> sendableService.readChangesFromContainer(chat.getId(), null));
+            assertAll(() -> {
+                assertTrue(changes.upserted().isEmpty());
+                assertTrue(changes.removed().isEmpty());
+                assertEquals(12L, changes.revision());
+            });
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("returns the latest state of every changed sendable")
+        void returnsTheLatestStateOfEveryChangedSendable() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+
+            whenValidAsMember(principal, chat);
+            when(sendableChangeRepository.findAllByContainerIdAndRevisionGreaterThanOrderByRevisionAsc(
+                    eq(chat.getId()), eq(4L), any(Limit.class)))
+                    .thenReturn(List.of(
+                            changeOf(mockSendable1, SendableChangeType.NEW, 5),
+                            changeOf(mockSendable2, SendableChangeType.NEW, 6),
+                            changeOf(mockSendable1, SendableChangeType.CHANGED, 7),
+                            changeOf(mockSendable2, SendableChangeType.REMOVED, 8)));
+            when(sendableRepository.findAllViewsByIdIn(List.of(mockSendable1.getId())))
+                    .thenReturn(viewsOf(mockSendable1));
+
+            SendableChangesView changes =
+                    assertDoesNotThrow(() -> sendableService.readChangesFromContainer(chat.getId(), 4L));
+            assertAll(() -> {
+                assertEquals(List.of(new SendableView(mockSendable1)), changes.upserted());
+                assertEquals(List.of(mockSendable2.getId()), changes.removed());
+                assertEquals(8L, changes.revision());
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("searchInContainer method")
+    class SearchInContainer {
         @Test
         @DisplayName("throws UNAUTHORIZED when user is not authenticated")
         void throwsUnauthorizedWhenUserIsNotAuthenticated() {
             ServiceException serviceException = assertThrowsExactly(ServiceException.class,
-                    () -> sendableService.readAllFromContainer(UUID.randomUUID()));
+                    () -> sendableService.searchInContainer(UUID.randomUUID(), "query"));
             assertEquals(UNAUTHORIZED, serviceException.getStatusCode());
         }
 
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when query is blank")
+        void throwsUnprocessableEntityWhenQueryIsBlank() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.searchInContainer(UUID.randomUUID(), " "));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
         @Test
         @WithMockCustomUser
         @DisplayName("throws FORBIDDEN when user is not a member")
@@ -123,40 +517,67 @@ class DefaultSendableServiceTest {
             whenNotValidAsMember(principal);
 
             ServiceException serviceException = assertThrowsExactly(ServiceException.class,
-                    () -> sendableService.readAllFromContainer(UUID.randomUUID()));
+                    () -> sendableService.searchInContainer(UUID.randomUUID(), "query"));
             assertEquals(FORBIDDEN, serviceException.getStatusCode());
+            verifyNoInteractions(sendableSearchIndex);
         }
 
         @Test
         @WithMockCustomUser
-        @DisplayName("returns a list of SendableViews when user is a member")
-        void returnsListOfSendableViewsWhenUserIsAMember() {
+        @DisplayName("returns hits in the order of the index")
+        void returnsHitsInTheOrderOfTheIndex() {
             User principal = pullPrincipalUser();
             Chat chat = new Chat(principal);
+            List<UUID> hitIds = List.of(mockSendable2.getId(), mockSendable1.getId());
 
             whenValidAsMember(principal, chat);
-            when(sendableRepository.findAllByContainerId(chat.getId()))
-                    .thenReturn(List.of(mockSendable1, mockSendable2, mockSendable3));
+            when(sendableSearchIndex.search(eq(chat.getId()), eq("query"), any(Integer.class))).thenReturn(hitIds);
+            when(sendableRepository.findAllViewsByIdIn(hitIds)).thenReturn(viewsOf(mockSendable1, mockSendable2));
+
+            List<SendableView> hits =
+                    assertDoesNotThrow(() -> sendableService.searchInContainer(chat.getId(), "query"));
+            assertEquals(hitIds, hits.stream().map(SendableView::id).toList());
+        }
+    }
+
+    @Nested
+    @DisplayName("exportFromContainer method")
+    class ExportFromContainer {
+        @Test
+        @DisplayName("throws UNAUTHORIZED when user is not authenticated")
+        void throwsUnauthorizedWhenUserIsNotAuthenticated() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.exportFromContainer(UUID.randomUUID()));
+            assertEquals(UNAUTHORIZED, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws FORBIDDEN when user is not a member")
+        void throwsForbiddenWhenUserIsNotAMember() {
+            User principal = pullPrincipalUser();
+            whenNotValidAsMember(principal);
 
-            Collection<SendableView> sendableViews =
-                    assertDoesNotThrow(() -> sendableService.readAllFromContainer(chat.getId()));
-            assertEquals(3, sendableViews.size());
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.exportFromContainer(UUID.randomUUID()));
+            assertEquals(FORBIDDEN, serviceException.getStatusCode());
+            verifyNoInteractions(sendableExporter);
         }
 
         @Test
         @WithMockCustomUser
-        @DisplayName("returns an empty list when there are no sendables")
-        void returnsEmptyListWhenThereAreNoSendables() {
+        @DisplayName("returns body exporting the container when user is a member")
+        void returnsBodyExportingTheContainerWhenUserIsAMember() throws Exception {
             User principal = pullPrincipalUser();
             Chat chat = new Chat(principal);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
             whenValidAsMember(principal, chat);
-            when(sendableRepository.findAllByContainerId(chat.getId()))
-                    .thenReturn(List.of());
 
-            Collection<SendableView> sendableViews =
-                    assertDoesNotThrow(() -> sendableService.readAllFromContainer(chat.getId()));
-            assertTrue(sendableViews.isEmpty());
+            StreamingResponseBody body = assertDoesNotThrow(() -> sendableService.exportFromContainer(chat.getId()));
+            verifyNoInteractions(sendableExporter);
+            body.writeTo(outputStream);
+            verify(sendableExporter).exportTo(chat.getId(), outputStream);
         }
     }
 
@@ -253,6 +674,41 @@ class DefaultSendableServiceTest {
             });
         }
 
+        @Test
+        @WithMockCustomUser
+        @DisplayName("writes the sendable through the mailbox of its chat when mailboxes are enabled")
+        void writesTheSendableThroughTheMailboxOfItsChatWhenMailboxesAreEnabled() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendableForm form = new SendableForm();
+            form.setContainerId(chat.getId());
+            form.setMessage("test");
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.ADD_MESSAGES);
+            when(chatMailboxes.isEnabled()).thenReturn(true);
+            when(chatMailboxes.write(any(ChatSendable.class), any())).thenReturn(new SendableView(mockSendable1));
+
+            assertEquals(new SendableView(mockSendable1), sendableService.create(form));
+            verify(sendableRepository, never()).save(any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws FORBIDDEN before reaching the mailbox when mailboxes are enabled")
+        void throwsForbiddenBeforeReachingTheMailboxWhenMailboxesAreEnabled() {
+            User principal = pullPrincipalUser();
+            SendableForm form = new SendableForm();
+            form.setContainerId(UUID.randomUUID());
+            form.setMessage("test");
+
+            whenNotValidPrivilegeAsMember(principal);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.create(form));
+            assertEquals(FORBIDDEN, serviceException.getStatusCode());
+            verify(chatMailboxes, never()).write(any(), any());
+        }
+
         @Test
         @WithMockCustomUser
         @DisplayName("notifies all members when a new sendable is created")
@@ -272,6 +728,289 @@ class DefaultSendableServiceTest {
             verify(notificationTemplate).notifyAllMembers(eq(chat.getId()), eq(Topic.MESSAGES), argument.capture());
             assertEquals("NEW", argument.getValue().action());
         }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("updates the inbox when a new sendable is created")
+        void updatesTheInboxWhenNewSendableIsCreated() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendableForm form = new SendableForm();
+            form.setContainerId(chat.getId());
+            form.setMessage("test");
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.ADD_MESSAGES);
+            when(sendableRepository.save(any(ChatSendable.class)))
+                    .thenReturn(mockSendable1);
+
+            assertDoesNotThrow(() -> sendableService.create(form));
+            verify(chatInbox).sendableAdded(new SendableView(mockSendable1));
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when an attached media does not exist")
+        void throwsUnprocessableEntityWhenAnAttachedMediaDoesNotExist() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendableForm form = new SendableForm();
+            form.setContainerId(chat.getId());
+            form.setAttachmentIds(List.of(UUID.randomUUID(), UUID.randomUUID()));
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.ADD_MESSAGES);
+            when(mediaRepository.countByIdIn(any())).thenReturn(1L);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.create(form));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+            verify(sendableRepository, never()).save(any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when the same media is attached twice")
+        void throwsUnprocessableEntityWhenTheSameMediaIsAttachedTwice() {
+            UUID mediaId = UUID.randomUUID();
+            SendableForm form = new SendableForm();
+            form.setContainerId(UUID.randomUUID());
+            form.setAttachmentIds(List.of(mediaId, mediaId));
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.create(form));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("creates a sendable with attachments and without a message")
+        void createsASendableWithAttachmentsAndWithoutAMessage() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            List<UUID> attachmentIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+            SendableForm form = new SendableForm();
+            form.setContainerId(chat.getId());
+            form.setAttachmentIds(attachmentIds);
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.ADD_MESSAGES);
+            when(mediaRepository.countByIdIn(any())).thenReturn(2L);
+            when(sendableRepository.save(any(ChatSendable.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            SendableView sendableView = assertDoesNotThrow(() -> sendableService.create(form));
+            assertEquals(attachmentIds, sendableView.attachmentIds());
+            assertEquals("", sendableView.message());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("does not persist the files when user does not have ADD_MESSAGES privilege")
+        void doesNotPersistTheFilesWhenUserDoesNotHaveAddMessagesPrivilege() {
+            User principal = pullPrincipalUser();
+            SendableForm form = new SendableForm();
+            form.setContainerId(UUID.randomUUID());
+            List<MultipartFile> files = List.of(new MockMultipartFile("file", "test".getBytes()));
+
+            whenNotValidPrivilegeAsMember(principal);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.create(form, files));
+            assertEquals(FORBIDDEN, serviceException.getStatusCode());
+            verifyNoInteractions(mediaService);
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("attaches the persisted files and deletes them when the sendable is rejected")
+        void attachesThePersistedFilesAndDeletesThemWhenTheSendableIsRejected() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendableForm form = new SendableForm();
+            form.setContainerId(chat.getId());
+            List<MultipartFile> files = List.of(new MockMultipartFile("file", "test".getBytes()));
+            Media media = mock(Media.class);
+            UUID mediaId = UUID.randomUUID();
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.ADD_MESSAGES);
+            when(media.getId()).thenReturn(mediaId);
+            when(mediaService.createAll(files)).thenReturn(List.of(media));
+            when(mediaRepository.countByIdIn(any())).thenReturn(0L);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.create(form, files));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+            assertEquals(List.of(mediaId), form.getAttachmentIds());
+            verify(mediaRepository).deleteAllWithContentsByIdIn(List.of(mediaId));
+        }
+    }
+
+    @Nested
+    @DisplayName("createAll method")
+    class CreateAll {
+        private SendableForm formOf(UUID containerId, String message, UUID idempotencyKey) {
+            SendableForm form = new SendableForm();
+            form.setContainerId(containerId);
+            form.setMessage(message);
+            form.setIdempotencyKey(idempotencyKey);
+            return form;
+        }
+
+        @Test
+        @DisplayName("throws UNAUTHORIZED when user is not authenticated")
+        void throwsUnauthorizedWhenUserIsNotAuthenticated() {
+            List<SendableForm> forms = List.of(formOf(UUID.randomUUID(), "test", UUID.randomUUID()));
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.createAll(forms));
+            assertEquals(UNAUTHORIZED, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when the batch is empty")
+        void throwsUnprocessableEntityWhenTheBatchIsEmpty() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.createAll(List.of()));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when idempotency key is null")
+        void throwsUnprocessableEntityWhenIdempotencyKeyIsNull() {
+            List<SendableForm> forms = List.of(formOf(UUID.randomUUID(), "test", null));
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.createAll(forms));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+            verifyNoInteractions(memberValidator);
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws FORBIDDEN when user does not have ADD_MESSAGES privilege in one of the containers")
+        void throwsForbiddenWhenUserDoesNotHaveAddMessagesPrivilegeInOneOfTheContainers() {
+            User principal = pullPrincipalUser();
+            List<SendableForm> forms = List.of(formOf(UUID.randomUUID(), "test", UUID.randomUUID()));
+
+            whenNotValidPrivilegeAsMember(principal);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.createAll(forms));
+            assertEquals(FORBIDDEN, serviceException.getStatusCode());
+            verifyNoInteractions(sendableBatchWriter);
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("validates the privileges once per container and inserts all sendables in one batch")
+        void validatesThePrivilegesOncePerContainerAndInsertsAllSendablesInOneBatch() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            List<SendableForm> forms = List.of(
+                    formOf(chat.getId(), "m1", UUID.randomUUID()),
+                    formOf(chat.getId(), "m2", UUID.randomUUID()));
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.ADD_MESSAGES);
+
+            List<SendableView> views = assertDoesNotThrow(() -> sendableService.createAll(forms));
+
+            verify(memberValidator, times(1)).validatePrivilegesAsMember(principal.getId(), chat.getId(),
+                    MemberPrivilege.ADD_MESSAGES);
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ChatSendable>> argument = ArgumentCaptor.forClass(List.class);
+            verify(sendableBatchWriter).insertAll(argument.capture());
+            assertAll(() -> {
+                assertEquals(2, argument.getValue().size());
+                assertEquals(List.of("m1", "m2"), views.stream().map(SendableView::message).toList());
+                assertEquals(forms.get(0).getIdempotencyKey(), argument.getValue().get(0).getIdempotencyKey());
+            });
+            verify(chatInbox, times(2)).sendableAdded(any());
+            verify(notificationTemplate, times(2)).notifyAllMembers(eq(chat.getId()), eq(Topic.MESSAGES), any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("returns the existing sendables of resent keys without inserting them again")
+        void returnsTheExistingSendablesOfResentKeysWithoutInsertingThemAgain() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            ChatSendable existing = new ChatSendable(principal, "m1", UUID.randomUUID());
+            existing.setContainer(chat);
+            List<SendableForm> forms = List.of(
+                    formOf(chat.getId(), "m1", existing.getIdempotencyKey()),
+                    formOf(chat.getId(), "m1", existing.getIdempotencyKey()));
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.ADD_MESSAGES);
+            when(sendableRepository.findAllByContainerIdInAndCreatorIdAndIdempotencyKeyIn(any(), eq(principal.getId()),
+                    any()))
+                    .thenReturn(List.of(existing));
+
+            List<SendableView> views = assertDoesNotThrow(() -> sendableService.createAll(forms));
+
+            assertEquals(viewsOf(existing, existing), views);
+            verifyNoInteractions(sendableBatchWriter, chatInbox, notificationTemplate);
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("returns the archived sendables of resent keys without inserting them again")
+        void returnsTheArchivedSendablesOfResentKeysWithoutInsertingThemAgain() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            ChatSendable archived = new ChatSendable(principal, "m1", UUID.randomUUID());
+            archived.setContainer(chat);
+            SendableArchiveKey archiveKey = new SendableArchiveKey(archived.getId(), chat.getId(), principal.getId(),
+                    archived.getIdempotencyKey(), archived.getCreatedAt(), archived.getSequence());
+            List<SendableForm> forms = List.of(formOf(chat.getId(), "m1", archived.getIdempotencyKey()));
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.ADD_MESSAGES);
+            when(sendableArchive.findKeys(any(), eq(principal.getId()), any())).thenReturn(List.of(archiveKey));
+            when(sendableArchive.find(archiveKey)).thenReturn(Optional.of(new SendableView(archived)));
+
+            List<SendableView> views = assertDoesNotThrow(() -> sendableService.createAll(forms));
+
+            assertEquals(viewsOf(archived), views);
+            verifyNoInteractions(sendableBatchWriter, chatInbox, notificationTemplate);
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("reads the keys again when a concurrent batch has inserted them")
+        void readsTheKeysAgainWhenAConcurrentBatchHasInsertedThem() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            ChatSendable concurrent = new ChatSendable(principal, "m1", UUID.randomUUID());
+            concurrent.setContainer(chat);
+            List<SendableForm> forms = List.of(formOf(chat.getId(), "m1", concurrent.getIdempotencyKey()));
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.ADD_MESSAGES);
+            when(sendableRepository.findAllByContainerIdInAndCreatorIdAndIdempotencyKeyIn(any(), eq(principal.getId()),
+                    any()))
+                    .thenReturn(List.of())
+                    .thenReturn(List.of(concurrent));
+            doThrow(new DataIntegrityViolationException("")).when(sendableBatchWriter).insertAll(anyList());
+
+            List<SendableView> views = assertDoesNotThrow(() -> sendableService.createAll(forms));
+
+            assertEquals(viewsOf(concurrent), views);
+            verify(sendableBatchWriter, times(1)).insertAll(anyList());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws CONFLICT when the batch keeps conflicting")
+        void throwsConflictWhenTheBatchKeepsConflicting() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            List<SendableForm> forms = List.of(formOf(chat.getId(), "m1", UUID.randomUUID()));
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.ADD_MESSAGES);
+            doThrow(new DataIntegrityViolationException("")).when(sendableBatchWriter).insertAll(anyList());
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.createAll(forms));
+            assertEquals(CONFLICT, serviceException.getStatusCode());
+            verify(sendableBatchWriter, times(2)).insertAll(anyList());
+        }
     }
 
     @Nested
@@ -284,19 +1023,33 @@ class DefaultSendableServiceTest {
 
             ServiceException serviceException = assertThrowsExactly(ServiceException.class,
                     () -> sendableService.update(form));
-            assertEquals(UNAUTHORIZED, serviceException.getStatusCode());
+            assertEquals(UNAUTHORIZED, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when sendable ID is null")
+        void throwsUnprocessableEntityWhenSendableIdIsNull() {
+            SendableForm form = new SendableForm();
+            form.setMessage("test");
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.update(form));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
         }
 
         @Test
         @WithMockCustomUser
-        @DisplayName("throws UNPROCESSABLE_ENTITY when sendable ID is null")
-        void throwsUnprocessableEntityWhenSendableIdIsNull() {
+        @DisplayName("throws UNPROCESSABLE_ENTITY when the version is null")
+        void throwsUnprocessableEntityWhenTheVersionIsNull() {
             SendableForm form = new SendableForm();
+            form.setSendableId(UUID.randomUUID());
             form.setMessage("test");
 
             ServiceException serviceException = assertThrowsExactly(ServiceException.class,
                     () -> sendableService.update(form));
             assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+            verifyNoInteractions(sendableRepository);
         }
 
         @Test
@@ -306,6 +1059,7 @@ class DefaultSendableServiceTest {
             SendableForm form = new SendableForm();
             form.setSendableId(UUID.randomUUID());
             form.setMessage("test");
+            form.setVersion(0L);
 
             when(sendableRepository.findById(form.getSendableId()))
                     .thenReturn(Optional.empty());
@@ -322,6 +1076,7 @@ class DefaultSendableServiceTest {
             SendableForm form = new SendableForm();
             form.setSendableId(UUID.randomUUID());
             form.setMessage("test");
+            form.setVersion(0L);
 
             when(sendableRepository.findById(form.getSendableId()))
                     .thenReturn(Optional.of(mockSendable1));
@@ -342,6 +1097,7 @@ class DefaultSendableServiceTest {
             SendableForm form = new SendableForm();
             form.setSendableId(sendable.getId());
             form.setMessage("test");
+            form.setVersion(0L);
 
             when(sendableRepository.findById(sendable.getId()))
                     .thenReturn(Optional.of(sendable));
@@ -362,6 +1118,7 @@ class DefaultSendableServiceTest {
             SendableForm form = new SendableForm();
             form.setSendableId(sendable.getId());
             form.setMessage(" \n   \t ");
+            form.setVersion(0L);
 
             when(sendableRepository.findById(sendable.getId()))
                     .thenReturn(Optional.of(sendable));
@@ -382,6 +1139,7 @@ class DefaultSendableServiceTest {
             SendableForm form = new SendableForm();
             form.setSendableId(sendable.getId());
             form.setMessage("test \n  \t");
+            form.setVersion(0L);
 
             when(sendableRepository.findById(sendable.getId()))
                     .thenReturn(Optional.of(sendable));
@@ -411,6 +1169,7 @@ class DefaultSendableServiceTest {
             SendableForm form = new SendableForm();
             form.setSendableId(UUID.randomUUID());
             form.setMessage("test");
+            form.setVersion(0L);
 
             when(sendableRepository.findById(form.getSendableId()))
                     .thenReturn(Optional.of(sendable));
@@ -421,6 +1180,49 @@ class DefaultSendableServiceTest {
             verify(notificationTemplate).notifyAllMembers(eq(chat.getId()), eq(Topic.MESSAGES), argument.capture());
             assertEquals("CHANGED", argument.getValue().action());
         }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws CONFLICT when the sendable has changed since the given version")
+        void throwsConflictWhenTheSendableHasChangedSinceTheGivenVersion() {
+            User principal = pullPrincipalUser();
+            ChatSendable sendable = new ChatSendable(principal, "message");
+            sendable.setContainer(new Chat(principal));
+            SendableForm form = new SendableForm();
+            form.setSendableId(sendable.getId());
+            form.setMessage("test");
+            form.setVersion(sendable.getVersion() + 1);
+
+            when(sendableRepository.findById(sendable.getId())).thenReturn(Optional.of(sendable));
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.update(form));
+            assertEquals(CONFLICT, serviceException.getStatusCode());
+            verify(sendableRepository, never()).save(any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws CONFLICT when a concurrent update of the given version is saved first")
+        void throwsConflictWhenAConcurrentUpdateOfTheGivenVersionIsSavedFirst() {
+            User principal = pullPrincipalUser();
+            ChatSendable sendable = new ChatSendable(principal, "message");
+            sendable.setContainer(new Chat(principal));
+            SendableForm form = new SendableForm();
+            form.setSendableId(sendable.getId());
+            form.setMessage("test");
+            form.setVersion(sendable.getVersion());
+
+            when(sendableRepository.findById(sendable.getId())).thenReturn(Optional.of(sendable));
+            when(sendableRepository.save(any(ChatSendable.class)))
+                    .thenThrow(new ObjectOptimisticLockingFailureException(ChatSendable.class, sendable.getId()));
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.update(form));
+            assertEquals(CONFLICT, serviceException.getStatusCode());
+            verify(sendableRepository, times(1)).save(any());
+            verifyNoInteractions(notificationTemplate);
+        }
     }
 
     @Nested
@@ -484,6 +1286,26 @@ class DefaultSendableServiceTest {
 
             assertDoesNotThrow(() -> sendableService.delete(sendableId));
             verify(sendableRepository).deleteById(sendableId);
+            verify(chatInbox).sendableRemoved(new SendableView(sendable));
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("deletes the attachments together with the sendable")
+        void deletesTheAttachmentsTogetherWithTheSendable() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            List<UUID> attachmentIds = List.of(UUID.randomUUID());
+            ChatSendable sendable = new ChatSendable(principal, null, null, attachmentIds);
+            sendable.setContainer(chat);
+            UUID sendableId = sendable.getId();
+
+            when(sendableRepository.findById(sendableId))
+                    .thenReturn(Optional.of(sendable));
+
+            assertDoesNotThrow(() -> sendableService.delete(sendableId));
+            verify(mediaRepository).deleteAllWithContentsByIdIn(attachmentIds);
+            verify(transactionManager, times(1)).commit(any());
         }
 
         @Test
@@ -523,4 +1345,407 @@ class DefaultSendableServiceTest {
             assertEquals("REMOVED", argument.getValue().action());
         }
     }
+
+    @Nested
+    @DisplayName("deleteAll method")
+    class DeleteAll {
+        private SendablesRemovalForm formOf(UUID containerId, UUID creatorId) {
+            SendablesRemovalForm form = new SendablesRemovalForm();
+            form.setContainerId(containerId);
+            form.setCreatorId(creatorId);
+            return form;
+        }
+
+        private List<UUID> randomIds(int amount) {
+            return Stream.generate(UUID::randomUUID).limit(amount).toList();
+        }
+
+        @Test
+        @DisplayName("throws UNAUTHORIZED when user is not authenticated")
+        void throwsUnauthorizedWhenUserIsNotAuthenticated() {
+            SendablesRemovalForm form = formOf(UUID.randomUUID(), UUID.randomUUID());
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.deleteAll(form));
+            assertEquals(UNAUTHORIZED, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when no criterion is given")
+        void throwsUnprocessableEntityWhenNoCriterionIsGiven() {
+            SendablesRemovalForm form = formOf(UUID.randomUUID(), null);
+            form.setSendableIds(List.of());
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.deleteAll(form));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when the range is empty")
+        void throwsUnprocessableEntityWhenTheRangeIsEmpty() {
+            ZonedDateTime now = ZonedDateTime.now();
+            SendablesRemovalForm form = formOf(UUID.randomUUID(), null);
+            form.setFrom(now);
+            form.setTo(now);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.deleteAll(form));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when too many IDs are given")
+        void throwsUnprocessableEntityWhenTooManyIdsAreGiven() {
+            SendablesRemovalForm form = formOf(UUID.randomUUID(), null);
+            form.setSendableIds(randomIds(SendablesRemovalForm.MAX_IDS + 1));
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.deleteAll(form));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws FORBIDDEN when user does not have DELETE_MESSAGES privilege")
+        void throwsForbiddenWhenUserDoesNotHaveDeleteMessagesPrivilege() {
+            User principal = pullPrincipalUser();
+            SendablesRemovalForm form = formOf(UUID.randomUUID(), UUID.randomUUID());
+
+            whenNotValidPrivilegeAsMember(principal);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.deleteAll(form));
+            assertEquals(FORBIDDEN, serviceException.getStatusCode());
+            verify(sendableRepository, never()).deleteAllByIdIn(any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("deletes the matching sendables in chunks with one notification per chunk")
+        void deletesTheMatchingSendablesInChunksWithOneNotificationPerChunk() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendablesRemovalForm form = formOf(chat.getId(), mockUser1.getId());
+            List<UUID> fullChunk = randomIds(500);
+            List<UUID> lastChunk = randomIds(2);
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.DELETE_MESSAGES);
+            when(sendableRepository.findAllIdsByContainerIdMatching(eq(chat.getId()), eq(mockUser1.getId()),
+                    any(), any(), any(Limit.class)))
+                    .thenReturn(fullChunk)
+                    .thenReturn(lastChunk);
+
+            SendablesRemovedView removedView = assertDoesNotThrow(() -> sendableService.deleteAll(form));
+
+            assertEquals(502, removedView.removed().size());
+            assertFalse(removedView.more());
+            verify(sendableRepository).deleteAllByIdIn(fullChunk);
+            verify(sendableRepository).deleteAllByIdIn(lastChunk);
+            // every chunk is committed together with its change log entries
+            verify(sendableChangeRepository, times(2)).saveAll(any());
+            verify(transactionManager, times(2)).commit(any());
+            ArgumentCaptor<NotificationView> argument = ArgumentCaptor.forClass(NotificationView.class);
+            verify(notificationTemplate, times(2)).notifyAllMembers(eq(chat.getId()), eq(Topic.MESSAGES),
+                    argument.capture());
+            assertEquals("REMOVED", argument.getValue().action());
+            verify(chatInbox).sendablesRemoved(chat.getId(), removedView.removed());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("stops at the limit of a single removal and reports more matching sendables")
+        void stopsAtTheLimitOfASingleRemovalAndReportsMoreMatchingSendables() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendablesRemovalForm form = formOf(chat.getId(), mockUser1.getId());
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.DELETE_MESSAGES);
+            when(sendableRepository.findAllIdsByContainerIdMatching(eq(chat.getId()), eq(mockUser1.getId()),
+                    any(), any(), any(Limit.class)))
+                    .thenAnswer(invocation -> randomIds(500));
+
+            SendablesRemovedView removedView = assertDoesNotThrow(() -> sendableService.deleteAll(form));
+
+            assertEquals(5000, removedView.removed().size());
+            assertTrue(removedView.more());
+            verify(sendableRepository, times(10)).deleteAllByIdIn(any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("deletes the given sendables with a single query")
+        void deletesTheGivenSendablesWithASingleQuery() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendablesRemovalForm form = formOf(chat.getId(), null);
+            form.setSendableIds(List.of(mockSendable1.getId(), mockSendable2.getId()));
+
+            List<UUID> attachmentIds = List.of(UUID.randomUUID());
+            ChatSendable withAttachment = new ChatSendable(mockUser1, null, null, attachmentIds);
+            withAttachment.setContainer(chat);
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.DELETE_MESSAGES);
+            when(sendableRepository.findAllIdsByContainerIdMatching(chat.getId(), null, null, null,
+                    form.getSendableIds()))
+                    .thenReturn(List.of(mockSendable1.getId()));
+            when(sendableRepository.findAllViewsByIdIn(List.of(mockSendable1.getId())))
+                    .thenReturn(viewsOf(withAttachment));
+
+            SendablesRemovedView removedView = assertDoesNotThrow(() -> sendableService.deleteAll(form));
+
+            assertEquals(List.of(mockSendable1.getId()), removedView.removed());
+            verify(sendableRepository, times(1)).deleteAllByIdIn(any());
+            verify(mediaRepository).deleteAllWithContentsByIdIn(attachmentIds);
+            verify(notificationTemplate, times(1)).notifyAllMembers(eq(chat.getId()), eq(Topic.MESSAGES), any());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("neither notifies members nor updates the inbox when nothing matches")
+        void neitherNotifiesMembersNorUpdatesTheInboxWhenNothingMatches() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            SendablesRemovalForm form = formOf(chat.getId(), mockUser1.getId());
+
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.DELETE_MESSAGES);
+
+            SendablesRemovedView removedView = assertDoesNotThrow(() -> sendableService.deleteAll(form));
+
+            assertTrue(removedView.removed().isEmpty());
+            verify(sendableRepository, never()).deleteAllByIdIn(any());
+            verifyNoInteractions(notificationTemplate, chatInbox);
+        }
+    }
+
+    @Nested
+    @DisplayName("readPinnedFromContainer method")
+    class ReadPinnedFromContainer {
+        @Test
+        @DisplayName("throws UNAUTHORIZED when user is not authenticated")
+        void throwsUnauthorizedWhenUserIsNotAuthenticated() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readPinnedFromContainer(UUID.randomUUID()));
+            assertEquals(UNAUTHORIZED, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws FORBIDDEN when user is not a member")
+        void throwsForbiddenWhenUserIsNotAMember() {
+            User principal = pullPrincipalUser();
+            whenNotValidAsMember(principal);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.readPinnedFromContainer(UUID.randomUUID()));
+            assertEquals(FORBIDDEN, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("returns the pinned sendables in the order of pinning")
+        void returnsThePinnedSendablesInTheOrderOfPinning() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            whenValidAsMember(principal, chat);
+            when(pinnedSendables.read(chat.getId()))
+                    .thenReturn(List.of(mockSendable2.getId(), mockSendable1.getId(), UUID.randomUUID()));
+            when(sendableRepository.findAllViewsByIdIn(any()))
+                    .thenReturn(viewsOf(mockSendable1, mockSendable2));
+
+            List<SendableView> views = sendableService.readPinnedFromContainer(chat.getId());
+
+            assertEquals(List.of(mockSendable2.getId(), mockSendable1.getId()),
+                    views.stream().map(SendableView::id).toList());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("does not query the repository when nothing is pinned")
+        void doesNotQueryTheRepositoryWhenNothingIsPinned() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            whenValidAsMember(principal, chat);
+            when(pinnedSendables.read(chat.getId())).thenReturn(List.of());
+
+            assertTrue(sendableService.readPinnedFromContainer(chat.getId()).isEmpty());
+            verifyNoInteractions(sendableRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("pin and unpin methods")
+    class PinAndUnpin {
+        @Test
+        @DisplayName("throw UNAUTHORIZED when user is not authenticated")
+        void throwUnauthorizedWhenUserIsNotAuthenticated() {
+            assertEquals(UNAUTHORIZED, assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.pin(UUID.randomUUID())).getStatusCode());
+            assertEquals(UNAUTHORIZED, assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.unpin(UUID.randomUUID(), UUID.randomUUID())).getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("pin throws NOT_FOUND when the sendable does not exist")
+        void pinThrowsNotFoundWhenTheSendableDoesNotExist() {
+            UUID sendableId = UUID.randomUUID();
+            when(sendableRepository.findById(sendableId)).thenReturn(Optional.empty());
+
+            assertEquals(NOT_FOUND, assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.pin(sendableId)).getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("unpin removes the pin without reading the sendable")
+        void unpinRemovesThePinWithoutReadingTheSendable() {
+            User principal = pullPrincipalUser();
+            Chat chat = new Chat(principal);
+            UUID archivedId = UUID.randomUUID();
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.PIN_MESSAGES);
+            when(pinnedSendables.unpinAll(chat.getId(), List.of(archivedId))).thenReturn(true);
+
+            sendableService.unpin(chat.getId(), archivedId);
+
+            verify(sendableRepository, never()).findById(any());
+            ArgumentCaptor<NotificationView> argument = ArgumentCaptor.forClass(NotificationView.class);
+            verify(notificationTemplate).notifyAllMembers(eq(chat.getId()), eq(Topic.MESSAGES), argument.capture());
+            assertTrue(argument.getValue().content().contains(archivedId.toString()));
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throw FORBIDDEN when user does not have PIN_MESSAGES privilege")
+        void throwForbiddenWhenUserDoesNotHavePinMessagesPrivilege() {
+            User principal = pullPrincipalUser();
+            when(sendableRepository.findById(mockSendable1.getId())).thenReturn(Optional.of(mockSendable1));
+            whenNotValidPrivilegeAsMember(principal);
+
+            assertEquals(FORBIDDEN, assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.pin(mockSendable1.getId())).getStatusCode());
+            assertEquals(FORBIDDEN, assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.unpin(mockSendable1.getContainer().getId(), mockSendable1.getId()))
+                    .getStatusCode());
+            verifyNoInteractions(pinnedSendables);
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("notify all members when the pins have changed")
+        void notifyAllMembersWhenThePinsHaveChanged() {
+            User principal = pullPrincipalUser();
+            Chat chat = (Chat) mockSendable1.getContainer();
+            when(sendableRepository.findById(mockSendable1.getId())).thenReturn(Optional.of(mockSendable1));
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.PIN_MESSAGES);
+            when(pinnedSendables.pin(chat.getId(), mockSendable1.getId())).thenReturn(true);
+            when(pinnedSendables.unpinAll(chat.getId(), List.of(mockSendable1.getId()))).thenReturn(true);
+
+            sendableService.pin(mockSendable1.getId());
+            sendableService.unpin(chat.getId(), mockSendable1.getId());
+
+            ArgumentCaptor<NotificationView> argument = ArgumentCaptor.forClass(NotificationView.class);
+            verify(notificationTemplate, times(2)).notifyAllMembers(eq(chat.getId()), eq(Topic.MESSAGES),
+                    argument.capture());
+            assertEquals(List.of("PINNED", "UNPINNED"),
+                    argument.getAllValues().stream().map(NotificationView::action).toList());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("do not notify members when the pins have not changed")
+        void doNotNotifyMembersWhenThePinsHaveNotChanged() {
+            User principal = pullPrincipalUser();
+            Chat chat = (Chat) mockSendable1.getContainer();
+            when(sendableRepository.findById(mockSendable1.getId())).thenReturn(Optional.of(mockSendable1));
+            whenValidPrivilegeAsMember(principal, chat, MemberPrivilege.PIN_MESSAGES);
+
+            sendableService.pin(mockSendable1.getId());
+            sendableService.unpin(chat.getId(), mockSendable1.getId());
+
+            verifyNoInteractions(notificationTemplate);
+        }
+    }
+
+    @Nested
+    @DisplayName("markUpTo method")
+    class MarkUpTo {
+        @Test
+        @DisplayName("throws UNAUTHORIZED when user is not authenticated")
+        void throwsUnauthorizedWhenUserIsNotAuthenticated() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.markUpTo(UUID.randomUUID(), SendableState.READ));
+            assertEquals(UNAUTHORIZED, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws UNPROCESSABLE_ENTITY when state is SENT")
+        void throwsUnprocessableEntityWhenStateIsSent() {
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.markUpTo(UUID.randomUUID(), SendableState.SENT));
+            assertEquals(UNPROCESSABLE_ENTITY, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws NOT_FOUND when the sendable does not exist")
+        void throwsNotFoundWhenTheSendableDoesNotExist() {
+            UUID sendableId = UUID.randomUUID();
+            when(sendableRepository.findById(sendableId)).thenReturn(Optional.empty());
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.markUpTo(sendableId, SendableState.READ));
+            assertEquals(NOT_FOUND, serviceException.getStatusCode());
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("throws FORBIDDEN when user is not a member")
+        void throwsForbiddenWhenUserIsNotAMember() {
+            User principal = pullPrincipalUser();
+            when(sendableRepository.findById(mockSendable1.getId())).thenReturn(Optional.of(mockSendable1));
+            whenNotValidAsMember(principal);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> sendableService.markUpTo(mockSendable1.getId(), SendableState.READ));
+            assertEquals(FORBIDDEN, serviceException.getStatusCode());
+            verifyNoInteractions(memberRepository);
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("advances both watermarks and notifies members when marked as read")
+        void advancesBothWatermarksAndNotifiesMembersWhenMarkedAsRead() {
+            User principal = pullPrincipalUser();
+            UUID containerId = mockSendable1.getContainer().getId();
+            when(sendableRepository.findById(mockSendable1.getId())).thenReturn(Optional.of(mockSendable1));
+            when(memberRepository.advanceReadUpTo(principal.getId(), containerId, mockSendable1.getCreatedAt(),
+                    mockSendable1.getSequence())).thenReturn(1);
+            when(memberRepository.advanceDeliveredUpTo(principal.getId(), containerId,
+                    mockSendable1.getCreatedAt())).thenReturn(0);
+
+            assertDoesNotThrow(() -> sendableService.markUpTo(mockSendable1.getId(), SendableState.READ));
+            verify(notificationTemplate).notifyAllMembers(eq(containerId), eq(Topic.MESSAGES),
+                    any(NotificationView.class));
+        }
+
+        @Test
+        @WithMockCustomUser
+        @DisplayName("does not notify members when no watermark has moved")
+        void doesNotNotifyMembersWhenNoWatermarkHasMoved() {
+            User principal = pullPrincipalUser();
+            UUID containerId = mockSendable1.getContainer().getId();
+            when(sendableRepository.findById(mockSendable1.getId())).thenReturn(Optional.of(mockSendable1));
+            when(memberRepository.advanceDeliveredUpTo(principal.getId(), containerId,
+                    mockSendable1.getCreatedAt())).thenReturn(0);
+
+            assertDoesNotThrow(() -> sendableService.markUpTo(mockSendable1.getId(), SendableState.DELIVERED));
+            verify(memberRepository, never()).advanceReadUpTo(any(), any(), any(), anyLong());
+            verifyNoInteractions(notificationTemplate);
+        }
+    }
 }
@@ -0,0 +1,143 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.chat.ChatPinsView;
+import pl.mwasyluk.ouroom_server.exceptions.ServiceException;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.CONFLICT;
+
+@ExtendWith(MockitoExtension.class)
+class PinnedSendablesTest {
+    private final Chat chat = new Chat(new User("mock", "mock"));
+    @Mock
+    private ChatRepository chatRepository;
+
+    private PinnedSendables pinnedSendables;
+
+    @BeforeEach
+    void setUp() {
+        pinnedSendables = new PinnedSendables(chatRepository, 100);
+    }
+
+    private void whenPinned(List<UUID> pinnedIds) {
+        when(chatRepository.findPinsById(chat.getId())).thenReturn(Optional.of(new ChatPinsView(pinnedIds)));
+    }
+
+    @Nested
+    @DisplayName("read method")
+    class ReadMethodTest {
+        @Test
+        @DisplayName("reads the pins of the chat from the database once")
+        void readsThePinsOfTheChatFromTheDatabaseOnce() {
+            List<UUID> pinnedIds = List.of(UUID.randomUUID());
+            whenPinned(pinnedIds);
+
+            assertEquals(pinnedIds, pinnedSendables.read(chat.getId()));
+            assertEquals(pinnedIds, pinnedSendables.read(chat.getId()));
+            verify(chatRepository, times(1)).findPinsById(chat.getId());
+        }
+
+        @Test
+        @DisplayName("reads the pins again once the chat has been evicted")
+        void readsThePinsAgainOnceTheChatHasBeenEvicted() {
+            whenPinned(List.of(UUID.randomUUID()));
+            pinnedSendables.read(chat.getId());
+
+            pinnedSendables.evict(chat.getId());
+            pinnedSendables.read(chat.getId());
+
+            verify(chatRepository, times(2)).findPinsById(chat.getId());
+        }
+    }
+
+    @Nested
+    @DisplayName("pin method")
+    class PinMethodTest {
+        @Test
+        @DisplayName("stores the sendable as the first pin")
+        void storesTheSendableAsTheFirstPin() {
+            UUID pinnedId = UUID.randomUUID();
+            UUID newId = UUID.randomUUID();
+            whenPinned(List.of(pinnedId));
+
+            assertTrue(pinnedSendables.pin(chat.getId(), newId));
+
+            verify(chatRepository).updatePinnedSendableIds(chat.getId(), List.of(newId, pinnedId));
+            assertEquals(List.of(newId, pinnedId), pinnedSendables.read(chat.getId()));
+        }
+
+        @Test
+        @DisplayName("does not store the sendable pinned before")
+        void doesNotStoreTheSendablePinnedBefore() {
+            UUID pinnedId = UUID.randomUUID();
+            whenPinned(List.of(pinnedId));
+
+            assertFalse(pinnedSendables.pin(chat.getId(), pinnedId));
+            verify(chatRepository, never()).updatePinnedSendableIds(any(), anyList());
+        }
+
+        @Test
+        @DisplayName("throws CONFLICT when the chat has the maximum amount of pins")
+        void throwsConflictWhenTheChatHasTheMaximumAmountOfPins() {
+            List<UUID> pinnedIds = new ArrayList<>();
+            for (int i = 0; i < Chat.MAX_PINNED; i++) {
+                pinnedIds.add(UUID.randomUUID());
+            }
+            whenPinned(pinnedIds);
+
+            ServiceException serviceException = assertThrowsExactly(ServiceException.class,
+                    () -> pinnedSendables.pin(chat.getId(), UUID.randomUUID()));
+            assertEquals(CONFLICT, serviceException.getStatusCode());
+        }
+    }
+
+    @Nested
+    @DisplayName("unpinAll method")
+    class UnpinAllMethodTest {
+        @Test
+        @DisplayName("removes only the given pins")
+        void removesOnlyTheGivenPins() {
+            UUID keptId = UUID.randomUUID();
+            UUID removedId = UUID.randomUUID();
+            whenPinned(List.of(removedId, keptId));
+
+            assertTrue(pinnedSendables.unpinAll(chat.getId(), List.of(removedId, UUID.randomUUID())));
+
+            verify(chatRepository).updatePinnedSendableIds(chat.getId(), List.of(keptId));
+        }
+
+        @Test
+        @DisplayName("does not write when none of the sendables is pinned")
+        void doesNotWriteWhenNoneOfTheSendablesIsPinned() {
+            whenPinned(List.of(UUID.randomUUID()));
+
+            assertFalse(pinnedSendables.unpinAll(chat.getId(), List.of(UUID.randomUUID())));
+            verify(chatRepository, never()).updatePinnedSendableIds(any(), anyList());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RecentSendablesCacheTest {
+    private final ZonedDateTime now = ZonedDateTime.now();
+    private final UUID chatId = UUID.randomUUID();
+    private RecentSendablesCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RecentSendablesCache(3, 5);
+    }
+
+    private SendableView viewAt(UUID containerId, int minute) {
+        return new SendableView(UUID.randomUUID(), containerId, UUID.randomUUID(), now.plusMinutes(minute),
+                "SENT", "m" + minute, false);
+    }
+
+    @Nested
+    @DisplayName("readNewest method")
+    class ReadNewestMethodTest {
+        @Test
+        @DisplayName("returns null and counts a miss when the chat was not filled")
+        void returnsNullWhenTheChatWasNotFilled() {
+            assertNull(cache.readNewest(chatId, 2));
+            assertEquals(1, cache.getMisses());
+        }
+
+        @Test
+        @DisplayName("returns the newest views first and counts a hit when the window is large enough")
+        void returnsNewestViewsFirstWhenTheWindowIsLargeEnough() {
+            SendableView v1 = viewAt(chatId, 1), v2 = viewAt(chatId, 2), v3 = viewAt(chatId, 3);
+            cache.fillNewest(chatId, cache.currentStamp(), List.of(v3, v2, v1), false);
+
+            assertEquals(List.of(v3, v2), cache.readNewest(chatId, 2));
+            assertEquals(1, cache.getHits());
+        }
+
+        @Test
+        @DisplayName("returns null when the window is too small and incomplete")
+        void returnsNullWhenTheWindowIsTooSmallAndIncomplete() {
+            SendableView v1 = viewAt(chatId, 1), v2 = viewAt(chatId, 2);
+            cache.fillNewest(chatId, cache.currentStamp(), List.of(v2, v1), false);
+
+            assertNull(cache.readNewest(chatId, 3));
+        }
+
+        @Test
+        @DisplayName("returns all views when the window is too small but complete")
+        void returnsAllViewsWhenTheWindowIsTooSmallButComplete() {
+            SendableView v1 = viewAt(chatId, 1), v2 = viewAt(chatId, 2);
+            cache.fillNewest(chatId, cache.currentStamp(), List.of(v2, v1), true);
+
+            assertEquals(List.of(v2, v1), cache.readNewest(chatId, 3));
+        }
+    }
+
+    @Nested
+    @DisplayName("fillNewest method")
+    class FillNewestMethodTest {
+        @Test
+        @DisplayName("ignores the views when a write happened after the stamp was taken")
+        void ignoresTheViewsWhenAWriteHappenedAfterTheStamp() {
+            long stamp = cache.currentStamp();
+            cache.put(viewAt(chatId, 2));
+            cache.fillNewest(chatId, stamp, List.of(viewAt(chatId, 1)), true);
+
+            assertNull(cache.readNewest(chatId, 1));
+        }
+
+        @Test
+        @DisplayName("accepts the views when only another chat was written after the stamp was taken")
+        void acceptsTheViewsWhenOnlyAnotherChatWasWrittenAfterTheStamp() {
+            SendableView v1 = viewAt(chatId, 1);
+            long stamp = cache.currentStamp();
+            cache.put(viewAt(UUID.randomUUID(), 2));
+            cache.fillNewest(chatId, stamp, List.of(v1), true);
+
+            assertEquals(List.of(v1), cache.readNewest(chatId, 1));
+        }
+
+        @Test
+        @DisplayName("ignores the views when the stamp of the chat write has been dropped")
+        void ignoresTheViewsWhenTheStampOfTheChatWriteHasBeenDropped() {
+            long stamp = cache.currentStamp();
+            cache.put(viewAt(chatId, 2));
+            for (int i = 0; i < 5; i++) {
+                cache.put(viewAt(UUID.randomUUID(), 3));
+            }
+            cache.fillNewest(chatId, stamp, List.of(viewAt(chatId, 1)), true);
+
+            assertNull(cache.readNewest(chatId, 1));
+        }
+
+        @Test
+        @DisplayName("keeps only the newest views up to the chat capacity")
+        void keepsOnlyTheNewestViewsUpToTheChatCapacity() {
+            SendableView v1 = viewAt(chatId, 1), v2 = viewAt(chatId, 2), v3 = viewAt(chatId, 3),
+                    v4 = viewAt(chatId, 4);
+            cache.fillNewest(chatId, cache.currentStamp(), List.of(v4, v3, v2, v1), true);
+
+            assertEquals(3, cache.getEntries());
+            assertNull(cache.readNewest(chatId, 4));
+        }
+
+        @Test
+        @DisplayName("evicts the least recently used chats when the global limit is exceeded")
+        void evictsLeastRecentlyUsedChatsWhenTheGlobalLimitIsExceeded() {
+            UUID otherChatId = UUID.randomUUID();
+            UUID thirdChatId = UUID.randomUUID();
+            cache.fillNewest(chatId, cache.currentStamp(), List.of(viewAt(chatId, 2), viewAt(chatId, 1)), true);
+            cache.fillNewest(otherChatId, cache.currentStamp(),
+                    List.of(viewAt(otherChatId, 2), viewAt(otherChatId, 1)), true);
+            cache.readNewest(chatId, 1);
+            cache.fillNewest(thirdChatId, cache.currentStamp(),
+                    List.of(viewAt(thirdChatId, 2), viewAt(thirdChatId, 1)), true);
+
+            assertEquals(4, cache.getEntries());
+            assertNull(cache.readNewest(otherChatId, 1));
+            assertEquals(1, cache.readNewest(chatId, 1).size());
+        }
+    }
+
+    @Nested
+    @DisplayName("write methods")
+    class WriteMethodsTest {
+        @Test
+        @DisplayName("put appends a new view and drops the oldest one over the capacity")
+        void putAppendsNewViewAndDropsTheOldestOneOverTheCapacity() {
+            SendableView v1 = viewAt(chatId, 1), v2 = viewAt(chatId, 2), v3 = viewAt(chatId, 3),
+                    v4 = viewAt(chatId, 4);
+            cache.fillNewest(chatId, cache.currentStamp(), List.of(v3, v2, v1), true);
+
+            cache.put(v4);
+
+            assertEquals(List.of(v4, v3, v2), cache.readNewest(chatId, 3));
+            assertNull(cache.readNewest(chatId, 4));
+        }
+
+        @Test
+        @DisplayName("put replaces the view with the same ID")
+        void putReplacesTheViewWithTheSameId() {
+            SendableView v1 = viewAt(chatId, 1);
+            SendableView edited = new SendableView(v1.id(), chatId, v1.creatorId(), v1.createdAt(),
+                    "SENT", "edited", true);
+            cache.fillNewest(chatId, cache.currentStamp(), List.of(v1), true);
+
+            cache.put(edited);
+
+            assertEquals(List.of(edited), cache.readNewest(chatId, 2));
+        }
+
+        @Test
+        @DisplayName("remove drops the view with the given ID")
+        void removeDropsTheViewWithTheGivenId() {
+            SendableView v1 = viewAt(chatId, 1), v2 = viewAt(chatId, 2);
+            cache.fillNewest(chatId, cache.currentStamp(), List.of(v2, v1), true);
+
+            cache.remove(chatId, v2.id());
+
+            assertEquals(List.of(v1), cache.readNewest(chatId, 2));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableArchiveKey;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import({SendableArchive.class, JacksonAutoConfiguration.class})
+class SendableArchiveTest {
+    private final UUID containerId = UUID.randomUUID();
+    private final ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS).minusDays(100);
+    private final List<SendableView> views = new ArrayList<>();
+
+    @Autowired
+    private SendableArchive sendableArchive;
+
+    // two segments of three views each
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 6; i++) {
+            views.add(new SendableView(UUID.randomUUID(), containerId, UUID.randomUUID(), start.plusMinutes(i),
+                    "SENT", "message " + i, false).withSequence(i + 1));
+        }
+        sendableArchive.append(containerId, views.subList(0, 3));
+        sendableArchive.append(containerId, views.subList(3, 6));
+    }
+
+    private long keyOf(int index) {
+        return views.get(index).sequence();
+    }
+
+    private List<UUID> idsOf(int... indexes) {
+        List<UUID> ids = new ArrayList<>();
+        for (int index : indexes) {
+            ids.add(views.get(index).id());
+        }
+        return ids;
+    }
+
+    private List<UUID> idsOf(List<SendableView> read) {
+        return read.stream().map(SendableView::id).toList();
+    }
+
+    @Nested
+    @DisplayName("readBefore method")
+    class ReadBeforeMethodTest {
+        @Test
+        @DisplayName("returns the newest archived views without a key")
+        void returnsTheNewestArchivedViewsWithoutAKey() {
+            assertEquals(idsOf(5, 4), idsOf(sendableArchive.readBefore(containerId, null, 2)));
+        }
+
+        @Test
+        @DisplayName("continues across segments from the given key")
+        void continuesAcrossSegmentsFromTheGivenKey() {
+            assertEquals(idsOf(3, 2, 1), idsOf(sendableArchive.readBefore(containerId, keyOf(4), 3)));
+        }
+
+        @Test
+        @DisplayName("returns nothing for a container without segments")
+        void returnsNothingForAContainerWithoutSegments() {
+            assertFalse(sendableArchive.hasArchived(UUID.randomUUID()));
+            assertTrue(sendableArchive.readBefore(UUID.randomUUID(), null, 10).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("readAfter method")
+    class ReadAfterMethodTest {
+        @Test
+        @DisplayName("continues across segments from the given key")
+        void continuesAcrossSegmentsFromTheGivenKey() {
+            assertEquals(idsOf(2, 3, 4), idsOf(sendableArchive.readAfter(containerId, keyOf(1), null, 3)));
+        }
+
+        @Test
+        @DisplayName("stops before the until key")
+        void stopsBeforeTheUntilKey() {
+            assertEquals(idsOf(1, 2), idsOf(sendableArchive.readAfter(containerId, keyOf(0), keyOf(3), 10)));
+        }
+    }
+
+    @Nested
+    @DisplayName("forEach method")
+    class ForEachMethodTest {
+        @Test
+        @DisplayName("passes all archived views in the order of their sequence numbers")
+        void passesAllArchivedViewsInTheOrderOfTheirSequenceNumbers() {
+            List<SendableView> read = new ArrayList<>();
+
+            sendableArchive.forEach(containerId, read::add);
+
+            assertEquals(idsOf(0, 1, 2, 3, 4, 5), idsOf(read));
+            assertEquals("message 4", read.get(4).message());
+        }
+    }
+
+    @Nested
+    @DisplayName("find method")
+    class FindMethodTest {
+        private SendableArchiveKey keyOfView(int index) {
+            SendableView view = views.get(index);
+            return new SendableArchiveKey(view.id(), containerId, view.creatorId(), UUID.randomUUID(),
+                    view.createdAt(), view.sequence());
+        }
+
+        @Test
+        @DisplayName("returns the archived view of the key from the segment holding it")
+        void returnsTheArchivedViewOfTheKeyFromTheSegmentHoldingIt() {
+            assertEquals(views.get(3).id(), sendableArchive.find(keyOfView(3)).orElseThrow().id());
+            assertEquals(views.get(2).id(), sendableArchive.find(keyOfView(2)).orElseThrow().id());
+        }
+
+        @Test
+        @DisplayName("returns an empty optional when the sendable has not been archived")
+        void returnsAnEmptyOptionalWhenTheSendableHasNotBeenArchived() {
+            SendableArchiveKey key = new SendableArchiveKey(UUID.randomUUID(), containerId, UUID.randomUUID(),
+                    UUID.randomUUID(), start.plusMinutes(1), 2);
+
+            assertTrue(sendableArchive.find(key).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("evict method")
+    class EvictMethodTest {
+        @Test
+        @DisplayName("forgets the container until a segment is appended again")
+        void forgetsTheContainerUntilASegmentIsAppendedAgain() {
+            sendableArchive.evict(containerId);
+
+            assertFalse(sendableArchive.hasArchived(containerId));
+            sendableArchive.append(containerId, views.subList(0, 1));
+            assertTrue(sendableArchive.hasArchived(containerId));
+        }
+    }
+}
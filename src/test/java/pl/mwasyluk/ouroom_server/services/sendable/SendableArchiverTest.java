@@ -0,0 +1,112 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableArchiveKeyRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+import pl.mwasyluk.ouroom_server.repos.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@Import({SendableArchive.class, JacksonAutoConfiguration.class})
+class SendableArchiverTest {
+    private final User mockUser = new User("mock", "mock");
+    private final Chat mockChat = new Chat(mockUser);
+    private final ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    private final List<ChatSendable> oldSendables = new ArrayList<>();
+    private long lastSequence;
+
+    @Autowired
+    private SendableRepository sendableRepository;
+    @Autowired
+    private SendableArchive sendableArchive;
+    @Autowired
+    private SendableArchiveKeyRepository sendableArchiveKeyRepository;
+    @Autowired
+    private ChatRepository chatRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private RecentSendablesCache recentSendablesCache;
+    private PinnedSendables pinnedSendables;
+    private SendableArchiver sendableArchiver;
+
+    private ChatSendable saveSendableAt(ZonedDateTime createdAt) {
+        ChatSendable sendable = new ChatSendable(mockUser, "text", UUID.randomUUID());
+        sendable.setContainer(mockChat);
+        ReflectionTestUtils.setField(sendable, "createdAt", createdAt);
+        sendable.setSequence(++lastSequence);
+        return sendableRepository.save(sendable);
+    }
+
+    // five sendables older than the cutoff and a fresh one
+    @BeforeEach
+    void setUp() {
+        recentSendablesCache = Mockito.mock(RecentSendablesCache.class);
+        pinnedSendables = Mockito.mock(PinnedSendables.class);
+        sendableArchiver = new SendableArchiver(sendableRepository, sendableArchive, recentSendablesCache,
+                Mockito.mock(SendableSearchIndex.class), pinnedSendables, transactionManager, true, null, 2);
+        userRepository.save(mockUser);
+        chatRepository.save(mockChat);
+        for (int i = 5; i > 0; i--) {
+            oldSendables.add(saveSendableAt(now.minusDays(i)));
+        }
+        saveSendableAt(now);
+    }
+
+    @Test
+    @DisplayName("moves the oldest sendables to the archive in full segments along with their keys")
+    void movesTheOldestSendablesToTheArchiveInFullSegmentsAlongWithTheirKeys() {
+        int archived = sendableArchiver.archiveOlderThan(now.minusHours(1));
+
+        List<UUID> archivedIds = new ArrayList<>();
+        sendableArchive.forEach(mockChat.getId(), view -> archivedIds.add(view.id()));
+        assertEquals(4, archived);
+        assertEquals(oldSendables.subList(0, 4).stream().map(ChatSendable::getId).toList(), archivedIds);
+        assertEquals(2, sendableRepository.findAllByContainerId(mockChat.getId()).size());
+        verify(recentSendablesCache, Mockito.times(2)).evict(mockChat.getId());
+        verify(pinnedSendables).unpinAll(mockChat.getId(), archivedIds.subList(0, 2));
+        verify(pinnedSendables).unpinAll(mockChat.getId(), archivedIds.subList(2, 4));
+        assertEquals(4, sendableArchiveKeyRepository.count());
+    }
+
+    @Test
+    @DisplayName("archives nothing when no container has a full segment of old sendables")
+    void archivesNothingWhenNoContainerHasAFullSegmentOfOldSendables() {
+        assertEquals(0, sendableArchiver.archiveOlderThan(now.minusDays(4)));
+        assertEquals(6, sendableRepository.findAllByContainerId(mockChat.getId()).size());
+    }
+
+    @Test
+    @DisplayName("keeps the archived sendables readable from the newest one")
+    void keepsTheArchivedSendablesReadableFromTheNewestOne() {
+        sendableArchiver.archiveOlderThan(now.minusHours(1));
+
+        List<SendableView> newestArchived = sendableArchive.readBefore(mockChat.getId(), null, 1);
+        assertEquals(oldSendables.get(3).getId(), newestArchived.get(0).id());
+    }
+}
@@ -0,0 +1,108 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChange;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChangeType;
+import pl.mwasyluk.ouroom_server.repos.SendableChangeRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class SendableChangeLogTest {
+    private final UUID chatId = UUID.randomUUID();
+    @Mock
+    private SendableChangeRepository sendableChangeRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SendableChangeLog changeLog;
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new SendableChangeLog(sendableChangeRepository, transactionManager, 4);
+    }
+
+    @Nested
+    @DisplayName("write methods")
+    class WriteMethodsTest {
+        @Test
+        @DisplayName("write commits the change together with its entry")
+        void writeCommitsTheChangeTogetherWithItsEntry() {
+            UUID sendableId = UUID.randomUUID();
+
+            UUID written = changeLog.write(chatId, () -> {
+                changeLog.record(chatId, sendableId, SendableChangeType.CHANGED);
+                return sendableId;
+            });
+
+            assertEquals(sendableId, written);
+            verify(sendableChangeRepository).save(any(SendableChange.class));
+            verify(transactionManager, times(1)).commit(any());
+        }
+
+        @Test
+        @DisplayName("write waits until the write to the same container has been committed")
+        void writeWaitsUntilTheWriteToTheSameContainerHasBeenCommitted() throws Exception {
+            CountDownLatch firstStarted = new CountDownLatch(1);
+            CountDownLatch firstReleased = new CountDownLatch(1);
+            AtomicBoolean secondWritten = new AtomicBoolean();
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+
+            Future<?> first = executor.submit(() -> changeLog.write(chatId, () -> {
+                firstStarted.countDown();
+                try {
+                    firstReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            firstStarted.await();
+            Future<?> second = executor.submit(() -> changeLog.writeAll(List.of(UUID.randomUUID(), chatId), () ->
+                    secondWritten.getAndSet(true)));
+
+            Thread.sleep(100);
+            assertFalse(secondWritten.get());
+            firstReleased.countDown();
+            first.get(1, TimeUnit.SECONDS);
+            second.get(1, TimeUnit.SECONDS);
+            assertTrue(secondWritten.get());
+            executor.shutdown();
+        }
+    }
+
+    @Nested
+    @DisplayName("recordAll method")
+    class RecordAllMethodTest {
+        @Test
+        @DisplayName("saves an entry of every given sendable")
+        void savesAnEntryOfEveryGivenSendable() {
+            changeLog.recordAll(chatId, List.of(UUID.randomUUID(), UUID.randomUUID()), SendableChangeType.REMOVED);
+
+            verify(sendableChangeRepository).saveAll(argThat((List<SendableChange> changes) -> changes.size() == 2));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+import pl.mwasyluk.ouroom_server.repos.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Import({SendableExporter.class, SendableArchive.class, JacksonAutoConfiguration.class})
+class SendableExporterTest {
+    private final User mockUser = new User("mock", "mock");
+    private final Chat mockChat = new Chat(mockUser);
+    private final Chat mockChat2 = new Chat(mockUser);
+    private long lastSequence;
+
+    @Autowired
+    private SendableExporter sendableExporter;
+    @Autowired
+    private SendableArchive sendableArchive;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private SendableRepository sendableRepository;
+    @Autowired
+    private ChatRepository chatRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private ChatSendable saveSendable(Chat chat, String message) {
+        ChatSendable sendable = new ChatSendable(mockUser, message);
+        sendable.setContainer(chat);
+        return sendableRepository.save(numbered(sendable));
+    }
+
+    // numbered as by SendableSequences, so the sendables do not collide on the unique numbers of their containers
+    private ChatSendable numbered(ChatSendable sendable) {
+        sendable.setSequence(++lastSequence);
+        return sendable;
+    }
+
+    @Nested
+    @DisplayName("exportTo method")
+    class ExportToMethodTest {
+        @Test
+        @DisplayName("writes one JSON line for every sendable of the container")
+        void writesOneJsonLineForEverySendableOfTheContainer() throws Exception {
+            userRepository.save(mockUser);
+            chatRepository.save(mockChat);
+            chatRepository.save(mockChat2);
+            ChatSendable first = saveSendable(mockChat, "first");
+            ChatSendable second = saveSendable(mockChat, "second");
+            saveSendable(mockChat2, "other");
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            long exported = sendableExporter.exportTo(mockChat.getId(), outputStream);
+
+            List<String> lines = outputStream.toString(StandardCharsets.UTF_8).lines().toList();
+            assertEquals(2, exported);
+            assertEquals(2, lines.size());
+            assertEquals(first.getId(), objectMapper.readValue(lines.get(0), SendableView.class).id());
+            assertEquals(second.getId(), objectMapper.readValue(lines.get(1), SendableView.class).id());
+        }
+
+        @Test
+        @DisplayName("writes the archived sendables before the hot ones")
+        void writesTheArchivedSendablesBeforeTheHotOnes() throws Exception {
+            userRepository.save(mockUser);
+            chatRepository.save(mockChat);
+            ChatSendable archived = new ChatSendable(mockUser, "archived");
+            archived.setContainer(mockChat);
+            sendableArchive.append(mockChat.getId(), List.of(new SendableView(archived)));
+            ChatSendable hot = saveSendable(mockChat, "hot");
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            long exported = sendableExporter.exportTo(mockChat.getId(), outputStream);
+
+            List<String> lines = outputStream.toString(StandardCharsets.UTF_8).lines().toList();
+            assertEquals(2, exported);
+            assertEquals(archived.getId(), objectMapper.readValue(lines.get(0), SendableView.class).id());
+            assertEquals(hot.getId(), objectMapper.readValue(lines.get(1), SendableView.class).id());
+        }
+
+        @Test
+        @DisplayName("writes nothing when the container has no sendables")
+        void writesNothingWhenTheContainerHasNoSendables() {
+            userRepository.save(mockUser);
+            chatRepository.save(mockChat);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            assertEquals(0, sendableExporter.exportTo(mockChat.getId(), outputStream));
+            assertEquals(0, outputStream.size());
+        }
+    }
+}
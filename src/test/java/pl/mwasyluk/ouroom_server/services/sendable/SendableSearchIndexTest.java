@@ -0,0 +1,184 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Limit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SendableSearchIndexTest {
+    private final User mockUser = new User("mock", "mock");
+    private final Chat mockChat = new Chat(mockUser);
+    @Mock
+    private SendableRepository sendableRepository;
+
+    private SendableSearchIndex searchIndex;
+    private ChatSendable older;
+    private ChatSendable newer;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        searchIndex = new SendableSearchIndex(sendableRepository, 10, 10);
+        older = sendableOf("Meeting at the Office tomorrow");
+        Thread.sleep(1);
+        newer = sendableOf("office party, meeting cancelled");
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchIndex.shutdown();
+    }
+
+    private ChatSendable sendableOf(String message) {
+        ChatSendable sendable = new ChatSendable(mockUser, message);
+        sendable.setContainer(mockChat);
+        return sendable;
+    }
+
+    // read from the newest one, as the index is built
+    private void whenStored(ChatSendable... sendables) {
+        List<SendableView> views = Arrays.stream(sendables).map(SendableView::new).collect(Collectors.toList());
+        Collections.reverse(views);
+        when(sendableRepository.findNewestByContainerId(eq(mockChat.getId()), any(Limit.class))).thenReturn(views);
+    }
+
+    @Nested
+    @DisplayName("search method")
+    class SearchMethodTest {
+        @Test
+        @DisplayName("returns the newest matches first")
+        void returnsTheNewestMatchesFirst() {
+            whenStored(older, newer);
+
+            assertEquals(List.of(newer.getId(), older.getId()), searchIndex.search(mockChat.getId(), "meet", 10));
+        }
+
+        @Test
+        @DisplayName("requires every word of the query to match")
+        void requiresEveryWordOfTheQueryToMatch() {
+            whenStored(older, newer);
+
+            assertEquals(List.of(older.getId()), searchIndex.search(mockChat.getId(), "OFFICE tomorrow", 10));
+        }
+
+        @Test
+        @DisplayName("returns no more hits than the limit")
+        void returnsNoMoreHitsThanTheLimit() {
+            whenStored(older, newer);
+
+            assertEquals(List.of(newer.getId()), searchIndex.search(mockChat.getId(), "office", 1));
+        }
+
+        @Test
+        @DisplayName("reads the history from the newest sendable only until the index is full")
+        void readsTheHistoryFromTheNewestSendableOnlyUntilTheIndexIsFull() {
+            searchIndex.shutdown();
+            searchIndex = new SendableSearchIndex(sendableRepository, 10, 2);
+            whenStored(older, newer);
+
+            assertEquals(List.of(newer.getId(), older.getId()), searchIndex.search(mockChat.getId(), "meet", 10));
+            verify(sendableRepository).findNewestByContainerId(mockChat.getId(), Limit.of(2));
+            verify(sendableRepository, never()).findAllByContainerIdBefore(any(), anyLong(), any());
+        }
+
+        @Test
+        @DisplayName("does not build the index for a query without words")
+        void doesNotBuildTheIndexForAQueryWithoutWords() {
+            assertTrue(searchIndex.search(mockChat.getId(), " ,. ", 10).isEmpty());
+            verifyNoInteractions(sendableRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("write methods")
+    class WriteMethodsTest {
+        @Test
+        @DisplayName("put indexes the new message of a built container")
+        void putIndexesTheNewMessageOfABuiltContainer() {
+            whenStored(older);
+            searchIndex.search(mockChat.getId(), "meeting", 10);
+
+            searchIndex.put(new SendableView(newer));
+
+            assertEquals(List.of(newer.getId()), searchIndex.search(mockChat.getId(), "party", 10));
+        }
+
+        @Test
+        @DisplayName("put replaces the words of an updated message")
+        void putReplacesTheWordsOfAnUpdatedMessage() {
+            whenStored(older);
+            searchIndex.search(mockChat.getId(), "meeting", 10);
+
+            older.updateMessage("lunch");
+            searchIndex.put(new SendableView(older));
+
+            assertTrue(searchIndex.search(mockChat.getId(), "meeting", 10).isEmpty());
+            assertEquals(List.of(older.getId()), searchIndex.search(mockChat.getId(), "lunch", 10));
+        }
+
+        @Test
+        @DisplayName("remove drops the message from the results")
+        void removeDropsTheMessageFromTheResults() {
+            whenStored(older, newer);
+            searchIndex.search(mockChat.getId(), "meeting", 10);
+
+            searchIndex.remove(mockChat.getId(), newer.getId());
+
+            assertEquals(List.of(older.getId()), searchIndex.search(mockChat.getId(), "meeting", 10));
+        }
+
+        @Test
+        @DisplayName("evict rebuilds the index of the container on the next search")
+        void evictRebuildsTheIndexOfTheContainerOnTheNextSearch() {
+            whenStored(older, newer);
+            searchIndex.search(mockChat.getId(), "meeting", 10);
+
+            searchIndex.evict(mockChat.getId());
+            whenStored(older);
+
+            assertEquals(List.of(older.getId()), searchIndex.search(mockChat.getId(), "meeting", 10));
+        }
+
+        @Test
+        @DisplayName("put evicts the oldest message when the limit of the container is exceeded")
+        void putEvictsTheOldestMessageWhenTheLimitOfTheContainerIsExceeded() throws InterruptedException {
+            searchIndex.shutdown();
+            searchIndex = new SendableSearchIndex(sendableRepository, 10, 2);
+            whenStored(older, newer);
+            searchIndex.search(mockChat.getId(), "meeting", 10);
+
+            Thread.sleep(1);
+            ChatSendable newest = sendableOf("meeting moved");
+            searchIndex.put(new SendableView(newest));
+
+            assertEquals(List.of(newest.getId(), newer.getId()), searchIndex.search(mockChat.getId(), "meeting", 10));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableArchiveRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableChangeRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+import pl.mwasyluk.ouroom_server.repos.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Import({SendableSequencesMigration.class, SendableChangeLog.class, SendableArchive.class,
+        JacksonAutoConfiguration.class})
+// the migration commits its chunks and creating the index commits implicitly, so nothing is rolled back
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SendableSequencesMigrationTest {
+    private final User mockUser = new User("mock", "mock");
+    private final Chat mockChat = new Chat(mockUser);
+
+    @Autowired
+    private SendableSequencesMigration sendableSequencesMigration;
+    @Autowired
+    private SendableArchive sendableArchive;
+    @Autowired
+    private SendableRepository sendableRepository;
+    @Autowired
+    private ChatRepository chatRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private SendableArchiveRepository sendableArchiveRepository;
+    @Autowired
+    private SendableChangeRepository sendableChangeRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // the schema preceding the sequence numbers, which the schema update could not create the unique index in
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("ALTER TABLE chat_sendable DROP CONSTRAINT IF EXISTS containers_sequence_unique_index");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS containers_sequence_unique_index");
+        userRepository.save(mockUser);
+        chatRepository.saveAndFlush(mockChat);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sendableChangeRepository.deleteAll();
+        sendableArchiveRepository.deleteAll();
+        sendableRepository.deleteAll();
+        chatRepository.deleteAll();
+        userRepository.deleteAll();
+        sendableRepository.createSequenceUniqueIndex();
+    }
+
+    private ChatSendable saveSendable(long sequence) {
+        ChatSendable sendable = new ChatSendable(mockUser, "text");
+        sendable.setContainer(mockChat);
+        sendable.setSequence(sequence);
+        return sendableRepository.saveAndFlush(sendable);
+    }
+
+    private ChatSendable saveSendable(long sequence, ZonedDateTime createdAt) {
+        ChatSendable sendable = new ChatSendable(mockUser, "text");
+        sendable.setContainer(mockChat);
+        sendable.setSequence(sequence);
+        ReflectionTestUtils.setField(sendable, "createdAt", createdAt);
+        return sendableRepository.saveAndFlush(sendable);
+    }
+
+    private long sequenceOf(ChatSendable sendable) {
+        return sendableRepository.findById(sendable.getId()).orElseThrow().getSequence();
+    }
+
+    @Nested
+    @DisplayName("migrate method")
+    class MigrateMethodTest {
+        @Test
+        @DisplayName("numbers the sendables holding 0 following the numbers already held")
+        void numbersTheSendablesHoldingZeroFollowingTheNumbersAlreadyHeld() {
+            ChatSendable numbered = saveSendable(4);
+            ChatSendable unnumbered = saveSendable(0);
+
+            sendableSequencesMigration.migrate();
+
+            assertEquals(4, sequenceOf(numbered));
+            assertEquals(5, sequenceOf(unnumbered));
+            assertEquals(5, chatRepository.findLastSequenceById(mockChat.getId()).orElseThrow());
+        }
+
+        @Test
+        @DisplayName("raises the counter to the numbers held by the archive only")
+        void raisesTheCounterToTheNumbersHeldByTheArchiveOnly() {
+            ChatSendable archived = saveSendable(6);
+            sendableArchive.append(mockChat.getId(), List.of(new SendableView(archived)));
+            sendableRepository.deleteAllByIdIn(List.of(archived.getId()));
+            ChatSendable unnumbered = saveSendable(0);
+
+            sendableSequencesMigration.migrate();
+
+            assertEquals(7, sequenceOf(unnumbered));
+            assertEquals(7, chatRepository.findLastSequenceById(mockChat.getId()).orElseThrow());
+        }
+
+        @Test
+        @DisplayName("numbers the archived sendables holding 0 ahead of the hot ones")
+        void numbersTheArchivedSendablesHoldingZeroAheadOfTheHotOnes() {
+            List<ChatSendable> archived = List.of(saveSendable(0), saveSendable(0));
+            sendableArchive.append(mockChat.getId(), archived.stream().map(SendableView::new).toList());
+            sendableRepository.deleteAllByIdIn(archived.stream().map(ChatSendable::getId).toList());
+            ChatSendable unnumbered = saveSendable(0);
+
+            sendableSequencesMigration.migrate();
+
+            List<SendableView> archivedViews = sendableArchive.readBefore(mockChat.getId(), null, 10);
+            assertEquals(List.of(archived.get(1).getId(), archived.get(0).getId()),
+                    archivedViews.stream().map(SendableView::id).toList());
+            assertEquals(List.of(2L, 1L), archivedViews.stream().map(SendableView::sequence).toList());
+            assertEquals(3, sequenceOf(unnumbered));
+            assertEquals(3, chatRepository.findLastSequenceById(mockChat.getId()).orElseThrow());
+        }
+
+        @Test
+        @DisplayName("raises the read sequence numbers to the newest sendables before the read watermarks")
+        void raisesTheReadSequenceNumbersToTheNewestSendablesBeforeTheReadWatermarks() {
+            ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            saveSendable(0, now.minusMinutes(2));
+            ChatSendable read = saveSendable(0, now.minusMinutes(1));
+            saveSendable(0, now);
+            memberRepository.advanceReadUpTo(mockUser.getId(), mockChat.getId(), read.getCreatedAt(), 0);
+
+            sendableSequencesMigration.migrate();
+
+            assertEquals(2, sequenceOf(read));
+            assertEquals(2L, jdbcTemplate.queryForObject("SELECT read_sequence FROM chat_member WHERE user_id = ?",
+                    Long.class, mockUser.getId()));
+        }
+
+        @Test
+        @DisplayName("does nothing once the unique index of the numbers exists")
+        void doesNothingOnceTheUniqueIndexOfTheNumbersExists() {
+            ChatSendable unnumbered = saveSendable(0);
+            sendableRepository.createSequenceUniqueIndex();
+
+            sendableSequencesMigration.migrate();
+
+            assertEquals(0, sequenceOf(unnumbered));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SendableSequencesTest {
+    private final User mockUser = new User("mock", "mock");
+    private final Chat mockChat = new Chat(mockUser);
+    @Mock
+    private ChatRepository chatRepository;
+    @Mock
+    private SendableRepository sendableRepository;
+
+    private SendableSequences sequences;
+
+    @BeforeEach
+    void setUp() {
+        sequences = new SendableSequences(chatRepository, sendableRepository, 4, 100);
+    }
+
+    private ChatSendable newSendable(Chat chat) {
+        ChatSendable sendable = new ChatSendable(mockUser, "text");
+        sendable.setContainer(chat);
+        return sendable;
+    }
+
+    private long numberOne(Chat chat) {
+        ChatSendable sendable = newSendable(chat);
+        sequences.numberAll(List.of(sendable));
+        return sendable.getSequence();
+    }
+
+    @Nested
+    @DisplayName("numberAll method")
+    class NumberAllMethodTest {
+        @Test
+        @DisplayName("numbers the sendables of every container in a single block following the highest number")
+        void numbersTheSendablesOfEveryContainerInASingleBlockFollowingTheHighestNumber() {
+            Chat otherChat = new Chat(mockUser);
+            List<ChatSendable> sendables = List.of(newSendable(mockChat), newSendable(otherChat),
+                    newSendable(mockChat));
+
+            when(chatRepository.findLastSequenceById(mockChat.getId())).thenReturn(Optional.of(7L));
+            when(sendableRepository.findMaxSequenceByContainerId(mockChat.getId())).thenReturn(5L);
+            when(chatRepository.findLastSequenceById(otherChat.getId())).thenReturn(Optional.of(0L));
+            when(sendableRepository.findMaxSequenceByContainerId(otherChat.getId())).thenReturn(1L);
+
+            sequences.numberAll(sendables);
+
+            assertEquals(List.of(8L, 2L, 9L), sendables.stream().map(ChatSendable::getSequence).toList());
+        }
+
+        @Test
+        @DisplayName("continues the counter in memory once it has been seeded")
+        void continuesTheCounterInMemoryOnceItHasBeenSeeded() {
+            when(chatRepository.findLastSequenceById(mockChat.getId())).thenReturn(Optional.of(3L));
+
+            assertEquals(4, numberOne(mockChat));
+            assertEquals(5, numberOne(mockChat));
+            verify(chatRepository, times(1)).findLastSequenceById(mockChat.getId());
+            verify(sendableRepository, times(1)).findMaxSequenceByContainerId(mockChat.getId());
+        }
+
+        @Test
+        @DisplayName("seeds the counter again once the transaction of the numbers has been rolled back")
+        void seedsTheCounterAgainOnceTheTransactionOfTheNumbersHasBeenRolledBack() {
+            when(chatRepository.findLastSequenceById(mockChat.getId())).thenReturn(Optional.of(3L));
+
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                assertEquals(4, numberOne(mockChat));
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+
+            assertEquals(4, numberOne(mockChat));
+            verify(chatRepository, times(2)).findLastSequenceById(mockChat.getId());
+        }
+
+        @Test
+        @DisplayName("seeds the counter again once it has been dropped as the least recently used one")
+        void seedsTheCounterAgainOnceItHasBeenDroppedAsTheLeastRecentlyUsedOne() {
+            sequences = new SendableSequences(chatRepository, sendableRepository, 1, 1);
+            Chat otherChat = new Chat(mockUser);
+            when(chatRepository.findLastSequenceById(mockChat.getId())).thenReturn(Optional.of(3L));
+            when(chatRepository.findLastSequenceById(otherChat.getId())).thenReturn(Optional.of(0L));
+
+            numberOne(mockChat);
+            numberOne(otherChat);
+            numberOne(mockChat);
+
+            verify(chatRepository, times(2)).findLastSequenceById(mockChat.getId());
+        }
+    }
+
+    @Nested
+    @DisplayName("allocate method")
+    class AllocateMethodTest {
+        @Test
+        @DisplayName("throws IllegalArgumentException when no number is requested")
+        void throwsIllegalArgumentExceptionWhenNoNumberIsRequested() {
+            assertThrowsExactly(IllegalArgumentException.class, () -> sequences.allocate(mockChat.getId(), 0));
+            verifyNoInteractions(chatRepository, sendableRepository);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableState;
+import pl.mwasyluk.ouroom_server.dto.member.MemberWatermarkView;
+import pl.mwasyluk.ouroom_server.dto.sendable.SendableView;
+import pl.mwasyluk.ouroom_server.repos.MemberRepository;
+import pl.mwasyluk.ouroom_server.websocket.NotificationTemplate;
+import pl.mwasyluk.ouroom_server.websocket.Topic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SendableWatermarksTest {
+    private final ZonedDateTime now = ZonedDateTime.now();
+    private final UUID chatId = UUID.randomUUID();
+    private final UUID creatorId = UUID.randomUUID();
+    private final UUID readerId = UUID.randomUUID();
+    private final UUID otherReaderId = UUID.randomUUID();
+    @Mock
+    private MemberRepository memberRepository;
+    @Mock
+    private NotificationTemplate notificationTemplate;
+
+    private SendableWatermarks watermarks;
+
+    @BeforeEach
+    void setUp() {
+        watermarks = new SendableWatermarks(memberRepository, notificationTemplate, 4, 100);
+    }
+
+    private SendableView viewAt(int minute) {
+        return new SendableView(UUID.randomUUID(), chatId, creatorId, now.plusMinutes(minute), "SENT", "m", false);
+    }
+
+    private MemberWatermarkView watermark(UUID userId, Integer readMinute, Integer deliveredMinute) {
+        return new MemberWatermarkView(chatId, userId,
+                readMinute == null ? null : now.plusMinutes(readMinute),
+                deliveredMinute == null ? null : now.plusMinutes(deliveredMinute));
+    }
+
+    @Nested
+    @DisplayName("applyStates method")
+    class ApplyStatesMethodTest {
+        @Test
+        @DisplayName("does not query watermarks when there are no views")
+        void doesNotQueryWatermarksWhenThereAreNoViews() {
+            assertEquals(List.of(), watermarks.applyStates(chatId, List.of()));
+            verifyNoInteractions(memberRepository);
+        }
+
+        @Test
+        @DisplayName("derives states from the lowest watermarks of members other than the creator")
+        void derivesStatesFromTheLowestWatermarksOfMembersOtherThanTheCreator() {
+            when(memberRepository.findAllWatermarksByMembershipId(chatId)).thenReturn(List.of(
+                    watermark(creatorId, null, null),
+                    watermark(readerId, 3, 3),
+                    watermark(otherReaderId, 1, 2)));
+
+            List<SendableView> views = watermarks.applyStates(chatId, List.of(viewAt(1), viewAt(2), viewAt(3)));
+
+            assertEquals(List.of("READ", "DELIVERED", "SENT"), views.stream().map(SendableView::state).toList());
+        }
+
+        @Test
+        @DisplayName("keeps SENT state when the creator is the only member")
+        void keepsSentStateWhenTheCreatorIsTheOnlyMember() {
+            when(memberRepository.findAllWatermarksByMembershipId(chatId))
+                    .thenReturn(List.of(watermark(creatorId, 5, 5)));
+
+            List<SendableView> views = watermarks.applyStates(chatId, List.of(viewAt(1)));
+
+            assertEquals("SENT", views.get(0).state());
+        }
+
+        @Test
+        @DisplayName("reads the watermarks of the chat once and moves them with the advanced ones")
+        void readsTheWatermarksOfTheChatOnceAndMovesThemWithTheAdvancedOnes() {
+            when(memberRepository.findAllWatermarksByMembershipId(chatId)).thenReturn(List.of(
+                    watermark(creatorId, null, null),
+                    watermark(readerId, 1, 1)));
+            watermarks.applyStates(chatId, List.of(viewAt(2)));
+            when(memberRepository.advanceReadUpTo(readerId, chatId, now.plusMinutes(2), 2)).thenReturn(1);
+
+            watermarks.advance(readerId, chatId, now.plusMinutes(2), 2, SendableState.READ);
+            List<SendableView> views = watermarks.applyStates(chatId, List.of(viewAt(2)));
+
+            assertEquals("READ", views.get(0).state());
+            verify(memberRepository, times(1)).findAllWatermarksByMembershipId(chatId);
+        }
+
+        @Test
+        @DisplayName("reads the watermarks again once the members of the chat have changed")
+        void readsTheWatermarksAgainOnceTheMembersOfTheChatHaveChanged() {
+            when(memberRepository.findAllWatermarksByMembershipId(chatId))
+                    .thenReturn(List.of(watermark(creatorId, null, null), watermark(readerId, 1, 1)))
+                    .thenReturn(List.of(watermark(creatorId, null, null), watermark(readerId, 1, 1),
+                            watermark(otherReaderId, null, null)));
+            assertEquals("READ", watermarks.applyStates(chatId, List.of(viewAt(1))).get(0).state());
+
+            watermarks.membersChanged(chatId);
+
+            assertEquals("SENT", watermarks.applyStates(chatId, List.of(viewAt(1))).get(0).state());
+            verify(memberRepository, times(2)).findAllWatermarksByMembershipId(chatId);
+        }
+    }
+
+    @Nested
+    @DisplayName("advance method")
+    class AdvanceMethodTest {
+        @Test
+        @DisplayName("notifies the members when the read watermark moves")
+        void notifiesTheMembersWhenTheReadWatermarkMoves() {
+            when(memberRepository.advanceReadUpTo(readerId, chatId, now, 3)).thenReturn(1);
+
+            watermarks.advance(readerId, chatId, now, 3, SendableState.READ);
+
+            verify(notificationTemplate).notifyAllMembers(eq(chatId), eq(Topic.MESSAGES), any());
+        }
+
+        @Test
+        @DisplayName("does not notify the members when no watermark moves")
+        void doesNotNotifyTheMembersWhenNoWatermarkMoves() {
+            watermarks.advance(readerId, chatId, now, 3, SendableState.DELIVERED);
+
+            verify(notificationTemplate, never()).notifyAllMembers(any(), any(), any());
+        }
+    }
+}
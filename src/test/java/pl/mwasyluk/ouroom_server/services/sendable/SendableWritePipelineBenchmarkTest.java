@@ -0,0 +1,98 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableChangeRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+import pl.mwasyluk.ouroom_server.repos.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ Measures inserts per second of concurrent Sendable creation with the write pipeline disabled and enabled.
+ <br> Run with {@code -Dbenchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+@Import({SendableChangeLog.class, SendableSequences.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SendableWritePipelineBenchmarkTest {
+    private static final int THREADS = 32;
+    private static final int INSERTS_PER_THREAD = 200;
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private SendableChangeLog sendableChangeLog;
+    @Autowired
+    private SendableRepository sendableRepository;
+    @Autowired
+    private SendableChangeRepository sendableChangeRepository;
+    @Autowired
+    private SendableSequences sendableSequences;
+    @Autowired
+    private ChatRepository chatRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private double measureInsertsPerSecond(SendableWritePipeline pipeline) throws Exception {
+        User user = userRepository.save(new User("bench" + System.nanoTime(), "bench"));
+        Chat chat = chatRepository.save(new Chat(user));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < INSERTS_PER_THREAD; i++) {
+                    ChatSendable sendable = new ChatSendable(user, "message " + i);
+                    sendable.setContainer(Chat.mockOf(chat.getId()));
+                    pipeline.insert(sendable);
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        pipeline.shutdown();
+
+        assertEquals(THREADS * INSERTS_PER_THREAD, sendableRepository.findAllByContainerId(chat.getId()).size());
+        return THREADS * INSERTS_PER_THREAD / (elapsed / 1_000_000_000.0);
+    }
+
+    @Test
+    void comparesInsertsPerSecondWithPipelineDisabledAndEnabled() throws Exception {
+        SendableBatchWriter writer = new SendableBatchWriter(entityManager, sendableChangeLog, sendableSequences);
+
+        double disabled = measureInsertsPerSecond(new SendableWritePipeline(
+                sendableRepository, sendableChangeLog, writer, sendableSequences, false, 50, 5));
+        double enabled = measureInsertsPerSecond(new SendableWritePipeline(
+                sendableRepository, sendableChangeLog, writer, sendableSequences, true, 50, 5));
+
+        log.info("Sendable inserts/s - pipeline disabled: {}, enabled: {}", Math.round(disabled), Math.round(enabled));
+    }
+}
@@ -0,0 +1,194 @@
+package pl.mwasyluk.ouroom_server.services.sendable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import pl.mwasyluk.ouroom_server.domain.container.Chat;
+import pl.mwasyluk.ouroom_server.domain.sendable.ChatSendable;
+import pl.mwasyluk.ouroom_server.domain.sendable.SendableChange;
+import pl.mwasyluk.ouroom_server.domain.user.User;
+import pl.mwasyluk.ouroom_server.repos.ChatRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableChangeRepository;
+import pl.mwasyluk.ouroom_server.repos.SendableRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SendableWritePipelineTest {
+    private final User mockUser = new User("mock", "mock");
+    private final Chat mockChat = new Chat(mockUser);
+    @Mock
+    private SendableRepository sendableRepository;
+    @Mock
+    private SendableChangeRepository sendableChangeRepository;
+    @Mock
+    private SendableBatchWriter batchWriter;
+    @Mock
+    private ChatRepository chatRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SendableChangeLog changeLog;
+    private SendableSequences sequences;
+    private SendableWritePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new SendableChangeLog(sendableChangeRepository, transactionManager, 4);
+        sequences = new SendableSequences(chatRepository, sendableRepository, 4, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    private ChatSendable newSendable() {
+        return newSendable(mockChat);
+    }
+
+    private ChatSendable newSendable(Chat chat) {
+        ChatSendable sendable = new ChatSendable(mockUser, "text");
+        sendable.setContainer(chat);
+        return sendable;
+    }
+
+    private List<Future<ChatSendable>> insertConcurrently(List<ChatSendable> sendables) {
+        ExecutorService executor = Executors.newFixedThreadPool(sendables.size());
+        List<Future<ChatSendable>> results = new ArrayList<>();
+        sendables.forEach(sendable -> results.add(executor.submit(() -> pipeline.insert(sendable))));
+        executor.shutdown();
+        return results;
+    }
+
+    @Nested
+    @DisplayName("when disabled")
+    class DisabledTest {
+        @Test
+        @DisplayName("saves the sendable and its change in one transaction of the calling thread")
+        void savesTheSendableAndItsChangeInOneTransactionOfTheCallingThread() {
+            pipeline = new SendableWritePipeline(sendableRepository, changeLog, batchWriter, sequences,
+                    false, 10, 5);
+            ChatSendable sendable = newSendable();
+            when(sendableRepository.save(sendable)).thenReturn(sendable);
+
+            assertSame(sendable, pipeline.insert(sendable));
+            verify(sendableChangeRepository).save(any(SendableChange.class));
+            verify(transactionManager, times(1)).commit(any());
+            verify(batchWriter, never()).insertAll(anyList());
+        }
+
+        @Test
+        @DisplayName("numbers the sendable in the transaction of its insert")
+        void numbersTheSendableInTheTransactionOfItsInsert() {
+            pipeline = new SendableWritePipeline(sendableRepository, changeLog, batchWriter, sequences,
+                    false, 10, 5);
+            when(chatRepository.findLastSequenceById(mockChat.getId())).thenReturn(Optional.of(3L));
+            when(sendableRepository.save(any(ChatSendable.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            assertEquals(4, pipeline.insert(newSendable()).getSequence());
+            verify(transactionManager, times(1)).commit(any());
+        }
+
+        @Test
+        @DisplayName("rolls the number of a failed insert back together with the insert")
+        void rollsTheNumberOfAFailedInsertBackTogetherWithTheInsert() {
+            pipeline = new SendableWritePipeline(sendableRepository, changeLog, batchWriter, sequences,
+                    false, 10, 5);
+            when(sendableRepository.save(any(ChatSendable.class))).thenThrow(new IllegalArgumentException());
+
+            assertThrowsExactly(IllegalArgumentException.class, () -> pipeline.insert(newSendable()));
+            verify(transactionManager).rollback(any());
+            verify(transactionManager, never()).commit(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("insertAll method")
+    class InsertAllMethodTest {
+        @Test
+        @DisplayName("writes the sendables by the batch writer")
+        void writesTheSendablesByTheBatchWriter() {
+            pipeline = new SendableWritePipeline(sendableRepository, changeLog, batchWriter, sequences,
+                    false, 10, 5);
+            List<ChatSendable> sendables = List.of(newSendable(), newSendable(new Chat(mockUser)));
+
+            pipeline.insertAll(sendables);
+
+            verify(batchWriter).insertAll(sendables);
+            verify(sendableRepository, never()).save(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("when enabled")
+    class EnabledTest {
+        @Test
+        @DisplayName("writes concurrent inserts as one group")
+        @SuppressWarnings("unchecked")
+        void writesConcurrentInsertsAsOneGroup() throws Exception {
+            pipeline = new SendableWritePipeline(sendableRepository, changeLog, batchWriter, sequences,
+                    true, 10, 500);
+            List<ChatSendable> sendables = List.of(newSendable(), newSendable(), newSendable(), newSendable());
+
+            List<Future<ChatSendable>> results = insertConcurrently(sendables);
+            for (int i = 0; i < sendables.size(); i++) {
+                assertSame(sendables.get(i), results.get(i).get());
+            }
+
+            ArgumentCaptor<List<ChatSendable>> group = ArgumentCaptor.forClass(List.class);
+            verify(batchWriter, times(1)).insertAll(group.capture());
+            assertEquals(sendables.size(), group.getValue().size());
+            verify(sendableRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("inserts the group one by one when the group insert fails")
+        void insertsTheGroupOneByOneWhenTheGroupInsertFails() throws Exception {
+            pipeline = new SendableWritePipeline(sendableRepository, changeLog, batchWriter, sequences,
+                    true, 1, 0);
+            ChatSendable sendable = newSendable();
+            doThrow(new IllegalStateException()).when(batchWriter).insertAll(anyList());
+            when(sendableRepository.save(sendable)).thenReturn(sendable);
+
+            assertSame(sendable, pipeline.insert(sendable));
+            verify(sendableChangeRepository).save(any(SendableChange.class));
+        }
+
+        @Test
+        @DisplayName("rethrows the exception of a failed insert to its caller")
+        void rethrowsTheExceptionOfAFailedInsertToItsCaller() {
+            pipeline = new SendableWritePipeline(sendableRepository, changeLog, batchWriter, sequences,
+                    true, 1, 0);
+            ChatSendable sendable = newSendable();
+            doThrow(new IllegalStateException()).when(batchWriter).insertAll(anyList());
+            when(sendableRepository.save(sendable)).thenThrow(new IllegalArgumentException());
+
+            assertThrowsExactly(IllegalArgumentException.class, () -> pipeline.insert(sendable));
+        }
+    }
+}